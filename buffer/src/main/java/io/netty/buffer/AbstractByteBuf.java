@@ -800,6 +800,14 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return slice;
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        checkReadableBytes(length);
+        ByteBuf slice = retainedSlice(readerIndex, length);
+        readerIndex += length;
+        return slice;
+    }
+
     @Override
     public ByteBuf readBytes(byte[] dst, int dstIndex, int length) {
         checkReadableBytes(length);
@@ -1116,16 +1124,31 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return new DuplicatedAbstractByteBuf(this);
     }
 
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return duplicate().retain();
+    }
+
     @Override
     public ByteBuf slice() {
         return slice(readerIndex, readableBytes());
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return retainedSlice(readerIndex, readableBytes());
+    }
+
     @Override
     public ByteBuf slice(int index, int length) {
         return new SlicedAbstractByteBuf(this, index, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return slice(index, length).retain();
+    }
+
     @Override
     public ByteBuffer nioBuffer() {
         return nioBuffer(readerIndex, readableBytes());
@@ -1195,6 +1218,23 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
 
         final int endIndex = index + length;
+        // The processors which only look for delimiters are handled a word at a time.
+        if (processor == ByteProcessor.FIND_LF) {
+            return firstIndexOf0(index, endIndex, (byte) '\n');
+        }
+        if (processor == ByteProcessor.FIND_CRLF) {
+            return firstIndexOf0(index, endIndex, (byte) '\r', (byte) '\n');
+        }
+        if (processor == ByteProcessor.FIND_NUL) {
+            return firstIndexOf0(index, endIndex, (byte) 0);
+        }
+        if (processor == ByteProcessor.FIND_CR) {
+            return firstIndexOf0(index, endIndex, (byte) '\r');
+        }
+        if (processor == ByteProcessor.FIND_SEMI_COLON) {
+            return firstIndexOf0(index, endIndex, (byte) ';');
+        }
+
         int i = index;
         try {
             do {
@@ -1211,6 +1251,105 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return -1;
     }
 
+    /**
+     * Returns the index of the first occurrence of {@code value} between {@code fromIndex} (inclusive) and
+     * {@code toIndex} (exclusive) or {@code -1}. The bytes are compared 8 at a time via {@link #_getLong(int)}, so
+     * the indexes must have been checked by the caller.
+     */
+    final int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        if (!isWordAccessFast()) {
+            return firstIndexOfByteByByte(fromIndex, toIndex, value);
+        }
+        final boolean bigEndian = order() == ByteOrder.BIG_ENDIAN;
+        final long pattern = compilePattern(value);
+        int i = fromIndex;
+        for (final int wordEnd = toIndex - 7; i < wordEnd; i += 8) {
+            long mask = zeroBytes(_getLong(i) ^ pattern);
+            if (mask != 0) {
+                return i + firstZeroByte(mask, bigEndian);
+            }
+        }
+        return firstIndexOfByteByByte(i, toIndex, value);
+    }
+
+    private int firstIndexOfByteByByte(int fromIndex, int toIndex, byte value) {
+        for (int i = fromIndex; i < toIndex; i ++) {
+            if (_getByte(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of either {@code value1} or {@code value2} between
+     * {@code fromIndex} (inclusive) and {@code toIndex} (exclusive) or {@code -1}.
+     *
+     * @see #firstIndexOf0(int, int, byte)
+     */
+    final int firstIndexOf0(int fromIndex, int toIndex, byte value1, byte value2) {
+        if (!isWordAccessFast()) {
+            return firstIndexOfByteByByte(fromIndex, toIndex, value1, value2);
+        }
+        final boolean bigEndian = order() == ByteOrder.BIG_ENDIAN;
+        final long pattern1 = compilePattern(value1);
+        final long pattern2 = compilePattern(value2);
+        int i = fromIndex;
+        for (final int wordEnd = toIndex - 7; i < wordEnd; i += 8) {
+            long word = _getLong(i);
+            long mask = zeroBytes(word ^ pattern1) | zeroBytes(word ^ pattern2);
+            if (mask != 0) {
+                return i + firstZeroByte(mask, bigEndian);
+            }
+        }
+        return firstIndexOfByteByByte(i, toIndex, value1, value2);
+    }
+
+    private int firstIndexOfByteByByte(int fromIndex, int toIndex, byte value1, byte value2) {
+        for (int i = fromIndex; i < toIndex; i ++) {
+            byte b = _getByte(i);
+            if (b == value1 || b == value2) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code true} if {@link #_getLong(int)} is about as cheap as {@link #_getByte(int)}, so searching a word
+     * at a time is faster than looking at every byte. This is not the case for a byte array which can not be read
+     * via {@code sun.misc.Unsafe}, as the word has to be assembled from single bytes then.
+     */
+    boolean isWordAccessFast() {
+        ByteBuf unwrapped = unwrap();
+        if (unwrapped instanceof AbstractByteBuf) {
+            return ((AbstractByteBuf) unwrapped).isWordAccessFast();
+        }
+        return isDirect() || PlatformDependent.isUnaligned();
+    }
+
+    private static long compilePattern(byte value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * Returns a word which has the high bit set in every byte that is zero in {@code word} and all other bits
+     * cleared. Unlike the shorter {@code (word - 0x01..) & ~word & 0x80..} no carry crosses byte boundaries, so
+     * there are no false positives next to a zero byte.
+     */
+    private static long zeroBytes(long word) {
+        long tmp = (word & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return ~(tmp | word | 0x7F7F7F7F7F7F7F7FL);
+    }
+
+    /**
+     * Returns the offset of the first flagged byte of a mask returned by {@link #zeroBytes(long)}. The first byte
+     * of the buffer is the most significant byte of {@link #_getLong(int)} for a big endian buffer.
+     */
+    private static int firstZeroByte(long mask, boolean bigEndian) {
+        return (bigEndian ? Long.numberOfLeadingZeros(mask) : Long.numberOfTrailingZeros(mask)) >>> 3;
+    }
+
     @Override
     public int forEachByteDesc(ByteProcessor processor) {
         int index = readerIndex;
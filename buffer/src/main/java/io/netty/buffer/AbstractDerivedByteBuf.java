@@ -28,6 +28,17 @@ public abstract class AbstractDerivedByteBuf extends AbstractByteBuf {
         super(maxCapacity);
     }
 
+    /**
+     * Makes the reference count of the given buffer, to which {@link #retain()} and {@link #release()} are forwarded,
+     * safe to be updated by multiple threads. The derived buffer may be released by another thread than the one the
+     * reference count is confined to while that thread still uses the given buffer.
+     */
+    static void shareRefCnt(ByteBuf buffer) {
+        if (buffer instanceof AbstractReferenceCountedByteBuf) {
+            ((AbstractReferenceCountedByteBuf) buffer).share();
+        }
+    }
+
     @Override
     public final int refCnt() {
         return unwrap().refCnt();
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.Recycler.Handle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Abstract base class for derived {@link ByteBuf} implementations which are pooled via the
+ * {@link io.netty.util.Recycler} and are returned by {@link ByteBuf#retainedSlice()} and
+ * {@link ByteBuf#retainedDuplicate()}.
+ *
+ * A derived buffer has its own reference count and holds one reference of the buffer it was derived from. Once the
+ * reference count of the derived buffer drops to {@code 0} it is recycled and the reference of its parent released.
+ */
+abstract class AbstractPooledDerivedByteBuf extends AbstractReferenceCountedByteBuf {
+
+    private final Handle<AbstractPooledDerivedByteBuf> recyclerHandle;
+    private AbstractByteBuf rootParent;
+    /**
+     * The buffer which holds the reference that is released once this buffer is deallocated. This is not necessarily
+     * the same as {@link #rootParent} as a derived buffer may itself be derived from another derived buffer.
+     */
+    private AbstractReferenceCountedByteBuf parent;
+
+    @SuppressWarnings("unchecked")
+    AbstractPooledDerivedByteBuf(Handle<? extends AbstractPooledDerivedByteBuf> recyclerHandle) {
+        super(0);
+        this.recyclerHandle = (Handle<AbstractPooledDerivedByteBuf>) recyclerHandle;
+    }
+
+    // Called from within the newInstance(...) methods of the subclasses.
+    final <U extends AbstractPooledDerivedByteBuf> U init(
+            AbstractByteBuf unwrapped, AbstractReferenceCountedByteBuf wrapped,
+            int readerIndex, int writerIndex, int maxCapacity) {
+        // This buffer may be released by another thread than the one the parent is confined to while that thread
+        // still uses the parent, so the reference count of the parent must be updated atomically from now on.
+        Thread owner = wrapped.confinedTo();
+        wrapped.share();
+        wrapped.retain(); // Retain up front to ensure the parent is accessible before doing more work.
+        parent = wrapped;
+        rootParent = unwrapped;
+
+        try {
+            // Derived buffers are usually released by the thread which created them, so inherit the confinement.
+            if (owner == Thread.currentThread()) {
+                confine(owner);
+            }
+            maxCapacity(maxCapacity);
+            setIndex0(readerIndex, writerIndex); // It is assumed the bounds checking is done by the caller.
+            setRefCnt(1);
+            discardMarks();
+
+            @SuppressWarnings("unchecked")
+            final U castThis = (U) this;
+            wrapped = null;
+            return castThis;
+        } finally {
+            if (wrapped != null) {
+                parent = null;
+                rootParent = null;
+                wrapped.release();
+            }
+        }
+    }
+
+    @Override
+    protected final void deallocate() {
+        // We need to first store a reference to the parent before recycle this instance. This is needed as
+        // otherwise it is possible that the same AbstractPooledDerivedByteBuf is again obtained and init(...) is
+        // called before we actually have a chance to call release(). This leads to call release() on the wrong parent.
+        ByteBuf parent = this.parent;
+        if (confinedTo() != null) {
+            confine(null);
+        }
+        recyclerHandle.recycle(this);
+        parent.release();
+    }
+
+    @Override
+    final void share() {
+        super.share();
+        parent.share();
+    }
+
+    @Override
+    public final ByteBufAllocator alloc() {
+        return unwrap().alloc();
+    }
+
+    @Override
+    public final ByteOrder order() {
+        return unwrap().order();
+    }
+
+    @Override
+    public final AbstractByteBuf unwrap() {
+        return rootParent;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return unwrap().isDirect();
+    }
+
+    @Override
+    public boolean hasArray() {
+        return unwrap().hasArray();
+    }
+
+    @Override
+    public byte[] array() {
+        return unwrap().array();
+    }
+
+    @Override
+    public boolean hasMemoryAddress() {
+        return unwrap().hasMemoryAddress();
+    }
+
+    @Override
+    public final int nioBufferCount() {
+        return unwrap().nioBufferCount();
+    }
+
+    @Override
+    public final ByteBuffer internalNioBuffer(int index, int length) {
+        return nioBuffer(index, length);
+    }
+
+    @Override
+    public final ByteBuf slice(int index, int length) {
+        // Derived buffers of this buffer must not be pooled as they share the reference count of this buffer, which
+        // is recycled once it is released.
+        return new SlicedAbstractByteBuf(this, index, length);
+    }
+
+    @Override
+    public final ByteBuf duplicate() {
+        return new DuplicatedAbstractByteBuf(this);
+    }
+}
@@ -39,6 +39,12 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
 
     private volatile int refCnt = 1;
 
+    /**
+     * The {@link Thread} which exclusively updates the reference count with plain writes, or {@code null} if the
+     * reference count is updated atomically.
+     */
+    private volatile Thread owner;
+
     protected AbstractReferenceCountedByteBuf(int maxCapacity) {
         super(maxCapacity);
     }
@@ -55,8 +61,53 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         this.refCnt = refCnt;
     }
 
+    /**
+     * Confines the reference count of this buffer to the given {@link Thread}, which then updates it without atomic
+     * operations, or makes the updates atomic again if {@code null}.
+     */
+    final void confine(Thread owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the {@link Thread} the reference count of this buffer is confined to, or {@code null}.
+     */
+    final Thread confinedTo() {
+        return owner;
+    }
+
+    /**
+     * Makes the reference count of this buffer safe to be updated by multiple threads concurrently.
+     */
+    void share() {
+        if (owner != null) {
+            owner = null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the reference count can be updated without atomic operations by the calling thread.
+     * Once another thread updates the reference count the buffer was handed over, so all following updates are
+     * atomic. This is only safe if the thread the buffer is confined to does not update the reference count anymore
+     * and the buffer was handed over via a happens-before edge, like a task queue, as its plain writes are not ordered
+     * with the atomic updates of other threads. For this reason derived buffers, which may be released by any thread,
+     * make the reference count of the buffer they were derived from atomic when they are created.
+     */
+    private boolean isConfinedToCurrentThread() {
+        Thread owner = this.owner;
+        if (owner == null) {
+            return false;
+        }
+        if (owner == Thread.currentThread()) {
+            return true;
+        }
+        this.owner = null;
+        return false;
+    }
+
     @Override
     public ByteBuf retain() {
+        final boolean confined = isConfinedToCurrentThread();
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -65,6 +116,10 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
             if (refCnt == Integer.MAX_VALUE) {
                 throw new IllegalReferenceCountException(Integer.MAX_VALUE, 1);
             }
+            if (confined) {
+                refCntUpdater.lazySet(this, refCnt + 1);
+                break;
+            }
             if (refCntUpdater.compareAndSet(this, refCnt, refCnt + 1)) {
                 break;
             }
@@ -78,6 +133,7 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
             throw new IllegalArgumentException("increment: " + increment + " (expected: > 0)");
         }
 
+        final boolean confined = isConfinedToCurrentThread();
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -86,6 +142,10 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
             if (refCnt > Integer.MAX_VALUE - increment) {
                 throw new IllegalReferenceCountException(refCnt, increment);
             }
+            if (confined) {
+                refCntUpdater.lazySet(this, refCnt + increment);
+                break;
+            }
             if (refCntUpdater.compareAndSet(this, refCnt, refCnt + increment)) {
                 break;
             }
@@ -105,19 +165,23 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
 
     @Override
     public boolean release() {
+        final boolean confined = isConfinedToCurrentThread();
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
                 throw new IllegalReferenceCountException(0, -1);
             }
 
-            if (refCntUpdater.compareAndSet(this, refCnt, refCnt - 1)) {
-                if (refCnt == 1) {
-                    deallocate();
-                    return true;
-                }
-                return false;
+            if (confined) {
+                refCntUpdater.lazySet(this, refCnt - 1);
+            } else if (!refCntUpdater.compareAndSet(this, refCnt, refCnt - 1)) {
+                continue;
+            }
+            if (refCnt == 1) {
+                deallocate();
+                return true;
             }
+            return false;
         }
     }
 
@@ -127,19 +191,23 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
             throw new IllegalArgumentException("decrement: " + decrement + " (expected: > 0)");
         }
 
+        final boolean confined = isConfinedToCurrentThread();
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt < decrement) {
                 throw new IllegalReferenceCountException(refCnt, -decrement);
             }
 
-            if (refCntUpdater.compareAndSet(this, refCnt, refCnt - decrement)) {
-                if (refCnt == decrement) {
-                    deallocate();
-                    return true;
-                }
-                return false;
+            if (confined) {
+                refCntUpdater.lazySet(this, refCnt - decrement);
+            } else if (!refCntUpdater.compareAndSet(this, refCnt, refCnt - decrement)) {
+                continue;
+            }
+            if (refCnt == decrement) {
+                deallocate();
+                return true;
             }
+            return false;
         }
     }
 
@@ -76,6 +76,29 @@ final class AdvancedLeakAwareCompositeByteBuf extends WrappedCompositeByteBuf {
         return new AdvancedLeakAwareByteBuf(super.readSlice(length), leak);
     }
 
+    // The retained derived buffers must be released via a leak-aware buffer which shares the leak of this buffer, so
+    // the leak is closed once the last reference is released.
+
+    @Override
+    public ByteBuf retainedSlice() {
+        return slice().retain();
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return slice(index, length).retain();
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return duplicate().retain();
+    }
+
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        return readSlice(length).retain();
+    }
+
     @Override
     public CompositeByteBuf discardReadBytes() {
         recordLeakNonRefCountingOperation(leak);
@@ -343,6 +343,12 @@ public final class ByteBufUtil {
             return -1;
         }
 
+        if (buffer instanceof AbstractByteBuf) {
+            // Search a word at a time instead of calling a ByteProcessor for every byte.
+            AbstractByteBuf buf = (AbstractByteBuf) buffer;
+            buf.checkIndex(fromIndex, toIndex - fromIndex);
+            return buf.firstIndexOf0(fromIndex, toIndex, value);
+        }
         return buffer.forEachByte(fromIndex, toIndex - fromIndex, new ByteProcessor.IndexOfProcessor(value));
     }
 
@@ -623,6 +629,28 @@ public final class ByteBufUtil {
         }
     }
 
+    /**
+     * Prepares the given {@link ByteBuf} and the buffers it was derived from to be retained and released by multiple
+     * threads at the same time. This is only needed for buffers of a {@link PooledByteBufAllocator} which confines
+     * the reference count to the allocating thread, and must be called before the buffer is handed to the other
+     * threads.
+     *
+     * @return the given {@link ByteBuf}
+     */
+    public static ByteBuf share(ByteBuf buf) {
+        for (ByteBuf b = buf; b != null; b = b.unwrap()) {
+            if (b instanceof AbstractReferenceCountedByteBuf) {
+                ((AbstractReferenceCountedByteBuf) b).share();
+            }
+            if (b instanceof CompositeByteBuf) {
+                for (ByteBuf component: (CompositeByteBuf) b) {
+                    share(component);
+                }
+            }
+        }
+        return buf;
+    }
+
     /**
      * Create a copy of the underlying storage from {@code buf} into a byte array.
      * The copy will start at {@link ByteBuf#readerIndex()} and copy {@link ByteBuf#readableBytes()} bytes.
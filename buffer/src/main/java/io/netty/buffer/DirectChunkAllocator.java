@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates the memory of the chunks of the direct arenas of a {@link PooledByteBufAllocator}. This allows to back
+ * the pooled direct buffers with memory which has special properties, like memory which is backed by huge pages.
+ */
+public interface DirectChunkAllocator {
+
+    /**
+     * Returns a new direct {@link ByteBuffer} whose capacity is exactly {@code capacity}.
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * Releases a {@link ByteBuffer} which was returned by {@link #allocate(int)}. It is not accessed anymore once
+     * this method was called.
+     */
+    void free(ByteBuffer buffer);
+}
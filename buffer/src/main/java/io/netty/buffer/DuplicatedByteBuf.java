@@ -44,6 +44,7 @@ public class DuplicatedByteBuf extends AbstractDerivedByteBuf {
         } else {
             this.buffer = buffer;
         }
+        shareRefCnt(this.buffer);
 
         setIndex(buffer.readerIndex(), buffer.writerIndex());
         markReaderIndex();
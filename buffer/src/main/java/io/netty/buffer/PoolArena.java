@@ -45,78 +45,94 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     final int chunkSize;
     final int subpageOverflowMask;
     final int numSmallSubpagePools;
+    // If true sizes >= 512 are spaced with four size classes per doubling and PoolChunk allocates runs of pages
+    // instead of using the buddy tree.
+    final boolean fineSizeClasses;
+    // Allocations smaller than this are served by PoolSubpages. Only used when fineSizeClasses is true.
+    private final int smallLimit;
+    private final int log2SmallLimit;
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
 
-    private final PoolChunkList<T> q050;
-    private final PoolChunkList<T> q025;
-    private final PoolChunkList<T> q000;
-    private final PoolChunkList<T> qInit;
-    private final PoolChunkList<T> q075;
-    private final PoolChunkList<T> q100;
+    // The chunks of the arena are split between the stripes. Each stripe has its own chunk lists and lock, so
+    // threads which use different stripes can allocate and free normal sizes concurrently.
+    private final Stripe<T>[] stripes;
 
     private final List<PoolChunkListMetric> chunkListMetrics;
 
     // Metrics for allocations and deallocations
-    private long allocationsNormal;
-    // We need to use the LongCounter here as this is not guarded via synchronized block.
+    // We need to use the LongCounter here as these are not guarded via one synchronized block.
     private final LongCounter allocationsTiny = PlatformDependent.newLongCounter();
     private final LongCounter allocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsNormal = PlatformDependent.newLongCounter();
     private final LongCounter allocationsHuge = PlatformDependent.newLongCounter();
 
-    private long deallocationsTiny;
-    private long deallocationsSmall;
-    private long deallocationsNormal;
-
-    // We need to use the LongCounter here as this is not guarded via synchronized block.
+    private final LongCounter deallocationsTiny = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsNormal = PlatformDependent.newLongCounter();
     private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
 
+    // Number of buffers released by another thread than the allocating one which were added to the thread cache of
+    // the allocating thread.
+    private final LongCounter crossThreadCachedDeallocations = PlatformDependent.newLongCounter();
+
+    // Number of bytes released via trim(...)
+    private final LongCounter trimmedBytes = PlatformDependent.newLongCounter();
+
+    // Cache for the chunks that back huge allocations or null if disabled.
+    private final PoolHugeChunkCache<T> hugeChunkCache;
+
     // Number of thread caches backed by this arena.
     final AtomicInteger numThreadCaches = new AtomicInteger();
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
+    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                        long maxCachedHugeBytes, long hugeCacheIdleTimeoutNanos, boolean fineSizeClasses,
+                        int numStripes) {
+        if (numStripes <= 0) {
+            throw new IllegalArgumentException("numStripes: " + numStripes + " (expected: > 0)");
+        }
         this.parent = parent;
         this.pageSize = pageSize;
         this.maxOrder = maxOrder;
         this.pageShifts = pageShifts;
         this.chunkSize = chunkSize;
+        this.fineSizeClasses = fineSizeClasses;
         subpageOverflowMask = ~(pageSize - 1);
         tinySubpagePools = newSubpagePoolArray(numTinySubpagePools);
         for (int i = 0; i < tinySubpagePools.length; i ++) {
             tinySubpagePools[i] = newSubpagePoolHead(pageSize);
         }
 
-        numSmallSubpagePools = pageShifts - 9;
+        if (fineSizeClasses) {
+            // Everything smaller than 4 pages is allocated out of subpages, which may span multiple pages so sizes
+            // which are not a multiple of the page size do not waste the rest of the last page.
+            smallLimit = Math.min(pageSize << 2, chunkSize);
+            log2SmallLimit = log2(smallLimit);
+            numSmallSubpagePools = Math.max(0, log2SmallLimit - 9) << 2;
+        } else {
+            smallLimit = pageSize;
+            log2SmallLimit = pageShifts;
+            numSmallSubpagePools = pageShifts - 9;
+        }
         smallSubpagePools = newSubpagePoolArray(numSmallSubpagePools);
         for (int i = 0; i < smallSubpagePools.length; i ++) {
             smallSubpagePools[i] = newSubpagePoolHead(pageSize);
         }
 
-        q100 = new PoolChunkList<T>(null, 100, Integer.MAX_VALUE);
-        q075 = new PoolChunkList<T>(q100, 75, 100);
-        q050 = new PoolChunkList<T>(q075, 50, 100);
-        q025 = new PoolChunkList<T>(q050, 25, 75);
-        q000 = new PoolChunkList<T>(q025, 1, 50);
-        qInit = new PoolChunkList<T>(q000, Integer.MIN_VALUE, 25);
-
-        q100.prevList(q075);
-        q075.prevList(q050);
-        q050.prevList(q025);
-        q025.prevList(q000);
-        q000.prevList(null);
-        qInit.prevList(qInit);
-
-        List<PoolChunkListMetric> metrics = new ArrayList<PoolChunkListMetric>(6);
-        metrics.add(qInit);
-        metrics.add(q000);
-        metrics.add(q025);
-        metrics.add(q050);
-        metrics.add(q075);
-        metrics.add(q100);
+        stripes = newStripeArray(numStripes);
+        List<PoolChunkListMetric> metrics = new ArrayList<PoolChunkListMetric>(numStripes * 6);
+        for (int i = 0; i < stripes.length; i ++) {
+            Stripe<T> stripe = new Stripe<T>();
+            stripe.addMetrics(metrics);
+            stripes[i] = stripe;
+        }
         chunkListMetrics = Collections.unmodifiableList(metrics);
+
+        hugeChunkCache = maxCachedHugeBytes > 0 ?
+                new PoolHugeChunkCache<T>(this, maxCachedHugeBytes, hugeCacheIdleTimeoutNanos) : null;
     }
 
     private PoolSubpage<T> newSubpagePoolHead(int pageSize) {
@@ -131,6 +147,24 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return new PoolSubpage[size];
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> Stripe<T>[] newStripeArray(int size) {
+        return new Stripe[size];
+    }
+
+    /**
+     * Returns the {@link Stripe} that is used for allocations via the given {@link PoolThreadCache}. The thread caches
+     * are assigned to the stripes in a round-robin fashion.
+     */
+    private Stripe<T> stripe(PoolThreadCache cache) {
+        final Stripe<T>[] stripes = this.stripes;
+        if (stripes.length == 1) {
+            return stripes[0];
+        }
+        int idx = isDirect() ? cache.directArenaStripe : cache.heapArenaStripe;
+        return stripes[idx % stripes.length];
+    }
+
     abstract boolean isDirect();
 
     PooledByteBuf<T> allocate(PoolThreadCache cache, int reqCapacity, int maxCapacity) {
@@ -143,7 +177,10 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return normCapacity >>> 4;
     }
 
-    static int smallIdx(int normCapacity) {
+    int smallIdx(int normCapacity) {
+        if (fineSizeClasses) {
+            return sizeClassIdx(normCapacity, 9);
+        }
         int tableIdx = 0;
         int i = normCapacity >>> 10;
         while (i != 0) {
@@ -153,11 +190,55 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return tableIdx;
     }
 
-    // capacity < pageSize
+    /**
+     * Returns the index of the given normal capacity, starting with {@code 0} for the smallest normal capacity.
+     */
+    int normalIdx(int normCapacity) {
+        if (fineSizeClasses) {
+            return sizeClassIdx(normCapacity, log2SmallLimit);
+        }
+        return log2(normCapacity >> pageShifts);
+    }
+
+    /**
+     * Returns the index of the given capacity when there are four size classes per doubling, starting with
+     * {@code 0} for {@code 1 << log2Base}. Capacities which are not a size class are mapped to the next smaller one.
+     */
+    private static int sizeClassIdx(int capacity, int log2Base) {
+        int log2 = log2(capacity);
+        return (log2 - log2Base << 2) + (capacity >>> log2 - 2 & 3);
+    }
+
+    private static int log2(int val) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(val);
+    }
+
+    // capacity < pageSize (or < smallLimit if fineSizeClasses is used)
     boolean isTinyOrSmall(int normCapacity) {
+        if (fineSizeClasses) {
+            return normCapacity < smallLimit;
+        }
         return (normCapacity & subpageOverflowMask) == 0;
     }
 
+    /**
+     * Returns the size of the run of pages that is used by a {@link PoolSubpage} with elements of {@code elemSize}.
+     */
+    int subpageRunSize(int elemSize) {
+        if (!fineSizeClasses || isTiny(elemSize)) {
+            return pageSize;
+        }
+        // Use the smallest run which fits a whole number of elements, so no memory is wasted. For the size classes
+        // this is at most 7 pages.
+        int maxRunSize = Math.min(chunkSize, pageSize << 3);
+        for (int runSize = pageSize; runSize <= maxRunSize; runSize += pageSize) {
+            if (runSize % elemSize == 0) {
+                return runSize;
+            }
+        }
+        return (elemSize + pageSize - 1) & subpageOverflowMask;
+    }
+
     // normCapacity < 512
     static boolean isTiny(int normCapacity) {
         return (normCapacity & 0xFFFFFE00) == 0;
@@ -207,7 +288,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                     return;
                 }
             }
-            allocateNormal(buf, reqCapacity, normCapacity);
+            allocateNormal(buf, reqCapacity, normCapacity, cache);
             return;
         }
         if (normCapacity <= chunkSize) {
@@ -215,42 +296,64 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                 // was able to allocate out of the cache so move on
                 return;
             }
-            allocateNormal(buf, reqCapacity, normCapacity);
+            allocateNormal(buf, reqCapacity, normCapacity, cache);
         } else {
-            // Huge allocations are never served via the cache so just call allocateHuge
+            // Huge allocations are never served via the thread cache so just call allocateHuge
             allocateHuge(buf, reqCapacity);
         }
     }
 
-    private synchronized void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
-            ++allocationsNormal;
-        if (q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
-            q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
-            q075.allocate(buf, reqCapacity, normCapacity) || q100.allocate(buf, reqCapacity, normCapacity)) {
-            return;
+    private void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity, PoolThreadCache cache) {
+        allocationsNormal.increment();
+        final Stripe<T> stripe = stripe(cache);
+        synchronized (stripe) {
+            if (stripe.allocate(buf, reqCapacity, normCapacity)) {
+                return;
+            }
         }
 
-        // Add a new chunk.
+        // Add a new chunk. Allocating the memory may take a while, so do it without holding the lock of the stripe.
         PoolChunk<T> c = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
-        long handle = c.allocate(normCapacity);
-        assert handle > 0;
-        c.initBuf(buf, handle, reqCapacity);
-        qInit.add(c);
+        c.stripe = stripe;
+        synchronized (stripe) {
+            long handle = c.allocate(normCapacity);
+            assert handle > 0;
+            c.initBuf(buf, handle, reqCapacity);
+            stripe.qInit.add(c);
+        }
     }
 
     private void allocateHuge(PooledByteBuf<T> buf, int reqCapacity) {
         allocationsHuge.increment();
-        buf.initUnpooled(newUnpooledChunk(reqCapacity), reqCapacity);
+        PoolHugeChunkCache<T> hugeChunkCache = this.hugeChunkCache;
+        if (hugeChunkCache == null) {
+            buf.initUnpooled(newUnpooledChunk(reqCapacity), reqCapacity);
+            return;
+        }
+
+        // Only allocate chunks of normalized sizes so they can be reused for allocations of similar sizes later.
+        int normCapacity = PoolHugeChunkCache.normalizeCapacity(reqCapacity);
+        PoolChunk<T> chunk = hugeChunkCache.allocate(normCapacity);
+        if (chunk == null) {
+            chunk = newUnpooledChunk(normCapacity);
+        }
+        buf.initUnpooled(chunk, reqCapacity);
     }
 
     void free(PoolChunk<T> chunk, long handle, int normCapacity, PoolThreadCache cache) {
         if (chunk.unpooled) {
-            allocationsHuge.decrement();
-            destroyChunk(chunk);
+            deallocationsHuge.increment();
+            if (hugeChunkCache == null || !hugeChunkCache.add(chunk)) {
+                destroyChunk(chunk);
+            }
         } else {
             SizeClass sizeClass = sizeClass(normCapacity);
             if (cache != null && cache.add(this, chunk, handle, normCapacity, sizeClass)) {
                 // cached so not free it.
+                if (cache.thread != Thread.currentThread()) {
+                    // The allocating thread will pick it up from its cache, so the arena was not touched at all.
+                    crossThreadCachedDeallocations.increment();
+                }
                 return;
             }
 
@@ -266,21 +369,22 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     }
 
     void freeChunk(PoolChunk<T> chunk, long handle, SizeClass sizeClass) {
+        switch (sizeClass) {
+        case Normal:
+            deallocationsNormal.increment();
+            break;
+        case Small:
+            deallocationsSmall.increment();
+            break;
+        case Tiny:
+            deallocationsTiny.increment();
+            break;
+        default:
+            throw new Error();
+        }
         final boolean destroyChunk;
-        synchronized (this) {
-            switch (sizeClass) {
-            case Normal:
-                ++deallocationsNormal;
-                break;
-            case Small:
-                ++deallocationsSmall;
-                break;
-            case Tiny:
-                ++deallocationsTiny;
-                break;
-            default:
-                throw new Error();
-            }
+        // A chunk never moves to another stripe, so this is always the lock which guards the chunk.
+        synchronized (chunk.stripe) {
             destroyChunk = !chunk.parent.free(chunk, handle);
         }
         if (destroyChunk) {
@@ -289,6 +393,44 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         }
     }
 
+    /**
+     * Destroy the chunks which are not used at all, but keep at least {@code minChunks} chunks around so they can
+     * serve the next allocations without allocating new memory. Chunks of huge allocations which have been cached for
+     * too long are destroyed as well. If {@code freeHugeCache} is {@code true} all cached chunks of huge allocations
+     * are destroyed.
+     *
+     * Returns the number of bytes released.
+     */
+    long trim(int minChunks, boolean freeHugeCache) {
+        int excess = -minChunks;
+        for (Stripe<T> stripe: stripes) {
+            synchronized (stripe) {
+                excess += stripe.numChunks();
+            }
+        }
+
+        List<PoolChunk<T>> unused = new ArrayList<PoolChunk<T>>();
+        for (int i = 0; i < stripes.length && excess > 0; i++) {
+            Stripe<T> stripe = stripes[i];
+            synchronized (stripe) {
+                excess -= stripe.removeUnused(excess, unused);
+            }
+        }
+
+        long bytes = 0;
+        for (int i = 0; i < unused.size(); i++) {
+            PoolChunk<T> chunk = unused.get(i);
+            bytes += chunk.chunkSize();
+            // destroyChunk not need to be called while holding the synchronized lock.
+            destroyChunk(chunk);
+        }
+        if (hugeChunkCache != null) {
+            bytes += freeHugeCache ? hugeChunkCache.free() : hugeChunkCache.trim();
+        }
+        trimmedBytes.add(bytes);
+        return bytes;
+    }
+
     PoolSubpage<T> findSubpagePoolHead(int elemSize) {
         int tableIdx;
         PoolSubpage<T>[] table;
@@ -296,12 +438,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             tableIdx = elemSize >>> 4;
             table = tinySubpagePools;
         } else {
-            tableIdx = 0;
-            elemSize >>>= 10;
-            while (elemSize != 0) {
-                elemSize >>>= 1;
-                tableIdx ++;
-            }
+            tableIdx = smallIdx(elemSize);
             table = smallSubpagePools;
         }
 
@@ -317,6 +454,12 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         }
 
         if (!isTiny(reqCapacity)) { // >= 512
+            if (fineSizeClasses) {
+                // Four size classes per doubling
+                int step = Integer.highestOneBit(reqCapacity - 1) >>> 2;
+                return reqCapacity + step - 1 & -step;
+            }
+
             // Doubled
 
             int normalizedCapacity = reqCapacity;
@@ -442,11 +585,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     @Override
     public long numAllocations() {
-        final long allocsNormal;
-        synchronized (this) {
-            allocsNormal = allocationsNormal;
-        }
-        return allocationsTiny.value() + allocationsSmall.value() + allocsNormal + allocationsHuge.value();
+        return allocationsTiny.value() + allocationsSmall.value() + allocationsNormal.value() + allocationsHuge.value();
     }
 
     @Override
@@ -460,32 +599,29 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     }
 
     @Override
-    public synchronized long numNormalAllocations() {
-        return allocationsNormal;
+    public long numNormalAllocations() {
+        return allocationsNormal.value();
     }
 
     @Override
     public long numDeallocations() {
-        final long deallocs;
-        synchronized (this) {
-            deallocs = deallocationsTiny + deallocationsSmall + deallocationsNormal;
-        }
-        return deallocs + deallocationsHuge.value();
+        return deallocationsTiny.value() + deallocationsSmall.value() + deallocationsNormal.value()
+                + deallocationsHuge.value();
     }
 
     @Override
-    public synchronized long numTinyDeallocations() {
-        return deallocationsTiny;
+    public long numTinyDeallocations() {
+        return deallocationsTiny.value();
     }
 
     @Override
-    public synchronized long numSmallDeallocations() {
-        return deallocationsSmall;
+    public long numSmallDeallocations() {
+        return deallocationsSmall.value();
     }
 
     @Override
-    public synchronized long numNormalDeallocations() {
-        return deallocationsNormal;
+    public long numNormalDeallocations() {
+        return deallocationsNormal.value();
     }
 
     @Override
@@ -499,12 +635,33 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     }
 
     @Override
-    public  long numActiveAllocations() {
-        long val = allocationsTiny.value() + allocationsSmall.value() + allocationsHuge.value()
-                - deallocationsHuge.value();
-        synchronized (this) {
-            val += allocationsNormal - (deallocationsTiny + deallocationsSmall + deallocationsNormal);
-        }
+    public long numHugeCacheHits() {
+        return hugeChunkCache == null ? 0 : hugeChunkCache.hits();
+    }
+
+    @Override
+    public long numHugeCacheMisses() {
+        return hugeChunkCache == null ? 0 : hugeChunkCache.misses();
+    }
+
+    @Override
+    public long numCachedHugeBytes() {
+        return hugeChunkCache == null ? 0 : hugeChunkCache.cachedBytes();
+    }
+
+    @Override
+    public long numTrimmedBytes() {
+        return trimmedBytes.value();
+    }
+
+    @Override
+    public long numCrossThreadCachedDeallocations() {
+        return crossThreadCachedDeallocations.value();
+    }
+
+    @Override
+    public long numActiveAllocations() {
+        long val = numAllocations() - numDeallocations();
         return val >= 0 ? val : 0;
     }
 
@@ -522,10 +679,7 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     @Override
     public long numActiveNormalAllocations() {
-        final long val;
-        synchronized (this) {
-            val = allocationsNormal - deallocationsNormal;
-        }
+        long val = numNormalAllocations() - numNormalDeallocations();
         return val >= 0 ? val : 0;
     }
 
@@ -542,33 +696,14 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     protected abstract void destroyChunk(PoolChunk<T> chunk);
 
     @Override
-    public synchronized String toString() {
-        StringBuilder buf = new StringBuilder()
-            .append("Chunk(s) at 0~25%:")
-            .append(StringUtil.NEWLINE)
-            .append(qInit)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 0~50%:")
-            .append(StringUtil.NEWLINE)
-            .append(q000)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 25~75%:")
-            .append(StringUtil.NEWLINE)
-            .append(q025)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 50~100%:")
-            .append(StringUtil.NEWLINE)
-            .append(q050)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 75~100%:")
-            .append(StringUtil.NEWLINE)
-            .append(q075)
-            .append(StringUtil.NEWLINE)
-            .append("Chunk(s) at 100%:")
-            .append(StringUtil.NEWLINE)
-            .append(q100)
-            .append(StringUtil.NEWLINE)
-            .append("tiny subpages:");
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (Stripe<T> stripe: stripes) {
+            synchronized (stripe) {
+                stripe.append(buf);
+            }
+        }
+        buf.append("tiny subpages:");
         for (int i = 1; i < tinySubpagePools.length; i ++) {
             PoolSubpage<T> head = tinySubpagePools[i];
             if (head.next == head) {
@@ -612,10 +747,103 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return buf.toString();
     }
 
+    /**
+     * A set of {@link PoolChunkList}s which is guarded by its own lock. Each {@link PoolChunk} belongs to exactly one
+     * {@link Stripe} for its whole lifetime.
+     */
+    static final class Stripe<T> {
+        final PoolChunkList<T> q050;
+        final PoolChunkList<T> q025;
+        final PoolChunkList<T> q000;
+        final PoolChunkList<T> qInit;
+        final PoolChunkList<T> q075;
+        final PoolChunkList<T> q100;
+
+        Stripe() {
+            q100 = new PoolChunkList<T>(null, 100, Integer.MAX_VALUE);
+            q075 = new PoolChunkList<T>(q100, 75, 100);
+            q050 = new PoolChunkList<T>(q075, 50, 100);
+            q025 = new PoolChunkList<T>(q050, 25, 75);
+            q000 = new PoolChunkList<T>(q025, 1, 50);
+            qInit = new PoolChunkList<T>(q000, Integer.MIN_VALUE, 25);
+
+            q100.prevList(q075);
+            q075.prevList(q050);
+            q050.prevList(q025);
+            q025.prevList(q000);
+            q000.prevList(null);
+            qInit.prevList(qInit);
+        }
+
+        void addMetrics(List<PoolChunkListMetric> metrics) {
+            metrics.add(qInit);
+            metrics.add(q000);
+            metrics.add(q025);
+            metrics.add(q050);
+            metrics.add(q075);
+            metrics.add(q100);
+        }
+
+        // Must be called while holding the lock.
+        boolean allocate(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+            return q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
+                   q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
+                   q075.allocate(buf, reqCapacity, normCapacity) || q100.allocate(buf, reqCapacity, normCapacity);
+        }
+
+        // Must be called while holding the lock.
+        int numChunks() {
+            return qInit.numChunks() + q000.numChunks() + q025.numChunks() + q050.numChunks() +
+                   q075.numChunks() + q100.numChunks();
+        }
+
+        // Must be called while holding the lock.
+        int removeUnused(int max, List<PoolChunk<T>> unused) {
+            int removed = qInit.removeUnused(max, unused);
+            removed += q000.removeUnused(max - removed, unused);
+            removed += q025.removeUnused(max - removed, unused);
+            removed += q050.removeUnused(max - removed, unused);
+            removed += q075.removeUnused(max - removed, unused);
+            removed += q100.removeUnused(max - removed, unused);
+            return removed;
+        }
+
+        // Must be called while holding the lock.
+        void append(StringBuilder buf) {
+            buf.append("Chunk(s) at 0~25%:")
+               .append(StringUtil.NEWLINE)
+               .append(qInit)
+               .append(StringUtil.NEWLINE)
+               .append("Chunk(s) at 0~50%:")
+               .append(StringUtil.NEWLINE)
+               .append(q000)
+               .append(StringUtil.NEWLINE)
+               .append("Chunk(s) at 25~75%:")
+               .append(StringUtil.NEWLINE)
+               .append(q025)
+               .append(StringUtil.NEWLINE)
+               .append("Chunk(s) at 50~100%:")
+               .append(StringUtil.NEWLINE)
+               .append(q050)
+               .append(StringUtil.NEWLINE)
+               .append("Chunk(s) at 75~100%:")
+               .append(StringUtil.NEWLINE)
+               .append(q075)
+               .append(StringUtil.NEWLINE)
+               .append("Chunk(s) at 100%:")
+               .append(StringUtil.NEWLINE)
+               .append(q100)
+               .append(StringUtil.NEWLINE);
+        }
+    }
+
     static final class HeapArena extends PoolArena<byte[]> {
 
-        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                  long maxCachedHugeBytes, long hugeCacheIdleTimeoutNanos, boolean fineSizeClasses,
+                  int numStripes) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeBytes, hugeCacheIdleTimeoutNanos,
+                  fineSizeClasses, numStripes);
         }
 
         @Override
@@ -656,8 +884,15 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     static final class DirectArena extends PoolArena<ByteBuffer> {
 
-        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        // null if the chunks are allocated via ByteBuffer.allocateDirect(int).
+        private final DirectChunkAllocator chunkAllocator;
+
+        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                    long maxCachedHugeBytes, long hugeCacheIdleTimeoutNanos, boolean fineSizeClasses,
+                    int numStripes, DirectChunkAllocator chunkAllocator) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeBytes, hugeCacheIdleTimeoutNanos,
+                  fineSizeClasses, numStripes);
+            this.chunkAllocator = chunkAllocator;
         }
 
         @Override
@@ -668,17 +903,28 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         @Override
         protected PoolChunk<ByteBuffer> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize) {
             return new PoolChunk<ByteBuffer>(
-                    this, ByteBuffer.allocateDirect(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
+                    this, allocateDirect(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
         }
 
         @Override
         protected PoolChunk<ByteBuffer> newUnpooledChunk(int capacity) {
-            return new PoolChunk<ByteBuffer>(this, ByteBuffer.allocateDirect(capacity), capacity);
+            return new PoolChunk<ByteBuffer>(this, allocateDirect(capacity), capacity);
+        }
+
+        private ByteBuffer allocateDirect(int capacity) {
+            if (chunkAllocator == null) {
+                return ByteBuffer.allocateDirect(capacity);
+            }
+            return chunkAllocator.allocate(capacity);
         }
 
         @Override
         protected void destroyChunk(PoolChunk<ByteBuffer> chunk) {
-            PlatformDependent.freeDirectBuffer(chunk.memory);
+            if (chunkAllocator == null) {
+                PlatformDependent.freeDirectBuffer(chunk.memory);
+            } else {
+                chunkAllocator.free(chunk.memory);
+            }
         }
 
         @Override
@@ -108,6 +108,35 @@ public interface PoolArenaMetric {
      */
     long numHugeDeallocations();
 
+    /**
+     * Return the number of huge allocations which were served by a chunk that was cached by the arena.
+     */
+    long numHugeCacheHits();
+
+    /**
+     * Return the number of huge allocations which could not be served by a cached chunk and so needed to allocate
+     * new memory. This is always {@code 0} if the huge cache is disabled.
+     */
+    long numHugeCacheMisses();
+
+    /**
+     * Return the number of bytes which are currently held by the huge cache of the arena.
+     */
+    long numCachedHugeBytes();
+
+    /**
+     * Return the number of bytes which were released by trimming the arena.
+     *
+     * @see PooledByteBufAllocator#trim()
+     */
+    long numTrimmedBytes();
+
+    /**
+     * Return the number of deallocations by a {@link Thread} other than the one which allocated the buffer, which were
+     * added to the thread-local cache of the allocating {@link Thread} instead of being returned to the arena.
+     */
+    long numCrossThreadCachedDeallocations();
+
     /**
      * Return the number of currently active allocations.
      */
@@ -99,6 +99,14 @@ package io.netty.buffer;
  * memoryMap[id]= (depth_of_id, x)
  * where as per convention defined above
  * the second value (i.e, x) indicates that the first node which is free to be allocated is at depth x (from root)
+ *
+ * Run based allocation:
+ * ---------------------
+ * If the {@link PoolArena} uses fine grained size classes, the sizes are not necessarily a power of 2 and so the
+ * buddy tree can not be used. In this case the pages are allocated via a {@link PoolRunAllocator} which hands out
+ * runs of any number of pages. The handle then encodes (runOffset / pageSize) << 16 | (runLength / pageSize) instead
+ * of the index in memoryMap. PoolSubpages may span more than one page in this mode, so the elements fill the run
+ * without leaving any unused space at the end.
  */
 final class PoolChunk<T> implements PoolChunkMetric {
 
@@ -108,6 +116,8 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
     private final byte[] memoryMap;
     private final byte[] depthMap;
+    // Only used instead of memoryMap if the arena uses fine grained size classes.
+    private final PoolRunAllocator runs;
     private final PoolSubpage<T>[] subpages;
     /** Used to determine if the requested capacity is equal to or greater than pageSize. */
     private final int subpageOverflowMask;
@@ -122,6 +132,8 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
     private int freeBytes;
 
+    // The stripe of the arena this chunk belongs to. Its lock guards the chunk and the PoolChunkList it is part of.
+    PoolArena.Stripe<T> stripe;
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
     PoolChunk<T> next;
@@ -144,6 +156,15 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
         assert maxOrder < 30 : "maxOrder should be < 30, but is: " + maxOrder;
         maxSubpageAllocs = 1 << maxOrder;
+        subpages = newSubpageArray(maxSubpageAllocs);
+
+        if (arena.fineSizeClasses) {
+            runs = new PoolRunAllocator(maxSubpageAllocs);
+            memoryMap = null;
+            depthMap = null;
+            return;
+        }
+        runs = null;
 
         // Generate the memory map.
         memoryMap = new byte[maxSubpageAllocs << 1];
@@ -158,8 +179,6 @@ final class PoolChunk<T> implements PoolChunkMetric {
                 memoryMapIndex ++;
             }
         }
-
-        subpages = newSubpageArray(maxSubpageAllocs);
     }
 
     /** Creates a special chunk that is not pooled. */
@@ -169,6 +188,7 @@ final class PoolChunk<T> implements PoolChunkMetric {
         this.memory = memory;
         memoryMap = null;
         depthMap = null;
+        runs = null;
         subpages = null;
         subpageOverflowMask = 0;
         pageSize = 0;
@@ -200,6 +220,9 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     long allocate(int normCapacity) {
+        if (runs != null) {
+            return arena.isTinyOrSmall(normCapacity) ? allocateSubpageRun(normCapacity) : allocatePages(normCapacity);
+        }
         if ((normCapacity & subpageOverflowMask) != 0) { // >= pageSize
             return allocateRun(normCapacity);
         } else {
@@ -333,6 +356,54 @@ final class PoolChunk<T> implements PoolChunkMetric {
         }
     }
 
+    /**
+     * Allocate a run of pages via the {@link PoolRunAllocator}.
+     *
+     * @param normCapacity normalized capacity, which is a multiple of the page size
+     * @return handle of the run
+     */
+    private long allocatePages(int normCapacity) {
+        int pages = normCapacity >> pageShifts;
+        int start = runs.allocate(pages);
+        if (start < 0) {
+            return -1;
+        }
+        freeBytes -= normCapacity;
+        return runHandle(start, pages);
+    }
+
+    /**
+     * Same as {@link #allocateSubpage(int)} but the PoolSubpage is allocated out of a run of pages returned by
+     * {@link PoolArena#subpageRunSize(int)}.
+     */
+    private long allocateSubpageRun(int normCapacity) {
+        PoolSubpage<T> head = arena.findSubpagePoolHead(normCapacity);
+        synchronized (head) {
+            int runSize = arena.subpageRunSize(normCapacity);
+            int pages = runSize >> pageShifts;
+            int start = runs.allocate(pages);
+            if (start < 0) {
+                return -1;
+            }
+
+            freeBytes -= runSize;
+
+            int id = runHandle(start, pages);
+            PoolSubpage<T> subpage = subpages[start];
+            if (subpage == null || subpage.pageSize() != runSize) {
+                subpage = new PoolSubpage<T>(head, this, id, runOffset(id), runSize, normCapacity);
+                subpages[start] = subpage;
+            } else {
+                subpage.init(head, normCapacity);
+            }
+            return subpage.allocate();
+        }
+    }
+
+    private static int runHandle(int start, int pages) {
+        return start << 16 | pages;
+    }
+
     /**
      * Free a subpage or a run of pages
      * When a subpage is freed from PoolSubpage, it might be added back to subpage pool of the owning PoolArena
@@ -359,6 +430,10 @@ final class PoolChunk<T> implements PoolChunkMetric {
             }
         }
         freeBytes += runLength(memoryMapIdx);
+        if (runs != null) {
+            runs.free(memoryMapIdx >>> 16, memoryMapIdx & 0xFFFF);
+            return;
+        }
         setValue(memoryMapIdx, depth(memoryMapIdx));
         updateParentsFree(memoryMapIdx);
     }
@@ -367,8 +442,7 @@ final class PoolChunk<T> implements PoolChunkMetric {
         int memoryMapIdx = (int) handle;
         int bitmapIdx = (int) (handle >>> Integer.SIZE);
         if (bitmapIdx == 0) {
-            byte val = value(memoryMapIdx);
-            assert val == unusable : String.valueOf(val);
+            assert runs != null || value(memoryMapIdx) == unusable : String.valueOf(value(memoryMapIdx));
             buf.init(this, handle, runOffset(memoryMapIdx), reqCapacity, runLength(memoryMapIdx),
                      arena.parent.threadCache());
         } else {
@@ -413,17 +487,26 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     private int runLength(int id) {
+        if (runs != null) {
+            return (id & 0xFFFF) << pageShifts;
+        }
         // represents the size in #bytes supported by node 'id' in the tree
         return 1 << log2ChunkSize - depth(id);
     }
 
     private int runOffset(int id) {
+        if (runs != null) {
+            return id >>> 16 << pageShifts;
+        }
         // represents the 0-based offset in #bytes from start of the byte-array chunk
         int shift = id ^ 1 << depth(id);
         return shift * runLength(id);
     }
 
     private int subpageIdx(int memoryMapIdx) {
+        if (runs != null) {
+            return memoryMapIdx >>> 16; // first page of the run
+        }
         return memoryMapIdx ^ maxSubpageAllocs; // remove highest set bit, to get offset
     }
 
@@ -105,6 +105,32 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         }
     }
 
+    /**
+     * Remove up to {@code max} chunks which are not used at all from this list and add them to {@code unused}.
+     * Returns the number of removed chunks.
+     */
+    int removeUnused(int max, List<PoolChunk<T>> unused) {
+        int removed = 0;
+        for (PoolChunk<T> cur = head; cur != null && removed < max;) {
+            PoolChunk<T> next = cur.next;
+            if (cur.usage() == 0) {
+                remove(cur);
+                unused.add(cur);
+                removed ++;
+            }
+            cur = next;
+        }
+        return removed;
+    }
+
+    int numChunks() {
+        int num = 0;
+        for (PoolChunk<T> cur = head; cur != null; cur = cur.next) {
+            num ++;
+        }
+        return num;
+    }
+
     private void remove(PoolChunk<T> cur) {
         if (cur == head) {
             head = cur.next;
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the unpooled chunks which back huge allocations (allocations bigger than the chunk size of the
+ * {@link PoolArena}) so they can be reused instead of allocating and freeing the memory over and over again.
+ *
+ * Chunks are bucketed by their size, which is normalized via {@link #normalizeCapacity(int)} so that allocations of
+ * similar sizes can share the cached chunks. The cache will never hold more than {@code maxCachedBytes} and chunks
+ * which were not used for {@code idleTimeoutNanos} are destroyed the next time the cache is accessed.
+ */
+final class PoolHugeChunkCache<T> {
+
+    private final PoolArena<T> arena;
+    private final long maxCachedBytes;
+    private final long idleTimeoutNanos;
+    private final Map<Integer, ArrayDeque<Entry<T>>> buckets = new HashMap<Integer, ArrayDeque<Entry<T>>>();
+
+    // All guarded by synchronized(this)
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+
+    PoolHugeChunkCache(PoolArena<T> arena, long maxCachedBytes, long idleTimeoutNanos) {
+        this.arena = arena;
+        this.maxCachedBytes = maxCachedBytes;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    /**
+     * Round up the given capacity so it is at most 25% bigger than requested. This limits the number of buckets while
+     * still allowing to reuse chunks for allocations that are not exactly of the same size.
+     */
+    static int normalizeCapacity(int reqCapacity) {
+        int step = Integer.highestOneBit(reqCapacity) >>> 2;
+        int normalizedCapacity = reqCapacity + step - 1 & -step;
+        // Guard against overflow.
+        return normalizedCapacity < reqCapacity ? reqCapacity : normalizedCapacity;
+    }
+
+    /**
+     * Returns a cached chunk of the given (normalized) capacity or {@code null} if none is cached.
+     */
+    PoolChunk<T> allocate(int normCapacity) {
+        List<PoolChunk<T>> expired;
+        PoolChunk<T> chunk = null;
+        synchronized (this) {
+            expired = expire(System.nanoTime());
+            ArrayDeque<Entry<T>> bucket = buckets.get(normCapacity);
+            if (bucket != null) {
+                // Use the chunk that was freed last as it is the most likely to be still hot.
+                chunk = bucket.pollFirst().chunk;
+                if (bucket.isEmpty()) {
+                    buckets.remove(normCapacity);
+                }
+                cachedBytes -= normCapacity;
+                hits ++;
+            } else {
+                misses ++;
+            }
+        }
+        destroy(expired);
+        return chunk;
+    }
+
+    /**
+     * Add the given chunk to the cache. Returns {@code false} if the chunk could not be cached because of the size
+     * limit, in which case the caller is responsible to destroy it.
+     */
+    boolean add(PoolChunk<T> chunk) {
+        assert chunk.unpooled;
+        final int size = chunk.chunkSize();
+        final boolean added;
+        List<PoolChunk<T>> expired;
+        synchronized (this) {
+            long now = System.nanoTime();
+            expired = expire(now);
+            if (cachedBytes + size <= maxCachedBytes) {
+                ArrayDeque<Entry<T>> bucket = buckets.get(size);
+                if (bucket == null) {
+                    bucket = new ArrayDeque<Entry<T>>();
+                    buckets.put(size, bucket);
+                }
+                bucket.addFirst(new Entry<T>(chunk, now));
+                cachedBytes += size;
+                added = true;
+            } else {
+                added = false;
+            }
+        }
+        destroy(expired);
+        return added;
+    }
+
+    /**
+     * Destroy all cached chunks and return the number of released bytes.
+     */
+    long free() {
+        List<PoolChunk<T>> chunks = new ArrayList<PoolChunk<T>>();
+        synchronized (this) {
+            for (ArrayDeque<Entry<T>> bucket: buckets.values()) {
+                for (Entry<T> entry: bucket) {
+                    chunks.add(entry.chunk);
+                }
+            }
+            buckets.clear();
+            cachedBytes = 0;
+        }
+        return destroy(chunks);
+    }
+
+    /**
+     * Destroy all chunks which were not used for the idle timeout and return the number of released bytes.
+     */
+    long trim() {
+        List<PoolChunk<T>> expired;
+        synchronized (this) {
+            expired = expire(System.nanoTime());
+        }
+        return destroy(expired);
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Remove all chunks which were not used for {@link #idleTimeoutNanos} and return them, so they can be destroyed
+     * once the lock was released. Must be called while holding the lock.
+     */
+    private List<PoolChunk<T>> expire(long now) {
+        List<PoolChunk<T>> expired = null;
+        Iterator<ArrayDeque<Entry<T>>> buckets = this.buckets.values().iterator();
+        while (buckets.hasNext()) {
+            ArrayDeque<Entry<T>> bucket = buckets.next();
+            // The oldest entries are at the tail of the bucket.
+            for (;;) {
+                Entry<T> entry = bucket.peekLast();
+                if (entry == null || now - entry.freedTime < idleTimeoutNanos) {
+                    break;
+                }
+                bucket.pollLast();
+                cachedBytes -= entry.chunk.chunkSize();
+                if (expired == null) {
+                    expired = new ArrayList<PoolChunk<T>>();
+                }
+                expired.add(entry.chunk);
+            }
+            if (bucket.isEmpty()) {
+                buckets.remove();
+            }
+        }
+        return expired;
+    }
+
+    private long destroy(List<PoolChunk<T>> chunks) {
+        long bytes = 0;
+        if (chunks != null) {
+            for (int i = 0; i < chunks.size(); i++) {
+                PoolChunk<T> chunk = chunks.get(i);
+                bytes += chunk.chunkSize();
+                arena.destroyChunk(chunk);
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Entry<T> {
+        final PoolChunk<T> chunk;
+        final long freedTime;
+
+        Entry(PoolChunk<T> chunk, long freedTime) {
+            this.chunk = chunk;
+            this.freedTime = freedTime;
+        }
+    }
+}
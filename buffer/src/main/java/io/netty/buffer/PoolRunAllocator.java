@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+/**
+ * Allocates runs of contiguous pages out of a {@link PoolChunk}. In contrast to the buddy tree the runs can have any
+ * number of pages, which allows to use size classes which are not a power of two.
+ *
+ * Free runs are kept in doubly linked lists, one per number of pages, and a bitmap tracks which of these lists are
+ * not empty. An allocation takes the smallest free run which is big enough (best-fit) and splits off the remaining
+ * pages. On free the run is merged with its free neighbours, which are found via the first and last page of each free
+ * run. All operations are done without allocating any objects.
+ *
+ * All page indices are stored incremented by one, so {@code 0} can be used as "none".
+ */
+final class PoolRunAllocator {
+
+    private final int numPages;
+    // Number of pages of the free run which starts at the page, 0 if no free run starts at the page.
+    private final int[] freeRunPages;
+    // Start page + 1 of the free run which ends at the page, 0 if no free run ends at the page.
+    private final int[] freeRunStart;
+    // Start page + 1 of the next / previous free run with the same number of pages, indexed by start page.
+    private final int[] next;
+    private final int[] prev;
+    // Start page + 1 of the first free run, indexed by number of pages.
+    private final int[] heads;
+    // Bit n is set if there is at least one free run of n pages.
+    private final long[] nonEmpty;
+
+    PoolRunAllocator(int numPages) {
+        if (numPages <= 0 || numPages > 0xFFFF) {
+            throw new IllegalArgumentException("numPages: " + numPages + " (expected: 1-65535)");
+        }
+        this.numPages = numPages;
+        freeRunPages = new int[numPages];
+        freeRunStart = new int[numPages];
+        next = new int[numPages];
+        prev = new int[numPages];
+        heads = new int[numPages + 1];
+        nonEmpty = new long[(numPages >>> 6) + 1];
+        insert(0, numPages);
+    }
+
+    /**
+     * Allocate a run of {@code pages} pages and return its first page or {@code -1} if there is no free run which
+     * is big enough.
+     */
+    int allocate(int pages) {
+        assert pages > 0;
+        int runPages = nextFreeRunPages(pages);
+        if (runPages < 0) {
+            return -1;
+        }
+        int start = heads[runPages] - 1;
+        remove(start, runPages);
+        if (runPages > pages) {
+            insert(start + pages, runPages - pages);
+        }
+        return start;
+    }
+
+    /**
+     * Free the run of {@code pages} pages which starts at page {@code start}.
+     */
+    void free(int start, int pages) {
+        assert start >= 0 && pages > 0 && start + pages <= numPages;
+        int end = start + pages;
+        if (start > 0) {
+            int prevStart = freeRunStart[start - 1] - 1;
+            if (prevStart >= 0) {
+                int prevPages = freeRunPages[prevStart];
+                remove(prevStart, prevPages);
+                start = prevStart;
+                pages += prevPages;
+            }
+        }
+        if (end < numPages) {
+            int nextPages = freeRunPages[end];
+            if (nextPages != 0) {
+                remove(end, nextPages);
+                pages += nextPages;
+            }
+        }
+        insert(start, pages);
+    }
+
+    private int nextFreeRunPages(int pages) {
+        if (pages > numPages) {
+            return -1;
+        }
+        int i = pages >>> 6;
+        long bits = nonEmpty[i] & -1L << (pages & 63);
+        while (bits == 0) {
+            if (++ i == nonEmpty.length) {
+                return -1;
+            }
+            bits = nonEmpty[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    private void insert(int start, int pages) {
+        freeRunPages[start] = pages;
+        freeRunStart[start + pages - 1] = start + 1;
+
+        int head = heads[pages];
+        next[start] = head;
+        prev[start] = 0;
+        if (head != 0) {
+            prev[head - 1] = start + 1;
+        }
+        heads[pages] = start + 1;
+        nonEmpty[pages >>> 6] |= 1L << pages;
+    }
+
+    private void remove(int start, int pages) {
+        assert freeRunPages[start] == pages;
+        freeRunPages[start] = 0;
+        freeRunStart[start + pages - 1] = 0;
+
+        int p = prev[start];
+        int n = next[start];
+        if (p != 0) {
+            next[p - 1] = n;
+        } else {
+            heads[pages] = n;
+            if (n == 0) {
+                nonEmpty[pages >>> 6] &= ~(1L << pages);
+            }
+        }
+        if (n != 0) {
+            prev[n - 1] = p;
+        }
+    }
+}
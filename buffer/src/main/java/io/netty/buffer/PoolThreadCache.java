@@ -34,6 +34,11 @@ import java.util.Queue;
  * <a href="http://people.freebsd.org/~jasone/jemalloc/bsdcan2006/jemalloc.pdf">jemalloc</a> and the descripted
  * technics of <a href="https://www.facebook.com/notes/facebook-engineering/scalable-memory-allocation-using-jemalloc/
  * 480222803919">Scalable memory allocation using jemalloc</a>.
+ *
+ * Buffers are always returned to the cache of the {@link Thread} which allocated them, even if they are released by
+ * another {@link Thread}. Each {@link MemoryRegionCache} is a bounded MPSC queue, so other threads only add entries and
+ * the owning {@link Thread} takes them out again on its next allocations. Only if the queue is full the memory is given
+ * back to the {@link PoolArena}.
  */
 final class PoolThreadCache {
 
@@ -42,6 +47,10 @@ final class PoolThreadCache {
     final PoolArena<byte[]> heapArena;
     final PoolArena<ByteBuffer> directArena;
 
+    // Index of the stripe of the heap / direct arena to allocate from. These are assigned round-robin by the arena.
+    final int heapArenaStripe;
+    final int directArenaStripe;
+
     // Hold the caches for the different size classes, which are tiny, small and normal.
     private final MemoryRegionCache<byte[]>[] tinySubPageHeapCaches;
     private final MemoryRegionCache<byte[]>[] smallSubPageHeapCaches;
@@ -50,14 +59,14 @@ final class PoolThreadCache {
     private final MemoryRegionCache<byte[]>[] normalHeapCaches;
     private final MemoryRegionCache<ByteBuffer>[] normalDirectCaches;
 
-    // Used for bitshifting when calculate the index of normal caches later
-    private final int numShiftsNormalDirect;
-    private final int numShiftsNormalHeap;
     private final int freeSweepAllocationThreshold;
 
     private int allocations;
 
-    private final Thread thread = Thread.currentThread();
+    final Thread thread = Thread.currentThread();
+    // Set once the cache was freed. Buffers released by other threads after that must be returned to the arena, as
+    // nobody would take them out of the cache anymore.
+    private volatile boolean freed;
     private final Runnable freeTask = new Runnable() {
         @Override
         public void run() {
@@ -88,17 +97,16 @@ final class PoolThreadCache {
             smallSubPageDirectCaches = createSubPageCaches(
                     smallCacheSize, directArena.numSmallSubpagePools, SizeClass.Small);
 
-            numShiftsNormalDirect = log2(directArena.pageSize);
             normalDirectCaches = createNormalCaches(
                     normalCacheSize, maxCachedBufferCapacity, directArena);
 
-            directArena.numThreadCaches.getAndIncrement();
+            directArenaStripe = directArena.numThreadCaches.getAndIncrement();
         } else {
             // No directArea is configured so just null out all caches
             tinySubPageDirectCaches = null;
             smallSubPageDirectCaches = null;
             normalDirectCaches = null;
-            numShiftsNormalDirect = -1;
+            directArenaStripe = 0;
         }
         if (heapArena != null) {
             // Create the caches for the heap allocations
@@ -107,17 +115,16 @@ final class PoolThreadCache {
             smallSubPageHeapCaches = createSubPageCaches(
                     smallCacheSize, heapArena.numSmallSubpagePools, SizeClass.Small);
 
-            numShiftsNormalHeap = log2(heapArena.pageSize);
             normalHeapCaches = createNormalCaches(
                     normalCacheSize, maxCachedBufferCapacity, heapArena);
 
-            heapArena.numThreadCaches.getAndIncrement();
+            heapArenaStripe = heapArena.numThreadCaches.getAndIncrement();
         } else {
             // No heapArea is configured so just null out all caches
             tinySubPageHeapCaches = null;
             smallSubPageHeapCaches = null;
             normalHeapCaches = null;
-            numShiftsNormalHeap = -1;
+            heapArenaStripe = 0;
         }
 
         // The thread-local cache will keep a list of pooled buffers which must be returned to
@@ -144,7 +151,7 @@ final class PoolThreadCache {
             int cacheSize, int maxCachedBufferCapacity, PoolArena<T> area) {
         if (cacheSize > 0) {
             int max = Math.min(area.chunkSize, maxCachedBufferCapacity);
-            int arraySize = Math.max(1, log2(max / area.pageSize) + 1);
+            int arraySize = area.isTinyOrSmall(max) ? 1 : area.normalIdx(max) + 1;
 
             @SuppressWarnings("unchecked")
             MemoryRegionCache<T>[] cache = new MemoryRegionCache[arraySize];
@@ -157,15 +164,6 @@ final class PoolThreadCache {
         }
     }
 
-    private static int log2(int val) {
-        int res = 0;
-        while (val > 1) {
-            val >>= 1;
-            res++;
-        }
-        return res;
-    }
-
     /**
      * Try to allocate a tiny buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
@@ -207,11 +205,24 @@ final class PoolThreadCache {
      */
     @SuppressWarnings({ "unchecked", "rawtypes" })
     boolean add(PoolArena<?> area, PoolChunk chunk, long handle, int normCapacity, SizeClass sizeClass) {
+        if (freed) {
+            return false;
+        }
         MemoryRegionCache<?> cache = cache(area, normCapacity, sizeClass);
         if (cache == null) {
             return false;
         }
-        return cache.add(chunk, handle);
+        if (!cache.add(chunk, handle)) {
+            return false;
+        }
+        if (freed) {
+            // The cache was freed concurrently (this can only happen if the buffer was released by another thread),
+            // so make sure the entry is not left behind in the cache.
+            synchronized (this) {
+                free(cache);
+            }
+        }
+        return true;
     }
 
     private MemoryRegionCache<?> cache(PoolArena<?> area, int normCapacity, SizeClass sizeClass) {
@@ -236,12 +247,17 @@ final class PoolThreadCache {
     }
 
     private void free0() {
-        int numFreed = free(tinySubPageDirectCaches) +
-                free(smallSubPageDirectCaches) +
-                free(normalDirectCaches) +
-                free(tinySubPageHeapCaches) +
-                free(smallSubPageHeapCaches) +
-                free(normalHeapCaches);
+        freed = true;
+        final int numFreed;
+        // Entries may be added and removed by other threads once freed is set, see add(...).
+        synchronized (this) {
+            numFreed = free(tinySubPageDirectCaches) +
+                    free(smallSubPageDirectCaches) +
+                    free(normalDirectCaches) +
+                    free(tinySubPageHeapCaches) +
+                    free(smallSubPageHeapCaches) +
+                    free(normalHeapCaches);
+        }
 
         if (numFreed > 0 && logger.isDebugEnabled()) {
             logger.debug("Freed {} thread-local buffer(s) from thread: {}", numFreed, thread.getName());
@@ -309,7 +325,7 @@ final class PoolThreadCache {
     }
 
     private MemoryRegionCache<?> cacheForSmall(PoolArena<?> area, int normCapacity) {
-        int idx = PoolArena.smallIdx(normCapacity);
+        int idx = area.smallIdx(normCapacity);
         if (area.isDirect()) {
             return cache(smallSubPageDirectCaches, idx);
         }
@@ -317,11 +333,10 @@ final class PoolThreadCache {
     }
 
     private MemoryRegionCache<?> cacheForNormal(PoolArena<?> area, int normCapacity) {
+        int idx = area.normalIdx(normCapacity);
         if (area.isDirect()) {
-            int idx = log2(normCapacity >> numShiftsNormalDirect);
             return cache(normalDirectCaches, idx);
         }
-        int idx = log2(normCapacity >> numShiftsNormalHeap);
         return cache(normalHeapCaches, idx);
     }
 
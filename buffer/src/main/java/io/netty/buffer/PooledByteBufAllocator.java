@@ -16,9 +16,11 @@
 
 package io.netty.buffer;
 
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadExecutorMap;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -26,6 +28,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
@@ -40,6 +43,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private static final int DEFAULT_NORMAL_CACHE_SIZE;
     private static final int DEFAULT_MAX_CACHED_BUFFER_CAPACITY;
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
+    private static final long DEFAULT_CACHE_TRIM_INTERVAL_MILLIS;
+    private static final int DEFAULT_MIN_RETAINED_CHUNKS;
+    private static final boolean DEFAULT_FINE_SIZE_CLASSES;
+    private static final int DEFAULT_NUM_ARENA_STRIPES;
+    private static final boolean DEFAULT_CONFINED_REF_CNT;
+    private static final long DEFAULT_HUGE_CACHE_SIZE;
+    private static final long DEFAULT_HUGE_CACHE_IDLE_TIMEOUT;
 
     private static final int MIN_PAGE_SIZE = 4096;
     private static final int MAX_CHUNK_SIZE = (int) (((long) Integer.MAX_VALUE + 1) / 2);
@@ -102,6 +112,34 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         DEFAULT_CACHE_TRIM_INTERVAL = SystemPropertyUtil.getInt(
                 "io.netty.allocator.cacheTrimInterval", 8192);
 
+        // the interval in milliseconds in which the thread caches of EventExecutor threads are trimmed and unused
+        // chunks are released. Disabled by default.
+        DEFAULT_CACHE_TRIM_INTERVAL_MILLIS = SystemPropertyUtil.getLong(
+                "io.netty.allocator.cacheTrimIntervalMillis", 0);
+
+        // use four size classes per doubling instead of power of two sizes for allocations >= 512 bytes
+        DEFAULT_FINE_SIZE_CLASSES = SystemPropertyUtil.getBoolean("io.netty.allocator.fineSizeClasses", false);
+
+        // the number of independently locked sets of chunks per arena. More stripes reduce the contention on the arena
+        // when the thread caches miss, but each stripe allocates its own chunks.
+        DEFAULT_NUM_ARENA_STRIPES = Math.max(1, SystemPropertyUtil.getInt("io.netty.allocator.numArenaStripes", 1));
+
+        // update the reference count of pooled buffers without atomic operations while only the allocating thread
+        // uses them
+        DEFAULT_CONFINED_REF_CNT = SystemPropertyUtil.getBoolean("io.netty.allocator.confinedRefCnt", false);
+
+        // the number of chunks per arena which are never released by the periodic trimming
+        DEFAULT_MIN_RETAINED_CHUNKS = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.minRetainedChunks", 1));
+
+        // the maximum number of bytes of huge chunks (bigger than the chunk size) which are cached by all the heap
+        // and all the direct arenas. Disabled by default.
+        DEFAULT_HUGE_CACHE_SIZE = Math.max(0, SystemPropertyUtil.getLong("io.netty.allocator.hugeCacheSize", 0));
+
+        // the number of milliseconds after which an unused huge chunk is released from the cache
+        DEFAULT_HUGE_CACHE_IDLE_TIMEOUT = Math.max(1, SystemPropertyUtil.getLong(
+                "io.netty.allocator.hugeCacheIdleTimeout", 10000));
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.allocator.numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("-Dio.netty.allocator.numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -121,6 +159,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             logger.debug("-Dio.netty.allocator.normalCacheSize: {}", DEFAULT_NORMAL_CACHE_SIZE);
             logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
+            logger.debug("-Dio.netty.allocator.cacheTrimIntervalMillis: {}", DEFAULT_CACHE_TRIM_INTERVAL_MILLIS);
+            logger.debug("-Dio.netty.allocator.minRetainedChunks: {}", DEFAULT_MIN_RETAINED_CHUNKS);
+            logger.debug("-Dio.netty.allocator.fineSizeClasses: {}", DEFAULT_FINE_SIZE_CLASSES);
+            logger.debug("-Dio.netty.allocator.numArenaStripes: {}", DEFAULT_NUM_ARENA_STRIPES);
+            logger.debug("-Dio.netty.allocator.confinedRefCnt: {}", DEFAULT_CONFINED_REF_CNT);
+            logger.debug("-Dio.netty.allocator.hugeCacheSize: {}", DEFAULT_HUGE_CACHE_SIZE);
+            logger.debug("-Dio.netty.allocator.hugeCacheIdleTimeout: {}", DEFAULT_HUGE_CACHE_IDLE_TIMEOUT);
         }
     }
 
@@ -132,9 +177,20 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private final int tinyCacheSize;
     private final int smallCacheSize;
     private final int normalCacheSize;
+    private final long hugeCacheSize;
+    private final boolean fineSizeClasses;
+    private final int numArenaStripes;
+    private final boolean confinedRefCnt;
+    private final DirectChunkAllocator directChunkAllocator;
     private final List<PoolArenaMetric> heapArenaMetrics;
     private final List<PoolArenaMetric> directArenaMetrics;
     private final PoolThreadLocalCache threadCache;
+    private final Runnable trimTask = new Runnable() {
+        @Override
+        public void run() {
+            trimCurrentThreadCache();
+        }
+    };
 
     public PooledByteBufAllocator() {
         this(false);
@@ -155,12 +211,163 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
                                   int tinyCacheSize, int smallCacheSize, int normalCacheSize) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize,
+                normalCacheSize, DEFAULT_HUGE_CACHE_SIZE, DEFAULT_HUGE_CACHE_IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param hugeCacheSize         the maximum number of bytes used to cache the memory of huge allocations (bigger
+     *                              than {@code pageSize << maxOrder}) for reuse. The budget is shared between all heap
+     *                              arenas and, separately, between all direct arenas. {@code 0} disables the cache.
+     * @param hugeCacheIdleTimeout  the time after which cached memory that was not reused is released.
+     * @param unit                  the {@link TimeUnit} of {@code hugeCacheIdleTimeout}.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long hugeCacheSize, long hugeCacheIdleTimeout, TimeUnit unit) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize,
+                normalCacheSize, hugeCacheSize, hugeCacheIdleTimeout, unit, DEFAULT_FINE_SIZE_CLASSES);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param hugeCacheSize         the maximum number of bytes used to cache the memory of huge allocations (bigger
+     *                              than {@code pageSize << maxOrder}) for reuse. The budget is shared between all heap
+     *                              arenas and, separately, between all direct arenas. {@code 0} disables the cache.
+     * @param hugeCacheIdleTimeout  the time after which cached memory that was not reused is released.
+     * @param unit                  the {@link TimeUnit} of {@code hugeCacheIdleTimeout}.
+     * @param fineSizeClasses       {@code true} if allocations of 512 bytes and more should be rounded up to one of
+     *                              four size classes per doubling (like 1024, 1280, 1536, 1792, 2048, ...) instead of
+     *                              the next power of two. This wastes less memory for sizes which are not a power of
+     *                              two.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long hugeCacheSize, long hugeCacheIdleTimeout, TimeUnit unit,
+                                  boolean fineSizeClasses) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize,
+                normalCacheSize, hugeCacheSize, hugeCacheIdleTimeout, unit, fineSizeClasses,
+                DEFAULT_NUM_ARENA_STRIPES);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param hugeCacheSize         the maximum number of bytes used to cache the memory of huge allocations (bigger
+     *                              than {@code pageSize << maxOrder}) for reuse. The budget is shared between all heap
+     *                              arenas and, separately, between all direct arenas. {@code 0} disables the cache.
+     * @param hugeCacheIdleTimeout  the time after which cached memory that was not reused is released.
+     * @param unit                  the {@link TimeUnit} of {@code hugeCacheIdleTimeout}.
+     * @param fineSizeClasses       {@code true} if allocations of 512 bytes and more should be rounded up to one of
+     *                              four size classes per doubling (like 1024, 1280, 1536, 1792, 2048, ...) instead of
+     *                              the next power of two. This wastes less memory for sizes which are not a power of
+     *                              two.
+     * @param numArenaStripes       the number of stripes per arena. Each stripe has its own chunks and lock, and the
+     *                              threads which share an arena are spread over its stripes, so allocations which are
+     *                              not served by the thread-local cache contend less. Each stripe allocates its own
+     *                              chunks, so the memory footprint may grow with the number of stripes.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long hugeCacheSize, long hugeCacheIdleTimeout, TimeUnit unit,
+                                  boolean fineSizeClasses, int numArenaStripes) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize,
+                normalCacheSize, hugeCacheSize, hugeCacheIdleTimeout, unit, fineSizeClasses, numArenaStripes,
+                DEFAULT_CONFINED_REF_CNT);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param hugeCacheSize         the maximum number of bytes used to cache the memory of huge allocations (bigger
+     *                              than {@code pageSize << maxOrder}) for reuse. The budget is shared between all heap
+     *                              arenas and, separately, between all direct arenas. {@code 0} disables the cache.
+     * @param hugeCacheIdleTimeout  the time after which cached memory that was not reused is released.
+     * @param unit                  the {@link TimeUnit} of {@code hugeCacheIdleTimeout}.
+     * @param fineSizeClasses       {@code true} if allocations of 512 bytes and more should be rounded up to one of
+     *                              four size classes per doubling (like 1024, 1280, 1536, 1792, 2048, ...) instead of
+     *                              the next power of two. This wastes less memory for sizes which are not a power of
+     *                              two.
+     * @param numArenaStripes       the number of stripes per arena. Each stripe has its own chunks and lock, and the
+     *                              threads which share an arena are spread over its stripes, so allocations which are
+     *                              not served by the thread-local cache contend less. Each stripe allocates its own
+     *                              chunks, so the memory footprint may grow with the number of stripes.
+     * @param confinedRefCnt        {@code true} if the reference count of a pooled buffer should be updated without
+     *                              atomic operations while only the allocating thread retains and releases it. Once
+     *                              the buffer was handed to another thread which updates the reference count, or a
+     *                              derived buffer was created from it, all following updates are atomic. A buffer
+     *                              which is retained or released by multiple threads at the same time must be passed
+     *                              to {@link ByteBufUtil#share(ByteBuf)} before it is handed to the other threads.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long hugeCacheSize, long hugeCacheIdleTimeout, TimeUnit unit,
+                                  boolean fineSizeClasses, int numArenaStripes, boolean confinedRefCnt) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize,
+                normalCacheSize, hugeCacheSize, hugeCacheIdleTimeout, unit, fineSizeClasses, numArenaStripes,
+                confinedRefCnt, null);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param hugeCacheSize         the maximum number of bytes used to cache the memory of huge allocations (bigger
+     *                              than {@code pageSize << maxOrder}) for reuse. The budget is shared between all heap
+     *                              arenas and, separately, between all direct arenas. {@code 0} disables the cache.
+     * @param hugeCacheIdleTimeout  the time after which cached memory that was not reused is released.
+     * @param unit                  the {@link TimeUnit} of {@code hugeCacheIdleTimeout}.
+     * @param fineSizeClasses       {@code true} if allocations of 512 bytes and more should be rounded up to one of
+     *                              four size classes per doubling (like 1024, 1280, 1536, 1792, 2048, ...) instead of
+     *                              the next power of two. This wastes less memory for sizes which are not a power of
+     *                              two.
+     * @param numArenaStripes       the number of stripes per arena. Each stripe has its own chunks and lock, and the
+     *                              threads which share an arena are spread over its stripes, so allocations which are
+     *                              not served by the thread-local cache contend less. Each stripe allocates its own
+     *                              chunks, so the memory footprint may grow with the number of stripes.
+     * @param confinedRefCnt        {@code true} if the reference count of a pooled buffer should be updated without
+     *                              atomic operations while only the allocating thread retains and releases it. Once
+     *                              the buffer was handed to another thread which updates the reference count, or a
+     *                              derived buffer was created from it, all following updates are atomic. A buffer
+     *                              which is retained or released by multiple threads at the same time must be passed
+     *                              to {@link ByteBufUtil#share(ByteBuf)} before it is handed to the other threads.
+     * @param directChunkAllocator  the {@link DirectChunkAllocator} which allocates the memory of the chunks and of
+     *                              the huge allocations of the direct arenas, or {@code null} to allocate it via
+     *                              {@link java.nio.ByteBuffer#allocateDirect(int)}. The native epoll transport
+     *                              provides one which backs the memory with huge pages.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long hugeCacheSize, long hugeCacheIdleTimeout, TimeUnit unit,
+                                  boolean fineSizeClasses, int numArenaStripes, boolean confinedRefCnt,
+                                  DirectChunkAllocator directChunkAllocator) {
         super(preferDirect);
+        if (numArenaStripes <= 0) {
+            throw new IllegalArgumentException("numArenaStripes: " + numArenaStripes + " (expected: > 0)");
+        }
+        if (hugeCacheSize < 0) {
+            throw new IllegalArgumentException("hugeCacheSize: " + hugeCacheSize + " (expected: >= 0)");
+        }
+        if (hugeCacheIdleTimeout <= 0) {
+            throw new IllegalArgumentException(
+                    "hugeCacheIdleTimeout: " + hugeCacheIdleTimeout + " (expected: > 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
         threadCache = new PoolThreadLocalCache();
         this.tinyCacheSize = tinyCacheSize;
         this.smallCacheSize = smallCacheSize;
         this.normalCacheSize = normalCacheSize;
+        this.hugeCacheSize = hugeCacheSize;
+        this.fineSizeClasses = fineSizeClasses;
+        this.numArenaStripes = numArenaStripes;
+        this.confinedRefCnt = confinedRefCnt;
+        this.directChunkAllocator = directChunkAllocator;
         final int chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
+        final long hugeCacheIdleTimeoutNanos = unit.toNanos(hugeCacheIdleTimeout);
 
         if (nHeapArena < 0) {
             throw new IllegalArgumentException("nHeapArena: " + nHeapArena + " (expected: >= 0)");
@@ -175,7 +382,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             heapArenas = newArenaArray(nHeapArena);
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(heapArenas.length);
             for (int i = 0; i < heapArenas.length; i ++) {
-                PoolArena.HeapArena arena = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                PoolArena.HeapArena arena = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize,
+                        hugeCacheSize / heapArenas.length, hugeCacheIdleTimeoutNanos, fineSizeClasses,
+                        numArenaStripes);
                 heapArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -190,7 +399,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(directArenas.length);
             for (int i = 0; i < directArenas.length; i ++) {
                 PoolArena.DirectArena arena = new PoolArena.DirectArena(
-                        this, pageSize, maxOrder, pageShifts, chunkSize);
+                        this, pageSize, maxOrder, pageShifts, chunkSize,
+                        hugeCacheSize / directArenas.length, hugeCacheIdleTimeoutNanos, fineSizeClasses,
+                        numArenaStripes, directChunkAllocator);
                 directArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -243,7 +454,11 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
         ByteBuf buf;
         if (heapArena != null) {
-            buf = heapArena.allocate(cache, initialCapacity, maxCapacity);
+            PooledByteBuf<byte[]> pooled = heapArena.allocate(cache, initialCapacity, maxCapacity);
+            if (confinedRefCnt) {
+                pooled.confine(cache.thread);
+            }
+            buf = pooled;
         } else {
             buf = new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
         }
@@ -258,7 +473,11 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
         ByteBuf buf;
         if (directArena != null) {
-            buf = directArena.allocate(cache, initialCapacity, maxCapacity);
+            PooledByteBuf<ByteBuffer> pooled = directArena.allocate(cache, initialCapacity, maxCapacity);
+            if (confinedRefCnt) {
+                pooled.confine(cache.thread);
+            }
+            buf = pooled;
         } else {
             if (PlatformDependent.hasUnsafe()) {
                 buf = new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
@@ -319,6 +538,59 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return DEFAULT_NORMAL_CACHE_SIZE;
     }
 
+    /**
+     *  Default huge cache size - System Property: io.netty.allocator.hugeCacheSize - default 0 (disabled)
+     */
+    public static long defaultHugeCacheSize() {
+        return DEFAULT_HUGE_CACHE_SIZE;
+    }
+
+    /**
+     *  Default huge cache idle timeout in milliseconds - System Property: io.netty.allocator.hugeCacheIdleTimeout
+     *  - default 10000
+     */
+    public static long defaultHugeCacheIdleTimeout() {
+        return DEFAULT_HUGE_CACHE_IDLE_TIMEOUT;
+    }
+
+    /**
+     *  Default interval in milliseconds in which the thread-local caches of {@link EventExecutor} threads are trimmed
+     *  - System Property: io.netty.allocator.cacheTrimIntervalMillis - default 0 (disabled)
+     */
+    public static long defaultCacheTrimIntervalMillis() {
+        return DEFAULT_CACHE_TRIM_INTERVAL_MILLIS;
+    }
+
+    /**
+     *  Default number of chunks per arena which are kept by the periodic trimming
+     *  - System Property: io.netty.allocator.minRetainedChunks - default 1
+     */
+    public static int defaultMinRetainedChunks() {
+        return DEFAULT_MIN_RETAINED_CHUNKS;
+    }
+
+    /**
+     *  Default size classes - System Property: io.netty.allocator.fineSizeClasses - default false
+     */
+    public static boolean defaultFineSizeClasses() {
+        return DEFAULT_FINE_SIZE_CLASSES;
+    }
+
+    /**
+     *  Default number of stripes per arena - System Property: io.netty.allocator.numArenaStripes - default 1
+     */
+    public static int defaultNumArenaStripes() {
+        return DEFAULT_NUM_ARENA_STRIPES;
+    }
+
+    /**
+     *  Default reference counting of pooled buffers - System Property: io.netty.allocator.confinedRefCnt
+     *  - default false
+     */
+    public static boolean defaultConfinedRefCnt() {
+        return DEFAULT_CONFINED_REF_CNT;
+    }
+
     @Override
     public boolean isDirectBufferPooled() {
         return directArenas != null;
@@ -348,9 +620,20 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             final PoolArena<byte[]> heapArena = leastUsedArena(heapArenas);
             final PoolArena<ByteBuffer> directArena = leastUsedArena(directArenas);
 
-            return new PoolThreadCache(
+            PoolThreadCache cache = new PoolThreadCache(
                     heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
                     DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+
+            if (DEFAULT_CACHE_TRIM_INTERVAL_MILLIS > 0) {
+                // Threads of an EventExecutor may become idle and so never hit the allocation based trim threshold.
+                // Trim these periodically to release the memory again.
+                EventExecutor executor = ThreadExecutorMap.currentExecutor();
+                if (executor != null) {
+                    executor.scheduleAtFixedRate(trimTask, DEFAULT_CACHE_TRIM_INTERVAL_MILLIS,
+                            DEFAULT_CACHE_TRIM_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            return cache;
         }
 
         @Override
@@ -441,6 +724,85 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return normalCacheSize;
     }
 
+    /**
+     * Trim the thread-local cache of the calling {@link Thread} and release all chunks which are not in use anymore,
+     * including the cached chunks of huge allocations. This can be used to give memory back after a spike of
+     * allocations.
+     *
+     * @return the number of bytes released.
+     */
+    public long trim() {
+        if (threadCache.isSet()) {
+            threadCache.get().trim();
+        }
+        return trimArenas(heapArenas, 0, true) + trimArenas(directArenas, 0, true);
+    }
+
+    /**
+     * Called periodically from the {@link EventExecutor} which uses a thread-local cache. The cache entries which were
+     * not used since the last trim are given back to the arenas and afterwards all unused chunks, except
+     * {@link #defaultMinRetainedChunks()} chunks per arena, are released.
+     */
+    private void trimCurrentThreadCache() {
+        if (!threadCache.isSet()) {
+            return;
+        }
+        PoolThreadCache cache = threadCache.get();
+        cache.trim();
+        if (cache.heapArena != null) {
+            cache.heapArena.trim(DEFAULT_MIN_RETAINED_CHUNKS, false);
+        }
+        if (cache.directArena != null) {
+            cache.directArena.trim(DEFAULT_MIN_RETAINED_CHUNKS, false);
+        }
+    }
+
+    private static long trimArenas(PoolArena<?>[] arenas, int minChunks, boolean freeHugeCache) {
+        long bytes = 0;
+        if (arenas != null) {
+            for (PoolArena<?> arena: arenas) {
+                bytes += arena.trim(minChunks, freeHugeCache);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Return the maximum number of bytes used by the huge cache of all heap arenas respectively all direct arenas.
+     */
+    public long hugeCacheSize() {
+        return hugeCacheSize;
+    }
+
+    /**
+     * Return {@code true} if four size classes per doubling are used instead of power of two sizes.
+     */
+    public boolean isFineSizeClasses() {
+        return fineSizeClasses;
+    }
+
+    /**
+     * Return the number of stripes per arena.
+     */
+    public int numArenaStripes() {
+        return numArenaStripes;
+    }
+
+    /**
+     * Return {@code true} if the reference count of the pooled buffers is confined to the allocating thread.
+     */
+    public boolean isRefCntConfined() {
+        return confinedRefCnt;
+    }
+
+    /**
+     * Return the {@link DirectChunkAllocator} which allocates the memory of the direct arenas, or {@code null} if
+     * the memory is allocated via {@link java.nio.ByteBuffer#allocateDirect(int)}.
+     */
+    public DirectChunkAllocator directChunkAllocator() {
+        return directChunkAllocator;
+    }
+
     final PoolThreadCache threadCache() {
         return threadCache.get();
     }
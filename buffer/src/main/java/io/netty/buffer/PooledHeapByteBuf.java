@@ -95,6 +95,12 @@ class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
         return HeapByteBufUtil.getLongLE(memory, idx(index));
     }
 
+    @Override
+    boolean isWordAccessFast() {
+        // The longs are assembled from single bytes.
+        return false;
+    }
+
     @Override
     public final ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
         checkDstIndex(index, length, dstIndex, dst.capacity());
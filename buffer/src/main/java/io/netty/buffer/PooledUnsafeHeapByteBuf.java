@@ -61,6 +61,11 @@ final class PooledUnsafeHeapByteBuf extends PooledHeapByteBuf {
         return UnsafeByteBufUtil.getLong(memory, idx(index));
     }
 
+    @Override
+    boolean isWordAccessFast() {
+        return PlatformDependent.isUnaligned();
+    }
+
     @Override
     protected void _setByte(int index, int value) {
         UnsafeByteBufUtil.setByte(memory, idx(index), value);
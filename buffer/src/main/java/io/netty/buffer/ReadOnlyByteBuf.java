@@ -44,6 +44,7 @@ public class ReadOnlyByteBuf extends AbstractDerivedByteBuf {
         } else {
             this.buffer = buffer;
         }
+        shareRefCnt(this.buffer);
         setIndex(buffer.readerIndex(), buffer.writerIndex());
     }
 
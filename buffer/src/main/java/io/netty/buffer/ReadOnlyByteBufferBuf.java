@@ -15,6 +15,7 @@
  */
 package io.netty.buffer;
 
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.io.IOException;
@@ -35,9 +36,19 @@ class ReadOnlyByteBufferBuf extends AbstractReferenceCountedByteBuf {
 
     protected final ByteBuffer buffer;
     private final ByteBufAllocator allocator;
+    // The wrapped buffer itself, as the cleaner of a direct buffer is not shared with its slices.
+    private final ByteBuffer bufferToFree;
     private ByteBuffer tmpNioBuf;
 
     ReadOnlyByteBufferBuf(ByteBufAllocator allocator, ByteBuffer buffer) {
+        this(allocator, buffer, false);
+    }
+
+    /**
+     * @param free {@code true} if {@code buffer} is owned by this buffer and should be freed once it is deallocated,
+     *             which unmaps a {@link java.nio.MappedByteBuffer}.
+     */
+    ReadOnlyByteBufferBuf(ByteBufAllocator allocator, ByteBuffer buffer, boolean free) {
         super(buffer.remaining());
         if (!buffer.isReadOnly()) {
             throw new IllegalArgumentException("must be a readonly buffer: " + StringUtil.simpleClassName(buffer));
@@ -45,11 +56,17 @@ class ReadOnlyByteBufferBuf extends AbstractReferenceCountedByteBuf {
 
         this.allocator = allocator;
         this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        bufferToFree = free ? buffer : null;
         writerIndex(this.buffer.limit());
     }
 
     @Override
-    protected void deallocate() { }
+    protected void deallocate() {
+        if (bufferToFree != null) {
+            tmpNioBuf = null;
+            PlatformDependent.freeDirectBuffer(bufferToFree);
+        }
+    }
 
     @Override
     public byte getByte(int index) {
@@ -28,7 +28,11 @@ final class ReadOnlyUnsafeDirectByteBuf extends ReadOnlyByteBufferBuf {
     private final long memoryAddress;
 
     ReadOnlyUnsafeDirectByteBuf(ByteBufAllocator allocator, ByteBuffer buffer) {
-        super(allocator, buffer);
+        this(allocator, buffer, false);
+    }
+
+    ReadOnlyUnsafeDirectByteBuf(ByteBufAllocator allocator, ByteBuffer buffer, boolean free) {
+        super(allocator, buffer, free);
         memoryAddress = PlatformDependent.directBufferAddress(buffer);
     }
 
@@ -55,6 +55,7 @@ public class SlicedByteBuf extends AbstractDerivedByteBuf {
             this.buffer = buffer;
             adjustment = index;
         }
+        shareRefCnt(this.buffer);
         this.length = length;
 
         writerIndex(length);
@@ -17,9 +17,12 @@ package io.netty.buffer;
 
 import io.netty.util.internal.PlatformDependent;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -67,6 +70,12 @@ import java.util.List;
  * between the original data and the copied buffer.  Various copy methods are
  * provided and their name is all {@code copiedBuffer()}.  It is also convenient
  * to use this operation to merge multiple buffers into one buffer.
+ *
+ * <h3>Creating a mapped buffer</h3>
+ *
+ * {@link #mappedBuffer(FileChannel, long, int)} maps a region of a file into
+ * memory, which allows to send the file content through handlers which need a
+ * {@link ByteBuf} without reading it into a buffer first.
  */
 public final class Unpooled {
 
@@ -207,6 +216,37 @@ public final class Unpooled {
         }
     }
 
+    /**
+     * Creates a new read-only direct buffer which maps the specified region of {@code channel} into memory. Slices and
+     * duplicates of the returned buffer share the mapping without copying the content. The region is unmapped as
+     * soon as the buffer is released (if supported by the platform), so neither the buffer nor a {@link ByteBuffer}
+     * obtained from it may be accessed afterwards.
+     *
+     * @param position the position in the file at which the region starts
+     * @param length the number of bytes to map
+     */
+    public static ByteBuf mappedBuffer(FileChannel channel, long position, int length) throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected: 0 or greater)");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length: " + length + " (expected: 0 or greater)");
+        }
+        if (length == 0) {
+            return EMPTY_BUFFER;
+        }
+
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        if (PlatformDependent.hasUnsafe()) {
+            return new ReadOnlyUnsafeDirectByteBuf(ALLOC, mapped, true);
+        } else {
+            return new ReadOnlyByteBufferBuf(ALLOC, mapped, true);
+        }
+    }
+
     /**
      * Creates a new buffer which wraps the specified buffer's readable bytes.
      * A modification on the specified buffer's content will be visible to the
@@ -387,6 +387,12 @@ public class UnpooledHeapByteBuf extends AbstractReferenceCountedByteBuf {
         return HeapByteBufUtil.getLongLE(array, index);
     }
 
+    @Override
+    boolean isWordAccessFast() {
+        // The longs are assembled from single bytes.
+        return false;
+    }
+
     @Override
     public ByteBuf setByte(int index, int value) {
         ensureAccessible();
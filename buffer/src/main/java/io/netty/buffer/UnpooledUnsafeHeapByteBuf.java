@@ -85,6 +85,11 @@ final class UnpooledUnsafeHeapByteBuf extends UnpooledHeapByteBuf {
         return UnsafeByteBufUtil.getLong(array, index);
     }
 
+    @Override
+    boolean isWordAccessFast() {
+        return PlatformDependent.isUnaligned();
+    }
+
     @Override
     public ByteBuf setByte(int index, int value) {
         checkIndex(index);
@@ -65,6 +65,28 @@ final class UnreleasableByteBuf extends WrappedByteBuf {
         return new UnreleasableByteBuf(buf.duplicate());
     }
 
+    // As this buffer can not be released there is no need to retain the derived buffers.
+
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        return readSlice(length);
+    }
+
+    @Override
+    public ByteBuf retainedSlice() {
+        return slice();
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return slice(index, length);
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return duplicate();
+    }
+
     @Override
     public ByteBuf retain(int increment) {
         return this;
@@ -1824,6 +1824,43 @@ public abstract class AbstractByteBufTest {
         assertEquals(3, buffer.indexOf(4, 1, (byte) 2));
     }
 
+    @Test
+    public void testIndexOfAcrossWords() {
+        // Surround the value with bytes which differ from it only in a few bits, and with bytes which have the high
+        // bit set, so a word at a time search can not report a neighbouring byte.
+        final byte[] filler = { 0x0B, (byte) 0x8A, 0x0B, (byte) 0xFF, 0x00, 0x0B, (byte) 0x80, 0x0B };
+        for (int found = 0; found < 24; found ++) {
+            buffer.clear();
+            for (int i = 0; i < 32; i ++) {
+                buffer.writeByte(i == found ? '\n' : filler[i & 7]);
+            }
+            for (int from = 0; from < 32; from ++) {
+                int expected = found >= from ? found : -1;
+                assertEquals(expected, buffer.indexOf(from, 32, (byte) '\n'));
+                buffer.readerIndex(from);
+                assertEquals(expected, buffer.forEachByte(ByteProcessor.FIND_LF));
+                assertEquals(expected, buffer.forEachByte(ByteProcessor.FIND_CRLF));
+            }
+            assertEquals(-1, buffer.indexOf(found + 1, 32, (byte) '\n'));
+        }
+    }
+
+    @Test
+    public void testForEachByteFindDelimiters() {
+        buffer.clear();
+        buffer.writeBytes(new byte[] {
+                'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', ';', 'k', '\r', '\n', 'n', 0, 'p' });
+        assertEquals(9, buffer.forEachByte(ByteProcessor.FIND_SEMI_COLON));
+        assertEquals(11, buffer.forEachByte(ByteProcessor.FIND_CR));
+        assertEquals(11, buffer.forEachByte(ByteProcessor.FIND_CRLF));
+        assertEquals(12, buffer.forEachByte(ByteProcessor.FIND_LF));
+        assertEquals(14, buffer.forEachByte(ByteProcessor.FIND_NUL));
+        assertEquals(12, buffer.forEachByte(12, 4, ByteProcessor.FIND_CRLF));
+        assertEquals(-1, buffer.forEachByte(0, 11, ByteProcessor.FIND_CRLF));
+        assertEquals(-1, buffer.forEachByte(0, 14, ByteProcessor.FIND_NUL));
+        assertEquals(14, buffer.bytesBefore((byte) 0));
+    }
+
     @Test
     public void testNioBuffer1() {
         Assume.assumeTrue(buffer.nioBufferCount() == 1);
@@ -2846,6 +2883,64 @@ public abstract class AbstractByteBufTest {
         assertEquals(0, buf.refCnt());
     }
 
+    @Test
+    public void testRetainedSliceRelease() {
+        ByteBuf buf = newBuffer(8);
+        buf.clear().writeBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        ByteBuf slice = buf.retainedSlice(2, 4);
+        assertFalse(buf.release());
+        assertEquals(3, slice.readByte());
+        assertEquals(6, slice.getByte(3));
+        assertTrue(slice.release());
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testRetainedDuplicateRelease() {
+        ByteBuf buf = newBuffer(8);
+        buf.clear().writeBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        buf.readerIndex(2);
+        ByteBuf duplicate = buf.retainedDuplicate();
+        assertEquals(2, duplicate.readerIndex());
+        assertEquals(8, duplicate.writerIndex());
+        assertFalse(buf.release());
+        assertEquals(3, duplicate.readByte());
+        assertTrue(duplicate.release());
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testRetainedSliceOfRetainedSlice() {
+        ByteBuf buf = newBuffer(8);
+        buf.clear().writeBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        ByteBuf slice = buf.retainedSlice(1, 6);
+        ByteBuf slice2 = slice.retainedSlice(1, 4);
+        assertEquals(4, slice2.capacity());
+        assertEquals(3, slice2.getByte(0));
+        slice2.setByte(0, 9);
+        assertEquals(9, buf.getByte(2));
+        assertFalse(buf.release());
+        assertFalse(slice.release());
+        assertEquals(9, slice2.readByte());
+        assertEquals(6, slice2.getByte(3));
+        assertTrue(slice2.release());
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testReadRetainedSlice() {
+        ByteBuf buf = newBuffer(8);
+        buf.clear().writeBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        ByteBuf slice = buf.readRetainedSlice(4);
+        assertEquals(4, buf.readerIndex());
+        assertEquals(4, slice.readableBytes());
+        assertEquals(1, slice.getByte(0));
+        assertEquals(4, slice.getByte(3));
+        assertFalse(buf.release());
+        assertTrue(slice.release());
+        assertEquals(0, buf.refCnt());
+    }
+
     // Test-case trying to reproduce:
     // https://github.com/netty/netty/issues/2843
     @Test
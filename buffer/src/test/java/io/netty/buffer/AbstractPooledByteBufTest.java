@@ -65,6 +65,30 @@ public abstract class AbstractPooledByteBufTest extends AbstractByteBufTest {
         assertTrue(buf2.release());
     }
 
+    @Test
+    public void testRetainedSliceIsRecycled() {
+        ByteBuf buf = unwrapIfNeeded(newBuffer(8));
+        buf.writeLong(1);
+
+        ByteBuf slice = buf.retainedSlice();
+        assertEquals(1, slice.refCnt());
+        assertEquals(2, buf.refCnt());
+        assertTrue(slice.release());
+        assertEquals(1, buf.refCnt());
+
+        ByteBuf duplicate = buf.retainedDuplicate();
+        assertTrue(duplicate.release());
+
+        // Released derived buffers are returned to the pool.
+        ByteBuf slice2 = buf.retainedSlice(2, 4);
+        assertSame(slice, slice2);
+        assertEquals(4, slice2.capacity());
+        assertEquals(0, slice2.readerIndex());
+        assertEquals(4, slice2.writerIndex());
+        assertTrue(slice2.release());
+        assertTrue(buf.release());
+    }
+
     private static ByteBuf unwrapIfNeeded(ByteBuf buf) {
         if (buf instanceof AdvancedLeakAwareByteBuf || buf instanceof SimpleLeakAwareByteBuf) {
             return buf.unwrap();
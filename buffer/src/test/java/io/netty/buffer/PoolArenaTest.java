@@ -25,11 +25,43 @@ public class PoolArenaTest {
 
     @Test
     public void testNormalizeCapacity() throws Exception {
-        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999);
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 0, 0, false, 1, null);
         int[] reqCapacities = {0, 15, 510, 1024, 1023, 1025};
         int[] expectedResult = {0, 16, 512, 1024, 1024, 2048};
         for (int i = 0; i < reqCapacities.length; i ++) {
             Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
         }
     }
+
+    @Test
+    public void testNormalizeCapacityFineSizeClasses() throws Exception {
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 8192, 11, 13, 8192 << 11, 0, 0, true, 1, null);
+        int[] reqCapacities = {0, 15, 510, 512, 513, 1025, 9 * 1024, 33 * 1024, (8192 << 11) - 1, 8192 << 11};
+        int[] expectedResult = {0, 16, 512, 512, 640, 1280, 10 * 1024, 40 * 1024, 8192 << 11, 8192 << 11};
+        for (int i = 0; i < reqCapacities.length; i ++) {
+            Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
+        }
+    }
+
+    @Test
+    public void testSizeClassIndicesFineSizeClasses() throws Exception {
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 8192, 11, 13, 8192 << 11, 0, 0, true, 1, null);
+        // 512, 640, 768, 896, 1024, ..., 28672
+        Assert.assertEquals(24, arena.numSmallSubpagePools);
+        Assert.assertEquals(0, arena.smallIdx(512));
+        Assert.assertEquals(1, arena.smallIdx(640));
+        Assert.assertEquals(4, arena.smallIdx(1024));
+        Assert.assertEquals(23, arena.smallIdx(28 * 1024));
+        Assert.assertTrue(arena.isTinyOrSmall(28 * 1024));
+        Assert.assertFalse(arena.isTinyOrSmall(32 * 1024));
+        Assert.assertEquals(0, arena.normalIdx(32 * 1024));
+        Assert.assertEquals(1, arena.normalIdx(40 * 1024));
+        Assert.assertEquals(4, arena.normalIdx(64 * 1024));
+
+        // Runs of subpages never leave unused space at the end.
+        Assert.assertEquals(8192, arena.subpageRunSize(1024));
+        Assert.assertEquals(5 * 8192, arena.subpageRunSize(640));
+        Assert.assertEquals(7 * 8192, arena.subpageRunSize(14 * 1024));
+        Assert.assertEquals(3 * 8192, arena.subpageRunSize(12 * 1024));
+    }
 }
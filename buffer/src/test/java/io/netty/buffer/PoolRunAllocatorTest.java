@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PoolRunAllocatorTest {
+
+    @Test
+    public void testAllocateAndFree() {
+        PoolRunAllocator runs = new PoolRunAllocator(8);
+        assertEquals(0, runs.allocate(3));
+        assertEquals(3, runs.allocate(3));
+        assertEquals(-1, runs.allocate(3));
+        assertEquals(6, runs.allocate(2));
+        assertEquals(-1, runs.allocate(1));
+
+        runs.free(0, 3);
+        runs.free(6, 2);
+        // The free runs are not adjacent.
+        assertEquals(-1, runs.allocate(4));
+
+        // Merges all free runs into one.
+        runs.free(3, 3);
+        assertEquals(0, runs.allocate(8));
+    }
+
+    @Test
+    public void testBestFit() {
+        PoolRunAllocator runs = new PoolRunAllocator(10);
+        assertEquals(0, runs.allocate(4));
+        assertEquals(4, runs.allocate(1));
+        assertEquals(5, runs.allocate(2));
+        assertEquals(7, runs.allocate(3));
+        runs.free(0, 4);
+        runs.free(5, 2);
+
+        // Must use the free run of 2 pages and not split the one of 4 pages.
+        assertEquals(5, runs.allocate(2));
+        assertEquals(0, runs.allocate(4));
+    }
+
+    @Test
+    public void testRandomAllocations() {
+        int numPages = 2048;
+        PoolRunAllocator runs = new PoolRunAllocator(numPages);
+        Random random = new Random(42);
+        boolean[] used = new boolean[numPages];
+        List<int[]> allocated = new ArrayList<int[]>();
+        for (int i = 0; i < 100000; i++) {
+            if (allocated.isEmpty() || random.nextBoolean()) {
+                int pages = 1 + random.nextInt(32);
+                int start = runs.allocate(pages);
+                if (start >= 0) {
+                    for (int p = start; p < start + pages; p++) {
+                        assertFalse(used[p]);
+                        used[p] = true;
+                    }
+                    allocated.add(new int[] { start, pages });
+                }
+            } else {
+                int[] run = allocated.remove(random.nextInt(allocated.size()));
+                for (int p = run[0]; p < run[0] + run[1]; p++) {
+                    assertTrue(used[p]);
+                    used[p] = false;
+                }
+                runs.free(run[0], run[1]);
+            }
+        }
+
+        Collections.shuffle(allocated, random);
+        for (int[] run: allocated) {
+            runs.free(run[0], run[1]);
+        }
+        // Everything must have been merged again.
+        assertEquals(0, runs.allocate(numPages));
+    }
+}
@@ -21,16 +21,24 @@ import io.netty.util.concurrent.FastThreadLocalThread;
 import io.netty.util.internal.SystemPropertyUtil;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class PooledByteBufAllocatorTest {
@@ -131,6 +139,426 @@ public class PooledByteBufAllocatorTest {
         assertEquals(0, allocator.directArenas().get(1).numThreadCaches());
     }
 
+    @Test
+    public void testHugeCache() {
+        // 8192 << 1 = 16 KiB chunks so every allocation > 16 KiB is a huge allocation.
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, 8192, 1, 0, 0, 0, 48 * 1024, 1, TimeUnit.HOURS);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        ByteBuf buf = allocator.heapBuffer(20000);
+        assertEquals(20000, buf.capacity());
+        assertEquals(0, metric.numHugeCacheHits());
+        assertEquals(1, metric.numHugeCacheMisses());
+        buf.release();
+        assertEquals(1, metric.numHugeDeallocations());
+        assertEquals(20 * 1024, metric.numCachedHugeBytes());
+
+        // Allocations of a similar size are served by the cached chunk.
+        buf = allocator.heapBuffer(19000);
+        assertEquals(19000, buf.capacity());
+        assertEquals(1, metric.numHugeCacheHits());
+        assertEquals(1, metric.numHugeCacheMisses());
+        assertEquals(0, metric.numCachedHugeBytes());
+
+        ByteBuf buf2 = allocator.heapBuffer(40000);
+        assertEquals(2, metric.numHugeCacheMisses());
+        assertEquals(2, metric.numActiveHugeAllocations());
+        buf.release();
+        // Does not fit in the cache anymore and so must be released.
+        buf2.release();
+        assertEquals(20 * 1024, metric.numCachedHugeBytes());
+        assertEquals(0, metric.numActiveHugeAllocations());
+    }
+
+    @Test
+    public void testHugeCacheIdleTimeout() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, 8192, 1, 0, 0, 0, 64 * 1024, 1, MILLISECONDS);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        allocator.heapBuffer(20000).release();
+        assertEquals(20 * 1024, metric.numCachedHugeBytes());
+        Thread.sleep(10);
+
+        // The cached chunk was idle for too long and so is released instead of reused.
+        ByteBuf buf = allocator.heapBuffer(20000);
+        assertEquals(0, metric.numHugeCacheHits());
+        assertEquals(2, metric.numHugeCacheMisses());
+        assertEquals(0, metric.numCachedHugeBytes());
+        buf.release();
+    }
+
+    @Test
+    public void testHugeCacheDisabledByDefault() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 1);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        allocator.heapBuffer(20000).release();
+        assertEquals(0, metric.numCachedHugeBytes());
+        assertEquals(1, metric.numHugeAllocations());
+        assertEquals(1, metric.numHugeDeallocations());
+    }
+
+    @Test
+    public void testTrim() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        int chunkSize = 8192 << 11;
+
+        ByteBuf buf = allocator.heapBuffer(1024 * 1024);
+        // The chunk is still in use.
+        assertEquals(0, allocator.trim());
+        buf.release();
+
+        assertEquals(chunkSize, allocator.trim());
+        assertEquals(chunkSize, metric.numTrimmedBytes());
+        assertEquals(0, allocator.trim());
+
+        // New memory is allocated after trimming.
+        buf = allocator.heapBuffer(1024 * 1024);
+        buf.release();
+        assertEquals(chunkSize, allocator.trim());
+        assertEquals(2L * chunkSize, metric.numTrimmedBytes());
+    }
+
+    @Test
+    public void testTrimKeepsMinChunks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 1, 0, 0, 0);
+        PoolArena<?> arena = (PoolArena<?>) allocator.heapArenas().get(0);
+
+        // Each allocation needs its own chunk of 16 KiB.
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 3; i++) {
+            buffers.add(allocator.heapBuffer(16 * 1024));
+        }
+        for (ByteBuf buf: buffers) {
+            buf.release();
+        }
+
+        assertEquals(2 * 16 * 1024, arena.trim(1, false));
+        assertEquals(0, arena.trim(1, false));
+        assertEquals(16 * 1024, arena.trim(0, false));
+    }
+
+    @Test
+    public void testTrimReleasesHugeCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, 8192, 1, 0, 0, 0, 64 * 1024, 1, TimeUnit.HOURS);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        allocator.heapBuffer(20000).release();
+        assertEquals(20 * 1024, metric.numCachedHugeBytes());
+        assertEquals(20 * 1024, allocator.trim());
+        assertEquals(0, metric.numCachedHugeBytes());
+    }
+
+    @Test
+    public void testFineSizeClasses() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                true, 1, 1, 8192, 11, 0, 0, 0, 0, 1, TimeUnit.SECONDS, true);
+        assertTrue(allocator.isFineSizeClasses());
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+
+        // Served by a subpage which uses a run of 5 pages for 4 elements.
+        ByteBuf buf = allocator.directBuffer(9 * 1024);
+        List<PoolSubpageMetric> subpages = metric.smallSubpages();
+        assertEquals(1, subpages.size());
+        assertEquals(10 * 1024, subpages.get(0).elementSize());
+        assertEquals(5 * 8192, subpages.get(0).pageSize());
+        assertEquals(4, subpages.get(0).maxNumElements());
+        assertEquals(3, subpages.get(0).numAvailable());
+
+        ByteBuf buf2 = allocator.directBuffer(33 * 1024);
+        PoolChunkMetric chunk = metric.chunkLists().get(0).iterator().next();
+        assertEquals((8192 << 11) - 5 * 8192 - 40 * 1024, chunk.freeBytes());
+
+        buf2.release();
+        buf.release();
+        assertEquals((8192 << 11) - 5 * 8192, chunk.freeBytes());
+        assertEquals(0, metric.numActiveAllocations());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testFineSizeClassesRandomAllocations() {
+        for (boolean direct: new boolean[] { true, false }) {
+            PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                    direct, 1, 1, 8192, 5, 64, 64, 16, 0, 1, TimeUnit.SECONDS, true);
+            Random random = new Random(42);
+            List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+            for (int i = 0; i < 20000; i++) {
+                if (buffers.isEmpty() || random.nextInt(3) != 0) {
+                    int size = 1 + random.nextInt(random.nextBoolean() ? 2048 : 8192 << 5);
+                    ByteBuf buf = allocator.buffer(size);
+                    // Fill the buffer with a pattern so overlapping memory is detected on release.
+                    buf.writerIndex(size);
+                    for (int j = 0; j < size; j += 512) {
+                        buf.setByte(j, (byte) i);
+                    }
+                    buf.setByte(0, (byte) i);
+                    buffers.add(buf);
+                } else {
+                    releaseAndCheck(buffers.remove(random.nextInt(buffers.size())));
+                }
+            }
+            for (ByteBuf buf: buffers) {
+                releaseAndCheck(buf);
+            }
+            // Give the cached buffers back to the arena.
+            allocator.freeThreadLocalCache();
+
+            PoolArenaMetric metric = direct ? allocator.directArenas().get(0) : allocator.heapArenas().get(0);
+            assertEquals(0, metric.numActiveAllocations());
+        }
+    }
+
+    @Test
+    public void testArenaStripes() throws Throwable {
+        final int numStripes = 4;
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                true, 0, 1, 8192, 11, 0, 0, 0, 0, 1, TimeUnit.SECONDS, false, numStripes);
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+        assertEquals(numStripes * 6, metric.numChunkLists());
+
+        // Each thread uses another stripe and so allocates out of another chunk.
+        final List<ByteBuf> buffers = Collections.synchronizedList(new ArrayList<ByteBuf>());
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[numStripes];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Random random = new Random();
+                        List<ByteBuf> live = new ArrayList<ByteBuf>();
+                        for (int n = 0; n < 10000; n++) {
+                            if (live.isEmpty() || random.nextBoolean()) {
+                                // Only normal sizes, so no subpages keep the chunks in use once all are released.
+                                int size = 8192 + random.nextInt(64 * 1024);
+                                ByteBuf buf = allocator.directBuffer(size);
+                                buf.writerIndex(size);
+                                for (int j = 0; j < size; j += 512) {
+                                    buf.setByte(j, (byte) n);
+                                }
+                                buf.setByte(0, (byte) n);
+                                live.add(buf);
+                            } else {
+                                releaseAndCheck(live.remove(random.nextInt(live.size())));
+                            }
+                        }
+                        buffers.addAll(live);
+                    } catch (Throwable cause) {
+                        error.compareAndSet(null, cause);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        assertTrue(numChunks(metric) >= numStripes);
+
+        // Free the buffers from another thread than the one which allocated them.
+        for (ByteBuf buf: buffers) {
+            releaseAndCheck(buf);
+        }
+        assertEquals(0, metric.numActiveAllocations());
+        long chunkBytes = (long) numChunks(metric) * (8192 << 11);
+        assertEquals(chunkBytes, allocator.trim());
+        assertEquals(0, numChunks(metric));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testCrossThreadDeallocationIsCached() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 8);
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+
+        ByteBuf buf = allocator.directBuffer(16384);
+        releaseInOtherThread(buf);
+        assertEquals(1, metric.numCrossThreadCachedDeallocations());
+        assertEquals(0, metric.numNormalDeallocations());
+
+        // The memory is served out of the cache of the allocating thread again.
+        buf = allocator.directBuffer(16384);
+        assertEquals(1, metric.numNormalAllocations());
+
+        // Once the cache is freed the memory must be given back to the arena.
+        allocator.freeThreadLocalCache();
+        releaseInOtherThread(buf);
+        assertEquals(1, metric.numCrossThreadCachedDeallocations());
+        assertEquals(1, metric.numNormalDeallocations());
+        assertEquals(0, metric.numActiveAllocations());
+    }
+
+    @Test
+    public void testConfinedRefCnt() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0,
+                0, 1, TimeUnit.SECONDS, false, 1, true);
+        ByteBuf wrapper = allocator.directBuffer(16);
+        AbstractReferenceCountedByteBuf buf = refCounted(wrapper);
+        assertSame(Thread.currentThread(), buf.confinedTo());
+
+        wrapper.retain(2);
+        assertFalse(wrapper.release());
+        assertSame(Thread.currentThread(), buf.confinedTo());
+        assertEquals(2, buf.refCnt());
+
+        // Once the buffer was handed over to another thread all updates are atomic.
+        releaseInOtherThread(wrapper);
+        assertNull(buf.confinedTo());
+        assertEquals(1, buf.refCnt());
+        assertTrue(wrapper.release());
+
+        // A derived buffer inherits the confinement, but as it may be released by another thread the updates of the
+        // buffer it was derived from are atomic from now on.
+        wrapper = allocator.directBuffer(16);
+        buf = refCounted(wrapper);
+        assertSame(Thread.currentThread(), buf.confinedTo());
+        AbstractReferenceCountedByteBuf slice = (AbstractReferenceCountedByteBuf) buf.retainedSlice(0, 8);
+        assertSame(Thread.currentThread(), slice.confinedTo());
+        assertNull(buf.confinedTo());
+        assertEquals(2, buf.refCnt());
+        releaseInOtherThread(slice);
+        assertEquals(0, slice.refCnt());
+        assertEquals(1, buf.refCnt());
+        assertTrue(wrapper.release());
+
+        // The same is true for derived buffers which forward the updates to the buffer they were derived from.
+        wrapper = allocator.directBuffer(16);
+        buf = refCounted(wrapper);
+        assertSame(Thread.currentThread(), buf.confinedTo());
+        ByteBuf duplicate = wrapper.duplicate();
+        assertNull(buf.confinedTo());
+        assertTrue(duplicate.release());
+
+        // A recycled buffer must not stay confined if allocated by another allocator.
+        PooledByteBufAllocator other = new PooledByteBufAllocator(true, 0, 1, 8192, 11);
+        wrapper = other.directBuffer(16);
+        assertNull(refCounted(wrapper).confinedTo());
+        assertTrue(wrapper.release());
+    }
+
+    @Test
+    public void testDirectChunkAllocator() {
+        final List<ByteBuffer> allocated = new ArrayList<ByteBuffer>();
+        final List<ByteBuffer> freed = new ArrayList<ByteBuffer>();
+        DirectChunkAllocator chunkAllocator = new DirectChunkAllocator() {
+            @Override
+            public ByteBuffer allocate(int capacity) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+                allocated.add(buffer);
+                return buffer;
+            }
+
+            @Override
+            public void free(ByteBuffer buffer) {
+                freed.add(buffer);
+            }
+        };
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0,
+                0, 1, TimeUnit.SECONDS, false, 1, false, chunkAllocator);
+        assertSame(chunkAllocator, allocator.directChunkAllocator());
+
+        ByteBuf buf = allocator.directBuffer(1024);
+        assertEquals(1, allocated.size());
+        assertEquals(8192 << 11, allocated.get(0).capacity());
+
+        // Huge allocations are not pooled and their memory is freed on release.
+        ByteBuf huge = allocator.directBuffer((8192 << 11) + 1);
+        assertEquals(2, allocated.size());
+        assertEquals((8192 << 11) + 1, allocated.get(1).capacity());
+        assertTrue(huge.release());
+        assertEquals(1, freed.size());
+        assertSame(allocated.get(1), freed.get(0));
+
+        // Heap buffers are not affected.
+        assertTrue(allocator.heapBuffer(1024).release());
+        assertEquals(2, allocated.size());
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testShareConfinedRefCnt() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0,
+                0, 1, TimeUnit.SECONDS, false, 1, true);
+        ByteBuf wrapper = allocator.directBuffer(16);
+        AbstractReferenceCountedByteBuf buf = refCounted(wrapper);
+        AbstractReferenceCountedByteBuf slice = (AbstractReferenceCountedByteBuf) buf.retainedSlice(0, 8);
+        final AbstractReferenceCountedByteBuf slice2 = (AbstractReferenceCountedByteBuf) slice.retainedSlice(0, 4);
+
+        assertSame(slice2, ByteBufUtil.share(slice2));
+        assertNull(slice2.confinedTo());
+        assertNull(slice.confinedTo());
+        assertNull(buf.confinedTo());
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        slice2.retain();
+                        slice2.release();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        assertEquals(1, slice2.refCnt());
+        assertFalse(slice.release());
+        assertTrue(slice2.release());
+        assertEquals(1, buf.refCnt());
+        assertTrue(wrapper.release());
+    }
+
+    private static AbstractReferenceCountedByteBuf refCounted(ByteBuf buf) {
+        // Skip the leak-aware wrapper if any.
+        while (!(buf instanceof AbstractReferenceCountedByteBuf)) {
+            buf = buf.unwrap();
+        }
+        return (AbstractReferenceCountedByteBuf) buf;
+    }
+
+    private static void releaseInOtherThread(final ByteBuf buf) throws InterruptedException {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buf.release();
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+
+    private static int numChunks(PoolArenaMetric metric) {
+        int chunks = 0;
+        for (PoolChunkListMetric list: metric.chunkLists()) {
+            for (PoolChunkMetric chunk: list) {
+                chunks++;
+            }
+        }
+        return chunks;
+    }
+
+    private static void releaseAndCheck(ByteBuf buf) {
+        int size = buf.writerIndex();
+        byte expected = buf.getByte(0);
+        for (int j = 0; j < size; j += 512) {
+            assertEquals(expected, buf.getByte(j));
+        }
+        buf.release();
+    }
+
     private static void destroyThreadCache(CountDownLatch tcache) {
         tcache.countDown();
         LockSupport.parkNanos(MILLISECONDS.toNanos(100));
@@ -19,8 +19,13 @@ import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -623,6 +628,42 @@ public class UnpooledTest {
         wrapped.release();
     }
 
+    @Test
+    public void testMappedBuffer() throws IOException {
+        File file = File.createTempFile("netty-mapped-", ".tmp");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < 64; i++) {
+                out.write(i);
+            }
+        } finally {
+            out.close();
+        }
+
+        FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            ByteBuf mapped = mappedBuffer(channel, 16, 32);
+            assertTrue(mapped.isDirect());
+            assertEquals(32, mapped.readableBytes());
+            for (int i = 0; i < 32; i++) {
+                assertEquals((byte) (i + 16), mapped.getByte(i));
+            }
+
+            // Slices share the mapping and keep it alive.
+            ByteBuf slice = mapped.retainedSlice(8, 8);
+            assertFalse(mapped.release());
+            assertEquals(1, slice.refCnt());
+            assertEquals((byte) 24, slice.getByte(0));
+            assertTrue(slice.release());
+            assertEquals(0, mapped.refCnt());
+
+            assertSame(EMPTY_BUFFER, mappedBuffer(channel, 0, 0));
+        } finally {
+            channel.close();
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void skipBytesNegativeLength() {
         ByteBuf buf = freeLater(buffer(8));
@@ -772,11 +772,19 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         public AppendableCharSequence parse(ByteBuf buffer) {
             final int oldSize = size;
             seq.reset();
-            int i = buffer.forEachByte(this);
+            // Look for the end of the line a word at a time first, so an incomplete line is not copied again and
+            // again while more data is received.
+            final int readerIndex = buffer.readerIndex();
+            int i = buffer.forEachByte(ByteProcessor.FIND_LF);
             if (i == -1) {
+                if (oldSize + buffer.readableBytes() > maxLength) {
+                    // Fail as soon as the limit is exceeded even though the line is incomplete.
+                    buffer.forEachByte(this);
+                }
                 size = oldSize;
                 return null;
             }
+            buffer.forEachByte(readerIndex, i - readerIndex, this);
             buffer.readerIndex(i + 1);
             return seq;
         }
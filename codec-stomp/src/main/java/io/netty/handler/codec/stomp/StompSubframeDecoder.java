@@ -29,7 +29,6 @@ import io.netty.util.internal.StringUtil;
 import java.util.List;
 import java.util.Locale;
 
-import static io.netty.buffer.ByteBufUtil.indexOf;
 import static io.netty.buffer.ByteBufUtil.readBytes;
 
 /**
@@ -149,7 +148,7 @@ public class StompSubframeDecoder extends ReplayingDecoder<State> {
                             return;
                         }
                     } else {
-                        int nulIndex = indexOf(in, in.readerIndex(), in.writerIndex(), StompConstants.NUL);
+                        int nulIndex = in.indexOf(in.readerIndex(), in.writerIndex(), StompConstants.NUL);
                         if (nulIndex == in.readerIndex()) {
                             checkpoint(State.FINALIZE_FRAME_READ);
                         } else {
@@ -171,6 +171,12 @@ final class ReplayingDecoderByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf retainedDuplicate() {
+        reject();
+        return this;
+    }
+
     @Override
     public boolean getBoolean(int index) {
         checkIndex(index, 1);
@@ -582,6 +588,12 @@ final class ReplayingDecoderByteBuf extends ByteBuf {
         return buffer.readSlice(length);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        checkReadableBytes(length);
+        return buffer.readRetainedSlice(length);
+    }
+
     @Override
     public ByteBuf readBytes(OutputStream out, int length) {
         reject();
@@ -870,12 +882,24 @@ final class ReplayingDecoderByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        reject();
+        return this;
+    }
+
     @Override
     public ByteBuf slice(int index, int length) {
         checkIndex(index, length);
         return buffer.slice(index, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        checkIndex(index, length);
+        return buffer.retainedSlice(index, length);
+    }
+
     @Override
     public int nioBufferCount() {
         return buffer.nioBufferCount();
@@ -90,4 +90,18 @@ public class DelimiterBasedFrameDecoderTest {
 
         ReferenceCountUtil.release(ch.readInbound());
     }
+
+    @Test
+    public void testMultiByteDelimiter() {
+        EmbeddedChannel ch = new EmbeddedChannel(new DelimiterBasedFrameDecoder(8192, true,
+                Unpooled.copiedBuffer("<>", CharsetUtil.US_ASCII)));
+        ch.writeInbound(Unpooled.copiedBuffer("a<b<<c<>de<><", CharsetUtil.US_ASCII));
+        assertEquals("a<b<<c", releaseLater((ByteBuf) ch.readInbound()).toString(CharsetUtil.US_ASCII));
+        assertEquals("de", releaseLater((ByteBuf) ch.readInbound()).toString(CharsetUtil.US_ASCII));
+        assertNull(ch.readInbound());
+        ch.writeInbound(Unpooled.copiedBuffer(">", CharsetUtil.US_ASCII));
+        assertEquals("", releaseLater((ByteBuf) ch.readInbound()).toString(CharsetUtil.US_ASCII));
+        assertNull(ch.readInbound());
+        ch.finish();
+    }
 }
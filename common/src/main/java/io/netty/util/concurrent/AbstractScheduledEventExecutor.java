@@ -17,6 +17,9 @@ package io.netty.util.concurrent;
 
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.OneTimeTask;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.PriorityQueue;
 import java.util.Queue;
@@ -26,9 +29,24 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract base class for {@link EventExecutor}s that want to support scheduling.
+ * <p>
+ * Scheduled tasks are kept in a binary heap by default. Setting the system property
+ * {@code io.netty.eventExecutor.timerWheel} to {@code true} makes every executor use a hierarchical timer wheel
+ * instead, which schedules and cancels in constant time and removes cancelled tasks immediately. This is preferable
+ * when a large number of timeouts are armed and cancelled before they expire.
  */
 public abstract class AbstractScheduledEventExecutor extends AbstractEventExecutor {
 
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(AbstractScheduledEventExecutor.class);
+
+    private static final boolean USE_TIMER_WHEEL =
+            SystemPropertyUtil.getBoolean("io.netty.eventExecutor.timerWheel", false);
+
+    static {
+        logger.debug("-Dio.netty.eventExecutor.timerWheel: {}", USE_TIMER_WHEEL);
+    }
+
     Queue<ScheduledFutureTask<?>> scheduledTaskQueue;
 
     protected AbstractScheduledEventExecutor() {
@@ -44,7 +62,8 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
 
     Queue<ScheduledFutureTask<?>> scheduledTaskQueue() {
         if (scheduledTaskQueue == null) {
-            scheduledTaskQueue = new PriorityQueue<ScheduledFutureTask<?>>();
+            scheduledTaskQueue = USE_TIMER_WHEEL ? new ScheduledTaskWheel()
+                                                 : new PriorityQueue<ScheduledFutureTask<?>>();
         }
         return scheduledTaskQueue;
     }
@@ -114,6 +133,15 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
         return Math.max(0, scheduledTask.deadlineNanos() - nanoTime());
     }
 
+    /**
+     * Return the deadline of the next scheduled task, relative to {@link #nanoTime()}, or {@code -1} if no task is
+     * scheduled.
+     */
+    protected final long nextScheduledTaskDeadlineNanos() {
+        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
+        return scheduledTask == null ? -1 : scheduledTask.deadlineNanos();
+    }
+
     final ScheduledFutureTask<?> peekScheduledTask() {
         Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
         if (scheduledTaskQueue == null) {
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.ThreadLocalRandom;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventExecutorChooserFactory} which weights the {@link EventExecutor}s by how busy they were recently, so an
+ * {@link EventExecutor} which was idle is chosen more often than one which was busy the whole time.
+ * <p>
+ * The busy time of an {@link EventExecutor} is the CPU time its {@link Thread} used, which is sampled at most once
+ * every {@code sampleInterval} by a thread that calls {@link EventExecutorChooser#next()}. Be aware that event loops
+ * which spin instead of blocking when there is nothing to do are always busy this way.
+ * <p>
+ * If the {@link EventExecutor}s are not {@link SingleThreadEventExecutor}s or the JVM does not support to measure the
+ * CPU time of other threads, the chooser of the {@link DefaultEventExecutorChooserFactory} is used.
+ */
+public final class BusyTimeEventExecutorChooserFactory implements EventExecutorChooserFactory {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(BusyTimeEventExecutorChooserFactory.class);
+
+    /**
+     * Instance which samples the busy time every {@code 100} milliseconds.
+     */
+    public static final BusyTimeEventExecutorChooserFactory INSTANCE =
+            new BusyTimeEventExecutorChooserFactory(100, TimeUnit.MILLISECONDS);
+
+    // The weight of an EventExecutor which was idle since the last sample. A busy EventExecutor still has a weight of
+    // 1 so it is chosen now and then, and its load is not overestimated forever.
+    private static final int MAX_WEIGHT = 1024;
+
+    private final long sampleIntervalNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sampleInterval    the minimal time between two samples of the busy time
+     * @param unit              the {@link TimeUnit} of {@code sampleInterval}
+     */
+    public BusyTimeEventExecutorChooserFactory(long sampleInterval, TimeUnit unit) {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("sampleInterval: " + sampleInterval + " (expected: > 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        sampleIntervalNanos = unit.toNanos(sampleInterval);
+    }
+
+    @Override
+    public EventExecutorChooser newChooser(EventExecutor[] executors) {
+        ThreadMXBean threadMXBean = threadMXBean();
+        if (threadMXBean == null || executors.length == 1) {
+            return DefaultEventExecutorChooserFactory.INSTANCE.newChooser(executors);
+        }
+        SingleThreadEventExecutor[] singleThreadExecutors = new SingleThreadEventExecutor[executors.length];
+        for (int i = 0; i < executors.length; i ++) {
+            if (!(executors[i] instanceof SingleThreadEventExecutor)) {
+                return DefaultEventExecutorChooserFactory.INSTANCE.newChooser(executors);
+            }
+            singleThreadExecutors[i] = (SingleThreadEventExecutor) executors[i];
+        }
+        return new BusyTimeEventExecutorChooser(singleThreadExecutors, threadMXBean, sampleIntervalNanos);
+    }
+
+    private static ThreadMXBean threadMXBean() {
+        if (PlatformDependent.isAndroid()) {
+            return null;
+        }
+        try {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+                return threadMXBean;
+            }
+            logger.debug("Thread CPU time is not supported or disabled; using round-robin instead");
+        } catch (Throwable t) {
+            logger.debug("Failed to access the ThreadMXBean; using round-robin instead", t);
+        }
+        return null;
+    }
+
+    private static final class BusyTimeEventExecutorChooser implements EventExecutorChooser {
+        private final SingleThreadEventExecutor[] executors;
+        private final ThreadMXBean threadMXBean;
+        private final long sampleIntervalNanos;
+        private final AtomicLong nextSampleTime;
+        // Only accessed while holding the lock of this chooser.
+        private final long[] cpuTimes;
+        private long sampleTime;
+        // The cumulative weights of the executors, the last element being the sum of all weights.
+        private volatile int[] weights;
+
+        BusyTimeEventExecutorChooser(SingleThreadEventExecutor[] executors, ThreadMXBean threadMXBean,
+                                     long sampleIntervalNanos) {
+            this.executors = executors;
+            this.threadMXBean = threadMXBean;
+            this.sampleIntervalNanos = sampleIntervalNanos;
+            cpuTimes = new long[executors.length];
+            Arrays.fill(cpuTimes, -1);
+            sampleTime = System.nanoTime();
+            nextSampleTime = new AtomicLong(sampleTime + sampleIntervalNanos);
+
+            int[] weights = new int[executors.length];
+            for (int i = 0; i < weights.length; i ++) {
+                weights[i] = (i + 1) * MAX_WEIGHT;
+            }
+            this.weights = weights;
+        }
+
+        @Override
+        public EventExecutor next() {
+            long now = System.nanoTime();
+            long nextSampleTime = this.nextSampleTime.get();
+            if (now - nextSampleTime >= 0 &&
+                this.nextSampleTime.compareAndSet(nextSampleTime, now + sampleIntervalNanos)) {
+                sample(now);
+            }
+
+            int[] weights = this.weights;
+            int idx = Arrays.binarySearch(weights, ThreadLocalRandom.current().nextInt(weights[weights.length - 1]));
+            // Either the index of an exact match, which belongs to the next executor, or the insertion point.
+            return executors[idx >= 0 ? idx + 1 : -idx - 1];
+        }
+
+        private synchronized void sample(long now) {
+            long elapsed = now - sampleTime;
+            if (elapsed <= 0) {
+                return;
+            }
+            sampleTime = now;
+
+            int[] weights = new int[executors.length];
+            int sum = 0;
+            for (int i = 0; i < executors.length; i ++) {
+                Thread thread = executors[i].thread();
+                long cpuTime = thread == null ? -1 : threadMXBean.getThreadCpuTime(thread.getId());
+                int weight = MAX_WEIGHT;
+                // The busy time is unknown until the thread was sampled twice.
+                if (cpuTime >= 0 && cpuTimes[i] >= 0) {
+                    long busy = Math.min(cpuTime - cpuTimes[i], elapsed);
+                    weight = Math.max(1, (int) (MAX_WEIGHT - busy * MAX_WEIGHT / elapsed));
+                }
+                cpuTimes[i] = cpuTime;
+                sum += weight;
+                weights[i] = sum;
+            }
+            this.weights = weights;
+        }
+    }
+}
@@ -41,6 +41,18 @@ public class DefaultEventExecutorGroup extends MultithreadEventExecutorGroup {
         super(nThreads, threadFactory);
     }
 
+    /**
+     * Create a new instance.
+     *
+     * @param nThreads          the number of threads that will be used by this instance.
+     * @param executor          the Executor to use, or {@code null} if the default should be used.
+     * @param chooserFactory    the {@link EventExecutorChooserFactory} which chooses the {@link EventExecutor} that
+     *                          {@link #next()} returns.
+     */
+    public DefaultEventExecutorGroup(int nThreads, Executor executor, EventExecutorChooserFactory chooserFactory) {
+        super(nThreads, executor, chooserFactory);
+    }
+
     @Override
     protected EventExecutor newChild(Executor executor, Object... args) throws Exception {
         return new DefaultEventExecutor(this, executor);
@@ -40,6 +40,12 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
     private final long periodNanos;
 
+    // Only used when the executor keeps its scheduled tasks in a ScheduledTaskWheel.
+    ScheduledFutureTask<?> wheelPrev;
+    ScheduledFutureTask<?> wheelNext;
+    long wheelTick;
+    int wheelBucket = ScheduledTaskWheel.NOT_IN_WHEEL;
+
     ScheduledFutureTask(
             AbstractScheduledEventExecutor executor,
             Runnable runnable, V result, long nanoTime) {
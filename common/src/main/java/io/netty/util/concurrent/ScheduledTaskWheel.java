@@ -0,0 +1,393 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * A hierarchical timer wheel which can be used as the scheduled task queue of an
+ * {@link AbstractScheduledEventExecutor}.
+ * <p>
+ * Deadlines are rounded down to ticks of roughly one millisecond. The wheel consists of {@value #LEVELS} levels of
+ * {@value #SLOTS} slots each, and every slot is an intrusive doubly linked list of {@link ScheduledFutureTask}s. A task
+ * is stored at the highest level at which its tick differs from the current tick of the wheel, so all tasks in a
+ * lower level are due before any task in a higher level. Tasks which are already due are kept in a separate list.
+ * This makes {@link #offer(ScheduledFutureTask)} and {@link #remove(Object)} {@code O(1)}, and
+ * cancelled tasks are unlinked immediately instead of staying around until their deadline.
+ * <p>
+ * The current tick follows the clock when the head is looked up, and the slots that are passed on the way are
+ * cascaded down, so every task is moved at most once per level. The slots of the lowest level and the list of due
+ * tasks are kept sorted, which lets {@link #peek()} return the task with the earliest deadline (ties broken by
+ * submission order), exactly like the heap based queue does. The result is cached until the head is removed or an
+ * earlier task is added.
+ * <p>
+ * This class is not thread-safe and must only be accessed from the event loop which owns it.
+ */
+final class ScheduledTaskWheel extends AbstractQueue<ScheduledFutureTask<?>> {
+
+    static final int NOT_IN_WHEEL = -1;
+
+    // 2^20 nanoseconds, which is roughly one millisecond per tick.
+    private static final int TICK_SHIFT = 20;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    // 8 levels of 64 slots cover 2^48 ticks, which is more than a deadline in nanoseconds can span.
+    private static final int LEVELS = 8;
+    // Index of the list of tasks which are due, right after the slots of the highest level.
+    private static final int DUE = LEVELS << SLOT_BITS;
+
+    // The first task of every slot and of the due list. The list of a slot is linked forward through wheelNext and
+    // ends with null, while wheelPrev of the first task points to the last one so tasks can be appended in constant
+    // time.
+    private final ScheduledFutureTask<?>[] buckets = new ScheduledFutureTask<?>[DUE + 1];
+    // One bit per non-empty slot, one long per level and one for the due list.
+    private final long[] occupied = new long[LEVELS + 1];
+    private ScheduledFutureTask<?>[] dueTasks = new ScheduledFutureTask<?>[SLOTS];
+
+    private long currentTick;
+    // Tick of the latest task that was polled. The owner has consumed it, so the wheel may advance up to it even if
+    // the clock has not reached it yet.
+    private long polledTick;
+    // The task with the earliest deadline or null if it needs to be looked up again.
+    private ScheduledFutureTask<?> head;
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof ScheduledFutureTask && ((ScheduledFutureTask<?>) o).wheelBucket != NOT_IN_WHEEL;
+    }
+
+    @Override
+    public boolean offer(ScheduledFutureTask<?> task) {
+        checkNotNull(task, "task");
+        if (task.wheelBucket != NOT_IN_WHEEL) {
+            throw new IllegalArgumentException("task already scheduled: " + task);
+        }
+
+        final long deadlineNanos = task.deadlineNanos();
+        task.wheelTick = deadlineNanos <= 0 ? 0 : deadlineNanos >>> TICK_SHIFT;
+        place(task);
+        if (size++ == 0) {
+            head = task;
+        } else if (head != null && task.compareTo(head) < 0) {
+            head = task;
+        }
+        return true;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> peek() {
+        ScheduledFutureTask<?> head = this.head;
+        if (head == null && size != 0) {
+            this.head = head = findHead();
+        }
+        return head;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> poll() {
+        ScheduledFutureTask<?> task = peek();
+        if (task != null) {
+            unlink(task);
+            if (task.wheelTick > polledTick) {
+                polledTick = task.wheelTick;
+            }
+        }
+        return task;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        unlink((ScheduledFutureTask<?>) o);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            ScheduledFutureTask<?> task = buckets[i];
+            while (task != null) {
+                ScheduledFutureTask<?> next = task.wheelNext;
+                task.wheelPrev = null;
+                task.wheelNext = null;
+                task.wheelBucket = NOT_IN_WHEEL;
+                task = next;
+            }
+            buckets[i] = null;
+        }
+        for (int i = 0; i < occupied.length; i++) {
+            occupied[i] = 0;
+        }
+        head = null;
+        size = 0;
+    }
+
+    /**
+     * This iterator does not return elements in any particular order.
+     */
+    @Override
+    public Iterator<ScheduledFutureTask<?>> iterator() {
+        return new WheelIterator();
+    }
+
+    private void place(ScheduledFutureTask<?> task) {
+        final long tick = task.wheelTick;
+        if (tick <= currentTick) {
+            insertSorted(DUE, task);
+            return;
+        }
+
+        final int level = (63 - Long.numberOfLeadingZeros(tick ^ currentTick)) / SLOT_BITS;
+        final int slot = (int) (tick >>> level * SLOT_BITS) & SLOT_MASK;
+        if (level == 0) {
+            insertSorted(slot, task);
+        } else {
+            append(level << SLOT_BITS | slot, task);
+        }
+    }
+
+    private void append(int idx, ScheduledFutureTask<?> task) {
+        ScheduledFutureTask<?> first = buckets[idx];
+        task.wheelBucket = idx;
+        task.wheelNext = null;
+        if (first == null) {
+            task.wheelPrev = task;
+            buckets[idx] = task;
+            occupied[idx >>> SLOT_BITS] |= 1L << (idx & SLOT_MASK);
+        } else {
+            ScheduledFutureTask<?> last = first.wheelPrev;
+            last.wheelNext = task;
+            task.wheelPrev = last;
+            first.wheelPrev = task;
+        }
+    }
+
+    /**
+     * Inserts the task into the due list or a slot of the lowest level while keeping it sorted. Tasks are usually
+     * added in deadline order, so the position is searched from the end of the list.
+     */
+    private void insertSorted(int idx, ScheduledFutureTask<?> task) {
+        ScheduledFutureTask<?> first = buckets[idx];
+        if (first == null || task.compareTo(first.wheelPrev) > 0) {
+            append(idx, task);
+            return;
+        }
+
+        ScheduledFutureTask<?> next = first.wheelPrev;
+        while (next != first) {
+            ScheduledFutureTask<?> prev = next.wheelPrev;
+            if (task.compareTo(prev) > 0) {
+                break;
+            }
+            next = prev;
+        }
+
+        task.wheelBucket = idx;
+        task.wheelNext = next;
+        if (next == first) {
+            task.wheelPrev = first.wheelPrev;
+            buckets[idx] = task;
+        } else {
+            ScheduledFutureTask<?> prev = next.wheelPrev;
+            prev.wheelNext = task;
+            task.wheelPrev = prev;
+        }
+        next.wheelPrev = task;
+    }
+
+    private void unlink(ScheduledFutureTask<?> task) {
+        final int idx = task.wheelBucket;
+        ScheduledFutureTask<?> first = buckets[idx];
+        ScheduledFutureTask<?> prev = task.wheelPrev;
+        ScheduledFutureTask<?> next = task.wheelNext;
+        if (task == first) {
+            if (next == null) {
+                buckets[idx] = null;
+                occupied[idx >>> SLOT_BITS] &= ~(1L << (idx & SLOT_MASK));
+            } else {
+                // prev is the last task of the slot.
+                next.wheelPrev = prev;
+                buckets[idx] = next;
+            }
+        } else {
+            prev.wheelNext = next;
+            if (next == null) {
+                first.wheelPrev = prev;
+            } else {
+                next.wheelPrev = prev;
+            }
+        }
+        task.wheelPrev = null;
+        task.wheelNext = null;
+        task.wheelBucket = NOT_IN_WHEEL;
+
+        size--;
+        if (task == head) {
+            head = null;
+        }
+    }
+
+    private ScheduledFutureTask<?> findHead() {
+        assert size != 0;
+        advance(Math.max(ScheduledFutureTask.nanoTime() >>> TICK_SHIFT, polledTick));
+
+        ScheduledFutureTask<?> due = buckets[DUE];
+        if (due != null) {
+            return due;
+        }
+        long bits = occupied[0];
+        if (bits != 0) {
+            // The slots of the lowest level are sorted.
+            return buckets[Long.numberOfTrailingZeros(bits)];
+        }
+
+        // The head is not due yet and lives in a slot of a higher level. Look it up without cascading, as the
+        // current tick must not move past the clock.
+        int level = 1;
+        while (occupied[level] == 0) {
+            level++;
+        }
+        ScheduledFutureTask<?> candidate = buckets[level << SLOT_BITS | Long.numberOfTrailingZeros(occupied[level])];
+        for (ScheduledFutureTask<?> task = candidate.wheelNext; task != null; task = task.wheelNext) {
+            if (task.compareTo(candidate) < 0) {
+                candidate = task;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Moves the current tick forward to {@code targetTick}. All slots that are passed are detached in deadline order
+     * and their tasks are placed again, which either makes them due or moves them to a lower level.
+     */
+    private void advance(long targetTick) {
+        final long currentTick = this.currentTick;
+        if (targetTick <= currentTick) {
+            return;
+        }
+
+        // Slots of levels above the highest differing level stay as they are.
+        final int level = (63 - Long.numberOfLeadingZeros(currentTick ^ targetTick)) / SLOT_BITS;
+        final int shift = level * SLOT_BITS;
+        final int from = (int) (currentTick >>> shift) & SLOT_MASK;
+        final int to = (int) (targetTick >>> shift) & SLOT_MASK;
+
+        ScheduledFutureTask<?> first = null;
+        ScheduledFutureTask<?> last = null;
+        for (int i = 0; i <= level; i++) {
+            long bits = occupied[i];
+            if (i == level) {
+                bits &= (-1L << from) & (-1L >>> 63 - to);
+            }
+            while (bits != 0) {
+                final int idx = i << SLOT_BITS | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                ScheduledFutureTask<?> bucket = buckets[idx];
+                buckets[idx] = null;
+                occupied[i] &= ~(1L << (idx & SLOT_MASK));
+                if (first == null) {
+                    first = bucket;
+                } else {
+                    last.wheelNext = bucket;
+                }
+                last = bucket.wheelPrev;
+            }
+        }
+
+        // Tasks which became due are sorted in one go, as they may come from many slots in any order. They are all
+        // due after the tasks which are already in the due list, so they can be appended.
+        int due = 0;
+        this.currentTick = targetTick;
+        while (first != null) {
+            ScheduledFutureTask<?> next = first.wheelNext;
+            if (first.wheelTick <= targetTick) {
+                if (due == dueTasks.length) {
+                    dueTasks = Arrays.copyOf(dueTasks, due << 1);
+                }
+                dueTasks[due++] = first;
+            } else {
+                place(first);
+            }
+            first = next;
+        }
+
+        if (due != 0) {
+            Arrays.sort(dueTasks, 0, due);
+            for (int i = 0; i < due; i++) {
+                append(DUE, dueTasks[i]);
+                dueTasks[i] = null;
+            }
+        }
+    }
+
+    private final class WheelIterator implements Iterator<ScheduledFutureTask<?>> {
+        private int bucket = -1;
+        private ScheduledFutureTask<?> next;
+
+        WheelIterator() {
+            advance();
+        }
+
+        private void advance() {
+            if (next != null) {
+                next = next.wheelNext;
+            }
+            while (next == null && ++bucket < buckets.length) {
+                next = buckets[bucket];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ScheduledFutureTask<?> next() {
+            ScheduledFutureTask<?> task = next;
+            if (task == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return task;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package io.netty.util.concurrent;
 
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.ThreadExecutorMap;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -705,6 +706,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return threadProperties;
     }
 
+    /**
+     * Returns the {@link Thread} that powers this executor, or {@code null} if it was not started yet.
+     */
+    final Thread thread() {
+        return thread;
+    }
+
     @SuppressWarnings("unused")
     protected boolean wakesUpForTask(Runnable task) {
         return true;
@@ -732,6 +740,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             @Override
             public void run() {
                 thread = Thread.currentThread();
+                ThreadExecutorMap.setCurrentEventExecutor(SingleThreadEventExecutor.this);
                 if (interrupted) {
                     thread.interrupt();
                 }
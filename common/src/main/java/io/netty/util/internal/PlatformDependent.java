@@ -346,6 +346,14 @@ public final class PlatformDependent {
         return PlatformDependent0.getInt(address);
     }
 
+    /**
+     * Read an {@code int} from the given memory address with volatile semantics. This is useful for memory which is
+     * shared with native code or the kernel, like the rings of {@code io_uring}.
+     */
+    public static int getIntVolatile(long address) {
+        return PlatformDependent0.getIntVolatile(address);
+    }
+
     public static long getLong(long address) {
         return PlatformDependent0.getLong(address);
     }
@@ -464,6 +472,14 @@ public final class PlatformDependent {
         PlatformDependent0.putInt(address, value);
     }
 
+    /**
+     * Write an {@code int} to the given memory address with release semantics, so all previous writes are visible
+     * to the reader before the value itself.
+     */
+    public static void putIntOrdered(long address, int value) {
+        PlatformDependent0.putIntOrdered(address, value);
+    }
+
     public static void putLong(long address, long value) {
         PlatformDependent0.putLong(address, value);
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BusyTimeEventExecutorChooserFactoryTest {
+
+    @Test(timeout = 10000)
+    public void testPrefersIdleExecutor() throws Exception {
+        DefaultEventExecutorGroup group = new DefaultEventExecutorGroup(
+                2, null, new BusyTimeEventExecutorChooserFactory(10, TimeUnit.MILLISECONDS));
+        try {
+            EventExecutor[] executors = group.children().toArray(new EventExecutor[2]);
+            final CountDownLatch stop = new CountDownLatch(1);
+            executors[0].execute(new Runnable() {
+                @Override
+                public void run() {
+                    // Keep the thread busy.
+                    while (stop.getCount() != 0) {
+                        continue;
+                    }
+                }
+            });
+            executors[1].submit(new Runnable() {
+                @Override
+                public void run() {
+                    // Start the thread.
+                }
+            }).sync();
+
+            // Give the chooser the chance to sample the busy time a few times.
+            for (int i = 0; i < 20; i ++) {
+                group.next();
+                Thread.sleep(10);
+            }
+
+            int idle = 0;
+            for (int i = 0; i < 1000; i ++) {
+                if (group.next() == executors[1]) {
+                    idle ++;
+                }
+            }
+            stop.countDown();
+            assertTrue("idle: " + idle, idle > 500);
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testUsesAllExecutorsBeforeSampling() {
+        DefaultEventExecutorGroup group = new DefaultEventExecutorGroup(
+                2, null, new BusyTimeEventExecutorChooserFactory(1, TimeUnit.HOURS));
+        try {
+            boolean[] chosen = new boolean[2];
+            EventExecutor[] executors = group.children().toArray(new EventExecutor[2]);
+            for (int i = 0; i < 1000; i ++) {
+                chosen[group.next() == executors[0] ? 0 : 1] = true;
+            }
+            assertTrue(chosen[0]);
+            assertTrue(chosen[1]);
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleInterval() {
+        new BusyTimeEventExecutorChooserFactory(0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduledTaskWheelTest {
+
+    private static final DefaultEventExecutor executor = new DefaultEventExecutor();
+    private static final Callable<Void> NOOP = new Callable<Void>() {
+        @Override
+        public Void call() {
+            return null;
+        }
+    };
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private static ScheduledFutureTask<Void> newTask(long deadlineNanos) {
+        return new ScheduledFutureTask<Void>(executor, NOOP, deadlineNanos);
+    }
+
+    @Test
+    public void testPollInDeadlineOrder() {
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel();
+        assertNull(wheel.peek());
+        assertNull(wheel.poll());
+
+        ScheduledFutureTask<Void> a = newTask(TimeUnit.MILLISECONDS.toNanos(5));
+        ScheduledFutureTask<Void> b = newTask(TimeUnit.MILLISECONDS.toNanos(5));
+        ScheduledFutureTask<Void> c = newTask(TimeUnit.MICROSECONDS.toNanos(10));
+        // More than one rotation of the wheel away.
+        ScheduledFutureTask<Void> d = newTask(TimeUnit.SECONDS.toNanos(30));
+
+        assertTrue(wheel.offer(d));
+        assertTrue(wheel.offer(b));
+        assertTrue(wheel.offer(a));
+        assertTrue(wheel.offer(c));
+        assertEquals(4, wheel.size());
+
+        assertSame(c, wheel.poll());
+        // Same deadline, so the task which was created first wins.
+        assertSame(a, wheel.poll());
+        assertSame(b, wheel.poll());
+        assertSame(d, wheel.peek());
+        assertSame(d, wheel.poll());
+        assertTrue(wheel.isEmpty());
+        assertNull(wheel.poll());
+    }
+
+    @Test
+    public void testRemove() {
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel();
+        ScheduledFutureTask<Void> a = newTask(1);
+        ScheduledFutureTask<Void> b = newTask(2);
+        ScheduledFutureTask<Void> c = newTask(3);
+        wheel.add(a);
+        wheel.add(b);
+        wheel.add(c);
+
+        assertSame(a, wheel.peek());
+        assertTrue(wheel.remove(a));
+        assertFalse(wheel.remove(a));
+        assertFalse(wheel.contains(a));
+        assertTrue(wheel.contains(b));
+        assertTrue(wheel.remove(c));
+        assertEquals(1, wheel.size());
+        assertSame(b, wheel.poll());
+        assertTrue(wheel.isEmpty());
+
+        // A removed task can be added again.
+        wheel.add(a);
+        assertSame(a, wheel.peek());
+    }
+
+    @Test
+    public void testClear() {
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel();
+        List<ScheduledFutureTask<?>> tasks = new ArrayList<ScheduledFutureTask<?>>();
+        for (int i = 0; i < 100; i++) {
+            ScheduledFutureTask<Void> task = newTask(TimeUnit.MILLISECONDS.toNanos(i * 37));
+            tasks.add(task);
+            wheel.add(task);
+        }
+        assertEquals(100, wheel.size());
+        assertEquals(100, wheel.toArray().length);
+
+        wheel.clear();
+        assertTrue(wheel.isEmpty());
+        assertNull(wheel.peek());
+        for (ScheduledFutureTask<?> task: tasks) {
+            assertFalse(wheel.contains(task));
+        }
+    }
+
+    @Test
+    public void testSameOrderAsHeap() {
+        Random random = new Random(42);
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel();
+        PriorityQueue<ScheduledFutureTask<?>> heap = new PriorityQueue<ScheduledFutureTask<?>>();
+        List<ScheduledFutureTask<?>> pending = new ArrayList<ScheduledFutureTask<?>>();
+        long now = 0;
+
+        for (int i = 0; i < 100000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                long delay = random.nextBoolean() ? random.nextInt(50000000) : (long) random.nextInt(100) * 100000000;
+                ScheduledFutureTask<Void> task = newTask(now + delay);
+                wheel.add(task);
+                heap.add(task);
+                pending.add(task);
+            } else if (op < 7 && !pending.isEmpty()) {
+                ScheduledFutureTask<?> task = pending.remove(random.nextInt(pending.size()));
+                assertEquals(heap.remove(task), wheel.remove(task));
+            } else {
+                ScheduledFutureTask<?> expected = heap.poll();
+                assertSame(expected, wheel.poll());
+                if (expected != null) {
+                    pending.remove(expected);
+                    now = expected.deadlineNanos();
+                }
+            }
+            assertEquals(heap.size(), wheel.size());
+        }
+
+        for (;;) {
+            ScheduledFutureTask<?> expected = heap.poll();
+            assertSame(expected, wheel.poll());
+            if (expected == null) {
+                break;
+            }
+        }
+    }
+}
@@ -15,9 +15,11 @@
  */
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.ThreadExecutorMap;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class SingleThreadEventExecutorTest {
@@ -49,4 +51,31 @@ public class SingleThreadEventExecutorTest {
         Assert.assertTrue(threadProperties.stackTrace().length > 0);
         executor.shutdownGracefully();
     }
+
+    @Test(timeout = 5000)
+    public void testCurrentExecutor() throws Exception {
+        final SingleThreadEventExecutor executor = new SingleThreadEventExecutor(
+                null, new DefaultThreadFactory("test"), false) {
+            @Override
+            protected void run() {
+                while (!confirmShutdown()) {
+                    Runnable task = takeTask();
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            }
+        };
+        try {
+            Assert.assertNull(ThreadExecutorMap.currentExecutor());
+            Assert.assertSame(executor, executor.submit(new Callable<EventExecutor>() {
+                @Override
+                public EventExecutor call() {
+                    return ThreadExecutorMap.currentExecutor();
+                }
+            }).get());
+        } finally {
+            executor.shutdownGracefully();
+        }
+    }
 }
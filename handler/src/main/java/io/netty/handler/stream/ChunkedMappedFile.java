@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.FileRegion;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link ChunkedInput} that maps a file into memory via {@link Unpooled#mappedBuffer(FileChannel, long, int)} and
+ * returns the chunks as slices of the mapping, so the content is neither copied nor read by a system call.
+ * <p>
+ * Unlike a {@link FileRegion}, the chunks are {@link ByteBuf}s and so can be passed through handlers which need to
+ * look at the content like a {@code SslHandler}. Each region of the file is unmapped once it has been read and all
+ * of the chunks sliced from it have been released.
+ */
+public class ChunkedMappedFile implements ChunkedInput<ByteBuf> {
+
+    // The size of the regions which are mapped at once. The chunks never span more than one region.
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel in;
+    private final long startOffset;
+    private final long endOffset;
+    private final int chunkSize;
+    private final int regionSize;
+    private long offset;
+    private ByteBuf region;
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     */
+    public ChunkedMappedFile(File in) throws IOException {
+        this(new FileInputStream(in).getChannel());
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ChannelHandlerContext)} call
+     */
+    public ChunkedMappedFile(File in, int chunkSize) throws IOException {
+        this(new FileInputStream(in).getChannel(), chunkSize);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     */
+    public ChunkedMappedFile(FileChannel in) throws IOException {
+        this(in, ChunkedStream.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ChannelHandlerContext)} call
+     */
+    public ChunkedMappedFile(FileChannel in, int chunkSize) throws IOException {
+        this(in, 0, in.size(), chunkSize);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     *
+     * @param offset the offset of the file where the transfer begins
+     * @param length the number of bytes to transfer
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ChannelHandlerContext)} call
+     */
+    public ChunkedMappedFile(FileChannel in, long offset, long length, int chunkSize) {
+        this(in, offset, length, chunkSize, REGION_SIZE);
+    }
+
+    ChunkedMappedFile(FileChannel in, long offset, long length, int chunkSize, int regionSize) {
+        if (in == null) {
+            throw new NullPointerException("in");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException(
+                    "offset: " + offset + " (expected: 0 or greater)");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException(
+                    "length: " + length + " (expected: 0 or greater)");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(
+                    "chunkSize: " + chunkSize +
+                    " (expected: a positive integer)");
+        }
+
+        this.in = in;
+        this.chunkSize = chunkSize;
+        this.regionSize = Math.max(regionSize, chunkSize);
+        this.offset = startOffset = offset;
+        endOffset = offset + length;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer began.
+     */
+    public long startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer will end.
+     */
+    public long endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer is happening currently.
+     */
+    public long currentOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return !(offset < endOffset && in.isOpen());
+    }
+
+    @Override
+    public void close() throws Exception {
+        releaseRegion();
+        in.close();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        long offset = this.offset;
+        if (offset >= endOffset) {
+            return null;
+        }
+
+        ByteBuf region = this.region;
+        if (region == null) {
+            int regionSize = (int) Math.min(this.regionSize, endOffset - offset);
+            this.region = region = Unpooled.mappedBuffer(in, offset, regionSize);
+        }
+
+        ByteBuf chunk = region.readRetainedSlice(Math.min(chunkSize, region.readableBytes()));
+        if (!region.isReadable()) {
+            // The region is unmapped as soon as the last chunk was released.
+            releaseRegion();
+        }
+        this.offset += chunk.readableBytes();
+        return chunk;
+    }
+
+    private void releaseRegion() {
+        if (region != null) {
+            region.release();
+            region = null;
+        }
+    }
+
+    @Override
+    public long length() {
+        return endOffset - startOffset;
+    }
+
+    @Override
+    public long progress() {
+        return offset - startOffset;
+    }
+}
@@ -27,6 +27,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.Channels;
@@ -99,6 +100,19 @@ public class ChunkedWriteHandlerTest {
         check(new ChunkedNioFile(TMP), new ChunkedNioFile(TMP), new ChunkedNioFile(TMP));
     }
 
+    @Test
+    public void testChunkedMappedFile() throws IOException {
+        check(new ChunkedMappedFile(TMP));
+
+        check(new ChunkedMappedFile(TMP), new ChunkedMappedFile(TMP), new ChunkedMappedFile(TMP));
+    }
+
+    @Test
+    public void testChunkedMappedFileMultipleRegions() throws IOException {
+        // The regions are not a multiple of the chunk size, so some chunks are shorter.
+        check(new ChunkedMappedFile(new FileInputStream(TMP).getChannel(), 0, BYTES.length, 1000, 5000));
+    }
+
     // Test case which shows that there is not a bug like stated here:
     // http://stackoverflow.com/a/10426305
     @Test
@@ -21,11 +21,15 @@ import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class benchmarks different allocators with different allocation sizes.
@@ -37,6 +41,14 @@ public class ByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
     private static final ByteBufAllocator pooledAllocator =
             new PooledByteBufAllocator(true, 4, 4, 8192, 11, 0, 0, 0); // Disable thread-local cache
 
+    // All threads of the contended benchmarks share one arena, with one or with one stripe per thread.
+    private static final int CONTENDED_THREADS = 8;
+    private static final ByteBufAllocator contendedPooledAllocator =
+            new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0); // Disable thread-local cache
+    private static final ByteBufAllocator stripedPooledAllocator =
+            new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0, 0, 1, TimeUnit.SECONDS, false,
+                    CONTENDED_THREADS); // Disable thread-local cache
+
     private static final int MAX_LIVE_BUFFERS = 8192;
     private static final Random rand = new Random();
     private static final ByteBuf[] unpooledHeapBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
@@ -108,4 +120,41 @@ public class ByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
         }
         defaultPooledDirectBuffers[idx] = PooledByteBufAllocator.DEFAULT.directBuffer(size);
     }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public void pooledDirectContendedAllocAndFree(ThreadBuffers buffers) {
+        buffers.allocAndFree(contendedPooledAllocator, size);
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public void stripedPooledDirectContendedAllocAndFree(ThreadBuffers buffers) {
+        buffers.allocAndFree(stripedPooledAllocator, size);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadBuffers {
+        private final Random rand = new Random();
+        private final ByteBuf[] buffers = new ByteBuf[MAX_LIVE_BUFFERS / CONTENDED_THREADS];
+
+        void allocAndFree(ByteBufAllocator allocator, int size) {
+            int idx = rand.nextInt(buffers.length);
+            ByteBuf oldBuf = buffers[idx];
+            if (oldBuf != null) {
+                oldBuf.release();
+            }
+            buffers[idx] = allocator.directBuffer(size);
+        }
+
+        @TearDown(Level.Trial)
+        public void releaseBuffers() {
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] != null) {
+                    buffers[i].release();
+                    buffers[i] = null;
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a codec chain on a single thread: a read buffer is allocated, split into frames with
+ * {@link ByteBuf#readRetainedSlice(int)}, and each frame is retained and released by a number of handlers before it
+ * is released. This compares the atomic reference counting with the reference counting that is confined to the
+ * allocating thread.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class ByteBufRefCntBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean confined;
+
+    @Param("16")
+    public int frames;
+
+    @Param("4")
+    public int handlers;
+
+    private PooledByteBufAllocator allocator;
+
+    @Setup
+    public void setup() {
+        allocator = new PooledByteBufAllocator(true, 0, 1, PooledByteBufAllocator.defaultPageSize(),
+                PooledByteBufAllocator.defaultMaxOrder(), PooledByteBufAllocator.defaultTinyCacheSize(),
+                PooledByteBufAllocator.defaultSmallCacheSize(), PooledByteBufAllocator.defaultNormalCacheSize(),
+                0, 1, TimeUnit.SECONDS, false, 1, confined);
+    }
+
+    @Benchmark
+    public int codecChain() {
+        ByteBuf in = allocator.directBuffer(frames * 64);
+        in.writerIndex(in.capacity());
+        int sum = 0;
+        while (in.isReadable()) {
+            ByteBuf frame = in.readRetainedSlice(64);
+            for (int i = 0; i < handlers; i++) {
+                // A handler which passes the message on and releases its own reference.
+                frame.retain();
+                sum += frame.getByte(i);
+                frame.release();
+            }
+            frame.release();
+        }
+        in.release();
+        return sum;
+    }
+
+    @Benchmark
+    public int retainRelease() {
+        ByteBuf buf = allocator.directBuffer(64);
+        for (int i = 0; i < handlers; i++) {
+            buf.retain();
+            buf.release();
+        }
+        int refCnt = buf.refCnt();
+        buf.release();
+        return refCnt;
+    }
+}
@@ -19,25 +19,35 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
 import io.netty.util.CharsetUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.util.concurrent.TimeUnit;
 
 @State(Scope.Benchmark)
 @Warmup(iterations = 5)
 @Measurement(iterations = 10)
 public class
     ByteBufUtilBenchmark extends AbstractMicrobenchmark {
+    private static final int SCAN_SIZE = 64 * 1024;
+    // Finds the same byte as ByteProcessor.FIND_LF, but is not recognized as a delimiter search by the buffers.
+    private static final ByteProcessor LF_PROCESSOR = new ByteProcessor.IndexOfProcessor((byte) '\n');
+
     private ByteBuf buffer;
     private ByteBuf wrapped;
     private ByteBuf asciiBuffer;
     private ByteBuf utf8Buffer;
+    private ByteBuf heapScanBuffer;
+    private ByteBuf directScanBuffer;
 
     private StringBuilder asciiSequence;
     private String ascii;
@@ -67,6 +77,16 @@ public class
 
         asciiBuffer = Unpooled.copiedBuffer(ascii, CharsetUtil.US_ASCII);
         utf8Buffer = Unpooled.copiedBuffer(utf8, CharsetUtil.UTF_8);
+
+        // A single line which only ends with the last byte, so the scans have to look at every byte.
+        heapScanBuffer = Unpooled.buffer(SCAN_SIZE);
+        directScanBuffer = Unpooled.directBuffer(SCAN_SIZE);
+        for (int i = 0; i < SCAN_SIZE - 1; i++) {
+            heapScanBuffer.writeByte('a');
+            directScanBuffer.writeByte('a');
+        }
+        heapScanBuffer.writeByte('\n');
+        directScanBuffer.writeByte('\n');
     }
 
     @TearDown
@@ -75,6 +95,8 @@ public class
         wrapped.release();
         asciiBuffer.release();
         utf8Buffer.release();
+        heapScanBuffer.release();
+        directScanBuffer.release();
     }
 
     @Benchmark
@@ -173,6 +195,64 @@ public class
         ByteBufUtil.writeUtf8(wrapped, utf8Sequence);
     }
 
+    // The scan benchmarks count every scanned byte as an operation, so the score in ops/ns is the throughput in GB/s.
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanHeapByteProcessor() {
+        return heapScanBuffer.forEachByte(LF_PROCESSOR);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanHeapFindLf() {
+        return heapScanBuffer.forEachByte(ByteProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanHeapFindCrLf() {
+        return heapScanBuffer.forEachByte(ByteProcessor.FIND_CRLF);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanHeapIndexOf() {
+        return heapScanBuffer.indexOf(0, SCAN_SIZE, (byte) '\n');
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanDirectByteProcessor() {
+        return directScanBuffer.forEachByte(LF_PROCESSOR);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanDirectFindLf() {
+        return directScanBuffer.forEachByte(ByteProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanDirectFindCrLf() {
+        return directScanBuffer.forEachByte(ByteProcessor.FIND_CRLF);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scanDirectIndexOf() {
+        return directScanBuffer.indexOf(0, SCAN_SIZE, (byte) '\n');
+    }
+
     @Benchmark
     public String decodeStringAscii() {
         return asciiBuffer.toString(CharsetUtil.US_ASCII);
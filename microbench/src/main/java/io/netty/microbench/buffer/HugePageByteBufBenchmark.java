@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.epoll.HugePageDirectChunkAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of copying and checksumming pooled direct buffers whose chunks are backed by normal pages
+ * with the throughput when they are backed by huge pages via {@link HugePageDirectChunkAllocator}. The buffers are
+ * spread over a working set which is much bigger than what the TLB covers with 4 KiB pages. The score is the number
+ * of processed bytes per nanosecond, which is the same as GB/s.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HugePageByteBufBenchmark extends AbstractMicrobenchmark {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    @Param({ "false", "true" })
+    public boolean hugePages;
+
+    @Param("256")
+    public int buffers;
+
+    private PooledByteBufAllocator allocator;
+    private ByteBuf[] src;
+    private ByteBuf[] dst;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, 0, 1, TimeUnit.SECONDS, false, 1,
+                false, hugePages ? HugePageDirectChunkAllocator.INSTANCE : null);
+        src = new ByteBuf[buffers];
+        dst = new ByteBuf[buffers];
+        for (int i = 0; i < buffers; i++) {
+            src[i] = allocator.directBuffer(BUFFER_SIZE);
+            for (int j = 0; j < BUFFER_SIZE; j += 8) {
+                src[i].writeLong(j * 31L + i);
+            }
+            dst[i] = allocator.directBuffer(BUFFER_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        for (int i = 0; i < buffers; i++) {
+            src[i].release();
+            dst[i].release();
+        }
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = i + 1 == buffers ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUFFER_SIZE)
+    public ByteBuf memcpy() {
+        int i = nextIndex();
+        return dst[i].setBytes(0, src[i], 0, BUFFER_SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUFFER_SIZE)
+    public int crc32c() {
+        return Crc32c.compute(src[nextIndex()].nioBuffer(0, BUFFER_SIZE));
+    }
+
+    /**
+     * Computes the CRC32C (Castagnoli) checksum with the slicing-by-8 algorithm, which reads the memory a
+     * {@code long} at a time so that the score is dominated by the memory access and not by per byte call overhead.
+     */
+    private static final class Crc32c {
+        private static final int[][] TABLES = new int[8][256];
+
+        static {
+            for (int i = 0; i < 256; i++) {
+                int crc = i;
+                for (int j = 0; j < 8; j++) {
+                    crc = (crc & 1) != 0 ? crc >>> 1 ^ 0x82F63B78 : crc >>> 1;
+                }
+                TABLES[0][i] = crc;
+            }
+            for (int i = 0; i < 256; i++) {
+                for (int t = 1; t < TABLES.length; t++) {
+                    int crc = TABLES[t - 1][i];
+                    TABLES[t][i] = crc >>> 8 ^ TABLES[0][crc & 0xFF];
+                }
+            }
+        }
+
+        static int compute(ByteBuffer buffer) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+            int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+            int crc = 0xFFFFFFFF;
+            int i = buffer.position();
+            int end = buffer.limit();
+            for (; i <= end - 8; i += 8) {
+                long value = buffer.getLong(i);
+                int low = (int) value ^ crc;
+                int high = (int) (value >>> 32);
+                crc = t7[low & 0xFF] ^ t6[low >>> 8 & 0xFF] ^ t5[low >>> 16 & 0xFF] ^ t4[low >>> 24] ^
+                      t3[high & 0xFF] ^ t2[high >>> 8 & 0xFF] ^ t1[high >>> 16 & 0xFF] ^ t0[high >>> 24];
+            }
+            for (; i < end; i++) {
+                crc = crc >>> 8 ^ t0[(crc ^ buffer.get(i)) & 0xFF];
+            }
+            return ~crc;
+        }
+    }
+}
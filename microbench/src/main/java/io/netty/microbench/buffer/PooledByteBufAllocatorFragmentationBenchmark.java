@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PoolChunkListMetric;
+import io.netty.buffer.PoolChunkMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays an allocation size distribution against the {@link PooledByteBufAllocator} with power of two and with fine
+ * grained size classes and reports how much pooled memory is used to hold the live buffers.
+ *
+ * The distribution can be given via {@link #distributionFile}, which contains one {@code <size> <count>} pair per line
+ * as recorded from a real workload. Lines starting with {@code #} are ignored. If no file is given a built-in
+ * distribution with the typical sizes of HTTP/2 frames and TLS records is used.
+ *
+ * The auxiliary counters {@code requestedBytes} and {@code usedBytes} are the sizes requested for the live buffers and
+ * the memory of the chunks that is in use. {@code wastedPercent} is the overhead of the size classes.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+public class PooledByteBufAllocatorFragmentationBenchmark extends AbstractMicrobenchmark {
+
+    // size, weight
+    private static final int[][] DEFAULT_DISTRIBUTION = {
+            { 9, 10 },          // HTTP/2 frame headers, SETTINGS ACK, ...
+            { 64, 8 },
+            { 256, 12 },        // HPACK encoded headers
+            { 700, 8 },
+            { 1200, 6 },
+            { 1460, 10 },       // One MSS
+            { 5000, 4 },
+            { 9 * 1024, 6 },
+            { 16384 + 9, 20 },  // HTTP/2 DATA frame with max frame size
+            { 16384 + 29, 20 }, // TLS record with max plaintext size plus overhead
+            { 33 * 1024, 5 },
+            { 100 * 1024, 2 },
+            { 300 * 1024, 1 },
+    };
+
+    public enum SizeClasses {
+        POWER_OF_TWO, FINE
+    }
+
+    @Param
+    public SizeClasses sizeClasses;
+
+    @Param({ "" })
+    public String distributionFile;
+
+    @Param({ "4096" })
+    public int liveBuffers;
+
+    private PooledByteBufAllocator allocator;
+    private int[] sizes;
+    private ByteBuf[] buffers;
+    private long requestedBytes;
+    private Random random;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Usage {
+        long requestedBytes;
+        long usedBytes;
+
+        public long requestedBytes() {
+            return requestedBytes;
+        }
+
+        public long usedBytes() {
+            return usedBytes;
+        }
+
+        public long wastedPercent() {
+            return requestedBytes == 0 ? 0 : (usedBytes - requestedBytes) * 100 / requestedBytes;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // No thread-local caches so all memory that is not used by a live buffer is given back to the chunks.
+        allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, 0, 1, TimeUnit.SECONDS,
+                sizeClasses == SizeClasses.FINE);
+        sizes = distributionFile.isEmpty() ? expand(DEFAULT_DISTRIBUTION) : expand(load(distributionFile));
+        random = new Random(42);
+        buffers = new ByteBuf[liveBuffers];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = allocate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        for (ByteBuf buf: buffers) {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public void replay(Usage usage) {
+        int idx = random.nextInt(buffers.length);
+        ByteBuf old = buffers[idx];
+        requestedBytes -= old.capacity();
+        old.release();
+        buffers[idx] = allocate();
+
+        usage.requestedBytes = requestedBytes;
+        usage.usedBytes = usedBytes(allocator.directArenas().get(0));
+    }
+
+    private ByteBuf allocate() {
+        int size = sizes[random.nextInt(sizes.length)];
+        requestedBytes += size;
+        return allocator.directBuffer(size, size);
+    }
+
+    private static long usedBytes(PoolArenaMetric arena) {
+        long used = 0;
+        for (PoolChunkListMetric list: arena.chunkLists()) {
+            for (PoolChunkMetric chunk: list) {
+                used += chunk.chunkSize() - chunk.freeBytes();
+            }
+        }
+        return used;
+    }
+
+    private static int[][] load(String file) throws IOException {
+        List<int[]> distribution = new ArrayList<int[]>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CharsetUtil.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                distribution.add(new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) });
+            }
+        } finally {
+            reader.close();
+        }
+        return distribution.toArray(new int[distribution.size()][]);
+    }
+
+    private static int[] expand(int[][] distribution) {
+        int total = 0;
+        for (int[] entry: distribution) {
+            total += entry[1];
+        }
+        int[] sizes = new int[total];
+        int idx = 0;
+        for (int[] entry: distribution) {
+            for (int i = 0; i < entry[1]; i++) {
+                sizes[idx++] = entry[0];
+            }
+        }
+        return sizes;
+    }
+}
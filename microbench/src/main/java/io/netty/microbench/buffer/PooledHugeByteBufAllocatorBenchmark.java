@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the allocation and release of huge buffers (bigger than the chunk size of 16 MiB) with and without the
+ * huge cache of the {@link PooledByteBufAllocator}.
+ */
+@State(Scope.Benchmark)
+public class PooledHugeByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "20971520", "33554432" })
+    public int size;
+
+    @Param({ "0", "268435456" })
+    public long hugeCacheSize;
+
+    private PooledByteBufAllocator allocator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0,
+                hugeCacheSize, 10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public boolean directAllocAndFree() {
+        ByteBuf buf = allocator.directBuffer(size);
+        return buf.release();
+    }
+
+    @Benchmark
+    public boolean heapAllocAndFree() {
+        ByteBuf buf = allocator.heapBuffer(size);
+        return buf.release();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares slicing frames out of a pooled buffer via {@code readSlice(int).retain()}, which allocates a new derived
+ * buffer per frame, with {@link ByteBuf#readRetainedSlice(int)}, which reuses recycled derived buffers. This is the
+ * pattern used by the frame decoders of the codec module.
+ *
+ * Run with the JMH {@code -prof gc} profiler to compare the allocation rate ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class SlicedByteBufBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "16", "256" })
+    public int frameSize;
+
+    @Param("64")
+    public int frames;
+
+    private ByteBuf buffer;
+    // The frames are passed on like a decoder would do, so the JIT can not eliminate the derived buffers.
+    private ByteBuf[] decoded;
+
+    @Setup
+    public void setup() {
+        buffer = PooledByteBufAllocator.DEFAULT.directBuffer(frameSize * frames);
+        buffer.writerIndex(buffer.capacity());
+        decoded = new ByteBuf[frames];
+    }
+
+    @TearDown
+    public void teardown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public long readSliceRetain() {
+        buffer.readerIndex(0);
+        for (int i = 0; i < frames; i++) {
+            decoded[i] = buffer.readSlice(frameSize).retain();
+        }
+        return consume();
+    }
+
+    @Benchmark
+    public long readRetainedSlice() {
+        buffer.readerIndex(0);
+        for (int i = 0; i < frames; i++) {
+            decoded[i] = buffer.readRetainedSlice(frameSize);
+        }
+        return consume();
+    }
+
+    private long consume() {
+        long sum = 0;
+        for (int i = 0; i < frames; i++) {
+            ByteBuf frame = decoded[i];
+            decoded[i] = null;
+            sum += frame.getByte(0);
+            frame.release();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast a {@link io.netty.channel.ChannelOutboundBuffer} accepts and drains many small writes which are
+ * flushed at once, both via an {@link EmbeddedChannel}, which removes the messages one by one, and via a NIO socket
+ * over loopback, which writes them with gathering writes.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChannelOutboundBufferBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1", "16", "256" })
+    public int messages;
+
+    @Param({ "64" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean voidPromise;
+
+    private ByteBuf message;
+    private EmbeddedChannel embeddedChannel;
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private Runnable writeTask;
+    private volatile long received;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        message = Unpooled.directBuffer(size).writeZero(size);
+        embeddedChannel = new EmbeddedChannel();
+
+        group = new NioEventLoopGroup(2);
+        serverChannel = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        received += buf.readableBytes();
+                        buf.release();
+                    }
+                }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        clientChannel = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(serverChannel.localAddress()).sync().channel();
+        writeTask = new Runnable() {
+            @Override
+            public void run() {
+                write(clientChannel);
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        embeddedChannel.finishAndReleaseAll();
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        message.release();
+    }
+
+    private void write(Channel channel) {
+        for (int i = 0; i < messages; i++) {
+            ByteBuf buf = message.retainedDuplicate();
+            if (voidPromise) {
+                channel.write(buf, channel.voidPromise());
+            } else {
+                channel.write(buf);
+            }
+        }
+        channel.flush();
+    }
+
+    @Benchmark
+    public int embedded() {
+        write(embeddedChannel);
+        int count = 0;
+        for (;;) {
+            ByteBuf buf = embeddedChannel.readOutbound();
+            if (buf == null) {
+                return count;
+            }
+            buf.release();
+            count++;
+        }
+    }
+
+    @Benchmark
+    public long nio() {
+        long expected = received + (long) messages * size;
+        clientChannel.eventLoop().execute(writeTask);
+        // Spin so the latency of parking and unparking the benchmark thread is not measured.
+        long bytes;
+        while ((bytes = received) < expected) {
+            // Wait for the bytes to arrive.
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of propagating an event through a {@link ChannelPipeline} full of handlers which do not handle
+ * it. With {@code skippable} the handlers inherit the forwarding methods of {@link ChannelDuplexHandler}, so their
+ * contexts are skipped because of the execution mask. Otherwise each handler overrides the methods to forward the
+ * event itself, which is what the traversal costs without the mask.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "4", "8", "16" })
+    public int handlers;
+
+    @Param({ "true", "false" })
+    public boolean skippable;
+
+    private EmbeddedChannel channel;
+    private ChannelPipeline pipeline;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        pipeline = channel.pipeline();
+        for (int i = 0; i < handlers; i++) {
+            pipeline.addLast(skippable ? new ChannelDuplexHandler() : new ForwardingHandler());
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public ChannelPipeline propagateInbound() {
+        return pipeline.fireChannelReadComplete();
+    }
+
+    @Benchmark
+    public ChannelPipeline propagateOutbound() {
+        return pipeline.read();
+    }
+
+    /**
+     * Does the same as {@link ChannelDuplexHandler} but can not be skipped as the methods are overridden.
+     */
+    @ChannelHandler.Sharable
+    private static final class ForwardingHandler extends ChannelDuplexHandler {
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.fireChannelReadComplete();
+        }
+
+        @Override
+        public void read(ChannelHandlerContext ctx) {
+            ctx.read();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many connections per second can be accepted, either by a single {@link EpollServerSocketChannel}
+ * which hands off the accepted channels to the child {@link EventLoopGroup}, or by one
+ * {@link EpollServerSocketChannel} per {@link io.netty.channel.EventLoop} bound with {@code SO_REUSEPORT} via
+ * {@link ServerBootstrap#bindAcceptors(java.net.SocketAddress)}.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class EpollAcceptBenchmark extends AbstractMicrobenchmark {
+
+    public enum AcceptorType {
+        SINGLE, REUSEPORT
+    }
+
+    @Param
+    public AcceptorType acceptor;
+
+    @Param({ "4" })
+    public int eventLoops;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private ChannelGroup serverChannels;
+    private InetSocketAddress address;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        bossGroup = new EpollEventLoopGroup(1);
+        workerGroup = new EpollEventLoopGroup(eventLoops);
+        ServerBootstrap sb = new ServerBootstrap().group(bossGroup, workerGroup)
+                .channel(EpollServerSocketChannel.class)
+                .option(EpollChannelOption.SO_REUSEPORT, true)
+                .childHandler(new CloseOnActiveHandler());
+        InetSocketAddress localAddress = new InetSocketAddress("127.0.0.1", 0);
+        if (acceptor == AcceptorType.REUSEPORT) {
+            serverChannels = sb.bindAcceptors(localAddress).sync().getNow();
+        } else {
+            serverChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+            serverChannels.add(sb.bind(localAddress).sync().channel());
+        }
+        address = (InetSocketAddress) serverChannels.iterator().next().localAddress();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        serverChannels.close().sync();
+        bossGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        workerGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public int connectAndWaitForClose() throws IOException {
+        Socket socket = new Socket(address.getAddress(), address.getPort());
+        try {
+            // The server closes the connection once it was accepted and registered.
+            return socket.getInputStream().read();
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Sharable
+    private static final class CloseOnActiveHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            ctx.close();
+        }
+    }
+}
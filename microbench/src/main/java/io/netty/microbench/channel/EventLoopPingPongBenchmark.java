@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultSelectStrategyFactory;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SelectStrategyFactory;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.SpinSelectStrategyFactory;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round-trip latency of a message echoed over loopback, once with event loops that block as soon as
+ * there is nothing to process and once with event loops that spin before blocking. The sampled percentiles
+ * (p50, p99, p99.9) are reported by JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventLoopPingPongBenchmark extends AbstractMicrobenchmark {
+
+    public enum EventLoopType {
+        NIO, EPOLL
+    }
+
+    public enum StrategyType {
+        BLOCKING, SPIN
+    }
+
+    @Param
+    public EventLoopType type;
+
+    @Param
+    public StrategyType strategy;
+
+    @Param({ "64" })
+    public int size;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private ByteBuf message;
+    private volatile int received;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        SelectStrategyFactory strategyFactory = strategy == StrategyType.SPIN ?
+                new SpinSelectStrategyFactory(1, TimeUnit.MILLISECONDS) : DefaultSelectStrategyFactory.INSTANCE;
+        Class<? extends ServerChannel> serverChannelClass;
+        Class<? extends Channel> channelClass;
+        if (type == EventLoopType.EPOLL) {
+            serverGroup = new EpollEventLoopGroup(1, strategyFactory);
+            clientGroup = new EpollEventLoopGroup(1, strategyFactory);
+            serverChannelClass = EpollServerSocketChannel.class;
+            channelClass = EpollSocketChannel.class;
+        } else {
+            serverGroup = new NioEventLoopGroup(1, (Executor) null, SelectorProvider.provider(), strategyFactory);
+            clientGroup = new NioEventLoopGroup(1, (Executor) null, SelectorProvider.provider(), strategyFactory);
+            serverChannelClass = NioServerSocketChannel.class;
+            channelClass = NioSocketChannel.class;
+        }
+
+        serverChannel = new ServerBootstrap().group(serverGroup).channel(serverChannelClass)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ctx.writeAndFlush(msg);
+                    }
+                }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        clientChannel = new Bootstrap().group(clientGroup).channel(channelClass)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        received += buf.readableBytes();
+                        buf.release();
+                    }
+                }).connect(serverChannel.localAddress()).sync().channel();
+        message = Unpooled.directBuffer(size).writeZero(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        message.release();
+    }
+
+    @Benchmark
+    public int pingPong() {
+        received = 0;
+        clientChannel.writeAndFlush(message.duplicate().retain());
+        // Spin so the latency of parking and unparking the benchmark thread is not measured.
+        int bytes;
+        while ((bytes = received) < size) {
+            // Wait for the echo.
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how late tasks scheduled with a sub-millisecond delay are executed. Each sample is the delay plus the time
+ * the task fired after its deadline, so subtracting {@link #delayMicros} from the reported percentiles gives the
+ * late-firing percentiles. {@link EpollEventLoopGroup} arms a timerfd with the exact deadline while
+ * {@link NioEventLoopGroup} rounds the timeout of {@code select(...)} to milliseconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventLoopScheduleBenchmark extends AbstractMicrobenchmark {
+
+    public enum EventLoopType {
+        NIO, EPOLL
+    }
+
+    @Param
+    public EventLoopType type;
+
+    @Param({ "50", "200", "700" })
+    public int delayMicros;
+
+    private EventLoopGroup group;
+    private EventLoop loop;
+    private long delayNanos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        group = type == EventLoopType.EPOLL ? new EpollEventLoopGroup(1) : new NioEventLoopGroup(1);
+        loop = group.next();
+        delayNanos = TimeUnit.MICROSECONDS.toNanos(delayMicros);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Benchmark
+    public long lateness() throws Exception {
+        final long deadline = System.nanoTime() + delayNanos;
+        return loop.schedule(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return System.nanoTime() - deadline;
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS).get();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary heap and the {@link ScheduledTaskWheel} used as scheduled task queue with a large number of
+ * pending timers. This lives in {@code io.netty.util.concurrent} because the queue implementations are package-private.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ScheduledTaskQueueBenchmark extends AbstractMicrobenchmark {
+
+    private static final Callable<Void> NOOP = new Callable<Void>() {
+        @Override
+        public Void call() {
+            return null;
+        }
+    };
+    private static final long MAX_DELAY = TimeUnit.SECONDS.toNanos(60);
+
+    @Param({ "10000", "100000", "1000000" })
+    public int pending;
+
+    @Param({ "heap", "wheel" })
+    public String queue;
+
+    private DefaultEventExecutor executor;
+    private Queue<ScheduledFutureTask<?>> taskQueue;
+    private Random random;
+    private long now;
+
+    @Setup
+    public void setup() {
+        executor = new DefaultEventExecutor();
+        taskQueue = "wheel".equals(queue) ? new ScheduledTaskWheel() : new PriorityQueue<ScheduledFutureTask<?>>();
+        random = new Random(pending);
+        now = ScheduledFutureTask.nanoTime();
+        for (int i = 0; i < pending; i++) {
+            taskQueue.add(newTask());
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        taskQueue.clear();
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private ScheduledFutureTask<Void> newTask() {
+        return new ScheduledFutureTask<Void>(executor, NOOP, now + (long) (random.nextDouble() * MAX_DELAY));
+    }
+
+    /**
+     * Arms a timeout and cancels it again before it expires, which is what most I/O timeouts end up doing.
+     */
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        ScheduledFutureTask<Void> task = newTask();
+        taskQueue.add(task);
+        return taskQueue.remove(task);
+    }
+
+    /**
+     * Arms a timeout and lets the earliest pending one expire, so the number of pending timers stays the same.
+     */
+    @Benchmark
+    public ScheduledFutureTask<?> scheduleAndExpire() {
+        taskQueue.add(newTask());
+        ScheduledFutureTask<?> task = taskQueue.poll();
+        now = task.deadlineNanos();
+        return task;
+    }
+}
@@ -21,6 +21,8 @@
 #include <errno.h>
 #include <sys/epoll.h>
 #include <sys/eventfd.h>
+#include <sys/timerfd.h>
+#include <sys/mman.h>
 #include <sys/sendfile.h>
 #include <sys/un.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
@@ -35,9 +37,11 @@
 #include <limits.h>
 #include <inttypes.h>
 #include <link.h>
+#include <linux/errqueue.h>
 #include "netty_unix_filedescriptor.h"
 #include "netty_unix_socket.h"
 #include "netty_unix_errors.h"
+#include "netty_unix_limits.h"
 #include "netty_unix_util.h"
 
 // Define SO_REUSEPORT if not found to fix build issues.
@@ -46,27 +50,60 @@
 #define SO_REUSEPORT 15
 #endif /* SO_REUSEPORT */
 
-// Define IOV_MAX if not found to limit the iov size on writev calls
-// See https://github.com/netty/netty/issues/2647
-#ifndef IOV_MAX
-#define IOV_MAX 1024
-#endif /* IOV_MAX */
-
-// Define UIO_MAXIOV if not found
-#ifndef UIO_MAXIOV
-#define UIO_MAXIOV 1024
-#endif /* UIO_MAXIOV */
-
 // TCP_NOTSENT_LOWAT is defined in linux 3.12. We define this here so older kernels can compile.
 #ifndef TCP_NOTSENT_LOWAT
 #define TCP_NOTSENT_LOWAT 25
 #endif
 
+// SO_BUSY_POLL is defined in linux 3.11. We define this here so older kernels can compile.
+#ifndef SO_BUSY_POLL
+#define SO_BUSY_POLL 46
+#endif
+
 // TCP_FASTOPEN is defined in linux 3.7. We define this here so older kernels can compile.
 #ifndef TCP_FASTOPEN
 #define TCP_FASTOPEN 23
 #endif
 
+// UDP_SEGMENT is defined in linux 4.18 and UDP_GRO in linux 5.0. We define these here so older kernels can compile.
+#ifndef UDP_SEGMENT
+#define UDP_SEGMENT 103
+#endif
+
+#ifndef UDP_GRO
+#define UDP_GRO 104
+#endif
+
+// SO_ZEROCOPY and MSG_ZEROCOPY are defined in linux 4.14. We define these here so older kernels can compile.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif
+
+// MAP_HUGETLB is defined in linux 2.6.32 and MADV_HUGEPAGE in linux 2.6.38. We define these here so older kernels can
+// compile. The calls fail with EINVAL on kernels which do not support them.
+#ifndef MAP_HUGETLB
+#define MAP_HUGETLB 0x40000
+#endif
+
+#ifndef MADV_HUGEPAGE
+#define MADV_HUGEPAGE 14
+#endif
+
+// The size of the huge pages the memory is aligned to.
+#define HUGE_PAGE_SIZE ((size_t) 2 * 1024 * 1024)
+
 /**
  * On older Linux kernels, epoll can't handle timeout
  * values bigger than (LONG_MAX - 999ULL)/HZ.
@@ -82,6 +119,7 @@ extern int epoll_create1(int flags) __attribute__((weak));
 
 #ifdef IO_NETTY_SENDMMSG_NOT_FOUND
 extern int sendmmsg(int sockfd, struct mmsghdr* msgvec, unsigned int vlen, unsigned int flags) __attribute__((weak));
+extern int recvmmsg(int sockfd, struct mmsghdr* msgvec, unsigned int vlen, unsigned int flags, struct timespec* timeout) __attribute__((weak));
 
 #ifndef __USE_GNU
 struct mmsghdr {
@@ -102,6 +140,8 @@ jfieldID packetScopeIdFieldId = NULL;
 jfieldID packetPortFieldId = NULL;
 jfieldID packetMemoryAddressFieldId = NULL;
 jfieldID packetCountFieldId = NULL;
+jfieldID packetSenderFieldId = NULL;
+jfieldID packetSegmentSizeFieldId = NULL;
 
 // util methods
 static int getSysctlValue(const char * property, int* returnValue) {
@@ -138,6 +178,16 @@ static jint netty_epoll_native_eventFd(JNIEnv* env, jclass clazz) {
     return eventFD;
 }
 
+static jint netty_epoll_native_timerFd(JNIEnv* env, jclass clazz) {
+    jint timerFD = timerfd_create(CLOCK_MONOTONIC, TFD_CLOEXEC | TFD_NONBLOCK);
+
+    if (timerFD < 0) {
+        int err = errno;
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "timerfd_create() failed: ", err);
+    }
+    return timerFD;
+}
+
 static void netty_epoll_native_eventFdWrite(JNIEnv* env, jclass clazz, jint fd, jlong value) {
     jint eventFD = eventfd_write(fd, (eventfd_t) value);
 
@@ -205,6 +255,32 @@ static jint netty_epoll_native_epollWait0(JNIEnv* env, jclass clazz, jint efd, j
     return ready;
 }
 
+static jint netty_epoll_native_epollWaitTimerFd0(JNIEnv* env, jclass clazz, jint efd, jlong address, jint len, jint timerFd, jint tvSec, jint tvNsec) {
+    struct epoll_event *ev = (struct epoll_event*) (intptr_t) address;
+    struct itimerspec ts;
+    int ready;
+    int err;
+
+    // Arm the timer with the full precision of the deadline and block until either an event was received or the
+    // timer expired. A zero it_value would disarm the timer, so tvSec and tvNsec must not both be 0.
+    memset(&ts.it_interval, 0, sizeof(struct timespec));
+    ts.it_value.tv_sec = tvSec;
+    ts.it_value.tv_nsec = tvNsec;
+    if (timerfd_settime(timerFd, 0, &ts, NULL) < 0) {
+        return -errno;
+    }
+
+    do {
+       ready = epoll_wait(efd, ev, len, -1);
+       // was interrupted try again.
+    } while (ready == -1 && ((err = errno) == EINTR));
+
+    if (ready < 0) {
+         return -err;
+    }
+    return ready;
+}
+
 static jint netty_epoll_native_epollCtlAdd0(JNIEnv* env, jclass clazz, jint efd, jint fd, jint flags) {
     int res = epollCtl(env, efd, EPOLL_CTL_ADD, fd, flags);
     if (res < 0) {
@@ -232,27 +308,43 @@ static jint netty_epoll_native_epollCtlDel0(JNIEnv* env, jclass clazz, jint efd,
 
 static jint netty_epoll_native_sendmmsg0(JNIEnv* env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
     struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    char control[len][CMSG_SPACE(sizeof(uint16_t))];
     int i;
 
     memset(msg, 0, sizeof(msg));
+    memset(control, 0, sizeof(control));
 
     for (i = 0; i < len; i++) {
-        struct sockaddr_storage addr;
-
         jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
         jbyteArray address = (jbyteArray) (*env)->GetObjectField(env, packet, packetAddrFieldId);
         jint scopeId = (*env)->GetIntField(env, packet, packetScopeIdFieldId);
         jint port = (*env)->GetIntField(env, packet, packetPortFieldId);
+        jint segmentSize = (*env)->GetIntField(env, packet, packetSegmentSizeFieldId);
 
-        if (netty_unix_socket_initSockaddr(env, address, scopeId, port, &addr) == -1) {
+        if (netty_unix_socket_initSockaddr(env, address, scopeId, port, &addr[i]) == -1) {
             return -1;
         }
 
-        msg[i].msg_hdr.msg_name = &addr;
-        msg[i].msg_hdr.msg_namelen = sizeof(addr);
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(addr[i]);
 
         msg[i].msg_hdr.msg_iov = (struct iovec*) (intptr_t) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
-        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);;
+        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);
+
+        if (segmentSize > 0) {
+            // Let the kernel split the payload into datagrams of segmentSize bytes (UDP GSO).
+            msg[i].msg_hdr.msg_control = control[i];
+            msg[i].msg_hdr.msg_controllen = sizeof(control[i]);
+
+            struct cmsghdr* cm = CMSG_FIRSTHDR(&msg[i].msg_hdr);
+            cm->cmsg_level = IPPROTO_UDP;
+            cm->cmsg_type = UDP_SEGMENT;
+            cm->cmsg_len = CMSG_LEN(sizeof(uint16_t));
+            *((uint16_t*) CMSG_DATA(cm)) = (uint16_t) segmentSize;
+        }
+        (*env)->DeleteLocalRef(env, address);
+        (*env)->DeleteLocalRef(env, packet);
     }
 
     ssize_t res;
@@ -267,6 +359,133 @@ static jint netty_epoll_native_sendmmsg0(JNIEnv* env, jclass clazz, jint fd, job
     }
     return (jint) res;
 }
+static jint netty_epoll_native_recvmmsg0(JNIEnv* env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
+    struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    char control[len][CMSG_SPACE(sizeof(int))];
+    int i;
+
+    memset(msg, 0, sizeof(msg));
+
+    for (i = 0; i < len; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(addr[i]);
+
+        // Used to receive the segment size if UDP_GRO is enabled.
+        msg[i].msg_hdr.msg_control = control[i];
+        msg[i].msg_hdr.msg_controllen = sizeof(control[i]);
+
+        msg[i].msg_hdr.msg_iov = (struct iovec*) (intptr_t) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
+        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);
+        (*env)->DeleteLocalRef(env, packet);
+    }
+
+    int res;
+    int err;
+    do {
+       res = recvmmsg(fd, msg, len, 0, NULL);
+       // keep on reading if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+
+    for (i = 0; i < res; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+        jobject sender = netty_unix_socket_createDatagramSocketAddress(env, &addr[i], msg[i].msg_len);
+        if (sender == NULL) {
+            // pending exception...
+            return -1;
+        }
+        (*env)->SetObjectField(env, packet, packetSenderFieldId, sender);
+        (*env)->DeleteLocalRef(env, sender);
+
+        jint segmentSize = 0;
+        struct cmsghdr* cm;
+        for (cm = CMSG_FIRSTHDR(&msg[i].msg_hdr); cm != NULL; cm = CMSG_NXTHDR(&msg[i].msg_hdr, cm)) {
+            if (cm->cmsg_level == IPPROTO_UDP && cm->cmsg_type == UDP_GRO) {
+                segmentSize = *((int*) CMSG_DATA(cm));
+                break;
+            }
+        }
+        (*env)->SetIntField(env, packet, packetSegmentSizeFieldId, segmentSize);
+        (*env)->DeleteLocalRef(env, packet);
+    }
+    return (jint) res;
+}
+
+static jint netty_epoll_native_sendAddressZeroCopy0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+       res = send(fd, (void*) (intptr_t) (address + pos), (size_t) (limit - pos), MSG_ZEROCOPY);
+       // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jint) res;
+}
+
+// Reads the MSG_ZEROCOPY completions from the error queue into completions, three ints per completion: the first and
+// the last id of the completed range of send calls and 1 if the kernel copied the data anyway, 0 otherwise.
+// Returns the number of completions or -errno if the error queue was empty from the start.
+static jint netty_epoll_native_readZeroCopyCompletions0(JNIEnv* env, jclass clazz, jint fd, jintArray completions) {
+    jint max = (*env)->GetArrayLength(env, completions) / 3;
+    jint values[max * 3];
+    jint count = 0;
+    int err = 0;
+
+    while (count < max) {
+        struct msghdr msg = { 0 };
+        char control[CMSG_SPACE(sizeof(struct sock_extended_err) + sizeof(struct sockaddr_in6))];
+        msg.msg_control = control;
+        msg.msg_controllen = sizeof(control);
+
+        ssize_t res;
+        do {
+            res = recvmsg(fd, &msg, MSG_ERRQUEUE);
+            // keep on reading if it was interrupted
+        } while (res == -1 && ((err = errno) == EINTR));
+
+        if (res < 0) {
+            break;
+        }
+
+        struct cmsghdr* cm;
+        for (cm = CMSG_FIRSTHDR(&msg); cm != NULL; cm = CMSG_NXTHDR(&msg, cm)) {
+            if ((cm->cmsg_level == SOL_IP && cm->cmsg_type == IP_RECVERR) ||
+                (cm->cmsg_level == SOL_IPV6 && cm->cmsg_type == IPV6_RECVERR)) {
+                struct sock_extended_err* serr = (struct sock_extended_err*) CMSG_DATA(cm);
+                if (serr->ee_errno == 0 && serr->ee_origin == SO_EE_ORIGIN_ZEROCOPY) {
+                    values[count * 3] = (jint) serr->ee_info;
+                    values[count * 3 + 1] = (jint) serr->ee_data;
+                    values[count * 3 + 2] = (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) ? 1 : 0;
+                    count++;
+                }
+            }
+        }
+    }
+
+    if (count == 0) {
+        return err == 0 ? 0 : -err;
+    }
+    (*env)->SetIntArrayRegion(env, completions, 0, count * 3, values);
+    return count;
+}
+
+static jint netty_epoll_native_dup0(JNIEnv* env, jclass clazz, jint fd) {
+    int res = dup(fd);
+    if (res < 0) {
+        return -errno;
+    }
+    return (jint) res;
+}
+
 static jint netty_epoll_native_recvFd0(JNIEnv* env, jclass clazz, jint fd) {
     int socketFd;
     struct msghdr descriptorMessage = { 0 };
@@ -399,6 +618,10 @@ static void netty_epoll_native_setTcpNotSentLowAt(JNIEnv* env, jclass clazz, jin
     netty_unix_socket_setOption(env, fd, IPPROTO_TCP, TCP_NOTSENT_LOWAT, &optval, sizeof(optval));
 }
 
+static void netty_epoll_native_setSoBusyPoll(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval));
+}
+
 static void netty_epoll_native_setTrafficClass(JNIEnv* env, jclass clazz, jint fd, jint optval) {
     netty_unix_socket_setOption(env, fd, IPPROTO_IP, IP_TOS, &optval, sizeof(optval));
 
@@ -433,6 +656,18 @@ static void netty_epoll_native_setIpFreeBind(JNIEnv* env, jclass clazz, jint fd,
     netty_unix_socket_setOption(env, fd, IPPROTO_IP, IP_FREEBIND, &optval, sizeof(optval));
 }
 
+static void netty_epoll_native_setZeroCopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
+static void netty_epoll_native_setUdpSegment(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, IPPROTO_UDP, UDP_SEGMENT, &optval, sizeof(optval));
+}
+
+static void netty_epoll_native_setUdpGro(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, IPPROTO_UDP, UDP_GRO, &optval, sizeof(optval));
+}
+
 static jint netty_epoll_native_isReuseAddress(JNIEnv* env, jclass clazz, jint fd) {
     int optval;
     if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_REUSEADDR, &optval, sizeof(optval)) == -1) {
@@ -457,6 +692,14 @@ static jint netty_epoll_native_getTcpNotSentLowAt(JNIEnv* env, jclass clazz, jin
     return optval;
 }
 
+static jint netty_epoll_native_getSoBusyPoll(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
 static jint netty_epoll_native_getTrafficClass(JNIEnv* env, jclass clazz, jint fd) {
     int optval;
     if (netty_unix_socket_getOption(env, fd, IPPROTO_IP, IP_TOS, &optval, sizeof(optval)) == -1) {
@@ -513,6 +756,30 @@ static jint netty_epoll_Native_isIpFreeBind(JNIEnv* env, jclass clazz, jint fd)
      return optval;
 }
 
+static jint netty_epoll_native_isZeroCopy(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
+static jint netty_epoll_native_getUdpSegment(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, IPPROTO_UDP, UDP_SEGMENT, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
+static jint netty_epoll_native_isUdpGro(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, IPPROTO_UDP, UDP_GRO, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
 static void netty_epoll_native_tcpInfo0(JNIEnv* env, jclass clazz, jint fd, jintArray array) {
      struct tcp_info tcp_info;
      if (netty_unix_socket_getOption(env, fd, IPPROTO_TCP, TCP_INFO, &tcp_info, sizeof(tcp_info)) == -1) {
@@ -567,14 +834,6 @@ static jstring netty_epoll_native_kernelVersion(JNIEnv* env, jclass clazz) {
     return NULL;
 }
 
-static jint netty_epoll_native_iovMax(JNIEnv* env, jclass clazz) {
-    return IOV_MAX;
-}
-
-static jint netty_epoll_native_uioMaxIov(JNIEnv* env, jclass clazz) {
-    return UIO_MAXIOV;
-}
-
 static jboolean netty_epoll_native_isSupportingSendmmsg(JNIEnv* env, jclass clazz) {
     if (sendmmsg) {
         return JNI_TRUE;
@@ -582,6 +841,43 @@ static jboolean netty_epoll_native_isSupportingSendmmsg(JNIEnv* env, jclass claz
     return JNI_FALSE;
 }
 
+static jboolean netty_epoll_native_isSupportingRecvmmsg(JNIEnv* env, jclass clazz) {
+    if (recvmmsg) {
+        return JNI_TRUE;
+    }
+    return JNI_FALSE;
+}
+
+// Check if the given UDP socket option can be set on a fresh socket, which is not the case on kernels which lack it.
+static jboolean isSupportingUdpOption(int option, int optval) {
+    int fd = socket(AF_INET, SOCK_DGRAM, 0);
+    if (fd == -1) {
+        return JNI_FALSE;
+    }
+    int res = setsockopt(fd, IPPROTO_UDP, option, &optval, sizeof(optval));
+    close(fd);
+    return res == 0 ? JNI_TRUE : JNI_FALSE;
+}
+
+static jboolean netty_epoll_native_isSupportingUdpSegment(JNIEnv* env, jclass clazz) {
+    return isSupportingUdpOption(UDP_SEGMENT, 0);
+}
+
+static jboolean netty_epoll_native_isSupportingUdpGro(JNIEnv* env, jclass clazz) {
+    return isSupportingUdpOption(UDP_GRO, 0);
+}
+
+static jboolean netty_epoll_native_isSupportingZeroCopy(JNIEnv* env, jclass clazz) {
+    int fd = socket(AF_INET, SOCK_STREAM, 0);
+    if (fd == -1) {
+        return JNI_FALSE;
+    }
+    int optval = 1;
+    int res = setsockopt(fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+    close(fd);
+    return res == 0 ? JNI_TRUE : JNI_FALSE;
+}
+
 static jboolean netty_epoll_native_isSupportingTcpFastopen(JNIEnv* env, jclass clazz) {
     int fastopen = 0;
     getSysctlValue("/proc/sys/net/ipv4/tcp_fastopen", &fastopen);
@@ -639,8 +935,58 @@ static jint netty_epoll_native_splice0(JNIEnv* env, jclass clazz, jint fd, jlong
     return (jint) res;
 }
 
-static jlong netty_epoll_native_ssizeMax(JNIEnv* env, jclass clazz) {
-    return SSIZE_MAX;
+static size_t hugePageAlignedSize(jlong capacity) {
+    return ((size_t) capacity + HUGE_PAGE_SIZE - 1) & ~(HUGE_PAGE_SIZE - 1);
+}
+
+// Maps anonymous memory which starts at a huge page boundary and returns it as a direct ByteBuffer of the given
+// capacity. Reserved huge pages (MAP_HUGETLB) are used if available. Otherwise the memory is mapped with normal pages,
+// aligned by unmapping the excess, and transparent huge pages are requested via madvise(MADV_HUGEPAGE). Throws an
+// OutOfMemoryError if no memory could be mapped at all.
+static jobject netty_epoll_native_allocateHugePageBuffer0(JNIEnv* env, jclass clazz, jint capacity) {
+    size_t size = hugePageAlignedSize(capacity);
+    char* mem = mmap(NULL, size, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS | MAP_HUGETLB, -1, 0);
+    if (mem == MAP_FAILED) {
+        char* raw = mmap(NULL, size + HUGE_PAGE_SIZE, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0);
+        if (raw == MAP_FAILED) {
+            netty_unix_errors_throwOutOfMemoryError(env);
+            return NULL;
+        }
+        mem = (char*) (((uintptr_t) raw + HUGE_PAGE_SIZE - 1) & ~((uintptr_t) HUGE_PAGE_SIZE - 1));
+        if (mem > raw) {
+            munmap(raw, mem - raw);
+        }
+        if (raw + HUGE_PAGE_SIZE > mem) {
+            munmap(mem + size, raw + HUGE_PAGE_SIZE - mem);
+        }
+        // Ignore the result, the memory is usable with normal pages if transparent huge pages are disabled.
+        madvise(mem, size, MADV_HUGEPAGE);
+    }
+
+    jobject buffer = (*env)->NewDirectByteBuffer(env, mem, capacity);
+    if (buffer == NULL) {
+        munmap(mem, size);
+    }
+    return buffer;
+}
+
+static void netty_epoll_native_freeHugePageMemory0(JNIEnv* env, jclass clazz, jlong address, jint capacity) {
+    if (address == 0 || capacity < 0) {
+        netty_unix_errors_throwRuntimeException(env, "invalid memory");
+        return;
+    }
+    if (munmap((void*) (intptr_t) address, hugePageAlignedSize(capacity)) == -1) {
+        netty_unix_errors_throwRuntimeExceptionErrorNo(env, "munmap() failed: ", errno);
+    }
+}
+
+static jlong netty_epoll_native_directBufferAddress0(JNIEnv* env, jclass clazz, jobject buffer) {
+    void* mem = (*env)->GetDirectBufferAddress(env, buffer);
+    if (mem == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "not a direct buffer");
+        return 0;
+    }
+    return (jlong) (intptr_t) mem;
 }
 
 static jint netty_epoll_native_tcpMd5SigMaxKeyLen(JNIEnv* env, jclass clazz) {
@@ -699,25 +1045,32 @@ static const JNINativeMethod statically_referenced_fixed_method_table[] = {
   { "epollout", "()I", (void *) netty_epoll_native_epollout },
   { "epollrdhup", "()I", (void *) netty_epoll_native_epollrdhup },
   { "epollerr", "()I", (void *) netty_epoll_native_epollerr },
-  { "ssizeMax", "()J", (void *) netty_epoll_native_ssizeMax },
   { "tcpMd5SigMaxKeyLen", "()I", (void *) netty_epoll_native_tcpMd5SigMaxKeyLen },
-  { "iovMax", "()I", (void *) netty_epoll_native_iovMax },
-  { "uioMaxIov", "()I", (void *) netty_epoll_native_uioMaxIov },
   { "isSupportingSendmmsg", "()Z", (void *) netty_epoll_native_isSupportingSendmmsg },
+  { "isSupportingRecvmmsg", "()Z", (void *) netty_epoll_native_isSupportingRecvmmsg },
+  { "isSupportingUdpSegment", "()Z", (void *) netty_epoll_native_isSupportingUdpSegment },
+  { "isSupportingUdpGro", "()Z", (void *) netty_epoll_native_isSupportingUdpGro },
+  { "isSupportingZeroCopy", "()Z", (void *) netty_epoll_native_isSupportingZeroCopy },
   { "isSupportingTcpFastopen", "()Z", (void *) netty_epoll_native_isSupportingTcpFastopen },
   { "kernelVersion", "()Ljava/lang/String;", (void *) netty_epoll_native_kernelVersion }
 };
 static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
 static const JNINativeMethod fixed_method_table[] = {
   { "eventFd", "()I", (void *) netty_epoll_native_eventFd },
+  { "timerFd", "()I", (void *) netty_epoll_native_timerFd },
   { "eventFdWrite", "(IJ)V", (void *) netty_epoll_native_eventFdWrite },
   { "eventFdRead", "(I)V", (void *) netty_epoll_native_eventFdRead },
   { "epollCreate", "()I", (void *) netty_epoll_native_epollCreate },
   { "epollWait0", "(IJII)I", (void *) netty_epoll_native_epollWait0 },
+  { "epollWaitTimerFd0", "(IJIIII)I", (void *) netty_epoll_native_epollWaitTimerFd0 },
   { "epollCtlAdd0", "(III)I", (void *) netty_epoll_native_epollCtlAdd0 },
   { "epollCtlMod0", "(III)I", (void *) netty_epoll_native_epollCtlMod0 },
   { "epollCtlDel0", "(II)I", (void *) netty_epoll_native_epollCtlDel0 },
   // "sendmmsg0" has a dynamic signature
+  // "recvmmsg0" has a dynamic signature
+  { "sendAddressZeroCopy0", "(IJII)I", (void *) netty_epoll_native_sendAddressZeroCopy0 },
+  { "readZeroCopyCompletions0", "(I[I)I", (void *) netty_epoll_native_readZeroCopyCompletions0 },
+  { "dup0", "(I)I", (void *) netty_epoll_native_dup0 },
   { "recvFd0", "(I)I", (void *) netty_epoll_native_recvFd0 },
   { "sendFd0", "(II)I", (void *) netty_epoll_native_sendFd0 },
   // "sendFile0" has a dynamic signature
@@ -725,6 +1078,7 @@ static const JNINativeMethod fixed_method_table[] = {
   { "setReusePort", "(II)V", (void *) netty_epoll_native_setReusePort },
   { "setTcpFastopen", "(II)V", (void *) netty_epoll_native_setTcpFastopen },
   { "setTcpNotSentLowAt", "(II)V", (void *) netty_epoll_native_setTcpNotSentLowAt },
+  { "setSoBusyPoll", "(II)V", (void *) netty_epoll_native_setSoBusyPoll },
   { "setTrafficClass", "(II)V", (void *) netty_epoll_native_setTrafficClass },
   { "setBroadcast", "(II)V", (void *) netty_epoll_native_setBroadcast },
   { "setTcpKeepIdle", "(II)V", (void *) netty_epoll_native_setTcpKeepIdle },
@@ -732,9 +1086,13 @@ static const JNINativeMethod fixed_method_table[] = {
   { "setTcpKeepCnt", "(II)V", (void *) netty_epoll_native_setTcpKeepCnt },
   { "setTcpUserTimeout", "(II)V", (void *) netty_epoll_native_setTcpUserTimeout },
   { "setIpFreeBind", "(II)V", (void *) netty_epoll_native_setIpFreeBind },
+  { "setZeroCopy", "(II)V", (void *) netty_epoll_native_setZeroCopy },
+  { "setUdpSegment", "(II)V", (void *) netty_epoll_native_setUdpSegment },
+  { "setUdpGro", "(II)V", (void *) netty_epoll_native_setUdpGro },
   { "isReuseAddress", "(I)I", (void *) netty_epoll_native_isReuseAddress },
   { "isReusePort", "(I)I", (void *) netty_epoll_native_isReusePort },
   { "getTcpNotSentLowAt", "(I)I", (void *) netty_epoll_native_getTcpNotSentLowAt },
+  { "getSoBusyPoll", "(I)I", (void *) netty_epoll_native_getSoBusyPoll },
   { "getTrafficClass", "(I)I", (void *) netty_epoll_native_getTrafficClass },
   { "isBroadcast", "(I)I", (void *) netty_epoll_native_isBroadcast },
   { "getTcpKeepIdle", "(I)I", (void *) netty_epoll_native_getTcpKeepIdle },
@@ -742,16 +1100,22 @@ static const JNINativeMethod fixed_method_table[] = {
   { "getTcpKeepCnt", "(I)I", (void *) netty_epoll_native_getTcpKeepCnt },
   { "getTcpUserTimeout", "(I)I", (void *) netty_epoll_native_getTcpUserTimeout },
   { "isIpFreeBind", "(I)I", (void *) netty_epoll_Native_isIpFreeBind },
+  { "isZeroCopy", "(I)I", (void *) netty_epoll_native_isZeroCopy },
+  { "getUdpSegment", "(I)I", (void *) netty_epoll_native_getUdpSegment },
+  { "isUdpGro", "(I)I", (void *) netty_epoll_native_isUdpGro },
   { "tcpInfo0", "(I[I)V", (void *) netty_epoll_native_tcpInfo0 },
   { "sizeofEpollEvent", "()I", (void *) netty_epoll_native_sizeofEpollEvent },
   { "offsetofEpollData", "()I", (void *) netty_epoll_native_offsetofEpollData },
   { "splice0", "(IJIJJ)I", (void *) netty_epoll_native_splice0 },
-  { "setTcpMd5Sig0", "(I[BI[B)V", (void *) netty_epoll_native_setTcpMd5Sig0 }
+  { "setTcpMd5Sig0", "(I[BI[B)V", (void *) netty_epoll_native_setTcpMd5Sig0 },
+  { "allocateHugePageBuffer0", "(I)Ljava/nio/ByteBuffer;", (void *) netty_epoll_native_allocateHugePageBuffer0 },
+  { "freeHugePageMemory0", "(JI)V", (void *) netty_epoll_native_freeHugePageMemory0 },
+  { "directBufferAddress0", "(Ljava/nio/ByteBuffer;)J", (void *) netty_epoll_native_directBufferAddress0 }
 };
 static const jint fixed_method_table_size = sizeof(fixed_method_table) / sizeof(fixed_method_table[0]);
 
 static jint dynamicMethodsTableSize() {
-    return fixed_method_table_size + 2;
+    return fixed_method_table_size + 3;
 }
 
 static JNINativeMethod* createDynamicMethodsTable(const char* packagePrefix) {
@@ -764,6 +1128,12 @@ static JNINativeMethod* createDynamicMethodsTable(const char* packagePrefix) {
     dynamicMethod->fnPtr = (void *) netty_epoll_native_sendmmsg0;
     free(dynamicTypeName);
     ++dynamicMethod;
+    dynamicTypeName = netty_unix_util_prepend(packagePrefix, "io/netty/channel/epoll/NativeDatagramPacketArray$NativeDatagramPacket;II)I");
+    dynamicMethod->name = "recvmmsg0";
+    dynamicMethod->signature = netty_unix_util_prepend("(I[L", dynamicTypeName);
+    dynamicMethod->fnPtr = (void *) netty_epoll_native_recvmmsg0;
+    free(dynamicTypeName);
+    ++dynamicMethod;
     dynamicTypeName = netty_unix_util_prepend(packagePrefix, "io/netty/channel/DefaultFileRegion;JJJ)J");
     dynamicMethod->name = "sendfile0";
     dynamicMethod->signature = netty_unix_util_prepend("(IL", dynamicTypeName);
@@ -807,6 +1177,9 @@ static jint netty_epoll_native_JNI_OnLoad(JNIEnv* env, const char* packagePrefix
     if (netty_unix_errors_JNI_OnLoad(env, packagePrefix) == JNI_ERR) {
         return JNI_ERR;
     }
+    if (netty_unix_limits_JNI_OnLoad(env, packagePrefix) == JNI_ERR) {
+        return JNI_ERR;
+    }
     if (netty_unix_filedescriptor_JNI_OnLoad(env, packagePrefix) == JNI_ERR) {
         return JNI_ERR;
     }
@@ -890,11 +1263,28 @@ static jint netty_epoll_native_JNI_OnLoad(JNIEnv* env, const char* packagePrefix
         return JNI_ERR;
     }
 
+    char* senderTypeName = netty_unix_util_prepend(packagePrefix, "io/netty/channel/unix/DatagramSocketAddress;");
+    char* senderSignature = netty_unix_util_prepend("L", senderTypeName);
+    packetSenderFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "sender", senderSignature);
+    free(senderTypeName);
+    free(senderSignature);
+    if (packetSenderFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.sender");
+        return JNI_ERR;
+    }
+
+    packetSegmentSizeFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "segmentSize", "I");
+    if (packetSegmentSizeFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.segmentSize");
+        return JNI_ERR;
+    }
+
     return JNI_VERSION_1_6;
 }
 
 static void netty_epoll_native_JNI_OnUnLoad(JNIEnv* env) {
     netty_unix_errors_JNI_OnUnLoad(env);
+    netty_unix_limits_JNI_OnUnLoad(env);
     netty_unix_filedescriptor_JNI_OnUnLoad(env);
     netty_unix_socket_JNI_OnUnLoad(env);
 }
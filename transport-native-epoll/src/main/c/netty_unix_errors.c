@@ -96,6 +96,10 @@ static jint netty_unix_errors_errnoEWOULDBLOCK(JNIEnv* env, jclass clazz) {
     return EWOULDBLOCK;
 }
 
+static jint netty_unix_errors_errnoENOBUFS(JNIEnv* env, jclass clazz) {
+    return ENOBUFS;
+}
+
 static jint netty_unix_errors_errnoEINPROGRESS(JNIEnv* env, jclass clazz) {
     return EINPROGRESS;
 }
@@ -114,6 +118,7 @@ static const JNINativeMethod statically_referenced_fixed_method_table[] = {
   { "errnoEAGAIN", "()I", (void *) netty_unix_errors_errnoEAGAIN },
   { "errnoEWOULDBLOCK", "()I", (void *) netty_unix_errors_errnoEWOULDBLOCK },
   { "errnoEINPROGRESS", "()I", (void *) netty_unix_errors_errnoEINPROGRESS },
+  { "errnoENOBUFS", "()I", (void *) netty_unix_errors_errnoENOBUFS },
   { "strError", "(I)Ljava/lang/String;", (void *) netty_unix_errors_strError }
 };
 static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
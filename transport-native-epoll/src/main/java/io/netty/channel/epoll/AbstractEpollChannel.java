@@ -314,6 +314,14 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
          */
         abstract void epollInReady();
 
+        /**
+         * Called once EPOLLERR event is ready to be processed, before {@link #epollOutReady()} and
+         * {@link #epollInReady()} are called for it.
+         */
+        void epollErrReady() {
+            // NOOP
+        }
+
         final void epollInReadAttempted() {
             readPending = maybeMoreDataToRead = false;
         }
@@ -31,7 +31,9 @@ import io.netty.channel.EventLoop;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.DuplexChannel;
 import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
 import io.netty.channel.unix.Socket;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.MpscLinkedQueueNode;
 import io.netty.util.internal.OneTimeTask;
@@ -77,6 +79,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     private FileDescriptor pipeIn;
     private FileDescriptor pipeOut;
 
+    // Lazy init these if we need to write with MSG_ZEROCOPY
+    private ZeroCopyCompletionQueue zeroCopyQueue;
+    // The message which is currently written and of which at least a part was written with MSG_ZEROCOPY.
+    private ByteBuf zeroCopyMsg;
+
     /**
      * @deprecated Use {@link #AbstractEpollStreamChannel(Channel, Socket)}.
      */
@@ -249,6 +256,111 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Returns the minimum number of readable bytes of a {@link ByteBuf} to write it with MSG_ZEROCOPY, or {@code -1} if
+     * MSG_ZEROCOPY should not be used.
+     */
+    int zeroCopyWriteThreshold() {
+        return -1;
+    }
+
+    private boolean isZeroCopyWrite(Object msg) {
+        if (msg == zeroCopyMsg) {
+            // Once a part of the message was written with MSG_ZEROCOPY the rest needs to be written the same way so
+            // it is not released before the completion is received.
+            return true;
+        }
+        if (!(msg instanceof ByteBuf)) {
+            return false;
+        }
+        ByteBuf buf = (ByteBuf) msg;
+        int threshold = zeroCopyWriteThreshold();
+        return threshold >= 0 && buf.readableBytes() >= threshold && buf.hasMemoryAddress();
+    }
+
+    /**
+     * Write bytes form the given {@link ByteBuf} with MSG_ZEROCOPY. Once written completely the {@link ByteBuf} is
+     * removed from the {@link ChannelOutboundBuffer}, but its release and the notification of its
+     * {@link ChannelPromise} are deferred until the kernel signalled that it does not use its memory anymore.
+     */
+    private boolean writeBytesZeroCopy(ChannelOutboundBuffer in, ByteBuf buf, int writeSpinCount) throws Exception {
+        if (zeroCopyQueue == null) {
+            zeroCopyQueue = new ZeroCopyCompletionQueue();
+        }
+        long memoryAddress = buf.memoryAddress();
+        int readerIndex = buf.readerIndex();
+        int writerIndex = buf.writerIndex();
+        boolean done = readerIndex == writerIndex;
+        for (int i = writeSpinCount - 1; i >= 0 && !done; i--) {
+            int localWrittenBytes = Native.sendAddressZeroCopy(
+                    fd().intValue(), memoryAddress, readerIndex, writerIndex);
+            if (localWrittenBytes > 0) {
+                zeroCopyQueue.sent();
+                zeroCopyMsg = buf;
+            } else if (localWrittenBytes < 0) {
+                // The kernel could not pin any more memory, so copy this time.
+                localWrittenBytes = fd().writeAddress(memoryAddress, readerIndex, writerIndex);
+            }
+            if (localWrittenBytes == 0) {
+                break;
+            }
+            readerIndex += localWrittenBytes;
+            in.progress(localWrittenBytes);
+            done = readerIndex == writerIndex;
+        }
+        buf.readerIndex(readerIndex);
+        if (!done) {
+            return false;
+        }
+        if (zeroCopyMsg == buf) {
+            zeroCopyMsg = null;
+            zeroCopyQueue.add(buf, in.removeWithoutNotify());
+        } else {
+            removeWritten(in);
+        }
+        return true;
+    }
+
+    private boolean isZeroCopyPending() {
+        return zeroCopyQueue != null && !zeroCopyQueue.isEmpty();
+    }
+
+    /**
+     * Remove the current message which was written completely without MSG_ZEROCOPY. If writes done with MSG_ZEROCOPY
+     * are still waiting for their completion, the notification of its {@link ChannelPromise} is deferred until these
+     * completed so all {@link ChannelPromise}s are notified in the order the messages were written.
+     */
+    private void removeWritten(ChannelOutboundBuffer in) {
+        if (isZeroCopyPending()) {
+            Object msg = in.current();
+            zeroCopyQueue.addPromise(in.removeWithoutNotify());
+            ReferenceCountUtil.safeRelease(msg);
+        } else {
+            in.remove();
+        }
+    }
+
+    /**
+     * Same as {@link ChannelOutboundBuffer#removeBytes(long)} for the write of a single message, which defers the
+     * notification of its {@link ChannelPromise} via {@link #removeWritten(ChannelOutboundBuffer)} once it was written
+     * completely.
+     */
+    private void removeWrittenBytes(ChannelOutboundBuffer in, long writtenBytes, boolean done) {
+        if (done && isZeroCopyPending()) {
+            in.progress(writtenBytes);
+            removeWritten(in);
+        } else {
+            in.removeBytes(writtenBytes);
+        }
+    }
+
+    /**
+     * Read the MSG_ZEROCOPY completions and release all messages which are not used by the kernel anymore.
+     */
+    private void processZeroCopyCompletions() throws IOException {
+        zeroCopyQueue.processCompletions(fd().intValue());
+    }
+
     /**
      * Write bytes form the given {@link ByteBuf} to the underlying {@link java.nio.channels.Channel}.
      * @param buf           the {@link ByteBuf} from which the bytes should be written
@@ -256,13 +368,13 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     private boolean writeBytes(ChannelOutboundBuffer in, ByteBuf buf, int writeSpinCount) throws Exception {
         int readableBytes = buf.readableBytes();
         if (readableBytes == 0) {
-            in.remove();
+            removeWritten(in);
             return true;
         }
 
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             int writtenBytes = doWriteBytes(buf, writeSpinCount);
-            in.removeBytes(writtenBytes);
+            removeWrittenBytes(in, writtenBytes, writtenBytes == readableBytes);
             return writtenBytes == readableBytes;
         } else {
             ByteBuffer[] nioBuffers = buf.nioBuffers();
@@ -351,7 +463,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             } while (offset < end && localWrittenBytes > 0);
         }
 
-        in.removeBytes(initialExpectedWrittenBytes - expectedWrittenBytes);
+        removeWrittenBytes(in, initialExpectedWrittenBytes - expectedWrittenBytes, done);
         return done;
     }
 
@@ -365,7 +477,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             ChannelOutboundBuffer in, DefaultFileRegion region, int writeSpinCount) throws Exception {
         final long regionCount = region.count();
         if (region.transfered() >= regionCount) {
-            in.remove();
+            removeWritten(in);
             return true;
         }
 
@@ -393,7 +505,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
 
         if (done) {
-            in.remove();
+            removeWritten(in);
         }
         return done;
     }
@@ -411,8 +523,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 return;
             }
 
-            // Do gathering write if the outbounf buffer entries start with more than one ByteBuf.
-            if (msgCount > 1 && in.current() instanceof ByteBuf) {
+            // Do gathering write if the outbounf buffer entries start with more than one ByteBuf, unless the first
+            // one is written with MSG_ZEROCOPY or writes done with MSG_ZEROCOPY are waiting for their completion, in
+            // which case the ChannelPromises need to be queued behind them.
+            Object current = in.current();
+            if (msgCount > 1 && current instanceof ByteBuf && !isZeroCopyWrite(current) && !isZeroCopyPending()) {
                 if (!doWriteMultiple(in, writeSpinCount)) {
                     // Break the loop and so set EPOLLOUT flag.
                     break;
@@ -436,7 +551,13 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     protected boolean doWriteSingle(ChannelOutboundBuffer in, int writeSpinCount) throws Exception {
         // The outbound buffer contains only one message or it contains a file region.
         Object msg = in.current();
-        if (msg instanceof ByteBuf) {
+        if (isZeroCopyWrite(msg)) {
+            if (!writeBytesZeroCopy(in, (ByteBuf) msg, writeSpinCount)) {
+                // was not able to write everything so break here we will get notified later again once
+                // the network stack can handle more writes.
+                return false;
+            }
+        } else if (msg instanceof ByteBuf) {
             ByteBuf buf = (ByteBuf) msg;
             if (!writeBytes(in, buf, writeSpinCount)) {
                 // was not able to write everything so break here we will get notified later again once
@@ -454,7 +575,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             if (!((SpliceOutTask) msg).spliceOut()) {
                 return false;
             }
-            in.remove();
+            removeWritten(in);
         } else {
             // Should never reach here.
             throw new Error();
@@ -595,6 +716,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 future.cancel(false);
                 connectTimeoutFuture = null;
             }
+            // The kernel may still use the memory of writes done with MSG_ZEROCOPY after the socket was closed, so
+            // keep a duplicate of it open until all of their completions were received.
+            lingerZeroCopy();
+
             // Calling super.doClose() first so splceTo(...) will fail on next call.
             super.doClose();
         } finally {
@@ -604,6 +729,44 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    private void lingerZeroCopy() {
+        ZeroCopyCompletionQueue queue = zeroCopyQueue;
+        if (queue == null) {
+            return;
+        }
+        zeroCopyQueue = null;
+        if (zeroCopyMsg != null) {
+            // The message was not written completely, so the ChannelOutboundBuffer will release it once the channel
+            // was closed while the kernel may still use the part which was written.
+            queue.attach(zeroCopyMsg);
+            zeroCopyMsg = null;
+        }
+        try {
+            queue.processCompletions(fd().intValue());
+        } catch (IOException e) {
+            logger.debug("Failed to read the MSG_ZEROCOPY completions of a channel which is closed.", e);
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        try {
+            // Send the FIN once the pending data was written, just like close(...) would do.
+            fd().shutdown(false, true);
+        } catch (IOException ignore) {
+            // The connection may have been reset already.
+        }
+        int fd;
+        try {
+            fd = Native.dup(fd().intValue());
+        } catch (IOException e) {
+            logger.warn("Failed to keep a socket open until its MSG_ZEROCOPY completions were received, " +
+                        "leaking the memory of its pending writes.", e);
+            queue.abandon(CLOSED_CHANNEL_EXCEPTION);
+            return;
+        }
+        ((EpollEventLoop) eventLoop()).lingerZeroCopy(fd, queue);
+    }
+
     private void clearSpliceQueue() {
         if (spliceQueue == null) {
             return;
@@ -665,7 +828,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             if (byteBuf != null) {
                 if (byteBuf.isReadable()) {
                     readPending = false;
-                    pipeline.fireChannelRead(byteBuf);
+                    allocHandle.fireChannelRead(pipeline, byteBuf);
                 } else {
                     byteBuf.release();
                 }
@@ -794,6 +957,19 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             }
         }
 
+        @Override
+        void epollErrReady() {
+            if (zeroCopyQueue == null || zeroCopyQueue.isEmpty()) {
+                return;
+            }
+            try {
+                processZeroCopyCompletions();
+            } catch (IOException e) {
+                pipeline().fireExceptionCaught(e);
+                close(voidPromise());
+            }
+        }
+
         @Override
         void epollOutReady() {
             if (connectPromise != null) {
@@ -863,7 +1039,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
                     // we use a direct buffer here as the native implementations only be able
                     // to handle direct buffers.
-                    byteBuf = allocHandle.allocate(allocator);
+                    byteBuf = allocHandle.allocateStream(allocator);
                     allocHandle.lastBytesRead(doReadBytes(byteBuf));
                     epollInReadAttempted();
                     if (allocHandle.lastBytesRead() <= 0) {
@@ -874,8 +1050,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                         break;
                     }
                     allocHandle.incMessagesRead(1);
-                    pipeline.fireChannelRead(byteBuf);
+                    // Reset first as the buffer is released by the handle.
+                    ByteBuf buf = byteBuf;
                     byteBuf = null;
+                    allocHandle.fireChannelRead(pipeline, buf);
 
                     if (fd().isInputShutdown()) {
                         // We need to do this for two reasons:
@@ -36,6 +36,14 @@ public final class EpollChannelOption<T> extends ChannelOption<T> {
     public static final ChannelOption<Integer> TCP_FASTOPEN = valueOf(T, "TCP_FASTOPEN");
     public static final ChannelOption<Integer> TCP_DEFER_ACCEPT = ChannelOption.valueOf(T, "TCP_DEFER_ACCEPT");
     public static final ChannelOption<Boolean> TCP_QUICKACK = ChannelOption.valueOf(T, "TCP_QUICKACK");
+    public static final ChannelOption<Integer> SO_BUSY_POLL = ChannelOption.valueOf(T, "SO_BUSY_POLL");
+    public static final ChannelOption<Boolean> SO_ZEROCOPY = ChannelOption.valueOf(T, "SO_ZEROCOPY");
+    public static final ChannelOption<Integer> ZEROCOPY_WRITE_THRESHOLD =
+            ChannelOption.valueOf(T, "ZEROCOPY_WRITE_THRESHOLD");
+    public static final ChannelOption<Integer> MAX_DATAGRAM_PAYLOAD_SIZE =
+            ChannelOption.valueOf(T, "MAX_DATAGRAM_PAYLOAD_SIZE");
+    public static final ChannelOption<Integer> UDP_SEGMENT = ChannelOption.valueOf(T, "UDP_SEGMENT");
+    public static final ChannelOption<Boolean> UDP_GRO = ChannelOption.valueOf(T, "UDP_GRO");
 
     public static final ChannelOption<DomainSocketReadMode> DOMAIN_SOCKET_READ_MODE =
             ChannelOption.valueOf(T, "DOMAIN_SOCKET_READ_MODE");
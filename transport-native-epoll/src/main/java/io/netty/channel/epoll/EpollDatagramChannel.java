@@ -20,17 +20,21 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.AddressedEnvelope;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelMetadata;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.channel.MaxMessagesRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramChannelConfig;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.unix.DatagramSocketAddress;
 import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
 import io.netty.channel.unix.Socket;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
@@ -299,8 +303,9 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
             }
 
             try {
-                // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+
-                if (Native.IS_SUPPORTING_SENDMMSG && in.size() > 1) {
+                // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+. It is also used for a
+                // single SegmentedDatagramPacket as the segment size is passed as control message.
+                if (Native.IS_SUPPORTING_SENDMMSG && (in.size() > 1 || msg instanceof SegmentedDatagramPacket)) {
                     NativeDatagramPacketArray array = NativeDatagramPacketArray.getInstance(in);
                     int cnt = array.count();
 
@@ -399,6 +404,22 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
     @Override
     protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof SegmentedDatagramPacket) {
+            if (!SegmentedDatagramPacket.isSupported()) {
+                throw new UnsupportedOperationException(
+                        "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+            }
+            SegmentedDatagramPacket packet = (SegmentedDatagramPacket) msg;
+            ByteBuf content = packet.content();
+            if (content.hasMemoryAddress()) {
+                return msg;
+            }
+            // We can only handle direct buffers so we need to copy if a non direct is
+            // passed to write.
+            return new SegmentedDatagramPacket(newDirectBuffer(packet, content), packet.segmentSize(),
+                                               packet.recipient());
+        }
+
         if (msg instanceof DatagramPacket) {
             DatagramPacket packet = (DatagramPacket) msg;
             ByteBuf content = packet.content();
@@ -540,6 +561,10 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
             final ByteBufAllocator allocator = config.getAllocator();
             allocHandle.reset(config);
 
+            final int datagramSize = EpollDatagramChannel.this.config.getMaxDatagramPayloadSize();
+            final boolean gro = EpollDatagramChannel.this.config.isUdpGro();
+            final int maxMessagesPerRead = maxMessagesPerRead(config);
+
             Throwable exception = null;
             try {
                 ByteBuf data = null;
@@ -547,6 +572,25 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                     do {
                         data = allocHandle.allocate(allocator);
                         allocHandle.attemptedBytesRead(data.writableBytes());
+                        int writable = data.writableBytes();
+                        int slotSize = datagramSize == 0 ? writable : Math.min(datagramSize, writable);
+                        // Don't read more than maxMessagesPerRead in total, counting the datagrams of former
+                        // batches of this read loop, but always try to read at least one.
+                        int remainingMessages = Math.max(1, maxMessagesPerRead - readBuf.size());
+                        // A buffer without writable bytes has no room for a slot, so read a single datagram instead.
+                        int maxDatagrams = slotSize == 0 ? 1 : Math.min(writable / slotSize, remainingMessages);
+                        // recvmmsg(...) is also needed for UDP_GRO as the segment size is passed as control message.
+                        if ((maxDatagrams > 1 || gro) && slotSize > 0 &&
+                            Native.IS_SUPPORTING_RECVMMSG && data.hasMemoryAddress()) {
+                            // Read multiple datagrams with one syscall into slices of the buffer.
+                            ByteBuf buffer = data;
+                            data = null;
+                            if (recvmmsg(allocHandle, buffer, slotSize, maxDatagrams) == 0) {
+                                break;
+                            }
+                            continue;
+                        }
+
                         final DatagramSocketAddress remoteAddress;
                         if (data.hasMemoryAddress()) {
                             // has a memory address so use optimized call
@@ -596,5 +640,62 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 epollInFinally(config);
             }
         }
+
+        /**
+         * Receive up to {@code maxDatagrams} datagrams via {@code recvmmsg(...)} into {@code data} and add a
+         * {@link DatagramPacket} for each of them, sharing the buffer, to the read buffer. Datagrams which were
+         * coalesced by the kernel because of UDP_GRO are split again. This will take care of releasing {@code data}.
+         */
+        private int recvmmsg(EpollRecvByteAllocatorHandle allocHandle, ByteBuf data, int datagramSize,
+                             int maxDatagrams) throws IOException {
+            try {
+                NativeDatagramPacketArray array = NativeDatagramPacketArray.getInstance(data, datagramSize,
+                                                                                        maxDatagrams);
+                NativeDatagramPacketArray.NativeDatagramPacket[] packets = array.packets();
+                int received = Native.recvmmsg(fd().intValue(), packets, 0, array.count());
+                epollInReadAttempted();
+                if (received == 0) {
+                    allocHandle.lastBytesRead(-1);
+                    return 0;
+                }
+
+                InetSocketAddress localAddress = (InetSocketAddress) localAddress();
+                int offset = data.writerIndex();
+                int bytesRead = 0;
+                int messages = 0;
+                for (int i = 0; i < received; i++) {
+                    DatagramSocketAddress sender = packets[i].sender();
+                    int length = sender.receivedAmount();
+                    int segmentSize = packets[i].segmentSize();
+                    if (segmentSize <= 0 || segmentSize >= length) {
+                        // Not coalesced, which includes empty datagrams that must be passed on as well.
+                        readBuf.add(new DatagramPacket(data.slice(offset, length).retain(), localAddress, sender));
+                        messages++;
+                    } else {
+                        for (int index = offset, end = offset + length; index < end; index += segmentSize) {
+                            int segmentLength = Math.min(segmentSize, end - index);
+                            readBuf.add(new DatagramPacket(
+                                    data.slice(index, segmentLength).retain(), localAddress, sender));
+                            messages++;
+                        }
+                    }
+                    offset += datagramSize;
+                    bytesRead += length;
+                }
+                allocHandle.incMessagesRead(messages);
+                allocHandle.lastBytesRead(bytesRead);
+                return received;
+            } finally {
+                data.release();
+            }
+        }
+    }
+
+    private static int maxMessagesPerRead(ChannelConfig config) {
+        RecvByteBufAllocator allocator = config.getRecvByteBufAllocator();
+        if (allocator instanceof MaxMessagesRecvByteBufAllocator) {
+            return ((MaxMessagesRecvByteBufAllocator) allocator).maxMessagesPerRead();
+        }
+        return Integer.MAX_VALUE;
     }
 }
@@ -22,6 +22,7 @@ import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.DatagramChannelConfig;
+import io.netty.util.internal.ObjectUtil;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -32,6 +33,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
     private final EpollDatagramChannel datagramChannel;
     private boolean activeOnOpen;
+    private volatile int maxDatagramSize;
+    private volatile boolean udpGro;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -48,7 +51,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
                 ChannelOption.SO_REUSEADDR, ChannelOption.IP_MULTICAST_LOOP_DISABLED,
                 ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF, ChannelOption.IP_MULTICAST_TTL,
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
-                EpollChannelOption.SO_REUSEPORT);
+                EpollChannelOption.SO_REUSEPORT, EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE,
+                EpollChannelOption.UDP_SEGMENT, EpollChannelOption.UDP_GRO);
     }
 
     @SuppressWarnings({ "unchecked", "deprecation" })
@@ -87,6 +91,15 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         if (option == EpollChannelOption.SO_REUSEPORT) {
             return (T) Boolean.valueOf(isReusePort());
         }
+        if (option == EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE) {
+            return (T) Integer.valueOf(getMaxDatagramPayloadSize());
+        }
+        if (option == EpollChannelOption.UDP_SEGMENT) {
+            return (T) Integer.valueOf(getUdpSegment());
+        }
+        if (option == EpollChannelOption.UDP_GRO) {
+            return (T) Boolean.valueOf(isUdpGro());
+        }
         return super.getOption(option);
     }
 
@@ -117,6 +130,12 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             setActiveOnOpen((Boolean) value);
         } else if (option == EpollChannelOption.SO_REUSEPORT) {
             setReusePort((Boolean) value);
+        } else if (option == EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE) {
+            setMaxDatagramPayloadSize((Integer) value);
+        } else if (option == EpollChannelOption.UDP_SEGMENT) {
+            setUdpSegment((Integer) value);
+        } else if (option == EpollChannelOption.UDP_GRO) {
+            setUdpGro((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -359,4 +378,82 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             throw new ChannelException(e);
         }
     }
+
+    /**
+     * Set the maximum size of a datagram payload. If this is {@code > 0} and the buffer allocated by the
+     * {@link RecvByteBufAllocator} can hold more than one datagram of this size, multiple datagrams are read with one
+     * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> syscall into slices of the
+     * same buffer. Bigger datagrams are truncated, so this must be at least as big as the biggest expected datagram.
+     * The default of {@code 0} reads one datagram per syscall.
+     */
+    public EpollDatagramChannelConfig setMaxDatagramPayloadSize(int maxDatagramSize) {
+        this.maxDatagramSize = ObjectUtil.checkPositiveOrZero(maxDatagramSize, "maxDatagramSize");
+        return this;
+    }
+
+    /**
+     * Returns the maximum size of a datagram payload which is used to read multiple datagrams with one syscall.
+     */
+    public int getMaxDatagramPayloadSize() {
+        return maxDatagramSize;
+    }
+
+    /**
+     * Returns the segment size which is used by the kernel to split all datagrams written to this channel
+     * (UDP_SEGMENT), or {@code 0} if this is disabled.
+     */
+    public int getUdpSegment() {
+        if (!Native.IS_SUPPORTING_UDP_SEGMENT) {
+            return 0;
+        }
+        try {
+            return Native.getUdpSegment(datagramChannel.fd().intValue());
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Set the UDP_SEGMENT option on the underlying Channel. If {@code > 0} the kernel will split every written
+     * datagram into datagrams of {@code segmentSize} bytes (generic segmentation offload), so a single write of a big
+     * buffer results in multiple datagrams on the wire. Use {@link SegmentedDatagramPacket} to set the segment size
+     * per write instead. A value of {@code 0} disables segmentation.
+     *
+     * This is only supported on linux 4.18+, see {@link Native#IS_SUPPORTING_UDP_SEGMENT}.
+     */
+    public EpollDatagramChannelConfig setUdpSegment(int segmentSize) {
+        ObjectUtil.checkPositiveOrZero(segmentSize, "segmentSize");
+        try {
+            Native.setUdpSegment(datagramChannel.fd().intValue(), segmentSize);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the UDP_GRO option is set.
+     */
+    public boolean isUdpGro() {
+        return udpGro;
+    }
+
+    /**
+     * Set the UDP_GRO option on the underlying Channel. If {@code true} the kernel may coalesce received datagrams of
+     * the same size from the same sender (generic receive offload), which are then read with one syscall and split
+     * again before they are passed through the {@link io.netty.channel.ChannelPipeline}. The buffers allocated by the
+     * {@link RecvByteBufAllocator} (or {@link #setMaxDatagramPayloadSize(int)} if set) should be big enough to hold a
+     * coalesced datagram, which can be up to 64kb, as otherwise it is truncated.
+     *
+     * This is only supported on linux 5.0+, see {@link Native#IS_SUPPORTING_UDP_GRO}.
+     */
+    public EpollDatagramChannelConfig setUdpGro(boolean gro) {
+        try {
+            Native.setUdpGro(datagramChannel.fd().intValue(), gro ? 1 : 0);
+            udpGro = gro;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
 }
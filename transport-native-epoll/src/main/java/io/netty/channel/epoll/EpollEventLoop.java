@@ -17,9 +17,12 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
 import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.IntSupplier;
 import io.netty.util.collection.IntObjectHashMap;
 import io.netty.util.collection.IntObjectMap;
 import io.netty.util.internal.PlatformDependent;
@@ -41,6 +44,10 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     private static final AtomicIntegerFieldUpdater<EpollEventLoop> WAKEN_UP_UPDATER;
 
     static {
+        // Ensure JNI is initialized by the time this class is loaded. We use classes of io.netty.channel.unix which
+        // are backed by JNI methods, like IovArray.
+        Epoll.ensureAvailability();
+
         AtomicIntegerFieldUpdater<EpollEventLoop> updater =
                 PlatformDependent.newAtomicIntegerFieldUpdater(EpollEventLoop.class, "wakenUp");
         if (updater == null) {
@@ -49,18 +56,41 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         WAKEN_UP_UPDATER = updater;
     }
 
+    private static final int SCHEDULE_PURGE_INTERVAL_MILLIS = 1000;
+
     private final FileDescriptor epollFd;
     private final FileDescriptor eventFd;
+    private final FileDescriptor timerFd;
+    // The deadline the timerFd was armed for last, or -1 if it was not armed yet.
+    private long armedDeadlineNanos = -1;
     private final IntObjectMap<AbstractEpollChannel> channels = new IntObjectHashMap<AbstractEpollChannel>(4096);
+    // Duplicates of the sockets of closed channels which are kept open until all their MSG_ZEROCOPY completions were
+    // received, as the kernel may use the memory of the written buffers until then.
+    private final IntObjectMap<ZeroCopyCompletionQueue> lingeringZeroCopy =
+            new IntObjectHashMap<ZeroCopyCompletionQueue>();
     private final boolean allowGrowing;
     private final EpollEventArray events;
     private final IovArray iovArray = new IovArray();
 
+    private final SelectStrategy selectStrategy;
+    private final IntSupplier selectNowSupplier = new IntSupplier() {
+        @Override
+        public int get() throws Exception {
+            int ready = Native.epollWait(epollFd.intValue(), events, 0);
+            // Let a spinning SelectStrategy know that there is work to do even if no channel is ready.
+            return ready == 0 && (hasTasks() || hasScheduledTasks()) ? SelectStrategy.CONTINUE : ready;
+        }
+    };
+
     private volatile int wakenUp;
     private volatile int ioRatio = 50;
 
-    EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents) {
+    EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents, SelectStrategy strategy) {
         super(parent, executor, false);
+        if (strategy == null) {
+            throw new NullPointerException("selectStrategy");
+        }
+        selectStrategy = strategy;
         if (maxEvents == 0) {
             allowGrowing = true;
             events = new EpollEventArray(4096);
@@ -71,6 +101,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         boolean success = false;
         FileDescriptor epollFd = null;
         FileDescriptor eventFd = null;
+        FileDescriptor timerFd = null;
         try {
             this.epollFd = epollFd = Native.newEpollCreate();
             this.eventFd = eventFd = Native.newEventFd();
@@ -79,6 +110,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             } catch (IOException e) {
                 throw new IllegalStateException("Unable to add eventFd filedescriptor to epoll", e);
             }
+            this.timerFd = timerFd = Native.newTimerFd();
+            try {
+                // Edge-triggered so the timerfd never needs to be read, it is re-armed whenever the deadline changes.
+                Native.epollCtlAdd(epollFd.intValue(), timerFd.intValue(), Native.EPOLLIN | Native.EPOLLET);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to add timerFd filedescriptor to epoll", e);
+            }
             success = true;
         } finally {
             if (!success) {
@@ -96,6 +134,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                         // ignore
                     }
                 }
+                if (timerFd != null) {
+                    try {
+                        timerFd.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
             }
         }
     }
@@ -150,12 +195,62 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    /**
+     * Keep the given file descriptor, which is a duplicate of the socket of a closed
+     * {@link AbstractEpollStreamChannel}, open until all the completions of the writes done with MSG_ZEROCOPY were
+     * received and so all the messages of the given {@link ZeroCopyCompletionQueue} were released.
+     */
+    void lingerZeroCopy(int fd, ZeroCopyCompletionQueue queue) {
+        assert inEventLoop();
+        try {
+            // EPOLLERR is always reported, which is signalled for the completions.
+            Native.epollCtlAdd(epollFd.intValue(), fd, Native.EPOLLET);
+        } catch (IOException e) {
+            logger.warn("Failed to wait for the MSG_ZEROCOPY completions of a closed socket, " +
+                        "leaking the memory of its pending writes.", e);
+            queue.abandon(AbstractEpollStreamChannel.CLOSED_CHANNEL_EXCEPTION);
+            closeLingeringZeroCopy(fd);
+            return;
+        }
+        lingeringZeroCopy.put(fd, queue);
+    }
+
+    private void processLingeringZeroCopy(int fd, ZeroCopyCompletionQueue queue) {
+        try {
+            queue.processCompletions(fd);
+        } catch (IOException e) {
+            logger.debug("Failed to read the MSG_ZEROCOPY completions of a closed socket.", e);
+        }
+        if (queue.isEmpty()) {
+            lingeringZeroCopy.remove(fd);
+            try {
+                Native.epollCtlDel(epollFd.intValue(), fd);
+            } catch (IOException ignore) {
+                // Removed anyway once the file descriptor is closed.
+            }
+            closeLingeringZeroCopy(fd);
+        }
+    }
+
+    private static void closeLingeringZeroCopy(int fd) {
+        try {
+            new FileDescriptor(fd).close();
+        } catch (IOException e) {
+            logger.warn("Failed to close a socket.", e);
+        }
+    }
+
     @Override
     protected Queue<Runnable> newTaskQueue() {
         // This event loop never calls takeTask()
         return PlatformDependent.newMpscQueue();
     }
 
+    @Override
+    public int registeredChannels() {
+        return channels.size();
+    }
+
     /**
      * Returns the percentage of the desired amount of time spent for I/O in the event loop.
      */
@@ -174,48 +269,49 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
-    private int epollWait(boolean oldWakenUp) throws IOException {
-        int selectCnt = 0;
-        long currentTimeNanos = System.nanoTime();
-        long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
-        for (;;) {
-            long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
-            if (timeoutMillis <= 0) {
-                if (selectCnt == 0) {
-                    int ready = Native.epollWait(epollFd.intValue(), events, 0);
-                    if (ready > 0) {
-                        return ready;
-                    }
-                }
-                break;
-            }
-
-            int selectedKeys = Native.epollWait(epollFd.intValue(), events, (int) timeoutMillis);
-            selectCnt ++;
-
-            if (selectedKeys != 0 || oldWakenUp || wakenUp == 1 || hasTasks() || hasScheduledTasks()) {
-                // - Selected something,
-                // - waken up by user, or
-                // - the task queue has a pending task.
-                // - a scheduled task is ready for processing
-                return selectedKeys;
-            }
-            currentTimeNanos = System.nanoTime();
+    private int epollWait() throws IOException {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos == -1) {
+            // No scheduled task, so there is no deadline to arm the timerfd for.
+            return Native.epollWait(epollFd.intValue(), events, SCHEDULE_PURGE_INTERVAL_MILLIS);
+        }
+        long timeoutNanos = deadlineNanos - nanoTime();
+        if (timeoutNanos <= 0) {
+            // A scheduled task is ready for processing already, so just return what is ready without blocking.
+            return Native.epollWait(epollFd.intValue(), events, 0);
+        }
+        if (deadlineNanos == armedDeadlineNanos) {
+            // The timerfd is still armed for this deadline, so it does not need another timerfd_settime(...). The
+            // timeout, rounded up to milliseconds, only guards against a missed expiration.
+            return Native.epollWait(epollFd.intValue(), events,
+                    (int) Math.min(timeoutNanos / 1000000L + 1, Integer.MAX_VALUE));
+        }
+        // Let the timerfd expire at the deadline of the next scheduled task and block until either it expired or some
+        // other event was received. Rounding the deadline to milliseconds for epoll_wait(...) would let short timers
+        // fire up to a millisecond late.
+        armedDeadlineNanos = deadlineNanos;
+        try {
+            return Native.epollWait(epollFd.intValue(), events, timerFd.intValue(),
+                    (int) Math.min(timeoutNanos / 1000000000L, Integer.MAX_VALUE),
+                    (int) (timeoutNanos % 1000000000L));
+        } catch (IOException e) {
+            // The timerfd may not be armed.
+            armedDeadlineNanos = -1;
+            throw e;
         }
-        return 0;
     }
 
     @Override
     protected void run() {
         for (;;) {
-            boolean oldWakenUp = WAKEN_UP_UPDATER.getAndSet(this, 0) == 1;
+            WAKEN_UP_UPDATER.set(this, 0);
             try {
-                int ready;
-                if (hasTasks()) {
-                    // Non blocking just return what is ready directly without block
-                    ready = Native.epollWait(epollFd.intValue(), events, 0);
-                } else {
-                    ready = epollWait(oldWakenUp);
+                int ready = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
+                if (ready == SelectStrategy.CONTINUE) {
+                    // Nothing is ready but there are tasks to run.
+                    ready = 0;
+                } else if (ready == SelectStrategy.SELECT) {
+                    ready = epollWait();
 
                     // 'wakenUp.compareAndSet(false, true)' is always evaluated
                     // before calling 'selector.wakeup()' to reduce the wake-up
@@ -313,6 +409,9 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             if (fd == eventFd.intValue()) {
                 // consume wakeup event
                 Native.eventFdRead(eventFd.intValue());
+            } else if (fd == timerFd.intValue()) {
+                // Just ignore as the timerfd is registered edge-triggered, the expired scheduled tasks are picked up
+                // by runAllTasks(...).
             } else {
                 final long ev = events.events(i);
 
@@ -324,6 +423,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                     // past.
                     AbstractEpollUnsafe unsafe = (AbstractEpollUnsafe) ch.unsafe();
 
+                    // EPOLLERR is also signalled for completions in the error queue of the socket, like the ones of
+                    // writes done with MSG_ZEROCOPY. Process them first so their buffers are released before anything
+                    // else is written.
+                    if ((ev & Native.EPOLLERR) != 0) {
+                        unsafe.epollErrReady();
+                    }
+
                     // First check for EPOLLOUT as we may need to fail the connect ChannelPromise before try
                     // to read from the file descriptor.
                     // See https://github.com/netty/netty/issues/3785
@@ -354,6 +460,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                         unsafe.epollRdHupReady();
                     }
                 } else {
+                    ZeroCopyCompletionQueue queue = lingeringZeroCopy.get(fd);
+                    if (queue != null) {
+                        processLingeringZeroCopy(fd, queue);
+                        continue;
+                    }
                     // We received an event for an fd which we not use anymore. Remove it from the epoll_event set.
                     try {
                         Native.epollCtlDel(epollFd.intValue(), fd);
@@ -371,6 +482,15 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     @Override
     protected void cleanup() {
         try {
+            if (!lingeringZeroCopy.isEmpty()) {
+                logger.warn("Closing {} socket(s) before all their MSG_ZEROCOPY completions were received, " +
+                            "leaking the memory of their pending writes.", lingeringZeroCopy.size());
+                for (IntObjectMap.PrimitiveEntry<ZeroCopyCompletionQueue> entry: lingeringZeroCopy.entries()) {
+                    entry.value().abandon(AbstractEpollStreamChannel.CLOSED_CHANNEL_EXCEPTION);
+                    closeLingeringZeroCopy(entry.key());
+                }
+                lingeringZeroCopy.clear();
+            }
             try {
                 epollFd.close();
             } catch (IOException e) {
@@ -381,6 +501,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             } catch (IOException e) {
                 logger.warn("Failed to close the event fd.", e);
             }
+            try {
+                timerFd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the timer fd.", e);
+            }
         } finally {
             // release native memory
             iovArray.release();
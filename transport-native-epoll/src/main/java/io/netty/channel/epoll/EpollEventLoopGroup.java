@@ -15,10 +15,13 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.SelectStrategyFactory;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorChooserFactory;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
@@ -40,15 +43,32 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
      * Create a new instance using the specified number of threads and the default {@link ThreadFactory}.
      */
     public EpollEventLoopGroup(int nThreads) {
-        this(nThreads, null);
+        this(nThreads, (ThreadFactory) null);
+    }
+
+    /**
+     * Create a new instance using the specified number of threads, the default {@link ThreadFactory} and the given
+     * {@link SelectStrategyFactory}.
+     */
+    public EpollEventLoopGroup(int nThreads, SelectStrategyFactory selectStrategyFactory) {
+        this(nThreads, null, selectStrategyFactory);
     }
 
     /**
      * Create a new instance using the specified number of threads and the given {@link ThreadFactory}.
      */
-    @SuppressWarnings("deprecation")
     public EpollEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
-        this(nThreads, threadFactory, 0);
+        this(nThreads, threadFactory, DefaultSelectStrategyFactory.INSTANCE);
+    }
+
+    /**
+     * Create a new instance using the specified number of threads, the given {@link ThreadFactory} and the given
+     * {@link SelectStrategyFactory} which controls if the event loops block or spin when there is nothing to process.
+     */
+    @SuppressWarnings("deprecation")
+    public EpollEventLoopGroup(int nThreads, ThreadFactory threadFactory,
+                               SelectStrategyFactory selectStrategyFactory) {
+        this(nThreads, threadFactory, 0, selectStrategyFactory);
     }
 
     /**
@@ -60,7 +80,30 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
      */
     @Deprecated
     public EpollEventLoopGroup(int nThreads, ThreadFactory threadFactory, int maxEventsAtOnce) {
-        super(nThreads, threadFactory, maxEventsAtOnce);
+        this(nThreads, threadFactory, maxEventsAtOnce, DefaultSelectStrategyFactory.INSTANCE);
+    }
+
+    /**
+     * Create a new instance using the specified number of threads, the given {@link ThreadFactory}, the given
+     * maximal amount of epoll events to handle per epollWait(...) and the given {@link SelectStrategyFactory}.
+     *
+     * @deprecated  Use {@link #EpollEventLoopGroup(int, SelectStrategyFactory)} or
+     *              {@link #EpollEventLoopGroup(int, ThreadFactory, SelectStrategyFactory)}
+     */
+    @Deprecated
+    public EpollEventLoopGroup(int nThreads, ThreadFactory threadFactory, int maxEventsAtOnce,
+                               SelectStrategyFactory selectStrategyFactory) {
+        super(nThreads, threadFactory, maxEventsAtOnce, selectStrategyFactory);
+    }
+
+    /**
+     * Create a new instance using the specified number of threads, the given {@link Executor}, the given
+     * {@link EventExecutorChooserFactory} which chooses the {@link EventLoop} new {@link io.netty.channel.Channel}s
+     * are registered to and the given {@link SelectStrategyFactory}.
+     */
+    public EpollEventLoopGroup(int nThreads, Executor executor, EventExecutorChooserFactory chooserFactory,
+                               SelectStrategyFactory selectStrategyFactory) {
+        super(nThreads, executor, chooserFactory, 0, selectStrategyFactory);
     }
 
     /**
@@ -75,6 +118,7 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
 
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
-        return new EpollEventLoop(this, executor, (Integer) args[0]);
+        return new EpollEventLoop(this, executor, (Integer) args[0],
+                ((SelectStrategyFactory) args[1]).newSelectStrategy());
     }
 }
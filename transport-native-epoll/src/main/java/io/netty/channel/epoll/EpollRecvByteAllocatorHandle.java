@@ -15,17 +15,42 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.RecvByteBufAllocator;
 
 class EpollRecvByteAllocatorHandle extends RecvByteBufAllocator.DelegatingHandle {
     private boolean isEdgeTriggered;
     private final ChannelConfig config;
+    private final RecvByteBufAllocator.SharedBufferHandle sharedHandle;
     private boolean receivedRdHup;
 
     EpollRecvByteAllocatorHandle(RecvByteBufAllocator.Handle handle, ChannelConfig config) {
         super(handle);
         this.config = config;
+        sharedHandle = handle instanceof RecvByteBufAllocator.SharedBufferHandle ?
+                (RecvByteBufAllocator.SharedBufferHandle) handle : null;
+    }
+
+    /**
+     * Allocates the buffer to read into for a stream channel, which may be shared with other channels.
+     * See {@link RecvByteBufAllocator.SharedBufferHandle}.
+     */
+    final ByteBuf allocateStream(ByteBufAllocator alloc) {
+        return sharedHandle != null ? sharedHandle.allocateShared(alloc) : allocate(alloc);
+    }
+
+    /**
+     * Passes a buffer which was returned by {@link #allocateStream(ByteBufAllocator)} through the pipeline.
+     */
+    final void fireChannelRead(ChannelPipeline pipeline, ByteBuf buf) {
+        if (sharedHandle != null) {
+            sharedHandle.fireChannelRead(pipeline, buf);
+        } else {
+            pipeline.fireChannelRead(buf);
+        }
     }
 
     final void receivedRdHup() {
@@ -28,11 +28,15 @@ import java.net.InetAddress;
 import java.util.Map;
 
 import static io.netty.channel.ChannelOption.*;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
     private static final long MAX_UINT32_T = 0xFFFFFFFFL;
+    private static final int DEFAULT_ZEROCOPY_WRITE_THRESHOLD = 16 * 1024;
     private final EpollSocketChannel channel;
     private volatile boolean allowHalfClosure;
+    private volatile boolean zeroCopy;
+    private volatile int zeroCopyWriteThreshold = DEFAULT_ZEROCOPY_WRITE_THRESHOLD;
 
     /**
      * Creates a new instance.
@@ -53,7 +57,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
-                EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK);
+                EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.SO_ZEROCOPY,
+                EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD, EpollChannelOption.SO_BUSY_POLL);
     }
 
     @SuppressWarnings("unchecked")
@@ -104,6 +109,15 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.TCP_QUICKACK) {
             return (T) Boolean.valueOf(isTcpQuickAck());
         }
+        if (option == EpollChannelOption.SO_ZEROCOPY) {
+            return (T) Boolean.valueOf(isZeroCopy());
+        }
+        if (option == EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD) {
+            return (T) Integer.valueOf(getZeroCopyWriteThreshold());
+        }
+        if (option == EpollChannelOption.SO_BUSY_POLL) {
+            return (T) Integer.valueOf(getSoBusyPoll());
+        }
         return super.getOption(option);
     }
 
@@ -145,6 +159,12 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpMd5Sig(m);
         } else if (option == EpollChannelOption.TCP_QUICKACK) {
             setTcpQuickAck((Boolean) value);
+        } else if (option == EpollChannelOption.SO_ZEROCOPY) {
+            setZeroCopy((Boolean) value);
+        } else if (option == EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD) {
+            setZeroCopyWriteThreshold((Integer) value);
+        } else if (option == EpollChannelOption.SO_BUSY_POLL) {
+            setSoBusyPoll((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -238,6 +258,17 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Get the {@code SO_BUSY_POLL} option on the socket. See {@code man 7 socket} for more details.
+     */
+    public int getSoBusyPoll() {
+        try {
+            return Native.getSoBusyPoll(channel.fd().intValue());
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
     /**
      * Get the {@code TCP_KEEPIDLE} option on the socket. See {@code man 7 tcp} for more details.
      */
@@ -376,6 +407,22 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Set the {@code SO_BUSY_POLL} option on the socket, which lets blocking reads busy poll the device queue for the
+     * given amount of microseconds. See {@code man 7 socket} for more details.
+     */
+    public EpollSocketChannelConfig setSoBusyPoll(int loopMicros) {
+        if (loopMicros < 0) {
+            throw new IllegalArgumentException("loopMicros: " + loopMicros + " (expected: >= 0)");
+        }
+        try {
+            Native.setSoBusyPoll(channel.fd().intValue(), loopMicros);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
     @Override
     public EpollSocketChannelConfig setTrafficClass(int trafficClass) {
         try {
@@ -473,6 +520,52 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Set the {@code SO_ZEROCOPY} option on the socket and write all {@link io.netty.buffer.ByteBuf}s with at least
+     * {@link #getZeroCopyWriteThreshold()} readable bytes with
+     * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a>, so the kernel
+     * does not copy their content into the socket send buffer. Such a {@link io.netty.buffer.ByteBuf} is only released
+     * and its {@link io.netty.channel.ChannelPromise} only notified once the kernel signalled that it does not use its
+     * memory anymore, which is usually once the data was acknowledged by the remote peer.
+     * <p>
+     * This is only supported on linux 4.14+, see {@link Native#IS_SUPPORTING_ZEROCOPY}. It only pays off for big
+     * writes of direct buffers which are not sent over the loopback device, as the kernel copies the data in this
+     * case anyway.
+     */
+    public EpollSocketChannelConfig setZeroCopy(boolean zeroCopy) {
+        try {
+            Native.setZeroCopy(channel.fd().intValue(), zeroCopy ? 1 : 0);
+            this.zeroCopy = zeroCopy;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if big writes are done with MSG_ZEROCOPY.
+     */
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    /**
+     * Set the minimum number of readable bytes of a {@link io.netty.buffer.ByteBuf} to write it with MSG_ZEROCOPY if
+     * {@link #isZeroCopy()} is {@code true}. Pinning the memory and receiving the completion is more expensive than
+     * copying small buffers. The default is 16 KiB.
+     */
+    public EpollSocketChannelConfig setZeroCopyWriteThreshold(int zeroCopyWriteThreshold) {
+        this.zeroCopyWriteThreshold = checkPositiveOrZero(zeroCopyWriteThreshold, "zeroCopyWriteThreshold");
+        return this;
+    }
+
+    /**
+     * Returns the minimum number of readable bytes of a {@link io.netty.buffer.ByteBuf} to write it with MSG_ZEROCOPY.
+     */
+    public int getZeroCopyWriteThreshold() {
+        return zeroCopyWriteThreshold;
+    }
+
     @Override
     public boolean isAllowHalfClosure() {
         return allowHalfClosure;
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.DirectChunkAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link DirectChunkAllocator} which backs the chunks of the direct arenas of a {@link PooledByteBufAllocator} with
+ * 2 MiB aligned memory. The memory is mapped with {@code MAP_HUGETLB} if huge pages were reserved, otherwise
+ * transparent huge pages are requested via {@code madvise(MADV_HUGEPAGE)}, which reduces the TLB misses when large
+ * buffers are copied or checksummed. If the native transport is not available, the chunks are allocated via
+ * {@link ByteBuffer#allocateDirect(int)}.
+ * <p>
+ * The memory should be freed via {@link #free(ByteBuffer)}, which the arenas do when they destroy a chunk. Unlike
+ * {@link ByteBuffer#allocateDirect(int)} the mapped memory has no cleaner of the JDK, so if a chunk is dropped without
+ * being freed, for example together with its allocator, the memory is unmapped the next time this allocator is used
+ * after the chunk was collected.
+ * <p>
+ * Note that the memory is not accounted against {@code -XX:MaxDirectMemorySize}. For best results the chunk size of
+ * the allocator should be a multiple of 2 MiB.
+ */
+public final class HugePageDirectChunkAllocator implements DirectChunkAllocator {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(HugePageDirectChunkAllocator.class);
+
+    public static final HugePageDirectChunkAllocator INSTANCE = new HugePageDirectChunkAllocator();
+
+    private final boolean available = Epoll.isAvailable();
+    // The mappings which were not freed yet by their address. This keeps the references reachable until they are
+    // enqueued.
+    private final ConcurrentMap<Long, Mapping> mappings = PlatformDependent.newConcurrentHashMap();
+    private final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<ByteBuffer>();
+
+    private HugePageDirectChunkAllocator() { }
+
+    @Override
+    public ByteBuffer allocate(int capacity) {
+        if (!available) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        freeCollected();
+        ByteBuffer buffer = Native.allocateHugePageBuffer(capacity);
+        long address = Native.directBufferAddress(buffer);
+        mappings.put(address, new Mapping(buffer, collected, address));
+        return buffer;
+    }
+
+    @Override
+    public void free(ByteBuffer buffer) {
+        if (!available) {
+            PlatformDependent.freeDirectBuffer(buffer);
+            return;
+        }
+        long address = Native.directBufferAddress(buffer);
+        Mapping mapping = mappings.remove(address);
+        if (mapping == null) {
+            throw new IllegalArgumentException("buffer was not allocated by this allocator or freed already");
+        }
+        mapping.clear();
+        Native.freeHugePageMemory(address, mapping.capacity);
+        freeCollected();
+    }
+
+    /**
+     * Unmaps the memory of the {@link ByteBuffer}s which were collected without being freed.
+     */
+    private void freeCollected() {
+        for (;;) {
+            Mapping mapping = (Mapping) collected.poll();
+            if (mapping == null) {
+                break;
+            }
+            if (mappings.remove(mapping.address, mapping)) {
+                logger.debug("Unmapping a chunk of {} bytes which was not freed before it was collected.",
+                             mapping.capacity);
+                Native.freeHugePageMemory(mapping.address, mapping.capacity);
+            }
+        }
+    }
+
+    private static final class Mapping extends PhantomReference<ByteBuffer> {
+        final long address;
+        final int capacity;
+
+        Mapping(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue, long address) {
+            super(buffer, queue);
+            this.address = address;
+            capacity = buffer.capacity();
+        }
+    }
+}
@@ -21,10 +21,12 @@ import io.netty.util.internal.NativeLibraryLoader;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Limits;
 import io.netty.channel.unix.NativeInetAddress;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.Locale;
 
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollerr;
@@ -32,14 +34,17 @@ import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epolle
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollin;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollout;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollrdhup;
-import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.iovMax;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingRecvmmsg;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingSendmmsg;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingTcpFastopen;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingUdpGro;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingUdpSegment;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingZeroCopy;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.kernelVersion;
-import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.ssizeMax;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.tcpMd5SigMaxKeyLen;
-import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.uioMaxIov;
 import static io.netty.channel.unix.Errors.ERRNO_EAGAIN_NEGATIVE;
+import static io.netty.channel.unix.Errors.ERRNO_ECONNRESET_NEGATIVE;
+import static io.netty.channel.unix.Errors.ERRNO_ENOBUFS_NEGATIVE;
 import static io.netty.channel.unix.Errors.ERRNO_EPIPE_NEGATIVE;
 import static io.netty.channel.unix.Errors.ERRNO_EWOULDBLOCK_NEGATIVE;
 import static io.netty.channel.unix.Errors.ioResult;
@@ -68,16 +73,23 @@ public final class Native {
     public static final int EPOLLET = epollet();
     public static final int EPOLLERR = epollerr();
 
-    public static final int IOV_MAX = iovMax();
-    public static final int UIO_MAX_IOV = uioMaxIov();
+    public static final int IOV_MAX = Limits.IOV_MAX;
+    public static final int UIO_MAX_IOV = Limits.UIO_MAX_IOV;
     public static final boolean IS_SUPPORTING_SENDMMSG = isSupportingSendmmsg();
+    public static final boolean IS_SUPPORTING_RECVMMSG = isSupportingRecvmmsg();
+    public static final boolean IS_SUPPORTING_UDP_SEGMENT = isSupportingUdpSegment();
+    public static final boolean IS_SUPPORTING_UDP_GRO = isSupportingUdpGro();
+    public static final boolean IS_SUPPORTING_ZEROCOPY = isSupportingZeroCopy();
     public static final boolean IS_SUPPORTING_TCP_FASTOPEN = isSupportingTcpFastopen();
-    public static final long SSIZE_MAX = ssizeMax();
+    public static final long SSIZE_MAX = Limits.SSIZE_MAX;
     public static final int TCP_MD5SIG_MAXKEYLEN = tcpMd5SigMaxKeyLen();
     public static final String KERNEL_VERSION = kernelVersion();
 
     private static final NativeIoException CONNECTION_RESET_EXCEPTION_SENDFILE;
     private static final NativeIoException CONNECTION_RESET_EXCEPTION_SENDMMSG;
+    private static final NativeIoException CONNECTION_RESET_EXCEPTION_RECVMMSG;
+    private static final NativeIoException CONNECTION_RESET_EXCEPTION_SEND_ZEROCOPY;
+    private static final NativeIoException CONNECTION_RESET_EXCEPTION_RECVMSG_ERRQUEUE;
     private static final NativeIoException CONNECTION_RESET_EXCEPTION_SPLICE;
 
     static {
@@ -85,6 +97,12 @@ public final class Native {
                 ERRNO_EPIPE_NEGATIVE);
         CONNECTION_RESET_EXCEPTION_SENDMMSG = newConnectionResetException("syscall:sendmmsg(...)",
                 ERRNO_EPIPE_NEGATIVE);
+        CONNECTION_RESET_EXCEPTION_RECVMMSG = newConnectionResetException("syscall:recvmmsg(...)",
+                ERRNO_ECONNRESET_NEGATIVE);
+        CONNECTION_RESET_EXCEPTION_SEND_ZEROCOPY = newConnectionResetException("syscall:send(...)",
+                ERRNO_EPIPE_NEGATIVE);
+        CONNECTION_RESET_EXCEPTION_RECVMSG_ERRQUEUE = newConnectionResetException("syscall:recvmsg(...)",
+                ERRNO_ECONNRESET_NEGATIVE);
         CONNECTION_RESET_EXCEPTION_SPLICE = newConnectionResetException("syscall:splice(...)",
                 ERRNO_EPIPE_NEGATIVE);
     }
@@ -93,7 +111,12 @@ public final class Native {
         return new FileDescriptor(eventFd());
     }
 
+    public static FileDescriptor newTimerFd() {
+        return new FileDescriptor(timerFd());
+    }
+
     private static native int eventFd();
+    private static native int timerFd();
     public static native void eventFdWrite(int fd, long value);
     public static native void eventFdRead(int fd);
 
@@ -112,6 +135,22 @@ public final class Native {
     }
     private static native int epollWait0(int efd, long address, int len, int timeout);
 
+    /**
+     * Arms the given timerfd to expire after {@code timeoutSec} seconds and {@code timeoutNs} nanoseconds and then
+     * blocks in {@code epoll_wait} until an event was received. The timerfd must be registered with the epoll set,
+     * this allows to use timeouts with sub-millisecond precision.
+     */
+    public static int epollWait(int efd, EpollEventArray events, int timerFd, int timeoutSec, int timeoutNs)
+            throws IOException {
+        int ready = epollWaitTimerFd0(efd, events.memoryAddress(), events.length(), timerFd, timeoutSec, timeoutNs);
+        if (ready < 0) {
+            throw newIOException("epoll_wait", ready);
+        }
+        return ready;
+    }
+    private static native int epollWaitTimerFd0(int efd, long address, int len, int timerFd,
+                                                int timeoutSec, int timeoutNs);
+
     public static void epollCtlAdd(int efd, final int fd, final int flags) throws IOException {
         int res = epollCtlAdd0(efd, fd, flags);
         if (res < 0) {
@@ -175,6 +214,112 @@ public final class Native {
     private static native int sendmmsg0(
             int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
 
+    /**
+     * Receive up to {@code len} datagrams into the given {@link NativeDatagramPacketArray.NativeDatagramPacket}s
+     * using <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> and return the number
+     * of received datagrams, or {@code 0} if there is nothing to read.
+     */
+    public static int recvmmsg(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len) throws IOException {
+        int res = recvmmsg0(fd, msgs, offset, len);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvmmsg", res, CONNECTION_RESET_EXCEPTION_RECVMMSG);
+    }
+
+    private static native int recvmmsg0(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
+
+    /**
+     * Write the bytes between {@code pos} and {@code limit} of the given memory address using
+     * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a>. The memory must
+     * not be modified or freed before the completion of this call was read via
+     * {@link #readZeroCopyCompletions(int, int[])}. Returns the number of written bytes, {@code 0} if nothing could
+     * be written or {@code -1} if the kernel could not allocate the needed resources, in which case the caller should
+     * fall back to a normal write.
+     */
+    public static int sendAddressZeroCopy(int fd, long address, int pos, int limit) throws IOException {
+        int res = sendAddressZeroCopy0(fd, address, pos, limit);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == ERRNO_ENOBUFS_NEGATIVE) {
+            return -1;
+        }
+        return ioResult("send", res, CONNECTION_RESET_EXCEPTION_SEND_ZEROCOPY);
+    }
+
+    private static native int sendAddressZeroCopy0(int fd, long address, int pos, int limit);
+
+    /**
+     * Read the pending MSG_ZEROCOPY completions from the error queue of the socket. Each completion is stored as three
+     * ints in {@code completions}: the first and the last id of the completed send calls (inclusive) and {@code 1} if
+     * the kernel had to copy the data anyway, {@code 0} otherwise. Returns the number of read completions.
+     */
+    public static int readZeroCopyCompletions(int fd, int[] completions) throws IOException {
+        int res = readZeroCopyCompletions0(fd, completions);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvmsg", res, CONNECTION_RESET_EXCEPTION_RECVMSG_ERRQUEUE);
+    }
+
+    private static native int readZeroCopyCompletions0(int fd, int[] completions);
+
+    /**
+     * Duplicate the given file descriptor. The returned file descriptor refers to the same socket, so the socket is
+     * only torn down once both were closed.
+     */
+    public static int dup(int fd) throws IOException {
+        int res = dup0(fd);
+        if (res < 0) {
+            throw newIOException("dup", res);
+        }
+        return res;
+    }
+
+    private static native int dup0(int fd);
+
+    /**
+     * Allocate a direct {@link ByteBuffer} of the given capacity which is aligned to 2 MiB and backed by huge pages
+     * if possible. It is mapped with {@code MAP_HUGETLB} if huge pages are reserved, otherwise transparent huge pages
+     * are requested via {@code madvise(MADV_HUGEPAGE)}. The buffer is not freed by the garbage collector, it must be
+     * freed via {@link #freeHugePageBuffer(ByteBuffer)} or {@link #freeHugePageMemory(long, int)}.
+     */
+    public static ByteBuffer allocateHugePageBuffer(int capacity) {
+        return allocateHugePageBuffer0(capacity);
+    }
+
+    private static native ByteBuffer allocateHugePageBuffer0(int capacity);
+
+    /**
+     * Free a {@link ByteBuffer} which was allocated via {@link #allocateHugePageBuffer(int)}.
+     */
+    public static void freeHugePageBuffer(ByteBuffer buffer) {
+        freeHugePageMemory(directBufferAddress(buffer), buffer.capacity());
+    }
+
+    /**
+     * Free the memory of a {@link ByteBuffer} which was allocated via {@link #allocateHugePageBuffer(int)}, given its
+     * {@link #directBufferAddress(ByteBuffer) address} and capacity. This allows to free the memory after the
+     * {@link ByteBuffer} itself was collected.
+     */
+    public static void freeHugePageMemory(long address, int capacity) {
+        freeHugePageMemory0(address, capacity);
+    }
+
+    private static native void freeHugePageMemory0(long address, int capacity);
+
+    /**
+     * Returns the memory address of the given direct {@link ByteBuffer}.
+     */
+    public static long directBufferAddress(ByteBuffer buffer) {
+        return directBufferAddress0(buffer);
+    }
+
+    private static native long directBufferAddress0(ByteBuffer buffer);
+
     public static int recvFd(int fd) throws IOException {
         int res = recvFd0(fd);
         if (res > 0) {
@@ -211,6 +356,7 @@ public final class Native {
     public static native int isReuseAddress(int fd) throws IOException;
     public static native int isReusePort(int fd) throws IOException;
     public static native int getTcpNotSentLowAt(int fd) throws IOException;
+    public static native int getSoBusyPoll(int fd) throws IOException;
     public static native int getTrafficClass(int fd) throws IOException;
     public static native int isBroadcast(int fd) throws IOException;
     public static native int getTcpKeepIdle(int fd) throws IOException;
@@ -218,11 +364,15 @@ public final class Native {
     public static native int getTcpKeepCnt(int fd) throws IOException;
     public static native int getTcpUserTimeout(int milliseconds) throws IOException;
     public static native int isIpFreeBind(int fd)throws IOException;
+    public static native int getUdpSegment(int fd) throws IOException;
+    public static native int isUdpGro(int fd) throws IOException;
+    public static native int isZeroCopy(int fd) throws IOException;
 
     public static native void setReuseAddress(int fd, int reuseAddress) throws IOException;
     public static native void setReusePort(int fd, int reuseAddress) throws IOException;
     public static native void setTcpFastopen(int fd, int tcpFastopenBacklog) throws IOException;
     public static native void setTcpNotSentLowAt(int fd, int tcpNotSentLowAt) throws IOException;
+    public static native void setSoBusyPoll(int fd, int loopMicros) throws IOException;
     public static native void setTrafficClass(int fd, int tcpNoDelay) throws IOException;
     public static native void setBroadcast(int fd, int broadcast) throws IOException;
     public static native void setTcpKeepIdle(int fd, int seconds) throws IOException;
@@ -230,6 +380,9 @@ public final class Native {
     public static native void setTcpKeepCnt(int fd, int probes) throws IOException;
     public static native void setTcpUserTimeout(int fd, int milliseconds)throws IOException;
     public static native void setIpFreeBind(int fd, int freeBind) throws IOException;
+    public static native void setUdpSegment(int fd, int segmentSize) throws IOException;
+    public static native void setUdpGro(int fd, int gro) throws IOException;
+    public static native void setZeroCopy(int fd, int zeroCopy) throws IOException;
     public static void tcpInfo(int fd, EpollTcpInfo info) throws IOException {
         tcpInfo0(fd, info.info);
     }
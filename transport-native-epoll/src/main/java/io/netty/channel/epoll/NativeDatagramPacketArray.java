@@ -19,6 +19,8 @@ import static io.netty.channel.unix.NativeInetAddress.ipv4MappedIpv6Address;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.unix.DatagramSocketAddress;
+import io.netty.channel.unix.IovArray;
 import io.netty.util.concurrent.FastThreadLocal;
 
 import java.net.Inet6Address;
@@ -26,7 +28,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 
 /**
- * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+
+ * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+ and
+ * <a href="http://linux.die.net/man/2/recvmmsg">recvmmsg(...)</a> on linux with GLIBC 2.12+
  */
 final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessageProcessor {
 
@@ -72,7 +75,9 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         }
         NativeDatagramPacket p = packets[count];
         InetSocketAddress recipient = packet.recipient();
-        if (!p.init(content, recipient)) {
+        int segmentSize = packet instanceof SegmentedDatagramPacket ?
+                ((SegmentedDatagramPacket) packet).segmentSize() : 0;
+        if (!p.init(content, recipient, segmentSize)) {
             return false;
         }
 
@@ -110,6 +115,25 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         return array;
     }
 
+    /**
+     * Returns a {@link NativeDatagramPacketArray} which is prepared to receive up to {@code maxDatagrams} datagrams
+     * of at most {@code datagramSize} bytes each into the writable bytes of the given {@link ByteBuf}. The datagram
+     * {@code i} will be stored at {@code buffer.writerIndex() + i * datagramSize}.
+     */
+    static NativeDatagramPacketArray getInstance(ByteBuf buffer, int datagramSize, int maxDatagrams) {
+        NativeDatagramPacketArray array = ARRAY.get();
+        NativeDatagramPacket[] packets = array.packets;
+        int count = Math.min(maxDatagrams, packets.length);
+        long memoryAddress = buffer.memoryAddress();
+        int offset = buffer.writerIndex();
+        for (int i = 0; i < count; i++) {
+            packets[i].init(memoryAddress, offset, datagramSize);
+            offset += datagramSize;
+        }
+        array.count = count;
+        return array;
+    }
+
     /**
      * Used to pass needed data to JNI.
      */
@@ -128,6 +152,12 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         private int scopeId;
         private int port;
 
+        // Filled by recvmmsg(...) with the address of the sender and the number of received bytes.
+        private DatagramSocketAddress sender;
+
+        // The size of the segments if UDP_SEGMENT (send) or UDP_GRO (receive) is used, 0 otherwise.
+        private int segmentSize;
+
         private void release() {
             array.release();
         }
@@ -135,7 +165,7 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         /**
          * Init this instance and return {@code true} if the init was successful.
          */
-        private boolean init(ByteBuf buf, InetSocketAddress recipient) {
+        private boolean init(ByteBuf buf, InetSocketAddress recipient, int segmentSize) {
             array.clear();
             if (!array.add(buf)) {
                 return false;
@@ -153,7 +183,35 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
                 scopeId = 0;
             }
             port = recipient.getPort();
+            this.segmentSize = segmentSize;
             return true;
         }
+
+        /**
+         * Init this instance to receive a datagram of at most {@code len} bytes into the given memory.
+         */
+        private void init(long memoryAddress, int offset, int len) {
+            array.clear();
+            array.add(memoryAddress, offset, len);
+            this.memoryAddress = array.memoryAddress(0);
+            count = array.count();
+            sender = null;
+            segmentSize = 0;
+        }
+
+        /**
+         * Returns the sender of the datagram which was received via {@code recvmmsg(...)}.
+         */
+        DatagramSocketAddress sender() {
+            return sender;
+        }
+
+        /**
+         * Returns the size of the segments if the kernel coalesced multiple datagrams into the datagram which was
+         * received via {@code recvmmsg(...)}, or {@code 0}.
+         */
+        int segmentSize() {
+            return segmentSize;
+        }
     }
 }
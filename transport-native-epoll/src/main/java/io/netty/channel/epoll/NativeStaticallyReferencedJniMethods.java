@@ -35,11 +35,12 @@ final class NativeStaticallyReferencedJniMethods {
     static native int epollrdhup();
     static native int epollet();
     static native int epollerr();
-    static native long ssizeMax();
     static native int tcpMd5SigMaxKeyLen();
-    static native int iovMax();
-    static native int uioMaxIov();
     static native boolean isSupportingSendmmsg();
+    static native boolean isSupportingRecvmmsg();
+    static native boolean isSupportingUdpSegment();
+    static native boolean isSupportingUdpGro();
+    static native boolean isSupportingZeroCopy();
     static native boolean isSupportingTcpFastopen();
     static native String kernelVersion();
 }
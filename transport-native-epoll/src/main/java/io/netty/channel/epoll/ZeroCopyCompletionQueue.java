@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the {@code send(...)} calls which were done with
+ * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a> and of the messages
+ * which can only be released once the kernel signalled the completion of these calls.
+ * <p>
+ * The kernel numbers every {@code send(...)} call which wrote at least one byte with {@code MSG_ZEROCOPY}, starting
+ * from {@code 0} for each socket, and signals completions as inclusive ranges of these ids via the error queue of the
+ * socket. Ranges may arrive out of order, but messages are always released and notified in the order they were
+ * written. The {@link ChannelPromise}s of messages which were written without {@code MSG_ZEROCOPY} after such a call
+ * are queued as well, so no {@link ChannelPromise} is notified before the one of a message written before it.
+ * <p>
+ * The memory of the messages may be used by the kernel until the completion was signalled, even after the socket was
+ * closed by the application. So the messages must never be released before, which is why the socket of a closed
+ * channel is kept open by the {@link EpollEventLoop} until all the completions were received.
+ * This class is not thread-safe and must only be used from the {@link EpollEventLoop}.
+ */
+final class ZeroCopyCompletionQueue {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Ring buffer of the send calls which are not released yet, indexed by (id - headId).
+    private boolean[] completed = new boolean[INITIAL_CAPACITY];
+    private ByteBuf[] buffers = new ByteBuf[INITIAL_CAPACITY];
+    // Either null, a ChannelPromise or a List of ChannelPromises.
+    private Object[] promises = new Object[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+    // The id of the send call at head. This wraps around just like the unsigned 32 bit counter of the kernel.
+    private int headId;
+    private long copied;
+    private int[] completions;
+
+    /**
+     * Must be called after each {@code send(...)} call with {@code MSG_ZEROCOPY} which wrote at least one byte.
+     */
+    void sent() {
+        if (size == completed.length) {
+            grow();
+        }
+        int index = (head + size) & (completed.length - 1);
+        completed[index] = false;
+        size++;
+    }
+
+    /**
+     * Add a fully written message whose memory was used by the last {@code send(...)} call, and by none after it. The
+     * message is released and the {@link ChannelPromise} is notified once this and all previous calls completed.
+     */
+    void add(ByteBuf buffer, ChannelPromise promise) {
+        assert size > 0;
+        int index = (head + size - 1) & (completed.length - 1);
+        assert buffers[index] == null;
+        buffers[index] = buffer;
+        addPromise(promise);
+    }
+
+    /**
+     * Keep a reference to a message which was written only partly when the channel was closed, the last part with the
+     * last {@code send(...)} call. The message is still released by the {@link io.netty.channel.ChannelOutboundBuffer}
+     * which owns it, so the extra reference keeps its memory from being reused until this and all previous calls
+     * completed.
+     */
+    void attach(ByteBuf buffer) {
+        add(buffer.retain(), null);
+    }
+
+    /**
+     * Add the {@link ChannelPromise} of a message which was written after the last {@code send(...)} call. It is
+     * notified once this and all previous calls completed.
+     */
+    void addPromise(ChannelPromise promise) {
+        assert size > 0;
+        if (promise == null) {
+            return;
+        }
+        int index = (head + size - 1) & (completed.length - 1);
+        Object promises = this.promises[index];
+        if (promises == null) {
+            this.promises[index] = promise;
+        } else if (promises instanceof ChannelPromise) {
+            List<ChannelPromise> list = new ArrayList<ChannelPromise>(4);
+            list.add((ChannelPromise) promises);
+            list.add(promise);
+            this.promises[index] = list;
+        } else {
+            @SuppressWarnings("unchecked")
+            List<ChannelPromise> list = (List<ChannelPromise>) promises;
+            list.add(promise);
+        }
+    }
+
+    /**
+     * Read the completions from the error queue of the given socket and release all messages which are not used by
+     * the kernel anymore.
+     */
+    void processCompletions(int fd) throws IOException {
+        if (completions == null) {
+            completions = new int[3 * 64];
+        }
+        final int[] completions = this.completions;
+        final int max = completions.length / 3;
+        int cnt;
+        do {
+            cnt = Native.readZeroCopyCompletions(fd, completions);
+            for (int i = 0; i < cnt; i++) {
+                complete(completions[i * 3], completions[i * 3 + 1], completions[i * 3 + 2] != 0);
+            }
+        } while (cnt == max);
+        releaseCompleted();
+    }
+
+    /**
+     * Mark the {@code send(...)} calls from {@code firstId} to {@code lastId} (inclusive) as completed.
+     *
+     * @param copied {@code true} if the kernel copied the data anyway.
+     */
+    void complete(int firstId, int lastId, boolean copied) {
+        for (int id = firstId;; id++) {
+            int offset = id - headId;
+            if (offset >= 0 && offset < size) {
+                completed[(head + offset) & (completed.length - 1)] = true;
+                if (copied) {
+                    this.copied++;
+                }
+            }
+            if (id == lastId) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Release all messages and notify their {@link ChannelPromise}s for which all the {@code send(...)} calls up to
+     * and including the one of the message completed.
+     */
+    void releaseCompleted() {
+        while (size > 0 && completed[head]) {
+            ByteBuf buffer = buffers[head];
+            Object promises = this.promises[head];
+            removeHead();
+            if (buffer != null) {
+                ReferenceCountUtil.safeRelease(buffer);
+            }
+            notifyPromises(promises, null);
+        }
+    }
+
+    /**
+     * Fail all {@link ChannelPromise}s with the given {@link Throwable} without releasing the messages, as the kernel
+     * may still use their memory. Only used once the completions can not be received anymore, the messages are leaked
+     * then.
+     */
+    void abandon(Throwable cause) {
+        while (size > 0) {
+            Object promises = this.promises[head];
+            removeHead();
+            notifyPromises(promises, cause);
+        }
+    }
+
+    private void removeHead() {
+        buffers[head] = null;
+        promises[head] = null;
+        head = (head + 1) & (completed.length - 1);
+        headId++;
+        size--;
+    }
+
+    private static void notifyPromises(Object promises, Throwable cause) {
+        if (promises == null) {
+            return;
+        }
+        if (promises instanceof ChannelPromise) {
+            notifyPromise((ChannelPromise) promises, cause);
+        } else {
+            @SuppressWarnings("unchecked")
+            List<ChannelPromise> list = (List<ChannelPromise>) promises;
+            for (int i = 0; i < list.size(); i++) {
+                notifyPromise(list.get(i), cause);
+            }
+        }
+    }
+
+    private static void notifyPromise(ChannelPromise promise, Throwable cause) {
+        if (cause == null) {
+            promise.trySuccess();
+        } else {
+            promise.tryFailure(cause);
+        }
+    }
+
+    /**
+     * Returns {@code true} if there are no {@code send(...)} calls waiting for their completion.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of completed {@code send(...)} calls for which the kernel copied the data anyway, for
+     * example because the data was sent over the loopback device.
+     */
+    long copied() {
+        return copied;
+    }
+
+    private void grow() {
+        int oldCapacity = completed.length;
+        int newCapacity = oldCapacity << 1;
+        if (newCapacity < 0) {
+            throw new IllegalStateException("too many pending send calls");
+        }
+        boolean[] newCompleted = new boolean[newCapacity];
+        ByteBuf[] newBuffers = new ByteBuf[newCapacity];
+        Object[] newPromises = new Object[newCapacity];
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) & (oldCapacity - 1);
+            newCompleted[i] = completed[index];
+            newBuffers[i] = buffers[index];
+            newPromises[i] = promises[index];
+        }
+        completed = newCompleted;
+        buffers = newBuffers;
+        promises = newPromises;
+        head = 0;
+    }
+}
@@ -25,6 +25,7 @@ import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoEA
 import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoEBADF;
 import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoECONNRESET;
 import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoEINPROGRESS;
+import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoENOBUFS;
 import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoENOTCONN;
 import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoEPIPE;
 import static io.netty.channel.unix.ErrorsStaticallyReferencedJniMethods.errnoEWOULDBLOCK;
@@ -43,6 +44,7 @@ public final class Errors {
     public static final int ERRNO_EAGAIN_NEGATIVE = -errnoEAGAIN();
     public static final int ERRNO_EWOULDBLOCK_NEGATIVE = -errnoEWOULDBLOCK();
     public static final int ERRNO_EINPROGRESS_NEGATIVE = -errnoEINPROGRESS();
+    public static final int ERRNO_ENOBUFS_NEGATIVE = -errnoENOBUFS();
 
     /**
      * Holds the mappings for errno codes to String messages.
@@ -101,7 +103,7 @@ public final class Errors {
         CLOSED_CHANNEL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
     }
 
-    static ConnectException newConnectException(String method, int err) {
+    public static ConnectException newConnectException(String method, int err) {
         return new ConnectException(method + "() failed: " + ERRORS[-err]);
     }
 
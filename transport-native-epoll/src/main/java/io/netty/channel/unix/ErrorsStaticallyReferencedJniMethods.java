@@ -37,5 +37,6 @@ final class ErrorsStaticallyReferencedJniMethods {
     static native int errnoEAGAIN();
     static native int errnoEWOULDBLOCK();
     static native int errnoEINPROGRESS();
+    static native int errnoENOBUFS();
     static native String strError(int err);
 }
@@ -13,7 +13,7 @@
  * License for the specific language governing permissions and limitations
  * under the License.
  */
-package io.netty.channel.epoll;
+package io.netty.channel.unix;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
@@ -38,8 +38,9 @@ import java.nio.ByteBuffer;
  * See also
  * <a href="http://rkennke.wordpress.com/2007/07/30/efficient-jni-programming-iv-wrapping-native-data-objects/"
  * >Efficient JNI programming IV: Wrapping native data objects</a>.
+ * <p><strong>Internal usage only!</strong>
  */
-final class IovArray implements MessageProcessor {
+public final class IovArray implements MessageProcessor {
 
     /** The size of an address which should be 8 for 64 bits and 4 for 32 bits. */
     private static final int ADDRESS_SIZE = PlatformDependent.addressSize();
@@ -51,20 +52,20 @@ final class IovArray implements MessageProcessor {
     private static final int IOV_SIZE = 2 * ADDRESS_SIZE;
 
     /**
-     * The needed memory to hold up to {@link Native#IOV_MAX} iov entries, where {@link Native#IOV_MAX} signified
+     * The needed memory to hold up to {@link Limits#IOV_MAX} iov entries, where {@link Limits#IOV_MAX} signified
      * the maximum number of {@code iovec} structs that can be passed to {@code writev(...)}.
      */
-    private static final int CAPACITY = Native.IOV_MAX * IOV_SIZE;
+    private static final int CAPACITY = Limits.IOV_MAX * IOV_SIZE;
 
     private final long memoryAddress;
     private int count;
     private long size;
 
-    IovArray() {
+    public IovArray() {
         memoryAddress = PlatformDependent.allocateMemory(CAPACITY);
     }
 
-    void clear() {
+    public void clear() {
         count = 0;
         size = 0;
     }
@@ -73,8 +74,8 @@ final class IovArray implements MessageProcessor {
      * Try to add the given {@link ByteBuf}. Returns {@code true} on success,
      * {@code false} otherwise.
      */
-    boolean add(ByteBuf buf) {
-        if (count == Native.IOV_MAX) {
+    public boolean add(ByteBuf buf) {
+        if (count == Limits.IOV_MAX) {
             // No more room!
             return false;
         }
@@ -92,7 +93,7 @@ final class IovArray implements MessageProcessor {
         return add(addr, offset, len);
     }
 
-    private boolean add(long addr, int offset, int len) {
+    public boolean add(long addr, int offset, int len) {
         if (len == 0) {
             // No need to add an empty buffer.
             return true;
@@ -101,7 +102,7 @@ final class IovArray implements MessageProcessor {
         final long baseOffset = memoryAddress(count++);
         final long lengthOffset = baseOffset + ADDRESS_SIZE;
 
-        if (Native.SSIZE_MAX - len < size) {
+        if (Limits.SSIZE_MAX - len < size) {
             // If the size + len will overflow an SSIZE_MAX we stop populate the IovArray. This is done as linux
             //  not allow to write more bytes then SSIZE_MAX with one writev(...) call and so will
             // return 'EINVAL', which will raise an IOException.
@@ -128,9 +129,9 @@ final class IovArray implements MessageProcessor {
      * Try to add the given {@link CompositeByteBuf}. Returns {@code true} on success,
      * {@code false} otherwise.
      */
-    boolean add(CompositeByteBuf buf) {
+    public boolean add(CompositeByteBuf buf) {
         ByteBuffer[] buffers = buf.nioBuffers();
-        if (count + buffers.length >= Native.IOV_MAX) {
+        if (count + buffers.length >= Limits.IOV_MAX) {
             // No more room!
             return false;
         }
@@ -155,7 +156,7 @@ final class IovArray implements MessageProcessor {
      * Process the written iov entries. This will return the length of the iov entry on the given index if it is
      * smaller then the given {@code written} value. Otherwise it returns {@code -1}.
      */
-    long processWritten(int index, long written) {
+    public long processWritten(int index, long written) {
         long baseOffset = memoryAddress(index);
         long lengthOffset = baseOffset + ADDRESS_SIZE;
         if (ADDRESS_SIZE == 8) {
@@ -184,28 +185,28 @@ final class IovArray implements MessageProcessor {
     /**
      * Returns the number if iov entries.
      */
-    int count() {
+    public int count() {
         return count;
     }
 
     /**
      * Returns the size in bytes
      */
-    long size() {
+    public long size() {
         return size;
     }
 
     /**
      * Returns the {@code memoryAddress} for the given {@code offset}.
      */
-    long memoryAddress(int offset) {
+    public long memoryAddress(int offset) {
         return memoryAddress + IOV_SIZE * offset;
     }
 
     /**
      * Release the {@link IovArray}. Once release further using of it may crash the JVM!
      */
-    void release() {
+    public void release() {
         PlatformDependent.freeMemory(memoryAddress);
     }
 
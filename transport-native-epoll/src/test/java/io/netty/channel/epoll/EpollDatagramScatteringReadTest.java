@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends datagrams over loopback to an {@link EpollDatagramChannel} and checks that all of them are received, with and
+ * without {@link EpollChannelOption#MAX_DATAGRAM_PAYLOAD_SIZE}.
+ */
+public class EpollDatagramScatteringReadTest {
+
+    private static final int DATAGRAM_SIZE = 64;
+    private static final int BURST = 32;
+    private static final int DATAGRAMS = BURST * 256;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setup() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test(timeout = 30000)
+    public void testScatteringRead() throws Throwable {
+        Assume.assumeTrue(Native.IS_SUPPORTING_RECVMMSG);
+        testDatagrams(true);
+    }
+
+    @Test(timeout = 30000)
+    public void testRead() throws Throwable {
+        testDatagrams(false);
+    }
+
+    private static void testDatagrams(boolean scattering) throws Throwable {
+        final ReceiveHandler handler = new ReceiveHandler(scattering);
+        Bootstrap sb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                .option(ChannelOption.RCVBUF_ALLOCATOR,
+                        new FixedRecvByteBufAllocator(DATAGRAM_SIZE * 16).maxMessagesPerRead(16))
+                .handler(handler);
+        if (scattering) {
+            sb.option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, DATAGRAM_SIZE);
+        }
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        Channel cc = cb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+        try {
+            for (int i = 0; i < DATAGRAMS;) {
+                for (int j = 0; j < BURST; j++, i++) {
+                    ByteBuf buf = cc.alloc().directBuffer(DATAGRAM_SIZE);
+                    buf.writeInt(i);
+                    buf.writerIndex(DATAGRAM_SIZE);
+                    cc.write(new DatagramPacket(buf, address));
+                }
+                cc.flush();
+                // Wait for the burst to be received so the socket receive buffer never overflows.
+                while (handler.received < i && handler.cause.get() == null) {
+                    Thread.sleep(1);
+                }
+            }
+            assertNull(handler.cause.get());
+            assertEquals(DATAGRAMS, handler.received);
+        } finally {
+            sc.close().sync();
+            cc.close().sync();
+        }
+    }
+
+    private static final class ReceiveHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+        private final boolean scattering;
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        volatile int received;
+
+        ReceiveHandler(boolean scattering) {
+            this.scattering = scattering;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+            ByteBuf content = packet.content();
+            assertEquals(DATAGRAM_SIZE, content.readableBytes());
+            assertEquals(received, content.readInt());
+            // Datagrams read via recvmmsg(...) are slices of one bigger buffer.
+            assertEquals(scattering ? DATAGRAM_SIZE : DATAGRAM_SIZE * 16, content.capacity());
+            assertTrue(packet.sender().getPort() > 0);
+            received++;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            this.cause.compareAndSet(null, cause);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Sends datagrams over loopback using UDP_SEGMENT and receives them with and without UDP_GRO.
+ */
+public class EpollDatagramSegmentationOffloadTest {
+
+    private static final int SEGMENT_SIZE = 64;
+    private static final int SEGMENTS = 8;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setup() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testSegmentedDatagramPacket() throws Throwable {
+        Assume.assumeTrue(SegmentedDatagramPacket.isSupported());
+        testSegmentation(false, false);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpSegmentOption() throws Throwable {
+        Assume.assumeTrue(SegmentedDatagramPacket.isSupported());
+        testSegmentation(true, false);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpGro() throws Throwable {
+        Assume.assumeTrue(SegmentedDatagramPacket.isSupported());
+        Assume.assumeTrue(Native.IS_SUPPORTING_RECVMMSG && Native.IS_SUPPORTING_UDP_GRO);
+        testSegmentation(false, true);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpGroEmptyDatagram() throws Throwable {
+        Assume.assumeTrue(Native.IS_SUPPORTING_RECVMMSG && Native.IS_SUPPORTING_UDP_GRO);
+        final BlockingQueue<Integer> received = new LinkedBlockingQueue<Integer>();
+        Bootstrap sb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .option(EpollChannelOption.UDP_GRO, true)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        received.add(packet.content().readableBytes());
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        Channel cc = cb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+        try {
+            cc.writeAndFlush(new DatagramPacket(cc.alloc().directBuffer(0), address)).sync();
+            cc.writeAndFlush(new DatagramPacket(cc.alloc().directBuffer(4).writeInt(1), address)).sync();
+
+            // The empty datagram is passed on as well, exactly once.
+            assertEquals(0, (int) received.poll(5, TimeUnit.SECONDS));
+            assertEquals(4, (int) received.poll(5, TimeUnit.SECONDS));
+            assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            sc.close().sync();
+            cc.close().sync();
+        }
+    }
+
+    private static void testSegmentation(boolean segmentOption, boolean gro) throws Throwable {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        Bootstrap sb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(64 * 1024))
+                .option(EpollChannelOption.UDP_GRO, gro)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        ByteBuf content = packet.content();
+                        received.add(content.readableBytes() == SEGMENT_SIZE ?
+                                content.readInt() : new AssertionError("size: " + content.readableBytes()));
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        received.add(cause);
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+        if (segmentOption) {
+            cb.option(EpollChannelOption.UDP_SEGMENT, SEGMENT_SIZE);
+        }
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        Channel cc = cb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+        try {
+            assertEquals(gro, sc.config().getOption(EpollChannelOption.UDP_GRO));
+            assertEquals(segmentOption ? SEGMENT_SIZE : 0,
+                         (int) cc.config().getOption(EpollChannelOption.UDP_SEGMENT));
+
+            ByteBuf buf = cc.alloc().directBuffer(SEGMENT_SIZE * SEGMENTS);
+            for (int i = 0; i < SEGMENTS; i++) {
+                buf.writeInt(i);
+                buf.writerIndex(buf.writerIndex() + SEGMENT_SIZE - 4);
+            }
+            cc.writeAndFlush(segmentOption ? new DatagramPacket(buf, address)
+                                           : new SegmentedDatagramPacket(buf, SEGMENT_SIZE, address)).sync();
+
+            for (int i = 0; i < SEGMENTS; i++) {
+                Object msg = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(msg);
+                if (msg instanceof Throwable) {
+                    throw (Throwable) msg;
+                }
+                assertEquals(i, msg);
+            }
+            assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            sc.close().sync();
+            cc.close().sync();
+        }
+    }
+}
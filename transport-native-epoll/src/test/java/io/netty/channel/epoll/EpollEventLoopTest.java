@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SpinSelectStrategyFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EpollEventLoopTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setup() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleSubMillisecond() throws Exception {
+        final EventLoop loop = group.next();
+        final long delayNanos = TimeUnit.MICROSECONDS.toNanos(200);
+        for (int i = 0; i < 100; i++) {
+            final long start = System.nanoTime();
+            ScheduledFuture<Long> future = loop.schedule(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return System.nanoTime() - start;
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+            // Must never fire before its deadline.
+            assertTrue(future.get() >= delayNanos);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWakeupWhileWaitingForScheduledTask() throws Exception {
+        final EventLoop loop = group.next();
+        ScheduledFuture<?> future = loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }, 1, TimeUnit.HOURS);
+        try {
+            // Give the loop the chance to block on the timer of the scheduled task.
+            Thread.sleep(100);
+            assertTrue(loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).await(5, TimeUnit.SECONDS));
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSpinSelectStrategyRunsTasks() throws Exception {
+        EventLoopGroup spinGroup = new EpollEventLoopGroup(1, new SpinSelectStrategyFactory(1000));
+        try {
+            EventLoop loop = spinGroup.next();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            };
+            for (int i = 0; i < 100; i++) {
+                assertTrue(loop.submit(task).await(5, TimeUnit.SECONDS));
+            }
+            ScheduledFuture<?> future = loop.schedule(task, 100, TimeUnit.MICROSECONDS);
+            assertTrue(future.await(5, TimeUnit.SECONDS));
+        } finally {
+            spinGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+}
@@ -18,11 +18,15 @@ package io.netty.channel.epoll;
 import io.netty.bootstrap.AbstractBootstrap;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
 import io.netty.testsuite.util.TestUtils;
 import io.netty.util.NetUtil;
 import io.netty.util.ReferenceCountUtil;
@@ -38,9 +42,14 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class EpollReuseAddrTest {
@@ -116,6 +125,42 @@ public class EpollReuseAddrTest {
         future2.channel().close().syncUninterruptibly();
     }
 
+    @Test(timeout = 10000)
+    public void testBindAcceptors() throws Exception {
+        Assume.assumeTrue(versionEqOrGt(3, 9, 0));
+        EventLoopGroup group = new EpollEventLoopGroup(2);
+        try {
+            AcceptorLoopHandler handler = new AcceptorLoopHandler();
+            ServerBootstrap bootstrap = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .option(EpollChannelOption.SO_REUSEPORT, true)
+                    .childHandler(handler);
+            // Use an ephemeral port, all acceptors must still be bound to the same one.
+            ChannelGroup acceptors = bootstrap.bindAcceptors(new InetSocketAddress(NetUtil.LOCALHOST, 0))
+                    .syncUninterruptibly().getNow();
+            Assert.assertEquals(2, acceptors.size());
+            SocketAddress address = null;
+            for (Channel acceptor: acceptors) {
+                if (address == null) {
+                    address = acceptor.localAddress();
+                } else {
+                    Assert.assertEquals(address, acceptor.localAddress());
+                }
+            }
+
+            InetSocketAddress inetAddress = (InetSocketAddress) address;
+            while (handler.acceptingLoops.size() < 2) {
+                Socket socket = new Socket(inetAddress.getAddress(), inetAddress.getPort());
+                socket.close();
+            }
+            Assert.assertFalse(handler.handedOff);
+
+            Assert.assertTrue(acceptors.close().awaitUninterruptibly().isSuccess());
+            Assert.assertTrue(acceptors.isEmpty());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
     @Test(timeout = 10000)
     @Ignore // TODO: Unignore after making it pass on centos6-1 and debian7-1
     public void testMultipleBindDatagramChannel() throws Exception {
@@ -219,6 +264,23 @@ public class EpollReuseAddrTest {
         }
     }
 
+    @ChannelHandler.Sharable
+    private static final class AcceptorLoopHandler extends ChannelInboundHandlerAdapter {
+        final Set<EventLoop> acceptingLoops =
+                Collections.newSetFromMap(new ConcurrentHashMap<EventLoop, Boolean>());
+        volatile boolean handedOff;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            EventLoop loop = ctx.channel().eventLoop();
+            if (loop != ctx.channel().parent().eventLoop()) {
+                handedOff = true;
+            }
+            acceptingLoops.add(loop);
+            ctx.close();
+        }
+    }
+
     @ChannelHandler.Sharable
     private static class DatagramSocketTestHandler extends ChannelInboundHandlerAdapter {
         private final AtomicBoolean received;
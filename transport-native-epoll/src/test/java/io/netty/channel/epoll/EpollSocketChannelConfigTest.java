@@ -69,6 +69,14 @@ public class EpollSocketChannelConfigTest {
         return val;
      }
 
+    @Test
+    public void testSoBusyPoll() {
+        // Lowering the value is always permitted, raising it may need CAP_NET_ADMIN.
+        ch.config().setSoBusyPoll(0);
+        assertEquals(0, ch.config().getSoBusyPoll());
+        assertEquals(0, (int) ch.config().getOption(EpollChannelOption.SO_BUSY_POLL));
+    }
+
     @Test
     public void testRandomTcpNotSentLowAt() {
         final long expected = randLong(0, 0xFFFFFFFFL);
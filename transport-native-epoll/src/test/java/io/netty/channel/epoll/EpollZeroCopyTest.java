@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes over loopback with {@link EpollChannelOption#SO_ZEROCOPY}. The kernel copies the data on loopback anyway,
+ * but still signals the completions through the error queue so the release path is exercised.
+ */
+public class EpollZeroCopyTest {
+
+    private static final int SIZE = 256 * 1024;
+    private static final int WRITES = 16;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void setup() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test(timeout = 20000)
+    public void testZeroCopyWrite() throws Throwable {
+        Assume.assumeTrue(Native.IS_SUPPORTING_ZEROCOPY);
+
+        final ByteBuf expected = Unpooled.buffer(SIZE * WRITES);
+        for (int i = 0; i < SIZE * WRITES; i++) {
+            expected.writeByte(i * 31);
+        }
+        final ByteBuf received = Unpooled.buffer(SIZE * WRITES);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        ServerBootstrap sb = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                        received.writeBytes(msg);
+                        if (!received.isWritable()) {
+                            latch.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        error.compareAndSet(null, cause);
+                        latch.countDown();
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.SO_ZEROCOPY, true)
+                .option(EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD, 1024)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        Channel cc = cb.connect(sc.localAddress()).sync().channel();
+        try {
+            assertTrue(cc.config().getOption(EpollChannelOption.SO_ZEROCOPY));
+            assertEquals(1024, (int) cc.config().getOption(EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD));
+
+            List<ByteBuf> buffers = new ArrayList<ByteBuf>(WRITES);
+            List<ChannelFuture> futures = new ArrayList<ChannelFuture>(WRITES);
+            for (int i = 0; i < WRITES; i++) {
+                ByteBuf buf = cc.alloc().directBuffer(SIZE);
+                buf.writeBytes(expected, i * SIZE, SIZE);
+                buffers.add(buf);
+                futures.add(cc.write(buf));
+            }
+            cc.flush();
+
+            for (ChannelFuture future : futures) {
+                future.sync();
+            }
+            // Buffers are only released once the kernel signalled that it does not use them anymore.
+            for (ByteBuf buf : buffers) {
+                assertEquals(0, buf.refCnt());
+            }
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            if (error.get() != null) {
+                throw error.get();
+            }
+            assertEquals(expected, received);
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+            expected.release();
+            received.release();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testPendingWritesFailedOnClose() throws Throwable {
+        Assume.assumeTrue(Native.IS_SUPPORTING_ZEROCOPY);
+
+        ServerBootstrap sb = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter());
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.SO_ZEROCOPY, true)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        Channel cc = cb.connect(sc.localAddress()).sync().channel();
+        try {
+            ByteBuf buf = cc.alloc().directBuffer(SIZE).writeZero(SIZE);
+            ChannelFuture future = cc.write(buf);
+            cc.close().sync();
+            future.await();
+            assertEquals(0, buf.refCnt());
+        } finally {
+            sc.close().sync();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testPartlyWrittenMessageNotReleasedBeforeCompletionOnClose() throws Throwable {
+        Assume.assumeTrue(Native.IS_SUPPORTING_ZEROCOPY);
+
+        final AtomicReference<Channel> child = new AtomicReference<Channel>();
+        final CountDownLatch childActive = new CountDownLatch(1);
+        ServerBootstrap sb = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childOption(ChannelOption.SO_RCVBUF, 16 * 1024)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelActive(ChannelHandlerContext ctx) {
+                        child.set(ctx.channel());
+                        childActive.countDown();
+                    }
+
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.SO_ZEROCOPY, true)
+                .option(EpollChannelOption.ZEROCOPY_WRITE_THRESHOLD, 1024)
+                .option(ChannelOption.SO_SNDBUF, 16 * 1024)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+        final Channel cc = cb.connect(sc.localAddress()).sync().channel();
+        try {
+            assertTrue(childActive.await(5, TimeUnit.SECONDS));
+            final ByteBuf buf = cc.alloc().directBuffer(SIZE * WRITES).writeZero(SIZE * WRITES);
+            ChannelFuture future = cc.writeAndFlush(buf);
+
+            // Wait until the peer stopped accepting more data, so the message was only partly written.
+            Callable<Boolean> partlyWritten = new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return buf.readerIndex() > 0 && buf.isReadable() && !cc.isWritable();
+                }
+            };
+            while (!cc.eventLoop().submit(partlyWritten).get()) {
+                Thread.sleep(10);
+            }
+
+            cc.close().sync();
+            assertFalse(future.isSuccess());
+            // The kernel still uses the memory of the part which was written but not acknowledged yet.
+            assertTrue(buf.refCnt() > 0);
+
+            // Once the peer reads the pending data the completions are received and the message is released.
+            child.get().config().setAutoRead(true);
+            while (buf.refCnt() > 0) {
+                Thread.sleep(10);
+            }
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+        }
+    }
+}
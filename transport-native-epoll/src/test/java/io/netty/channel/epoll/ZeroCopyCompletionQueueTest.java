@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+
+import static org.junit.Assert.*;
+
+public class ZeroCopyCompletionQueueTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @Test
+    public void testReleaseInOrder() {
+        ZeroCopyCompletionQueue queue = new ZeroCopyCompletionQueue();
+        ByteBuf first = Unpooled.buffer();
+        ByteBuf second = Unpooled.buffer();
+        ChannelPromise firstPromise = newPromise();
+        ChannelPromise secondPromise = newPromise();
+        queue.sent();
+        queue.add(first, firstPromise);
+        queue.sent();
+        queue.add(second, secondPromise);
+
+        // The second send call completes first, but messages are released in order.
+        queue.complete(1, 1, false);
+        queue.releaseCompleted();
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertFalse(firstPromise.isDone());
+        assertFalse(secondPromise.isDone());
+
+        queue.complete(0, 0, false);
+        queue.releaseCompleted();
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertTrue(firstPromise.isSuccess());
+        assertTrue(secondPromise.isSuccess());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMessageWrittenWithMultipleSendCalls() {
+        ZeroCopyCompletionQueue queue = new ZeroCopyCompletionQueue();
+        ByteBuf buf = Unpooled.buffer();
+        ChannelPromise promise = newPromise();
+        queue.sent();
+        queue.sent();
+        queue.sent();
+        queue.add(buf, promise);
+
+        queue.complete(0, 1, true);
+        queue.releaseCompleted();
+        assertEquals(1, buf.refCnt());
+        assertFalse(promise.isDone());
+        assertFalse(queue.isEmpty());
+
+        queue.complete(2, 2, false);
+        queue.releaseCompleted();
+        assertEquals(0, buf.refCnt());
+        assertTrue(promise.isSuccess());
+        assertTrue(queue.isEmpty());
+        assertEquals(2, queue.copied());
+    }
+
+    @Test
+    public void testGrow() {
+        ZeroCopyCompletionQueue queue = new ZeroCopyCompletionQueue();
+        int count = 100;
+        ByteBuf[] buffers = new ByteBuf[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = Unpooled.buffer();
+            queue.sent();
+            queue.add(buffers[i], newPromise());
+            if (i % 10 == 9) {
+                // Complete some in between so head moves.
+                queue.complete(i - 9, i - 5, false);
+                queue.releaseCompleted();
+            }
+        }
+        queue.complete(0, count - 1, false);
+        queue.releaseCompleted();
+        for (ByteBuf buf : buffers) {
+            assertEquals(0, buf.refCnt());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPromisesNotifiedInWriteOrder() {
+        ZeroCopyCompletionQueue queue = new ZeroCopyCompletionQueue();
+        ByteBuf buf = Unpooled.buffer();
+        ChannelPromise promise = newPromise();
+        ChannelPromise copiedPromise = newPromise();
+        ChannelPromise copiedPromise2 = newPromise();
+        final StringBuilder order = new StringBuilder();
+        promise.addListener(new OrderListener(order, "1"));
+        copiedPromise.addListener(new OrderListener(order, "2"));
+        copiedPromise2.addListener(new OrderListener(order, "3"));
+        queue.sent();
+        queue.add(buf, promise);
+        // Messages written without MSG_ZEROCOPY after the send call.
+        queue.addPromise(copiedPromise);
+        queue.addPromise(copiedPromise2);
+
+        queue.releaseCompleted();
+        assertFalse(copiedPromise.isDone());
+        assertFalse(copiedPromise2.isDone());
+
+        queue.complete(0, 0, false);
+        queue.releaseCompleted();
+        assertEquals(0, buf.refCnt());
+        assertTrue(promise.isSuccess());
+        assertTrue(copiedPromise.isSuccess());
+        assertTrue(copiedPromise2.isSuccess());
+        assertEquals("123", order.toString());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testAttachPartlyWrittenMessage() {
+        ZeroCopyCompletionQueue queue = new ZeroCopyCompletionQueue();
+        ByteBuf buf = Unpooled.buffer();
+        queue.sent();
+        queue.attach(buf);
+        // Released by the ChannelOutboundBuffer once the channel was closed.
+        assertFalse(buf.release());
+        assertEquals(1, buf.refCnt());
+
+        queue.complete(0, 0, false);
+        queue.releaseCompleted();
+        assertEquals(0, buf.refCnt());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testAbandon() {
+        ZeroCopyCompletionQueue queue = new ZeroCopyCompletionQueue();
+        ByteBuf buf = Unpooled.buffer();
+        ChannelPromise promise = newPromise();
+        queue.sent();
+        queue.add(buf, promise);
+
+        ClosedChannelException cause = new ClosedChannelException();
+        queue.abandon(cause);
+        // The kernel may still use the memory, so the message must not be released.
+        assertEquals(1, buf.refCnt());
+        assertSame(cause, promise.cause());
+        assertTrue(queue.isEmpty());
+        buf.release();
+    }
+
+    private ChannelPromise newPromise() {
+        return new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+    }
+
+    private static final class OrderListener implements ChannelFutureListener {
+        private final StringBuilder order;
+        private final String name;
+
+        OrderListener(StringBuilder order, String name) {
+            this.order = order;
+            this.name = name;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            order.append(name);
+        }
+    }
+}
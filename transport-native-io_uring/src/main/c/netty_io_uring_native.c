@@ -0,0 +1,525 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <dlfcn.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <poll.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <stddef.h>
+#include <time.h>
+#include <unistd.h>
+#include <netinet/in.h>
+#include <sys/mman.h>
+#include <sys/socket.h>
+#include <sys/syscall.h>
+#include <sys/uio.h>
+#include <linux/io_uring.h>
+
+// The io_uring syscalls are not wrapped by glibc, so define the numbers if the headers are too old to know them.
+#ifndef __NR_io_uring_setup
+#define __NR_io_uring_setup 425
+#endif /* __NR_io_uring_setup */
+
+#ifndef __NR_io_uring_enter
+#define __NR_io_uring_enter 426
+#endif /* __NR_io_uring_enter */
+
+#ifndef __NR_io_uring_register
+#define __NR_io_uring_register 427
+#endif /* __NR_io_uring_register */
+
+#ifndef IORING_FEAT_SINGLE_MMAP
+#define IORING_FEAT_SINGLE_MMAP (1U << 0)
+#endif /* IORING_FEAT_SINGLE_MMAP */
+
+#ifndef IORING_REGISTER_PROBE
+#define IORING_REGISTER_PROBE 8
+#endif /* IORING_REGISTER_PROBE */
+
+// Must be kept in sync with the field order used by RingBuffer.
+#define RING_FD 0
+#define RING_FEATURES 1
+#define SQ_HEAD 2
+#define SQ_TAIL 3
+#define SQ_RING_MASK 4
+#define SQ_RING_ENTRIES 5
+#define SQ_FLAGS 6
+#define SQ_DROPPED 7
+#define SQ_ARRAY 8
+#define SQ_SQES 9
+#define SQ_RING_PTR 10
+#define SQ_RING_SIZE 11
+#define SQ_SQES_SIZE 12
+#define CQ_HEAD 13
+#define CQ_TAIL 14
+#define CQ_RING_MASK 15
+#define CQ_RING_ENTRIES 16
+#define CQ_OVERFLOW 17
+#define CQ_CQES 18
+#define CQ_RING_PTR 19
+#define CQ_RING_SIZE 20
+#define RING_ARRAY_LENGTH 21
+
+// Probe support for up to this many opcodes, which is more than any kernel knows about at the moment.
+#define PROBE_OPS 256
+
+static int sys_io_uring_setup(unsigned int entries, struct io_uring_params* p) {
+    return (int) syscall(__NR_io_uring_setup, entries, p);
+}
+
+static int sys_io_uring_enter(int fd, unsigned int toSubmit, unsigned int minComplete, unsigned int flags) {
+    return (int) syscall(__NR_io_uring_enter, fd, toSubmit, minComplete, flags, NULL, 0);
+}
+
+static int sys_io_uring_register(int fd, unsigned int opcode, void* arg, unsigned int nrArgs) {
+    return (int) syscall(__NR_io_uring_register, fd, opcode, arg, nrArgs);
+}
+
+static void throwIOException(JNIEnv* env, const char* method, int err) {
+    jclass exceptionClass = (*env)->FindClass(env, "java/io/IOException");
+    if (exceptionClass == NULL) {
+        return;
+    }
+    char message[256];
+    snprintf(message, sizeof(message), "%s() failed: %s", method, strerror(err));
+    (*env)->ThrowNew(env, exceptionClass, message);
+}
+
+// JNI Registered Methods Begin
+static jlongArray netty_io_uring_native_ioUringSetup(JNIEnv* env, jclass clazz, jint entries) {
+    struct io_uring_params p;
+    memset(&p, 0, sizeof(p));
+
+    int ringFd = sys_io_uring_setup((unsigned int) entries, &p);
+    if (ringFd < 0) {
+        throwIOException(env, "io_uring_setup", errno);
+        return NULL;
+    }
+
+    size_t sqRingSize = p.sq_off.array + p.sq_entries * sizeof(unsigned int);
+    size_t cqRingSize = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+    if ((p.features & IORING_FEAT_SINGLE_MMAP) != 0) {
+        // Both rings share one mapping which must be big enough for the bigger one.
+        if (cqRingSize > sqRingSize) {
+            sqRingSize = cqRingSize;
+        }
+        cqRingSize = sqRingSize;
+    }
+
+    void* sqRingPtr = mmap(NULL, sqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                           ringFd, IORING_OFF_SQ_RING);
+    if (sqRingPtr == MAP_FAILED) {
+        int err = errno;
+        close(ringFd);
+        throwIOException(env, "mmap", err);
+        return NULL;
+    }
+
+    void* cqRingPtr;
+    if ((p.features & IORING_FEAT_SINGLE_MMAP) != 0) {
+        cqRingPtr = sqRingPtr;
+    } else {
+        cqRingPtr = mmap(NULL, cqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE,
+                         ringFd, IORING_OFF_CQ_RING);
+        if (cqRingPtr == MAP_FAILED) {
+            int err = errno;
+            munmap(sqRingPtr, sqRingSize);
+            close(ringFd);
+            throwIOException(env, "mmap", err);
+            return NULL;
+        }
+    }
+
+    size_t sqesSize = p.sq_entries * sizeof(struct io_uring_sqe);
+    void* sqes = mmap(NULL, sqesSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQES);
+    if (sqes == MAP_FAILED) {
+        int err = errno;
+        if (cqRingPtr != sqRingPtr) {
+            munmap(cqRingPtr, cqRingSize);
+        }
+        munmap(sqRingPtr, sqRingSize);
+        close(ringFd);
+        throwIOException(env, "mmap", err);
+        return NULL;
+    }
+
+    jlong values[RING_ARRAY_LENGTH];
+    values[RING_FD] = ringFd;
+    values[RING_FEATURES] = p.features;
+    values[SQ_HEAD] = (jlong) ((char*) sqRingPtr + p.sq_off.head);
+    values[SQ_TAIL] = (jlong) ((char*) sqRingPtr + p.sq_off.tail);
+    values[SQ_RING_MASK] = (jlong) ((char*) sqRingPtr + p.sq_off.ring_mask);
+    values[SQ_RING_ENTRIES] = (jlong) ((char*) sqRingPtr + p.sq_off.ring_entries);
+    values[SQ_FLAGS] = (jlong) ((char*) sqRingPtr + p.sq_off.flags);
+    values[SQ_DROPPED] = (jlong) ((char*) sqRingPtr + p.sq_off.dropped);
+    values[SQ_ARRAY] = (jlong) ((char*) sqRingPtr + p.sq_off.array);
+    values[SQ_SQES] = (jlong) sqes;
+    values[SQ_RING_PTR] = (jlong) sqRingPtr;
+    values[SQ_RING_SIZE] = (jlong) sqRingSize;
+    values[SQ_SQES_SIZE] = (jlong) sqesSize;
+    values[CQ_HEAD] = (jlong) ((char*) cqRingPtr + p.cq_off.head);
+    values[CQ_TAIL] = (jlong) ((char*) cqRingPtr + p.cq_off.tail);
+    values[CQ_RING_MASK] = (jlong) ((char*) cqRingPtr + p.cq_off.ring_mask);
+    values[CQ_RING_ENTRIES] = (jlong) ((char*) cqRingPtr + p.cq_off.ring_entries);
+    values[CQ_OVERFLOW] = (jlong) ((char*) cqRingPtr + p.cq_off.overflow);
+    values[CQ_CQES] = (jlong) ((char*) cqRingPtr + p.cq_off.cqes);
+    values[CQ_RING_PTR] = (jlong) cqRingPtr;
+    values[CQ_RING_SIZE] = (jlong) cqRingSize;
+
+    jlongArray array = (*env)->NewLongArray(env, RING_ARRAY_LENGTH);
+    if (array == NULL) {
+        // An OutOfMemoryError is pending, just release the ring again.
+        munmap(sqes, sqesSize);
+        if (cqRingPtr != sqRingPtr) {
+            munmap(cqRingPtr, cqRingSize);
+        }
+        munmap(sqRingPtr, sqRingSize);
+        close(ringFd);
+        return NULL;
+    }
+    (*env)->SetLongArrayRegion(env, array, 0, RING_ARRAY_LENGTH, values);
+    return array;
+}
+
+static jint netty_io_uring_native_ioUringEnter(JNIEnv* env, jclass clazz, jint ringFd, jint toSubmit, jint minComplete, jint flags) {
+    int result;
+    int err;
+    do {
+        result = sys_io_uring_enter(ringFd, (unsigned int) toSubmit, (unsigned int) minComplete, (unsigned int) flags);
+        if (result >= 0) {
+            return result;
+        }
+    } while ((err = errno) == EINTR);
+    return -err;
+}
+
+static void netty_io_uring_native_ioUringExit(JNIEnv* env, jclass clazz, jlong sqRingPtr, jint sqRingSize,
+                                              jlong cqRingPtr, jint cqRingSize, jlong sqes, jint sqesSize,
+                                              jint ringFd) {
+    munmap((void*) sqes, (size_t) sqesSize);
+    if (cqRingPtr != sqRingPtr) {
+        munmap((void*) cqRingPtr, (size_t) cqRingSize);
+    }
+    munmap((void*) sqRingPtr, (size_t) sqRingSize);
+    close(ringFd);
+}
+
+static jboolean netty_io_uring_native_ioUringProbe(JNIEnv* env, jclass clazz, jint ringFd, jintArray ops) {
+    size_t probeSize = sizeof(struct io_uring_probe) + PROBE_OPS * sizeof(struct io_uring_probe_op);
+    struct io_uring_probe* probe = calloc(1, probeSize);
+    if (probe == NULL) {
+        return JNI_FALSE;
+    }
+    if (sys_io_uring_register(ringFd, IORING_REGISTER_PROBE, probe, PROBE_OPS) < 0) {
+        // Probing is not supported by kernels before 5.6.
+        free(probe);
+        return JNI_FALSE;
+    }
+
+    jboolean supported = JNI_TRUE;
+    jint length = (*env)->GetArrayLength(env, ops);
+    jint* opsElements = (*env)->GetIntArrayElements(env, ops, NULL);
+    if (opsElements == NULL) {
+        free(probe);
+        return JNI_FALSE;
+    }
+    for (int i = 0; i < length; i++) {
+        jint op = opsElements[i];
+        if (op < 0 || op > probe->last_op || op >= PROBE_OPS ||
+                (probe->ops[op].flags & IO_URING_OP_SUPPORTED) == 0) {
+            supported = JNI_FALSE;
+            break;
+        }
+    }
+    (*env)->ReleaseIntArrayElements(env, ops, opsElements, JNI_ABORT);
+    free(probe);
+    return supported;
+}
+
+static jint netty_io_uring_native_setBlocking(JNIEnv* env, jclass clazz, jint fd) {
+    int flags = fcntl(fd, F_GETFL);
+    if (flags < 0 || fcntl(fd, F_SETFL, flags & ~O_NONBLOCK) < 0) {
+        return -errno;
+    }
+    return 0;
+}
+
+static jint netty_io_uring_native_dup2(JNIEnv* env, jclass clazz, jint oldFd, jint newFd) {
+    int res;
+    do {
+        res = dup2(oldFd, newFd);
+    } while (res < 0 && errno == EINTR);
+    return res < 0 ? -errno : res;
+}
+
+static jint netty_io_uring_native_errnoECANCELED(JNIEnv* env, jclass clazz) {
+    return ECANCELED;
+}
+
+static jint netty_io_uring_native_errnoETIME(JNIEnv* env, jclass clazz) {
+    return ETIME;
+}
+
+static jint netty_io_uring_native_errnoEALREADY(JNIEnv* env, jclass clazz) {
+    return EALREADY;
+}
+
+static jint netty_io_uring_native_errnoENOENT(JNIEnv* env, jclass clazz) {
+    return ENOENT;
+}
+
+static jint netty_io_uring_native_errnoEBUSY(JNIEnv* env, jclass clazz) {
+    return EBUSY;
+}
+
+static jint netty_io_uring_native_pollin(JNIEnv* env, jclass clazz) {
+    return POLLIN;
+}
+
+static jint netty_io_uring_native_pollout(JNIEnv* env, jclass clazz) {
+    return POLLOUT;
+}
+
+static jint netty_io_uring_native_sockCloexec(JNIEnv* env, jclass clazz) {
+    return SOCK_CLOEXEC;
+}
+
+static jint netty_io_uring_native_afInet6(JNIEnv* env, jclass clazz) {
+    return AF_INET6;
+}
+
+static jint netty_io_uring_native_sizeofSockaddrIn6(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in6);
+}
+
+static jint netty_io_uring_native_sizeofSockaddrStorage(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_storage);
+}
+
+static jint netty_io_uring_native_offsetofSockaddrIn6Sin6Port(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_port);
+}
+
+static jint netty_io_uring_native_offsetofSockaddrIn6Sin6Flowinfo(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_flowinfo);
+}
+
+static jint netty_io_uring_native_offsetofSockaddrIn6Sin6Addr(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_addr);
+}
+
+static jint netty_io_uring_native_offsetofSockaddrIn6Sin6ScopeId(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_scope_id);
+}
+
+static jint netty_io_uring_native_sizeofIovec(JNIEnv* env, jclass clazz) {
+    return sizeof(struct iovec);
+}
+
+static jint netty_io_uring_native_sizeofMsghdr(JNIEnv* env, jclass clazz) {
+    return sizeof(struct msghdr);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgName(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_name);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgNamelen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_namelen);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgIov(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iov);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgIovlen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iovlen);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgControl(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_control);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgControllen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_controllen);
+}
+
+static jint netty_io_uring_native_offsetofMsghdrMsgFlags(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_flags);
+}
+// JNI Registered Methods End
+
+// JNI Method Registration Table Begin
+static const JNINativeMethod statically_referenced_fixed_method_table[] = {
+  { "errnoECANCELED", "()I", (void *) netty_io_uring_native_errnoECANCELED },
+  { "errnoETIME", "()I", (void *) netty_io_uring_native_errnoETIME },
+  { "errnoEALREADY", "()I", (void *) netty_io_uring_native_errnoEALREADY },
+  { "errnoENOENT", "()I", (void *) netty_io_uring_native_errnoENOENT },
+  { "errnoEBUSY", "()I", (void *) netty_io_uring_native_errnoEBUSY },
+  { "pollin", "()I", (void *) netty_io_uring_native_pollin },
+  { "pollout", "()I", (void *) netty_io_uring_native_pollout },
+  { "sockCloexec", "()I", (void *) netty_io_uring_native_sockCloexec },
+  { "afInet6", "()I", (void *) netty_io_uring_native_afInet6 },
+  { "sizeofSockaddrIn6", "()I", (void *) netty_io_uring_native_sizeofSockaddrIn6 },
+  { "sizeofSockaddrStorage", "()I", (void *) netty_io_uring_native_sizeofSockaddrStorage },
+  { "offsetofSockaddrIn6Sin6Port", "()I", (void *) netty_io_uring_native_offsetofSockaddrIn6Sin6Port },
+  { "offsetofSockaddrIn6Sin6Flowinfo", "()I", (void *) netty_io_uring_native_offsetofSockaddrIn6Sin6Flowinfo },
+  { "offsetofSockaddrIn6Sin6Addr", "()I", (void *) netty_io_uring_native_offsetofSockaddrIn6Sin6Addr },
+  { "offsetofSockaddrIn6Sin6ScopeId", "()I", (void *) netty_io_uring_native_offsetofSockaddrIn6Sin6ScopeId },
+  { "sizeofIovec", "()I", (void *) netty_io_uring_native_sizeofIovec },
+  { "sizeofMsghdr", "()I", (void *) netty_io_uring_native_sizeofMsghdr },
+  { "offsetofMsghdrMsgName", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgName },
+  { "offsetofMsghdrMsgNamelen", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgNamelen },
+  { "offsetofMsghdrMsgIov", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgIov },
+  { "offsetofMsghdrMsgIovlen", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgIovlen },
+  { "offsetofMsghdrMsgControl", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgControl },
+  { "offsetofMsghdrMsgControllen", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgControllen },
+  { "offsetofMsghdrMsgFlags", "()I", (void *) netty_io_uring_native_offsetofMsghdrMsgFlags }
+};
+static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
+
+static const JNINativeMethod fixed_method_table[] = {
+  { "ioUringSetup", "(I)[J", (void *) netty_io_uring_native_ioUringSetup },
+  { "ioUringEnter", "(IIII)I", (void *) netty_io_uring_native_ioUringEnter },
+  { "ioUringExit", "(JIJIJII)V", (void *) netty_io_uring_native_ioUringExit },
+  { "ioUringProbe", "(I[I)Z", (void *) netty_io_uring_native_ioUringProbe },
+  { "setBlocking", "(I)I", (void *) netty_io_uring_native_setBlocking },
+  { "dup2", "(II)I", (void *) netty_io_uring_native_dup2 }
+};
+static const jint fixed_method_table_size = sizeof(fixed_method_table) / sizeof(fixed_method_table[0]);
+// JNI Method Registration Table End
+
+static char* prepend(const char* prefix, const char* str) {
+    if (prefix == NULL) {
+        return strdup(str);
+    }
+    char* result = (char*) malloc(sizeof(char) * (strlen(prefix) + strlen(str) + 1));
+    strcpy(result, prefix);
+    strcat(result, str);
+    return result;
+}
+
+static jint register_natives(JNIEnv* env, const char* packagePrefix, const char* className,
+                             const JNINativeMethod* methods, jint numMethods) {
+    char* nettyClassName = prepend(packagePrefix, className);
+    jclass nativeCls = (*env)->FindClass(env, nettyClassName);
+    free(nettyClassName);
+    if (nativeCls == NULL) {
+        return JNI_ERR;
+    }
+    return (*env)->RegisterNatives(env, nativeCls, methods, numMethods);
+}
+
+static jint netty_io_uring_native_JNI_OnLoad(JNIEnv* env, const char* packagePrefix) {
+    if (register_natives(env,
+            packagePrefix,
+            "io/netty/channel/uring/NativeStaticallyReferencedJniMethods",
+            statically_referenced_fixed_method_table,
+            statically_referenced_fixed_method_table_size) != 0) {
+        return JNI_ERR;
+    }
+    if (register_natives(env,
+            packagePrefix,
+            "io/netty/channel/uring/Native",
+            fixed_method_table,
+            fixed_method_table_size) != 0) {
+        return JNI_ERR;
+    }
+    return JNI_VERSION_1_6;
+}
+
+/**
+ * The expected format of the library name is "lib<>netty-transport-native-io_uring" where the <> portion is what we
+ * will return.
+ */
+static char* parsePackagePrefix(const char* libraryPathName, jint* status) {
+    char* packageNameEnd = strstr(libraryPathName, "netty-transport-native-io_uring");
+    if (packageNameEnd == NULL) {
+        *status = JNI_ERR;
+        return NULL;
+    }
+    char* packagePrefix = NULL;
+    size_t libLen = strlen("lib");
+    for (char* s = packageNameEnd - libLen; s >= libraryPathName; --s) {
+        if (strncmp(s, "lib", libLen) == 0) {
+            packagePrefix = s;
+            break;
+        }
+    }
+    if (packagePrefix == NULL) {
+        *status = JNI_ERR;
+        return NULL;
+    }
+    packagePrefix += libLen;
+    if (packagePrefix == packageNameEnd) {
+        return NULL;
+    }
+    // packagePrefix length is > 0
+    // Make a copy so we can modify the value without impacting libraryPathName.
+    size_t packagePrefixLen = packageNameEnd - packagePrefix;
+    packagePrefix = strndup(packagePrefix, packagePrefixLen);
+    // Make sure the packagePrefix is in the correct format for the JNI functions it will be used with.
+    char* temp = packagePrefix;
+    packageNameEnd = packagePrefix + packagePrefixLen;
+    // Package names must be sanitized, in JNI packages names are separated by '/' characters.
+    for (; temp != packageNameEnd; ++temp) {
+        if (*temp == '-') {
+            *temp = '/';
+        }
+    }
+    // Make sure packagePrefix is terminated with the '/' JNI package separator.
+    if (*(--temp) != '/') {
+        temp = packagePrefix;
+        packagePrefix = prepend(packagePrefix, "/");
+        free(temp);
+    }
+    return packagePrefix;
+}
+
+jint JNI_OnLoad(JavaVM* vm, void* reserved) {
+    JNIEnv* env;
+    if ((*vm)->GetEnv(vm, (void**) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    Dl_info dlinfo;
+    jint status = 0;
+    // We need to use an address of a function that is uniquely part of this library, so choose a static
+    // function. See https://github.com/netty/netty/issues/4840.
+    if (!dladdr((void*) parsePackagePrefix, &dlinfo)) {
+        fprintf(stderr, "FATAL: transport-native-io_uring JNI call to dladdr failed!\n");
+        return JNI_ERR;
+    }
+    char* packagePrefix = parsePackagePrefix(dlinfo.dli_fname, &status);
+    if (status == JNI_ERR) {
+        fprintf(stderr, "FATAL: transport-native-io_uring JNI encountered unexpected dlinfo.dli_fname: %s\n",
+                dlinfo.dli_fname);
+        return JNI_ERR;
+    }
+
+    jint ret = netty_io_uring_native_JNI_OnLoad(env, packagePrefix);
+
+    if (packagePrefix != NULL) {
+        free(packagePrefix);
+        packagePrefix = NULL;
+    }
+
+    return ret;
+}
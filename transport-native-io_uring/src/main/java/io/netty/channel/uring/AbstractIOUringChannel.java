@@ -0,0 +1,366 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.UnresolvedAddressException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+abstract class AbstractIOUringChannel extends AbstractChannel implements UnixChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractIOUringChannel.class);
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+    private final Socket fileDescriptor;
+
+    protected volatile boolean active;
+    // Set once the channel was closed. The file descriptor itself is only closed once no submitted operation is in
+    // flight anymore, as the kernel may still use it until then and its number must not be reused by another channel.
+    private volatile boolean closed;
+
+    // The user_data of the operations which are in flight, or 0. Only accessed from the event loop.
+    long readUserData;
+    long writeUserData;
+    long connectUserData;
+    private int pendingOps;
+
+    AbstractIOUringChannel(Channel parent, Socket fd, boolean active) {
+        super(parent);
+        fileDescriptor = checkNotNull(fd, "fd");
+        this.active = active;
+    }
+
+    @Override
+    public final Socket fd() {
+        return fileDescriptor;
+    }
+
+    @Override
+    public abstract IOUringChannelConfig config();
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof IOUringEventLoop;
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        ((IOUringEventLoop) eventLoop()).add(this);
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        if (!closed) {
+            cancelPendingOps();
+        }
+        if (pendingOps == 0) {
+            ((IOUringEventLoop) eventLoop()).remove(this);
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        active = false;
+        closed = true;
+        if (!isRegistered()) {
+            // Nothing was ever submitted for this channel.
+            closeFd();
+            return;
+        }
+        cancelPendingOps();
+        if (pendingOps == 0) {
+            closeFd();
+        } else {
+            // Release the socket right away, so for example its port can be bound again once close() returned,
+            // but keep the file descriptor number until all operations completed. Submitting the cancellations now
+            // makes the kernel drop its references to the socket as well.
+            IOUringEventLoop loop = (IOUringEventLoop) eventLoop();
+            Native.detach(fileDescriptor.intValue(), loop.placeholderFd());
+            loop.submissionQueue().submit();
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected final void doBeginRead() throws Exception {
+        // Channel.read() or ChannelHandlerContext.read() was called
+        AbstractIOUringUnsafe unsafe = (AbstractIOUringUnsafe) unsafe();
+        unsafe.readPending = true;
+        if (readUserData == 0) {
+            unsafe.scheduleRead();
+        }
+    }
+
+    @Override
+    protected abstract AbstractIOUringUnsafe newUnsafe();
+
+    /**
+     * Add an operation for this channel to the submission queue of the event loop and return its {@code user_data}.
+     */
+    final long submit(byte op, int opFlags, long address, int len, long offset, short data) {
+        int fd = fileDescriptor.intValue();
+        long userData = UserData.encode(fd, op, data);
+        ((IOUringEventLoop) eventLoop()).submissionQueue().enqueue(op, opFlags, fd, address, len, offset, userData);
+        pendingOps++;
+        return userData;
+    }
+
+    private void cancelPendingOps() {
+        cancel(readUserData);
+        cancel(writeUserData);
+        cancel(connectUserData);
+    }
+
+    private void cancel(long userData) {
+        if (userData != 0) {
+            long cancelUserData = UserData.encode(fileDescriptor.intValue(), Native.IORING_OP_ASYNC_CANCEL, (short) 0);
+            ((IOUringEventLoop) eventLoop()).submissionQueue().enqueue(
+                    Native.IORING_OP_ASYNC_CANCEL, 0, -1, userData, 0, 0, cancelUserData);
+            pendingOps++;
+        }
+    }
+
+    private void closeFd() {
+        try {
+            fileDescriptor.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close a channel.", e);
+        } finally {
+            releaseResources();
+            if (isRegistered()) {
+                ((IOUringEventLoop) eventLoop()).remove(this);
+            }
+        }
+    }
+
+    /**
+     * Release the buffers and the native memory which may have been used by operations that were in flight. Called
+     * once the kernel does not use them anymore, which is after the completions of all operations or once the ring
+     * was closed.
+     */
+    protected void releaseResources() {
+        // NOOP
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the original one.
+     */
+    protected final ByteBuf newDirectBuffer(ByteBuf buf) {
+        return newDirectBuffer(buf, buf);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the specified holder.
+     * The caller must ensure that the holder releases the original {@link ByteBuf} when the holder is released by
+     * this method.
+     */
+    protected final ByteBuf newDirectBuffer(Object holder, ByteBuf buf) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes == 0) {
+            ReferenceCountUtil.safeRelease(holder);
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final ByteBufAllocator alloc = alloc();
+        if (alloc.isDirectBufferPooled()) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        final ByteBuf directBuf = ByteBufUtil.threadLocalDirectBuffer();
+        if (directBuf == null) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    private static ByteBuf newDirectBuffer0(Object holder, ByteBuf buf, ByteBufAllocator alloc, int capacity) {
+        final ByteBuf directBuf = alloc.directBuffer(capacity);
+        directBuf.writeBytes(buf, buf.readerIndex(), capacity);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    protected abstract class AbstractIOUringUnsafe extends AbstractUnsafe {
+        protected boolean readPending;
+
+        /**
+         * Submit the next read operation, called only if none is in flight.
+         */
+        abstract void scheduleRead();
+
+        /**
+         * Called once the read operation completed.
+         */
+        abstract void readCompleted(int res);
+
+        /**
+         * Called once the write operation completed.
+         */
+        void writeCompleted(int res) {
+            // NOOP
+        }
+
+        /**
+         * Called once the connect operation completed.
+         */
+        void connectCompleted(int res) {
+            // NOOP
+        }
+
+        /**
+         * Called by the {@link IOUringEventLoop} for each completion of an operation of this channel.
+         */
+        final void completed(byte op, int res, short data) {
+            pendingOps--;
+            switch (op) {
+                case Native.IORING_OP_ASYNC_CANCEL:
+                    break;
+                case Native.IORING_OP_CONNECT:
+                    connectUserData = 0;
+                    connectCompleted(res);
+                    break;
+                case Native.IORING_OP_READ:
+                case Native.IORING_OP_ACCEPT:
+                case Native.IORING_OP_RECVMSG:
+                    readUserData = 0;
+                    readCompleted(res);
+                    break;
+                default:
+                    writeUserData = 0;
+                    writeCompleted(res);
+                    break;
+            }
+            if (pendingOps == 0) {
+                if (closed) {
+                    closeFd();
+                } else if (!isRegistered()) {
+                    ((IOUringEventLoop) eventLoop()).remove(AbstractIOUringChannel.this);
+                }
+            }
+        }
+
+        /**
+         * Called by the {@link IOUringEventLoop} once its ring was closed, which also ended all the operations which
+         * were still in flight.
+         */
+        final void forceClose() {
+            pendingOps = 0;
+            readUserData = writeUserData = connectUserData = 0;
+            closed = true;
+            active = false;
+            closeFd();
+        }
+
+        /**
+         * Returns {@code true} if the completion is for an operation which was cancelled or is not of interest
+         * anymore because the channel was closed or deregistered in the meantime.
+         */
+        final boolean isCancelled(int res) {
+            return closed || !isRegistered() || res == Native.ERRNO_ECANCELED_NEGATIVE;
+        }
+
+        /**
+         * Submit the next read if there is none in flight and the user is interested in reading.
+         */
+        final void scheduleReadIfNeeded() {
+            if (readUserData == 0 && isActive() && (readPending || config().isAutoRead())) {
+                scheduleRead();
+            }
+        }
+
+        /**
+         * Shutdown the input side of the channel.
+         */
+        void shutdownInput() {
+            if (!fd().isInputShutdown()) {
+                if (Boolean.TRUE.equals(config().getOption(ChannelOption.ALLOW_HALF_CLOSURE))) {
+                    try {
+                        fd().shutdown(true, false);
+                        pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                    } catch (IOException ignored) {
+                        // We attempted to shutdown and failed, which means the input has already effectively been
+                        // shutdown.
+                        pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                        close(voidPromise());
+                    }
+                } else {
+                    close(voidPromise());
+                }
+            }
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush immediately only when there's no write in flight. Otherwise its completion will continue with
+            // the next one.
+            if (writeUserData != 0) {
+                return;
+            }
+            super.flush0();
+        }
+
+        /**
+         * Continue writing the flushed messages once a write completed.
+         */
+        final void writeNext() {
+            super.flush0();
+        }
+    }
+}
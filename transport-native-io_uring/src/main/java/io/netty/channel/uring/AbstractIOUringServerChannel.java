@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.Socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+abstract class AbstractIOUringServerChannel extends AbstractIOUringChannel implements ServerChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+
+    AbstractIOUringServerChannel(Socket fd, boolean active) {
+        super(null, fd, active);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringServerSocketUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    abstract Channel newChildChannel(int fd) throws Exception;
+
+    final class IOUringServerSocketUnsafe extends AbstractIOUringUnsafe {
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
+            // Connect not supported by ServerChannel implementations
+            channelPromise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void scheduleRead() {
+            if (fd().isInputShutdown()) {
+                return;
+            }
+            recvBufAllocHandle().reset(config());
+            // The address of the peer is not needed, it is obtained from the accepted socket later.
+            readUserData = submit(Native.IORING_OP_ACCEPT, Native.SOCK_CLOEXEC, 0, 0, 0, (short) 0);
+        }
+
+        @Override
+        void readCompleted(int res) {
+            if (isCancelled(res)) {
+                if (res >= 0) {
+                    // Accepted a connection before the operation could be cancelled.
+                    closeAccepted(res);
+                }
+                return;
+            }
+
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ChannelPipeline pipeline = pipeline();
+            Throwable exception = null;
+            if (res >= 0) {
+                // lastBytesRead represents the fd, just like in the epoll transport.
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                try {
+                    pipeline.fireChannelRead(newChildChannel(res));
+                } catch (Throwable t) {
+                    closeAccepted(res);
+                    exception = t;
+                }
+            } else {
+                exception = Errors.newIOException("accept", res);
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+            scheduleReadIfNeeded();
+        }
+
+        private void closeAccepted(int fd) {
+            try {
+                new Socket(fd).close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoop;
+import io.netty.channel.FileRegion;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.Limits;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.OneTimeTask;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.channel.unix.Errors.ERRNO_ECONNRESET_NEGATIVE;
+import static io.netty.channel.unix.Errors.ERRNO_EPIPE_NEGATIVE;
+
+abstract class AbstractIOUringStreamChannel extends AbstractIOUringChannel {
+
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ", " +
+            StringUtil.simpleClassName(FileRegion.class) + ')';
+    // The file content of a FileRegion is copied into a buffer of at most this size and then written from there.
+    private static final int FILE_REGION_BUFFER_SIZE = 64 * 1024;
+    private static final ClosedChannelException CLOSED_CHANNEL_EXCEPTION = new ClosedChannelException();
+
+    static {
+        CLOSED_CHANNEL_EXCEPTION.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+    }
+
+    private ChannelPromise connectPromise;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+    // The struct sockaddr_in6 of a connect in flight.
+    private long connectAddressMemory;
+
+    private ByteBuf readBuffer;
+    // The buffers of the write in flight. They are retained until the write completed so their memory stays valid,
+    // even if the ChannelOutboundBuffer releases them because the channel was closed in the meantime.
+    private final List<ByteBuf> writeBuffers = new ArrayList<ByteBuf>();
+    private IovArray writeIovArray;
+    // Holds the content of the FileRegion which is written at the moment.
+    private ByteBuf fileRegionBuffer;
+    // The failure of the last write, which is thrown by the next doWrite(...) call so the usual handling applies.
+    private IOException writeError;
+
+    private final ChannelOutboundBuffer.MessageProcessor gatheringProcessor =
+            new ChannelOutboundBuffer.MessageProcessor() {
+        @Override
+        public boolean processMessage(Object msg) throws Exception {
+            if (msg instanceof ByteBuf) {
+                ByteBuf buf = (ByteBuf) msg;
+                if (writeIovArray.add(buf)) {
+                    writeBuffers.add(buf.retain());
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    AbstractIOUringStreamChannel(Channel parent, Socket fd) {
+        super(parent, fd, true);
+    }
+
+    AbstractIOUringStreamChannel(Socket fd, boolean active) {
+        super(null, fd, active);
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringStreamUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        IOException error = writeError;
+        if (error != null) {
+            writeError = null;
+            throw error;
+        }
+        if (writeUserData != 0) {
+            // The completion of the write in flight will continue with the next one.
+            return;
+        }
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                // Wrote all messages.
+                return;
+            }
+
+            if (msg instanceof ByteBuf) {
+                ByteBuf buf = (ByteBuf) msg;
+                if (!buf.isReadable()) {
+                    in.remove();
+                    continue;
+                }
+                if (in.size() > 1 || buf.nioBufferCount() > 1) {
+                    writeGathering(in);
+                } else {
+                    writeBytes(buf);
+                }
+                return;
+            } else if (msg instanceof FileRegion) {
+                FileRegion region = (FileRegion) msg;
+                if (fileRegionBuffer == null && region.transfered() >= region.count()) {
+                    in.remove();
+                    continue;
+                }
+                writeFileRegion(region);
+                return;
+            } else {
+                // Should never reach here.
+                throw new Error();
+            }
+        }
+    }
+
+    private void writeBytes(ByteBuf buf) {
+        writeBuffers.add(buf.retain());
+        writeUserData = submit(Native.IORING_OP_WRITE, 0, buf.memoryAddress() + buf.readerIndex(),
+                buf.readableBytes(), 0, (short) 0);
+    }
+
+    private void writeGathering(ChannelOutboundBuffer in) throws Exception {
+        writeIovArray = ((IOUringEventLoop) eventLoop()).acquireIovArray();
+        in.forEachFlushedMessage(gatheringProcessor);
+        writeUserData = submit(Native.IORING_OP_WRITEV, 0, writeIovArray.memoryAddress(0), writeIovArray.count(),
+                0, (short) 0);
+    }
+
+    private void writeFileRegion(FileRegion region) throws Exception {
+        ByteBuf buf = fileRegionBuffer;
+        if (buf == null) {
+            long remaining = region.count() - region.transfered();
+            buf = alloc().directBuffer((int) Math.min(remaining, FILE_REGION_BUFFER_SIZE));
+            try {
+                region.transferTo(new ByteBufWritableChannel(buf), region.transfered());
+            } catch (Throwable cause) {
+                buf.release();
+                PlatformDependent.throwException(cause);
+            }
+            if (!buf.isReadable()) {
+                buf.release();
+                throw new IOException("Unable to read the content of the FileRegion, file truncated?");
+            }
+            fileRegionBuffer = buf;
+        }
+        writeBytes(buf);
+    }
+
+    private void releaseWriteBuffers() {
+        for (int i = 0; i < writeBuffers.size(); i++) {
+            writeBuffers.get(i).release();
+        }
+        writeBuffers.clear();
+        if (writeIovArray != null) {
+            ((IOUringEventLoop) eventLoop()).releaseIovArray(writeIovArray);
+            writeIovArray = null;
+        }
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (!buf.hasMemoryAddress()) {
+                if (buf instanceof CompositeByteBuf) {
+                    // Special handling of CompositeByteBuf to reduce memory copies if all of the Components
+                    // in the CompositeByteBuf are backed by a memoryAddress.
+                    CompositeByteBuf comp = (CompositeByteBuf) buf;
+                    if (!comp.isDirect() || comp.nioBufferCount() > Limits.IOV_MAX) {
+                        buf = newDirectBuffer(buf);
+                        assert buf.hasMemoryAddress();
+                    }
+                } else {
+                    // The kernel needs the memory address of the buffer, so copy if a non direct is passed to write.
+                    buf = newDirectBuffer(buf);
+                    assert buf.hasMemoryAddress();
+                }
+            }
+            return buf;
+        }
+
+        if (msg instanceof FileRegion) {
+            return msg;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    protected void shutdownOutput0(final ChannelPromise promise) {
+        try {
+            fd().shutdown(false, true);
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    public boolean isInputShutdown() {
+        return fd().isInputShutdown();
+    }
+
+    public boolean isOutputShutdown() {
+        return fd().isOutputShutdown();
+    }
+
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            shutdownOutput0(promise);
+        } else {
+            loop.execute(new OneTimeTask() {
+                @Override
+                public void run() {
+                    shutdownOutput0(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    /**
+     * Submit the connect operation, its completion is handled by {@link IOUringStreamUnsafe#connectCompleted(int)}.
+     */
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            fd().bind(localAddress);
+        }
+        if (connectAddressMemory == 0) {
+            connectAddressMemory = PlatformDependent.allocateMemory(Native.SIZEOF_SOCKADDR_STORAGE);
+        }
+        int addressLength = SockaddrIn.write(connectAddressMemory, (InetSocketAddress) remoteAddress);
+        // The length of the address is passed in the offset field of the submission queue entry.
+        connectUserData = submit(Native.IORING_OP_CONNECT, 0, connectAddressMemory, 0, addressLength, (short) 0);
+        return false;
+    }
+
+    /**
+     * Called once the connect operation completed successfully.
+     */
+    void doFinishConnect() throws Exception {
+        // NOOP
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        ChannelPromise promise = connectPromise;
+        if (promise != null) {
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(CLOSED_CHANNEL_EXCEPTION);
+            connectPromise = null;
+        }
+
+        ScheduledFuture<?> future = connectTimeoutFuture;
+        if (future != null) {
+            future.cancel(false);
+            connectTimeoutFuture = null;
+        }
+        super.doClose();
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (readBuffer != null) {
+            readBuffer.release();
+            readBuffer = null;
+        }
+        releaseWriteBuffers();
+        if (fileRegionBuffer != null) {
+            fileRegionBuffer.release();
+            fileRegionBuffer = null;
+        }
+        if (connectAddressMemory != 0) {
+            PlatformDependent.freeMemory(connectAddressMemory);
+            connectAddressMemory = 0;
+        }
+    }
+
+    class IOUringStreamUnsafe extends AbstractIOUringUnsafe {
+
+        @Override
+        void scheduleRead() {
+            if (fd().isInputShutdown()) {
+                return;
+            }
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.reset(config());
+            ByteBuf byteBuf = allocHandle.allocate(alloc());
+            if (!byteBuf.hasMemoryAddress()) {
+                // The kernel needs the memory address of the buffer.
+                int capacity = byteBuf.capacity();
+                byteBuf.release();
+                byteBuf = alloc().directBuffer(capacity);
+            }
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            readBuffer = byteBuf;
+            readUserData = submit(Native.IORING_OP_READ, 0, byteBuf.memoryAddress() + byteBuf.writerIndex(),
+                    byteBuf.writableBytes(), 0, (short) 0);
+        }
+
+        @Override
+        void readCompleted(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (isCancelled(res)) {
+                byteBuf.release();
+                return;
+            }
+
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ChannelPipeline pipeline = pipeline();
+            if (res > 0) {
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                pipeline.fireChannelRead(byteBuf);
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+                scheduleReadIfNeeded();
+                return;
+            }
+
+            byteBuf.release();
+            allocHandle.lastBytesRead(res == 0 ? -1 : 0);
+            readPending = false;
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            if (res < 0) {
+                IOException cause = res == ERRNO_ECONNRESET_NEGATIVE ?
+                        Errors.newConnectionResetException("syscall:read(...)", res) :
+                        Errors.newIOException("read", res);
+                pipeline.fireExceptionCaught(cause);
+            }
+            // Either EOF or an error, so nothing more can be read.
+            shutdownInput();
+        }
+
+        @Override
+        void writeCompleted(int res) {
+            releaseWriteBuffers();
+            if (isCancelled(res)) {
+                return;
+            }
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (res < 0) {
+                writeError = res == ERRNO_EPIPE_NEGATIVE || res == ERRNO_ECONNRESET_NEGATIVE ?
+                        Errors.newConnectionResetException("syscall:write(...)", res) :
+                        Errors.newIOException("write", res);
+            } else if (fileRegionBuffer != null) {
+                fileRegionBuffer.skipBytes(res);
+                in.progress(res);
+                if (!fileRegionBuffer.isReadable()) {
+                    fileRegionBuffer.release();
+                    fileRegionBuffer = null;
+                    FileRegion region = (FileRegion) in.current();
+                    if (region.transfered() >= region.count()) {
+                        in.remove();
+                    }
+                }
+            } else {
+                in.removeBytes(res);
+            }
+            writeNext();
+        }
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null) {
+                    throw new IllegalStateException("connection attempt already made");
+                }
+
+                doConnect(remoteAddress, localAddress);
+                connectPromise = promise;
+                requestedRemoteAddress = remoteAddress;
+
+                // Schedule connect timeout.
+                int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                if (connectTimeoutMillis > 0) {
+                    connectTimeoutFuture = eventLoop().schedule(new OneTimeTask() {
+                        @Override
+                        public void run() {
+                            ChannelPromise connectPromise = AbstractIOUringStreamChannel.this.connectPromise;
+                            ConnectTimeoutException cause =
+                                    new ConnectTimeoutException("connection timed out: " + remoteAddress);
+                            if (connectPromise != null && connectPromise.tryFailure(cause)) {
+                                close(voidPromise());
+                            }
+                        }
+                    }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+
+                promise.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (future.isCancelled()) {
+                            if (connectTimeoutFuture != null) {
+                                connectTimeoutFuture.cancel(false);
+                            }
+                            connectPromise = null;
+                            close(voidPromise());
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                closeIfClosed();
+                promise.tryFailure(annotateConnectException(t, remoteAddress));
+            }
+        }
+
+        @Override
+        void connectCompleted(int res) {
+            ChannelPromise promise = connectPromise;
+            if (promise == null || isCancelled(res)) {
+                // Timed out, cancelled or closed, the promise was notified already.
+                return;
+            }
+            try {
+                boolean wasActive = isActive();
+                if (res < 0) {
+                    throw Errors.newConnectException("connect", res);
+                }
+                doFinishConnect();
+                fulfillConnectPromise(promise, wasActive);
+            } catch (Throwable t) {
+                fulfillConnectPromise(promise, annotateConnectException(t, requestedRemoteAddress));
+            } finally {
+                // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                // See https://github.com/netty/netty/issues/1770
+                if (connectTimeoutFuture != null) {
+                    connectTimeoutFuture.cancel(false);
+                }
+                connectPromise = null;
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
+            active = true;
+
+            // trySuccess() will return false if a user cancelled the connection attempt.
+            boolean promiseSet = promise.trySuccess();
+
+            // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+            // because what happened is what happened.
+            if (!wasActive && isActive()) {
+                pipeline().fireChannelActive();
+            }
+
+            // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
+            if (!promiseSet) {
+                close(voidPromise());
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, Throwable cause) {
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(cause);
+            closeIfClosed();
+        }
+    }
+
+    /**
+     * Copies the content of a {@link FileRegion} into a {@link ByteBuf}, as much as fits.
+     */
+    private static final class ByteBufWritableChannel implements WritableByteChannel {
+        private final ByteBuf buf;
+
+        ByteBufWritableChannel(ByteBuf buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = Math.min(src.remaining(), buf.writableBytes());
+            int limit = src.limit();
+            src.limit(src.position() + length);
+            buf.writeBytes(src);
+            src.limit(limit);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * The completion queue of an io_uring instance.
+ * <p>
+ * This class is not thread-safe and must only be used from the {@link IOUringEventLoop}.
+ */
+final class CompletionQueue {
+    // Size and field offsets of struct io_uring_cqe, see linux/io_uring.h.
+    private static final int CQE_SIZE = 16;
+    private static final int CQE_USER_DATA = 0;
+    private static final int CQE_RES = 8;
+    private static final int CQE_FLAGS = 12;
+
+    /**
+     * Handles the completion of a submitted operation.
+     */
+    interface CompletionCallback {
+        /**
+         * Called for each completion.
+         *
+         * @param userData the user data the operation was submitted with.
+         * @param res the result of the operation, which is {@code -errno} on failure.
+         * @param flags the flags of the completion.
+         */
+        void handle(long userData, int res, int flags);
+    }
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long cqesAddress;
+    private final int ringMask;
+    private final int ringEntries;
+
+    private int head;
+
+    CompletionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                    long cqesAddress) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.cqesAddress = cqesAddress;
+        ringMask = PlatformDependent.getInt(kRingMaskAddress);
+        ringEntries = PlatformDependent.getInt(kRingEntriesAddress);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+    }
+
+    /**
+     * Returns {@code true} if there are completions which were not processed yet.
+     */
+    boolean hasCompletions() {
+        return head != PlatformDependent.getIntVolatile(kTailAddress);
+    }
+
+    /**
+     * Process all available completions and return how many there were.
+     */
+    int process(CompletionCallback callback) {
+        int tail = PlatformDependent.getIntVolatile(kTailAddress);
+        int processed = 0;
+        while (head != tail) {
+            long cqe = cqesAddress + (head & ringMask) * (long) CQE_SIZE;
+            long userData = PlatformDependent.getLong(cqe + CQE_USER_DATA);
+            int res = PlatformDependent.getInt(cqe + CQE_RES);
+            int flags = PlatformDependent.getInt(cqe + CQE_FLAGS);
+
+            // Release the slot before calling the callback, which may submit new operations.
+            head++;
+            PlatformDependent.putIntOrdered(kHeadAddress, head);
+            processed++;
+
+            callback.handle(userData, res, flags);
+
+            if (head == tail) {
+                // Pick up completions which were added in the meantime, but never more than fit into the ring at
+                // once to give other work a chance.
+                if (processed < ringEntries) {
+                    tail = PlatformDependent.getIntVolatile(kTailAddress);
+                }
+            }
+        }
+        return processed;
+    }
+}
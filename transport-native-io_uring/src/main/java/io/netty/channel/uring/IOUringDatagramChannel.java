@@ -0,0 +1,602 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.Limits;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.channels.NotYetConnectedException;
+
+/**
+ * {@link DatagramChannel} implementation which submits {@code recvmsg} and {@code sendmsg} calls via linux io_uring.
+ * Multicast is not supported.
+ */
+public final class IOUringDatagramChannel extends AbstractIOUringChannel implements DatagramChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(DatagramPacket.class) + ", " +
+            StringUtil.simpleClassName(AddressedEnvelope.class) + '<' +
+            StringUtil.simpleClassName(ByteBuf.class) + ", " +
+            StringUtil.simpleClassName(InetSocketAddress.class) + ">, " +
+            StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    // Layout of the native memory used by one recvmsg or sendmsg call: msghdr, sockaddr_storage and a single iovec.
+    private static final int MSGHDR_OFFSET = 0;
+    private static final int SOCKADDR_OFFSET = Native.SIZEOF_MSGHDR;
+    private static final int IOVEC_OFFSET = SOCKADDR_OFFSET + Native.SIZEOF_SOCKADDR_STORAGE;
+    private static final int MSG_MEMORY_SIZE = IOVEC_OFFSET + Native.SIZEOF_IOVEC;
+
+    private volatile InetSocketAddress local;
+    private volatile InetSocketAddress remote;
+    private volatile boolean connected;
+    private final IOUringDatagramChannelConfig config;
+
+    // Native memory for the recvmsg call followed by the one for the sendmsg call, allocated on first use.
+    private long msgMemory;
+    private ByteBuf readBuffer;
+    private ByteBuf writeBuffer;
+    private IovArray writeIovArray;
+
+    public IOUringDatagramChannel() {
+        super(null, newSocket(), false);
+        config = new IOUringDatagramChannelConfig(this);
+    }
+
+    private static Socket newSocket() {
+        try {
+            return Native.newBlockingSocketDgram();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean isActive() {
+        return isOpen() &&
+                (config.getOption(ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION) && isRegistered()
+                        || active);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return joinGroup(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    null, promise);
+        } catch (SocketException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface,
+            ChannelPromise promise) {
+        return joinGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress source, final ChannelPromise promise) {
+
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return leaveGroup(
+                    multicastAddress, NetworkInterface.getByInetAddress(localAddress().getAddress()), null, promise);
+        } catch (SocketException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress,
+            NetworkInterface networkInterface, ChannelPromise promise) {
+        return leaveGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface, final InetAddress source,
+            final ChannelPromise promise) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress sourceToBlock, final ChannelPromise promise) {
+        if (multicastAddress == null) {
+            throw new NullPointerException("multicastAddress");
+        }
+        if (sourceToBlock == null) {
+            throw new NullPointerException("sourceToBlock");
+        }
+
+        if (networkInterface == null) {
+            throw new NullPointerException("networkInterface");
+        }
+        promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise promise) {
+        try {
+            return block(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    sourceToBlock, promise);
+        } catch (Throwable e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringDatagramChannelUnsafe();
+    }
+
+    @Override
+    protected InetSocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        InetSocketAddress addr = (InetSocketAddress) localAddress;
+        checkResolvable(addr);
+        fd().bind(addr);
+        local = fd().localAddress();
+        active = true;
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if (writeUserData != 0) {
+            // The completion of the write in flight will continue with the next one.
+            return;
+        }
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                // Wrote all messages.
+                return;
+            }
+
+            final ByteBuf data;
+            InetSocketAddress remoteAddress;
+            if (msg instanceof AddressedEnvelope) {
+                @SuppressWarnings("unchecked")
+                AddressedEnvelope<ByteBuf, InetSocketAddress> envelope =
+                        (AddressedEnvelope<ByteBuf, InetSocketAddress>) msg;
+                data = envelope.content();
+                remoteAddress = envelope.recipient();
+            } else {
+                data = (ByteBuf) msg;
+                remoteAddress = null;
+            }
+            if (remoteAddress == null) {
+                remoteAddress = remote;
+                if (remoteAddress == null) {
+                    // Continue with the next message as a DatagramChannel can write to multiple remote peers.
+                    in.remove(new NotYetConnectedException());
+                    continue;
+                }
+            }
+            if (!data.isReadable()) {
+                // Nothing to send, just like in the epoll transport.
+                in.remove();
+                continue;
+            }
+            sendmsg(data, remoteAddress);
+            return;
+        }
+    }
+
+    private void sendmsg(ByteBuf data, InetSocketAddress remoteAddress) {
+        long memory = msgMemory() + MSG_MEMORY_SIZE;
+        long iov;
+        int iovlen;
+        if (data.nioBufferCount() == 1) {
+            iov = memory + IOVEC_OFFSET;
+            iovlen = 1;
+            writeIovec(iov, data.memoryAddress() + data.readerIndex(), data.readableBytes());
+        } else {
+            writeIovArray = ((IOUringEventLoop) eventLoop()).acquireIovArray();
+            writeIovArray.add(data);
+            iov = writeIovArray.memoryAddress(0);
+            iovlen = writeIovArray.count();
+        }
+        int namelen = SockaddrIn.write(memory + SOCKADDR_OFFSET, remoteAddress);
+        writeMsghdr(memory + MSGHDR_OFFSET, memory + SOCKADDR_OFFSET, namelen, iov, iovlen);
+        // Retain the content until the operation completed, the ChannelOutboundBuffer may release it on close.
+        writeBuffer = data.retain();
+        writeUserData = submit(Native.IORING_OP_SENDMSG, 0, memory + MSGHDR_OFFSET, 1, 0, (short) 0);
+    }
+
+    private long msgMemory() {
+        if (msgMemory == 0) {
+            msgMemory = PlatformDependent.allocateMemory(MSG_MEMORY_SIZE * 2);
+        }
+        return msgMemory;
+    }
+
+    private static void writeIovec(long iov, long address, int length) {
+        putAddress(iov, address);
+        putAddress(iov + PlatformDependent.addressSize(), length);
+    }
+
+    private static void writeMsghdr(long msghdr, long name, int namelen, long iov, int iovlen) {
+        for (int i = 0; i < Native.SIZEOF_MSGHDR; i++) {
+            PlatformDependent.putByte(msghdr + i, (byte) 0);
+        }
+        putAddress(msghdr + Native.MSGHDR_MSG_NAME, name);
+        PlatformDependent.putInt(msghdr + Native.MSGHDR_MSG_NAMELEN, namelen);
+        putAddress(msghdr + Native.MSGHDR_MSG_IOV, iov);
+        putAddress(msghdr + Native.MSGHDR_MSG_IOVLEN, iovlen);
+    }
+
+    private static void putAddress(long memory, long value) {
+        if (PlatformDependent.addressSize() == 8) {
+            PlatformDependent.putLong(memory, value);
+        } else {
+            PlatformDependent.putInt(memory, (int) value);
+        }
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DatagramPacket) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            ByteBuf content = packet.content();
+            if (content.hasMemoryAddress()) {
+                return msg;
+            }
+
+            if (content.isDirect() && content instanceof CompositeByteBuf) {
+                // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
+                // in the CompositeByteBuf are backed by a memoryAddress.
+                CompositeByteBuf comp = (CompositeByteBuf) content;
+                if (comp.isDirect() && comp.nioBufferCount() <= Limits.IOV_MAX) {
+                    return msg;
+                }
+            }
+            // We can only handle direct buffers so we need to copy if a non direct is
+            // passed to write.
+            return new DatagramPacket(newDirectBuffer(packet, content), packet.recipient());
+        }
+
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (!buf.hasMemoryAddress()) {
+                if (buf instanceof CompositeByteBuf) {
+                    // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
+                    // in the CompositeByteBuf are backed by a memoryAddress.
+                    CompositeByteBuf comp = (CompositeByteBuf) buf;
+                    if (!comp.isDirect() || comp.nioBufferCount() > Limits.IOV_MAX) {
+                        // more then 1024 buffers for gathering writes so just do a memory copy.
+                        buf = newDirectBuffer(buf);
+                        assert buf.hasMemoryAddress();
+                    }
+                } else {
+                    // We can only handle buffers with memory address so we need to copy if a non direct is
+                    // passed to write.
+                    buf = newDirectBuffer(buf);
+                    assert buf.hasMemoryAddress();
+                }
+            }
+            return buf;
+        }
+
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<Object, SocketAddress> e = (AddressedEnvelope<Object, SocketAddress>) msg;
+            if (e.content() instanceof ByteBuf &&
+                (e.recipient() == null || e.recipient() instanceof InetSocketAddress)) {
+
+                ByteBuf content = (ByteBuf) e.content();
+                if (content.hasMemoryAddress()) {
+                    return e;
+                }
+                if (content instanceof CompositeByteBuf) {
+                    // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
+                    // in the CompositeByteBuf are backed by a memoryAddress.
+                    CompositeByteBuf comp = (CompositeByteBuf) content;
+                    if (comp.isDirect() && comp.nioBufferCount() <= Limits.IOV_MAX) {
+                        return e;
+                    }
+                }
+                // We can only handle direct buffers so we need to copy if a non direct is
+                // passed to write.
+                return new DefaultAddressedEnvelope<ByteBuf, InetSocketAddress>(
+                        newDirectBuffer(e, content), (InetSocketAddress) e.recipient());
+            }
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    public IOUringDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        connected = false;
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (readBuffer != null) {
+            readBuffer.release();
+            readBuffer = null;
+        }
+        releaseWriteBuffer();
+        if (msgMemory != 0) {
+            PlatformDependent.freeMemory(msgMemory);
+            msgMemory = 0;
+        }
+    }
+
+    private void releaseWriteBuffer() {
+        if (writeBuffer != null) {
+            writeBuffer.release();
+            writeBuffer = null;
+        }
+        if (writeIovArray != null) {
+            ((IOUringEventLoop) eventLoop()).releaseIovArray(writeIovArray);
+            writeIovArray = null;
+        }
+    }
+
+    final class IOUringDatagramChannelUnsafe extends AbstractIOUringUnsafe {
+
+        @Override
+        public void connect(SocketAddress remote, SocketAddress local, ChannelPromise channelPromise) {
+            boolean success = false;
+            try {
+                try {
+                    boolean wasActive = isActive();
+                    InetSocketAddress remoteAddress = (InetSocketAddress) remote;
+                    if (local != null) {
+                        InetSocketAddress localAddress = (InetSocketAddress) local;
+                        doBind(localAddress);
+                    }
+
+                    checkResolvable(remoteAddress);
+                    IOUringDatagramChannel.this.remote = remoteAddress;
+                    IOUringDatagramChannel.this.local = fd().localAddress();
+                    success = true;
+
+                    // First notify the promise before notifying the handler.
+                    channelPromise.trySuccess();
+
+                    // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+                    // because what happened is what happened.
+                    if (!wasActive && isActive()) {
+                        pipeline().fireChannelActive();
+                    }
+                } finally {
+                    if (!success) {
+                        doClose();
+                    } else {
+                        connected = true;
+                    }
+                }
+            } catch (Throwable cause) {
+                channelPromise.tryFailure(cause);
+            }
+        }
+
+        @Override
+        void scheduleRead() {
+            if (fd().isInputShutdown()) {
+                return;
+            }
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.reset(config());
+            ByteBuf data = allocHandle.allocate(alloc());
+            if (!data.hasMemoryAddress()) {
+                // The kernel needs the memory address of the buffer.
+                int capacity = data.capacity();
+                data.release();
+                data = alloc().directBuffer(capacity);
+            }
+            allocHandle.attemptedBytesRead(data.writableBytes());
+            readBuffer = data;
+
+            long memory = msgMemory();
+            writeIovec(memory + IOVEC_OFFSET, data.memoryAddress() + data.writerIndex(), data.writableBytes());
+            writeMsghdr(memory + MSGHDR_OFFSET, memory + SOCKADDR_OFFSET, Native.SIZEOF_SOCKADDR_STORAGE,
+                    memory + IOVEC_OFFSET, 1);
+            readUserData = submit(Native.IORING_OP_RECVMSG, 0, memory + MSGHDR_OFFSET, 1, 0, (short) 0);
+        }
+
+        @Override
+        void readCompleted(int res) {
+            ByteBuf data = readBuffer;
+            readBuffer = null;
+            if (isCancelled(res)) {
+                data.release();
+                return;
+            }
+
+            RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ChannelPipeline pipeline = pipeline();
+            if (res >= 0) {
+                data.writerIndex(data.writerIndex() + res);
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                InetSocketAddress sender = SockaddrIn.read(msgMemory + SOCKADDR_OFFSET);
+                pipeline.fireChannelRead(new DatagramPacket(data, (InetSocketAddress) localAddress(), sender));
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+            } else {
+                data.release();
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+                pipeline.fireExceptionCaught(Errors.newIOException("recvmsg", res));
+            }
+            scheduleReadIfNeeded();
+        }
+
+        @Override
+        void writeCompleted(int res) {
+            releaseWriteBuffer();
+            if (isCancelled(res)) {
+                return;
+            }
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (res < 0) {
+                // Continue on write error as a DatagramChannel can write to multiple remote peers
+                //
+                // See https://github.com/netty/netty/issues/2665
+                in.remove(Errors.newIOException("sendmsg", res));
+            } else {
+                in.remove();
+            }
+            writeNext();
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.uring.AbstractIOUringChannel.AbstractIOUringUnsafe;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * {@link EventLoop} which uses io_uring under the covers. Only works on Linux!
+ * <p>
+ * All operations of the channels are only added to the submission queue while running tasks and handling completions.
+ * They are submitted to the kernel in one {@code io_uring_enter(...)} call, which also waits for the next completions,
+ * once per run of the loop.
+ */
+final class IOUringEventLoop extends SingleThreadEventLoop implements CompletionQueue.CompletionCallback {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IOUringEventLoop.class);
+    private static final AtomicIntegerFieldUpdater<IOUringEventLoop> WAKEN_UP_UPDATER;
+    private static final int DEFAULT_RING_SIZE = Math.max(64,
+            SystemPropertyUtil.getInt("io.netty.uring.ringSize", 4096));
+    // How many IovArrays are kept for reuse, more are released once their writes completed.
+    private static final int MAX_POOLED_IOV_ARRAYS = 64;
+    // How long to wait for the completions of cancelled operations on shutdown.
+    private static final long CLOSE_DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long CLOSE_DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    static {
+        // Ensure JNI is initialized by the time this class is loaded. We use classes of io.netty.channel.unix which
+        // are backed by JNI methods, like IovArray.
+        IOUring.ensureAvailability();
+
+        AtomicIntegerFieldUpdater<IOUringEventLoop> updater =
+                PlatformDependent.newAtomicIntegerFieldUpdater(IOUringEventLoop.class, "wakenUp");
+        if (updater == null) {
+            updater = AtomicIntegerFieldUpdater.newUpdater(IOUringEventLoop.class, "wakenUp");
+        }
+        WAKEN_UP_UPDATER = updater;
+    }
+
+    private final RingBuffer ringBuffer;
+    private final SubmissionQueue submissionQueue;
+    private final CompletionQueue completionQueue;
+    private final FileDescriptor eventFd;
+    private final IntObjectMap<AbstractIOUringChannel> channels = new IntObjectHashMap<AbstractIOUringChannel>(4096);
+    private final ArrayDeque<IovArray> iovArrays = new ArrayDeque<IovArray>();
+    // The struct __kernel_timespec of the timeout which wakes up the loop for scheduled tasks.
+    private final long timeoutMemoryAddress;
+
+    private boolean eventFdPollPending;
+    private boolean timeoutPending;
+    private long timeoutDeadlineNanos;
+    private short timeoutId;
+
+    private volatile int wakenUp;
+    private volatile int ioRatio = 50;
+
+    IOUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize) {
+        super(parent, executor, false);
+        boolean success = false;
+        RingBuffer ringBuffer = null;
+        FileDescriptor eventFd = null;
+        try {
+            try {
+                this.ringBuffer = ringBuffer = Native.createRingBuffer(ringSize == 0 ? DEFAULT_RING_SIZE : ringSize);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to create io_uring instance", e);
+            }
+            this.eventFd = eventFd = Native.newEventFd();
+            success = true;
+        } finally {
+            if (!success) {
+                if (ringBuffer != null) {
+                    ringBuffer.close();
+                }
+                if (eventFd != null) {
+                    try {
+                        eventFd.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+        submissionQueue = ringBuffer.submissionQueue();
+        completionQueue = ringBuffer.completionQueue();
+        timeoutMemoryAddress = PlatformDependent.allocateMemory(Native.SIZEOF_KERNEL_TIMESPEC);
+    }
+
+    SubmissionQueue submissionQueue() {
+        return submissionQueue;
+    }
+
+    /**
+     * Returns a file descriptor which channels may use as placeholder for their own, see
+     * {@link Native#detach(int, int)}.
+     */
+    int placeholderFd() {
+        return eventFd.intValue();
+    }
+
+    /**
+     * Return a cleared {@link IovArray} that can be used for a write in this {@link EventLoop}. It must be given back
+     * with {@link #releaseIovArray(IovArray)} once the write completed.
+     */
+    IovArray acquireIovArray() {
+        IovArray array = iovArrays.pollLast();
+        return array == null ? new IovArray() : array;
+    }
+
+    void releaseIovArray(IovArray array) {
+        if (iovArrays.size() < MAX_POOLED_IOV_ARRAYS) {
+            array.clear();
+            iovArrays.addLast(array);
+        } else {
+            array.release();
+        }
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
+            // write to the evfd which will then complete the poll on it and so wake-up io_uring_enter(...)
+            Native.eventFdWrite(eventFd.intValue(), 1L);
+        }
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop}.
+     */
+    void add(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        channels.put(ch.fd().intValue(), ch);
+    }
+
+    /**
+     * Deregister the given channel from this {@link EventLoop}. Must only be called once no operation of the channel
+     * is in flight anymore.
+     */
+    void remove(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        int fd = ch.fd().intValue();
+        if (channels.get(fd) == ch) {
+            channels.remove(fd);
+        }
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue() {
+        // This event loop never calls takeTask()
+        return PlatformDependent.newMpscQueue();
+    }
+
+    @Override
+    public int registeredChannels() {
+        return channels.size();
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    @Override
+    protected void run() {
+        for (;;) {
+            WAKEN_UP_UPDATER.set(this, 0);
+            try {
+                pollEventFd();
+                if (hasTasks()) {
+                    // Non blocking, just submit and handle what is completed already.
+                    submissionQueue.submit();
+                } else {
+                    long currentTimeNanos = System.nanoTime();
+                    long delayNanos = delayNanos(currentTimeNanos);
+                    if (delayNanos > 0) {
+                        // A write to the eventFd by wakeup(...) completes the poll on it and so ends the wait, even
+                        // if it happened before the poll was submitted. No extra wake-up is needed.
+                        addTimeout(currentTimeNanos + delayNanos, delayNanos);
+                        submissionQueue.submitAndWait();
+                    } else {
+                        submissionQueue.submit();
+                    }
+                }
+
+                final int ioRatio = this.ioRatio;
+                if (ioRatio == 100) {
+                    completionQueue.process(this);
+                    runAllTasks();
+                } else {
+                    final long ioStartTime = System.nanoTime();
+
+                    completionQueue.process(this);
+
+                    final long ioTime = System.nanoTime() - ioStartTime;
+                    runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                }
+                if (isShuttingDown()) {
+                    closeAll();
+                    if (confirmShutdown()) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception in the io_uring loop.", t);
+
+                // Prevent possible consecutive immediate failures that lead to
+                // excessive CPU consumption.
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private void pollEventFd() {
+        if (!eventFdPollPending) {
+            eventFdPollPending = true;
+            int fd = eventFd.intValue();
+            submissionQueue.enqueue(Native.IORING_OP_POLL_ADD, Native.POLLIN, fd, 0, 0, 0,
+                    UserData.encode(fd, Native.IORING_OP_POLL_ADD, (short) 0));
+        }
+    }
+
+    private void addTimeout(long deadlineNanos, long delayNanos) {
+        if (timeoutPending) {
+            if (timeoutDeadlineNanos <= deadlineNanos) {
+                // The pending timeout wakes us up early enough, if it is too early the loop just adds a new one.
+                return;
+            }
+            int ringFd = ringBuffer.fd();
+            submissionQueue.enqueue(Native.IORING_OP_TIMEOUT_REMOVE, 0, -1,
+                    UserData.encode(ringFd, Native.IORING_OP_TIMEOUT, timeoutId), 0, 0,
+                    UserData.encode(ringFd, Native.IORING_OP_TIMEOUT_REMOVE, (short) 0));
+        }
+        timeoutPending = true;
+        timeoutDeadlineNanos = deadlineNanos;
+        timeoutId++;
+        // The kernel copies the timespec when the timeout is submitted, so the memory can be reused right after.
+        PlatformDependent.putLong(timeoutMemoryAddress + Native.KERNEL_TIMESPEC_TV_SEC,
+                delayNanos / 1000000000L);
+        PlatformDependent.putLong(timeoutMemoryAddress + Native.KERNEL_TIMESPEC_TV_NSEC,
+                delayNanos % 1000000000L);
+        int ringFd = ringBuffer.fd();
+        submissionQueue.enqueue(Native.IORING_OP_TIMEOUT, 0, -1, timeoutMemoryAddress, 1, 0,
+                UserData.encode(ringFd, Native.IORING_OP_TIMEOUT, timeoutId));
+    }
+
+    @Override
+    public void handle(long userData, int res, int flags) {
+        int fd = UserData.decodeFd(userData);
+        byte op = UserData.decodeOp(userData);
+        if (fd == eventFd.intValue()) {
+            eventFdPollPending = false;
+            if (res > 0) {
+                // consume wakeup event
+                Native.eventFdRead(fd);
+            }
+        } else if (fd == ringBuffer.fd()) {
+            if (op == Native.IORING_OP_TIMEOUT && UserData.decodeData(userData) == timeoutId) {
+                timeoutPending = false;
+            }
+        } else {
+            AbstractIOUringChannel ch = channels.get(fd);
+            if (ch != null) {
+                ((AbstractIOUringUnsafe) ch.unsafe()).completed(op, res, UserData.decodeData(userData));
+            }
+        }
+    }
+
+    private void closeAll() {
+        completionQueue.process(this);
+        Collection<AbstractIOUringChannel> array = new ArrayList<AbstractIOUringChannel>(channels.size());
+
+        for (AbstractIOUringChannel channel: channels.values()) {
+            array.add(channel);
+        }
+
+        for (AbstractIOUringChannel ch: array) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            // The channels were closed already, but their file descriptors are only closed once the cancelled
+            // operations completed. Give the kernel some time for this.
+            long deadline = System.nanoTime() + CLOSE_DRAIN_TIMEOUT_NANOS;
+            while (!channels.isEmpty() && System.nanoTime() < deadline) {
+                try {
+                    addTimeout(System.nanoTime() + CLOSE_DRAIN_INTERVAL_NANOS, CLOSE_DRAIN_INTERVAL_NANOS);
+                    submissionQueue.submitAndWait();
+                } catch (IOException e) {
+                    logger.warn("Failed to wait for the completions of the cancelled operations.", e);
+                    break;
+                }
+                completionQueue.process(this);
+            }
+        } finally {
+            try {
+                // Closing the ring cancels everything which is still in flight, so all the memory used by these
+                // operations can be released safely after it.
+                ringBuffer.close();
+                for (AbstractIOUringChannel ch: channels.values()) {
+                    ((AbstractIOUringUnsafe) ch.unsafe()).forceClose();
+                }
+                channels.clear();
+                try {
+                    eventFd.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close the event fd.", e);
+                }
+            } finally {
+                // release native memory
+                for (IovArray array: iovArrays) {
+                    array.release();
+                }
+                iovArrays.clear();
+                PlatformDependent.freeMemory(timeoutMemoryAddress);
+            }
+        }
+    }
+}
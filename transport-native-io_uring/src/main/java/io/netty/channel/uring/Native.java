@@ -0,0 +1,205 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.afInet6;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.errnoEALREADY;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.errnoEBUSY;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.errnoECANCELED;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.errnoENOENT;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.errnoETIME;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgControl;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgControllen;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgFlags;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgIov;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgIovlen;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgName;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrMsgNamelen;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofSockaddrIn6Sin6Addr;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofSockaddrIn6Sin6Flowinfo;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofSockaddrIn6Sin6Port;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofSockaddrIn6Sin6ScopeId;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollin;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollout;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofIovec;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofMsghdr;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofSockaddrIn6;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofSockaddrStorage;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sockCloexec;
+
+/**
+ * Native helper methods
+ * <p><strong>Internal usage only!</strong>
+ * <p>Static members which call JNI methods must be defined in {@link NativeStaticallyReferencedJniMethods}.
+ */
+final class Native {
+    static {
+        String name = SystemPropertyUtil.get("os.name").toLowerCase(Locale.UK).trim();
+        if (!name.startsWith("linux")) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        // The JNI methods of io.netty.channel.unix are part of the epoll library, so it must be loaded first.
+        Epoll.ensureAvailability();
+        NativeLibraryLoader.load(SystemPropertyUtil.get("io.netty.packagePrefix", "").replace('.', '-') +
+                                 "netty-transport-native-io_uring",
+                                 PlatformDependent.getClassLoader(Native.class));
+    }
+
+    // Opcodes, flags and features of the io_uring kernel ABI, see linux/io_uring.h.
+    static final byte IORING_OP_WRITEV = 2;
+    static final byte IORING_OP_POLL_ADD = 6;
+    static final byte IORING_OP_SENDMSG = 9;
+    static final byte IORING_OP_RECVMSG = 10;
+    static final byte IORING_OP_TIMEOUT = 11;
+    static final byte IORING_OP_TIMEOUT_REMOVE = 12;
+    static final byte IORING_OP_ACCEPT = 13;
+    static final byte IORING_OP_ASYNC_CANCEL = 14;
+    static final byte IORING_OP_CONNECT = 16;
+    static final byte IORING_OP_READ = 22;
+    static final byte IORING_OP_WRITE = 23;
+
+    static final int IORING_ENTER_GETEVENTS = 1;
+    static final int IORING_FEAT_NODROP = 1 << 1;
+    static final int IORING_FEAT_SUBMIT_STABLE = 1 << 2;
+
+    // Size and field offsets of struct __kernel_timespec, which is the same on all architectures.
+    static final int SIZEOF_KERNEL_TIMESPEC = 16;
+    static final int KERNEL_TIMESPEC_TV_SEC = 0;
+    static final int KERNEL_TIMESPEC_TV_NSEC = 8;
+
+    static final int ERRNO_ECANCELED_NEGATIVE = -errnoECANCELED();
+    static final int ERRNO_ETIME_NEGATIVE = -errnoETIME();
+    static final int ERRNO_EALREADY_NEGATIVE = -errnoEALREADY();
+    static final int ERRNO_ENOENT_NEGATIVE = -errnoENOENT();
+    static final int ERRNO_EBUSY_NEGATIVE = -errnoEBUSY();
+    static final int POLLIN = pollin();
+    static final int POLLOUT = pollout();
+    static final int SOCK_CLOEXEC = sockCloexec();
+    static final int AF_INET6 = afInet6();
+
+    static final int SIZEOF_SOCKADDR_IN6 = sizeofSockaddrIn6();
+    static final int SIZEOF_SOCKADDR_STORAGE = sizeofSockaddrStorage();
+    static final int SOCKADDR_IN6_SIN6_PORT = offsetofSockaddrIn6Sin6Port();
+    static final int SOCKADDR_IN6_SIN6_FLOWINFO = offsetofSockaddrIn6Sin6Flowinfo();
+    static final int SOCKADDR_IN6_SIN6_ADDR = offsetofSockaddrIn6Sin6Addr();
+    static final int SOCKADDR_IN6_SIN6_SCOPE_ID = offsetofSockaddrIn6Sin6ScopeId();
+    static final int SIZEOF_IOVEC = sizeofIovec();
+    static final int SIZEOF_MSGHDR = sizeofMsghdr();
+    static final int MSGHDR_MSG_NAME = offsetofMsghdrMsgName();
+    static final int MSGHDR_MSG_NAMELEN = offsetofMsghdrMsgNamelen();
+    static final int MSGHDR_MSG_IOV = offsetofMsghdrMsgIov();
+    static final int MSGHDR_MSG_IOVLEN = offsetofMsghdrMsgIovlen();
+    static final int MSGHDR_MSG_CONTROL = offsetofMsghdrMsgControl();
+    static final int MSGHDR_MSG_CONTROLLEN = offsetofMsghdrMsgControllen();
+    static final int MSGHDR_MSG_FLAGS = offsetofMsghdrMsgFlags();
+
+    // All the operations the transport submits, the kernel must support all of them.
+    private static final int[] REQUIRED_IORING_OPS = {
+            IORING_OP_WRITEV, IORING_OP_POLL_ADD, IORING_OP_SENDMSG, IORING_OP_RECVMSG, IORING_OP_TIMEOUT,
+            IORING_OP_TIMEOUT_REMOVE, IORING_OP_ACCEPT, IORING_OP_ASYNC_CANCEL, IORING_OP_CONNECT, IORING_OP_READ,
+            IORING_OP_WRITE
+    };
+    private static final int REQUIRED_IORING_FEATURES = IORING_FEAT_NODROP | IORING_FEAT_SUBMIT_STABLE;
+
+    static RingBuffer createRingBuffer(int entries) throws IOException {
+        RingBuffer ringBuffer = new RingBuffer(ioUringSetup(entries));
+        if ((ringBuffer.features() & REQUIRED_IORING_FEATURES) != REQUIRED_IORING_FEATURES) {
+            ringBuffer.close();
+            throw new IOException("io_uring features not supported by the kernel: " +
+                    Integer.toHexString(REQUIRED_IORING_FEATURES & ~ringBuffer.features()));
+        }
+        if (!ioUringProbe(ringBuffer.fd(), REQUIRED_IORING_OPS)) {
+            ringBuffer.close();
+            throw new IOException("io_uring operations not supported by the kernel");
+        }
+        return ringBuffer;
+    }
+
+    // The eventfd methods of the epoll library are reused for waking up the IOUringEventLoop.
+
+    static FileDescriptor newEventFd() {
+        return io.netty.channel.epoll.Native.newEventFd();
+    }
+
+    static void eventFdWrite(int fd, long value) {
+        io.netty.channel.epoll.Native.eventFdWrite(fd, value);
+    }
+
+    static void eventFdRead(int fd) {
+        io.netty.channel.epoll.Native.eventFdRead(fd);
+    }
+
+    /**
+     * Returns a new blocking stream socket. The sockets are blocking as otherwise the kernel would complete reads,
+     * writes and accepts with {@code EAGAIN} instead of waiting until they can be done.
+     */
+    static Socket newBlockingSocketStream() throws IOException {
+        return setBlocking(Socket.newSocketStream());
+    }
+
+    /**
+     * Returns a new blocking datagram socket.
+     *
+     * @see #newBlockingSocketStream()
+     */
+    static Socket newBlockingSocketDgram() throws IOException {
+        return setBlocking(Socket.newSocketDgram());
+    }
+
+    private static Socket setBlocking(Socket socket) throws IOException {
+        int res = setBlocking(socket.intValue());
+        if (res < 0) {
+            socket.close();
+            throw Errors.newIOException("fcntl", res);
+        }
+        return socket;
+    }
+
+    /**
+     * Make {@code fd} refer to the file of {@code placeholderFd}. This releases the file {@code fd} referred to
+     * without giving up the file descriptor number, which must not be reused while operations submitted for it are
+     * in flight.
+     */
+    static void detach(int fd, int placeholderFd) throws IOException {
+        int res = dup2(placeholderFd, fd);
+        if (res < 0) {
+            throw Errors.newIOException("dup2", res);
+        }
+    }
+
+    static native long[] ioUringSetup(int entries) throws IOException;
+    static native int ioUringEnter(int ringFd, int toSubmit, int minComplete, int flags);
+    static native void ioUringExit(long sqRingAddress, int sqRingSize, long cqRingAddress, int cqRingSize,
+                                   long sqesAddress, int sqesSize, int ringFd);
+    static native boolean ioUringProbe(int ringFd, int[] ops);
+    private static native int setBlocking(int fd);
+    private static native int dup2(int oldFd, int newFd);
+
+    private Native() {
+        // utility
+    }
+}
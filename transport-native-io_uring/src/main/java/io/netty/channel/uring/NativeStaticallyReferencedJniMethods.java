@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * This class is necessary to break the following cyclic dependency:
+ * <ol>
+ * <li>JNI_OnLoad</li>
+ * <li>JNI Calls FindClass because RegisterNatives (used to register JNI methods) requires a class</li>
+ * <li>FindClass loads the class, but static members variables of that class attempt to call a JNI method which has not
+ * yet been registered.</li>
+ * <li>java.lang.UnsatisfiedLinkError is thrown because native method has not yet been registered.</li>
+ * </ol>
+ * Static members which call JNI methods must not be declared in this class!
+ */
+final class NativeStaticallyReferencedJniMethods {
+
+    private NativeStaticallyReferencedJniMethods() { }
+
+    static native int errnoECANCELED();
+    static native int errnoETIME();
+    static native int errnoEALREADY();
+    static native int errnoENOENT();
+    static native int errnoEBUSY();
+    static native int pollin();
+    static native int pollout();
+    static native int sockNonblock();
+    static native int sockCloexec();
+    static native int afInet6();
+    static native int sizeofSockaddrIn6();
+    static native int sizeofSockaddrStorage();
+    static native int offsetofSockaddrIn6Sin6Port();
+    static native int offsetofSockaddrIn6Sin6Flowinfo();
+    static native int offsetofSockaddrIn6Sin6Addr();
+    static native int offsetofSockaddrIn6Sin6ScopeId();
+    static native int sizeofIovec();
+    static native int sizeofMsghdr();
+    static native int offsetofMsghdrMsgName();
+    static native int offsetofMsghdrMsgNamelen();
+    static native int offsetofMsghdrMsgIov();
+    static native int offsetofMsghdrMsgIovlen();
+    static native int offsetofMsghdrMsgControl();
+    static native int offsetofMsghdrMsgControllen();
+    static native int offsetofMsghdrMsgFlags();
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * The submission and completion queues of an io_uring instance, which are shared with the kernel.
+ */
+final class RingBuffer {
+    // Indices into the array returned by Native.ioUringSetup(int), must be kept in sync with the native code.
+    private static final int RING_FD = 0;
+    private static final int RING_FEATURES = 1;
+    private static final int SQ_HEAD = 2;
+    private static final int SQ_TAIL = 3;
+    private static final int SQ_RING_MASK = 4;
+    private static final int SQ_RING_ENTRIES = 5;
+    private static final int SQ_ARRAY = 8;
+    private static final int SQ_SQES = 9;
+    private static final int SQ_RING_PTR = 10;
+    private static final int SQ_RING_SIZE = 11;
+    private static final int SQ_SQES_SIZE = 12;
+    private static final int CQ_HEAD = 13;
+    private static final int CQ_TAIL = 14;
+    private static final int CQ_RING_MASK = 15;
+    private static final int CQ_RING_ENTRIES = 16;
+    private static final int CQ_CQES = 18;
+    private static final int CQ_RING_PTR = 19;
+    private static final int CQ_RING_SIZE = 20;
+
+    private final long[] values;
+    private final SubmissionQueue submissionQueue;
+    private final CompletionQueue completionQueue;
+    private boolean closed;
+
+    RingBuffer(long[] values) {
+        this.values = values;
+        int ringFd = (int) values[RING_FD];
+        submissionQueue = new SubmissionQueue(values[SQ_HEAD], values[SQ_TAIL], values[SQ_RING_MASK],
+                values[SQ_RING_ENTRIES], values[SQ_ARRAY], values[SQ_SQES], ringFd);
+        completionQueue = new CompletionQueue(values[CQ_HEAD], values[CQ_TAIL], values[CQ_RING_MASK],
+                values[CQ_RING_ENTRIES], values[CQ_CQES]);
+    }
+
+    int fd() {
+        return (int) values[RING_FD];
+    }
+
+    int features() {
+        return (int) values[RING_FEATURES];
+    }
+
+    SubmissionQueue submissionQueue() {
+        return submissionQueue;
+    }
+
+    CompletionQueue completionQueue() {
+        return completionQueue;
+    }
+
+    /**
+     * Unmap the queues and close the io_uring file descriptor. The kernel cancels all operations which are still in
+     * flight.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Native.ioUringExit(values[SQ_RING_PTR], (int) values[SQ_RING_SIZE], values[CQ_RING_PTR],
+                (int) values[CQ_RING_SIZE], values[SQ_SQES], (int) values[SQ_SQES_SIZE], fd());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.NativeInetAddress;
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Reads and writes {@code struct sockaddr_in6} from and to native memory. All sockets are {@code AF_INET6} sockets,
+ * IPv4 addresses are used as IPv4-mapped IPv6 addresses just like in {@link NativeInetAddress}.
+ */
+final class SockaddrIn {
+    private static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+    private static final int IPV6_ADDRESS_LENGTH = 16;
+
+    /**
+     * Write the given address as {@code struct sockaddr_in6} and return its length.
+     */
+    static int write(long memoryAddress, InetSocketAddress address) {
+        NativeInetAddress nativeAddress = NativeInetAddress.newInstance(address.getAddress());
+        for (int i = 0; i < Native.SIZEOF_SOCKADDR_IN6; i++) {
+            PlatformDependent.putByte(memoryAddress + i, (byte) 0);
+        }
+        PlatformDependent.putShort(memoryAddress, (short) Native.AF_INET6);
+        int port = address.getPort();
+        // The port is in network byte order.
+        PlatformDependent.putByte(memoryAddress + Native.SOCKADDR_IN6_SIN6_PORT, (byte) (port >>> 8));
+        PlatformDependent.putByte(memoryAddress + Native.SOCKADDR_IN6_SIN6_PORT + 1, (byte) port);
+        PlatformDependent.copyMemory(nativeAddress.address(), 0, memoryAddress + Native.SOCKADDR_IN6_SIN6_ADDR,
+                IPV6_ADDRESS_LENGTH);
+        PlatformDependent.putInt(memoryAddress + Native.SOCKADDR_IN6_SIN6_SCOPE_ID, nativeAddress.scopeId());
+        return Native.SIZEOF_SOCKADDR_IN6;
+    }
+
+    /**
+     * Read the {@code struct sockaddr_in6} at the given address, or return {@code null} if it is not one.
+     */
+    static InetSocketAddress read(long memoryAddress) {
+        if (PlatformDependent.getShort(memoryAddress) != Native.AF_INET6) {
+            return null;
+        }
+        int port = (PlatformDependent.getByte(memoryAddress + Native.SOCKADDR_IN6_SIN6_PORT) & 0xff) << 8 |
+                PlatformDependent.getByte(memoryAddress + Native.SOCKADDR_IN6_SIN6_PORT + 1) & 0xff;
+        byte[] bytes = new byte[IPV6_ADDRESS_LENGTH];
+        PlatformDependent.copyMemory(memoryAddress + Native.SOCKADDR_IN6_SIN6_ADDR, bytes, 0, IPV6_ADDRESS_LENGTH);
+        try {
+            InetAddress address;
+            if (isIpv4Mapped(bytes)) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(bytes, IPV4_MAPPED_IPV6_PREFIX.length, ipv4, 0, ipv4.length);
+                address = InetAddress.getByAddress(ipv4);
+            } else {
+                int scopeId = PlatformDependent.getInt(memoryAddress + Native.SOCKADDR_IN6_SIN6_SCOPE_ID);
+                address = Inet6Address.getByAddress(null, bytes, scopeId);
+            }
+            return new InetSocketAddress(address, port);
+        } catch (UnknownHostException e) {
+            throw new Error("Should never happen", e);
+        }
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < IPV4_MAPPED_IPV6_PREFIX.length; i++) {
+            if (bytes[i] != IPV4_MAPPED_IPV6_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SockaddrIn() { }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.unix.Errors;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * The submission queue of an io_uring instance. Entries are only written to the queue by {@link #enqueue} and handed
+ * over to the kernel in one batch by the next {@link #submit()} or {@link #submitAndWait()}.
+ * <p>
+ * This class is not thread-safe and must only be used from the {@link IOUringEventLoop}.
+ */
+final class SubmissionQueue {
+    // Size and field offsets of struct io_uring_sqe, see linux/io_uring.h.
+    private static final int SQE_SIZE = 64;
+    private static final int SQE_OP_CODE = 0;
+    private static final int SQE_FLAGS = 1;
+    private static final int SQE_IOPRIO = 2;
+    private static final int SQE_FD = 4;
+    private static final int SQE_OFFSET = 8;
+    private static final int SQE_ADDRESS = 16;
+    private static final int SQE_LEN = 24;
+    private static final int SQE_OP_FLAGS = 28;
+    private static final int SQE_USER_DATA = 32;
+    private static final int SQE_PAD = 40;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long sqesAddress;
+    private final int ringEntries;
+    private final int ringMask;
+    private final int ringFd;
+
+    // Local copies of the kernel head and tail, the tail is only published to the kernel on submit.
+    private int head;
+    private int tail;
+
+    SubmissionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                    long kArrayAddress, long sqesAddress, int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.sqesAddress = sqesAddress;
+        this.ringFd = ringFd;
+        ringEntries = PlatformDependent.getInt(kRingEntriesAddress);
+        ringMask = PlatformDependent.getInt(kRingMaskAddress);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        tail = PlatformDependent.getIntVolatile(kTailAddress);
+
+        // Map every slot of the ring to the entry with the same index once, so enqueue only needs to fill the entry
+        // and move the tail.
+        for (int i = 0; i < ringEntries; i++) {
+            PlatformDependent.putInt(kArrayAddress + i * 4L, i);
+        }
+    }
+
+    /**
+     * Add a new entry to the queue. If the queue is full all pending entries are submitted first.
+     */
+    void enqueue(byte op, int opFlags, int fd, long address, int len, long offset, long userData) {
+        if (tail - head == ringEntries) {
+            int submitted = submitPending();
+            if (submitted == 0) {
+                throw new ChannelException("io_uring submission queue is full");
+            }
+        }
+        long sqe = sqesAddress + (tail & ringMask) * (long) SQE_SIZE;
+        PlatformDependent.putByte(sqe + SQE_OP_CODE, op);
+        PlatformDependent.putByte(sqe + SQE_FLAGS, (byte) 0);
+        PlatformDependent.putShort(sqe + SQE_IOPRIO, (short) 0);
+        PlatformDependent.putInt(sqe + SQE_FD, fd);
+        PlatformDependent.putLong(sqe + SQE_OFFSET, offset);
+        PlatformDependent.putLong(sqe + SQE_ADDRESS, address);
+        PlatformDependent.putInt(sqe + SQE_LEN, len);
+        PlatformDependent.putInt(sqe + SQE_OP_FLAGS, opFlags);
+        PlatformDependent.putLong(sqe + SQE_USER_DATA, userData);
+        for (int i = SQE_PAD; i < SQE_SIZE; i += 8) {
+            PlatformDependent.putLong(sqe + i, 0);
+        }
+        tail++;
+    }
+
+    /**
+     * Returns the number of entries which were enqueued but not submitted yet.
+     */
+    int pending() {
+        return tail - head;
+    }
+
+    /**
+     * Submit all pending entries without waiting for any completion.
+     */
+    int submit() throws IOException {
+        return submit(0, 0);
+    }
+
+    /**
+     * Submit all pending entries and wait until at least one completion is available.
+     */
+    int submitAndWait() throws IOException {
+        return submit(1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    private int submit(int minComplete, int flags) throws IOException {
+        int toSubmit = tail - head;
+        if (toSubmit == 0 && minComplete == 0) {
+            return 0;
+        }
+        PlatformDependent.putIntOrdered(kTailAddress, tail);
+        int ret = Native.ioUringEnter(ringFd, toSubmit, minComplete, flags);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        if (ret < 0) {
+            if (ret == Native.ERRNO_EBUSY_NEGATIVE || ret == Errors.ERRNO_EAGAIN_NEGATIVE) {
+                // The completion queue overflowed or the kernel is out of memory for now, the entries stay in the
+                // queue and are submitted again once the completions were processed.
+                return 0;
+            }
+            throw Errors.newIOException("io_uring_enter", ret);
+        }
+        return ret;
+    }
+
+    private int submitPending() {
+        try {
+            return submit();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+}
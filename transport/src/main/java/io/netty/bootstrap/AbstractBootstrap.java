@@ -278,7 +278,14 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
     }
 
     private ChannelFuture doBind(final SocketAddress localAddress) {
-        final ChannelFuture regFuture = initAndRegister();
+        return doBind(localAddress, group());
+    }
+
+    /**
+     * Create a new {@link Channel}, register it with the given {@link EventLoopGroup} and bind it.
+     */
+    final ChannelFuture doBind(final SocketAddress localAddress, EventLoopGroup group) {
+        final ChannelFuture regFuture = initAndRegister(group);
         final Channel channel = regFuture.channel();
         if (regFuture.cause() != null) {
             return regFuture;
@@ -313,6 +320,10 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
     }
 
     final ChannelFuture initAndRegister() {
+        return initAndRegister(group());
+    }
+
+    private ChannelFuture initAndRegister(EventLoopGroup group) {
         final Channel channel = channelFactory().newChannel();
         try {
             init(channel);
@@ -322,7 +333,7 @@ public abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C ext
             return new DefaultChannelPromise(channel, GlobalEventExecutor.INSTANCE).setFailure(t);
         }
 
-        ChannelFuture regFuture = group().register(channel);
+        ChannelFuture regFuture = group.register(channel);
         if (regFuture.cause() != null) {
             if (channel.isRegistered()) {
                 channel.close();
@@ -25,18 +25,32 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
 import io.netty.util.internal.OneTimeTask;
 import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link Bootstrap} sub-class which allows easy bootstrap of {@link ServerChannel}
@@ -50,6 +64,8 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
     private final Map<AttributeKey<?>, Object> childAttrs = new LinkedHashMap<AttributeKey<?>, Object>();
     private volatile EventLoopGroup childGroup;
     private volatile ChannelHandler childHandler;
+    // Only set on the clone used by bindAcceptors(...), never copied.
+    private boolean childrenOnAcceptorLoop;
 
     public ServerBootstrap() { }
 
@@ -146,6 +162,86 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return childGroup;
     }
 
+    /**
+     * @see #bindAcceptors(SocketAddress)
+     */
+    public Future<ChannelGroup> bindAcceptors(int inetPort) {
+        return bindAcceptors(new InetSocketAddress(inetPort));
+    }
+
+    /**
+     * Create one {@link ServerChannel} per {@link EventLoop} of the child {@link EventLoopGroup} and bind all of them
+     * to the given {@link SocketAddress}. Each {@link ServerChannel} is registered on its own {@link EventLoop} and the
+     * {@link Channel}s it accepts are registered on that same {@link EventLoop}, so accepting is spread over all
+     * {@link EventLoop}s and accepted {@link Channel}s are never handed off to another thread. The parent
+     * {@link EventLoopGroup} is not used.
+     * <p>
+     * The transport must allow to bind multiple {@link ServerChannel}s to the same address, like the epoll transport
+     * does once {@code EpollChannelOption.SO_REUSEPORT} was set via {@link #option(ChannelOption, Object)}.
+     *
+     * @return a {@link Future} which is notified with a {@link ChannelGroup} that contains all bound
+     *         {@link ServerChannel}s. {@link ChannelGroup#close()} closes all of them and returns a single
+     *         {@link ChannelGroupFuture}. If any of the {@link ServerChannel}s could not be bound all of them are
+     *         closed and the {@link Future} is failed.
+     */
+    public Future<ChannelGroup> bindAcceptors(SocketAddress localAddress) {
+        validate();
+        if (localAddress == null) {
+            throw new NullPointerException("localAddress");
+        }
+        final ServerBootstrap bootstrap = clone();
+        bootstrap.childrenOnAcceptorLoop = true;
+        final ChannelGroup acceptors = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        final Promise<ChannelGroup> promise = GlobalEventExecutor.INSTANCE.newPromise();
+        final Iterator<EventExecutor> loops = childGroup.<EventExecutor>children().iterator();
+
+        // Bind the first acceptor on its own so all others use the same port, even if an ephemeral port was requested.
+        ChannelFuture first = bootstrap.doBind(localAddress, (EventLoop) loops.next());
+        acceptors.add(first.channel());
+        first.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    bindRemainingAcceptors(bootstrap, future.channel().localAddress(), loops, acceptors, promise);
+                } else {
+                    promise.setFailure(future.cause());
+                }
+            }
+        });
+        return promise;
+    }
+
+    private static void bindRemainingAcceptors(
+            ServerBootstrap bootstrap, SocketAddress localAddress, Iterator<EventExecutor> loops,
+            final ChannelGroup acceptors, final Promise<ChannelGroup> promise) {
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>();
+        while (loops.hasNext()) {
+            futures.add(bootstrap.doBind(localAddress, (EventLoop) loops.next()));
+        }
+        if (futures.isEmpty()) {
+            promise.setSuccess(acceptors);
+            return;
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    promise.tryFailure(future.cause());
+                }
+                if (remaining.decrementAndGet() == 0 && !promise.trySuccess(acceptors)) {
+                    // At least one bind failed, so close the ones that succeeded.
+                    acceptors.close();
+                }
+            }
+        };
+        for (ChannelFuture future: futures) {
+            acceptors.add(future.channel());
+            future.addListener(listener);
+        }
+    }
+
     @Override
     void init(Channel channel) throws Exception {
         final Map<ChannelOption<?>, Object> options = options();
@@ -165,6 +261,7 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         ChannelPipeline p = channel.pipeline();
 
         final EventLoopGroup currentChildGroup = childGroup;
+        final boolean currentChildrenOnAcceptorLoop = childrenOnAcceptorLoop;
         final ChannelHandler currentChildHandler = childHandler;
         final Entry<ChannelOption<?>, Object>[] currentChildOptions;
         final Entry<AttributeKey<?>, Object>[] currentChildAttrs;
@@ -184,7 +281,8 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
                     pipeline.addLast(handler);
                 }
                 pipeline.addLast(new ServerBootstrapAcceptor(
-                        currentChildGroup, currentChildHandler, currentChildOptions, currentChildAttrs));
+                        currentChildrenOnAcceptorLoop ? ch.eventLoop() : currentChildGroup,
+                        currentChildHandler, currentChildOptions, currentChildAttrs));
             }
         });
     }
@@ -24,13 +24,14 @@ import io.netty.util.internal.StringUtil;
 
 import java.net.SocketAddress;
 
+import static io.netty.channel.ChannelHandlerMask.*;
+
 abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, ResourceLeakHint {
 
     volatile AbstractChannelHandlerContext next;
     volatile AbstractChannelHandlerContext prev;
 
-    private final boolean inbound;
-    private final boolean outbound;
+    private final int executionMask;
     private final DefaultChannelPipeline pipeline;
     private final String name;
     private boolean handlerRemoved;
@@ -48,7 +49,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     AbstractChannelHandlerContext(
             DefaultChannelPipeline pipeline, ChannelHandlerInvoker invoker,
-            String name, boolean inbound, boolean outbound) {
+            String name, Class<? extends ChannelHandler> handlerClass) {
 
         if (name == null) {
             throw new NullPointerException("name");
@@ -58,8 +59,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         this.name = name;
         this.invoker = invoker;
 
-        this.inbound = inbound;
-        this.outbound = outbound;
+        executionMask = mask(handlerClass);
     }
 
     @Override
@@ -99,63 +99,63 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelHandlerContext fireChannelRegistered() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_REGISTERED);
         next.invokeChannelRegistered();
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelUnregistered() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_UNREGISTERED);
         next.invokeChannelUnregistered();
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelActive() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_ACTIVE);
         next.invokeChannelActive();
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelInactive() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_INACTIVE);
         next.invokeChannelInactive();
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireExceptionCaught(Throwable cause) {
-        AbstractChannelHandlerContext next = this.next;
+        AbstractChannelHandlerContext next = findContextInbound(MASK_EXCEPTION_CAUGHT);
         next.invokeExceptionCaught(cause);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireUserEventTriggered(Object event) {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_USER_EVENT_TRIGGERED);
         next.invokeUserEventTriggered(event);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelRead(Object msg) {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_READ);
         next.invokeChannelRead(pipeline.touch(msg, next));
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelReadComplete() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_READ_COMPLETE);
         next.invokeChannelReadComplete();
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelWritabilityChanged() {
-        AbstractChannelHandlerContext next = findContextInbound();
+        AbstractChannelHandlerContext next = findContextInbound(MASK_CHANNEL_WRITABILITY_CHANGED);
         next.invokeChannelWritabilityChanged();
         return this;
     }
@@ -192,7 +192,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelFuture bind(final SocketAddress localAddress, final ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_BIND);
         next.invokeBind(localAddress, promise);
         return promise;
     }
@@ -204,7 +204,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_CONNECT);
         next.invokeConnect(remoteAddress, localAddress, promise);
         return promise;
     }
@@ -215,28 +215,28 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             return close(promise);
         }
 
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_DISCONNECT);
         next.invokeDisconnect(promise);
         return promise;
     }
 
     @Override
     public ChannelFuture close(ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_CLOSE);
         next.invokeClose(promise);
         return promise;
     }
 
     @Override
     public ChannelFuture deregister(ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_DEREGISTER);
         next.invokeDeregister(promise);
         return promise;
     }
 
     @Override
     public ChannelHandlerContext read() {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_READ);
         next.invokeRead();
         return this;
     }
@@ -248,21 +248,21 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     @Override
     public ChannelFuture write(Object msg, ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_WRITE);
         next.invokeWrite(pipeline.touch(msg, next), promise);
         return promise;
     }
 
     @Override
     public ChannelHandlerContext flush() {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_FLUSH);
         next.invokeFlush();
         return this;
     }
 
     @Override
     public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
-        AbstractChannelHandlerContext next = findContextOutbound();
+        AbstractChannelHandlerContext next = findContextOutbound(MASK_WRITE | MASK_FLUSH);
         next.invokeWriteAndFlush(pipeline.touch(msg, next), promise);
         return promise;
     }
@@ -296,19 +296,19 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return new FailedChannelFuture(channel(), executor(), cause);
     }
 
-    private AbstractChannelHandlerContext findContextInbound() {
+    private AbstractChannelHandlerContext findContextInbound(int mask) {
         AbstractChannelHandlerContext ctx = this;
         do {
             ctx = ctx.next;
-        } while (!ctx.inbound);
+        } while ((ctx.executionMask & mask) == 0);
         return ctx;
     }
 
-    private AbstractChannelHandlerContext findContextOutbound() {
+    private AbstractChannelHandlerContext findContextOutbound(int mask) {
         AbstractChannelHandlerContext ctx = this;
         do {
             ctx = ctx.prev;
-        } while (!ctx.outbound);
+        } while ((ctx.executionMask & mask) == 0);
         return ctx;
     }
 
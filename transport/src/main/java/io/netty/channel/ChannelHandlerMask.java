@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Computes which events a {@link ChannelHandler} really handles, so a {@link ChannelHandlerContext} can skip the
+ * handlers that would only forward an event to the next {@link ChannelHandler} in the {@link ChannelPipeline}.
+ */
+final class ChannelHandlerMask {
+
+    // Using to mask which methods must be called for a ChannelHandler.
+    static final int MASK_EXCEPTION_CAUGHT = 1;
+    static final int MASK_CHANNEL_REGISTERED = 1 << 1;
+    static final int MASK_CHANNEL_UNREGISTERED = 1 << 2;
+    static final int MASK_CHANNEL_ACTIVE = 1 << 3;
+    static final int MASK_CHANNEL_INACTIVE = 1 << 4;
+    static final int MASK_CHANNEL_READ = 1 << 5;
+    static final int MASK_CHANNEL_READ_COMPLETE = 1 << 6;
+    static final int MASK_USER_EVENT_TRIGGERED = 1 << 7;
+    static final int MASK_CHANNEL_WRITABILITY_CHANGED = 1 << 8;
+    static final int MASK_BIND = 1 << 9;
+    static final int MASK_CONNECT = 1 << 10;
+    static final int MASK_DISCONNECT = 1 << 11;
+    static final int MASK_CLOSE = 1 << 12;
+    static final int MASK_DEREGISTER = 1 << 13;
+    static final int MASK_READ = 1 << 14;
+    static final int MASK_WRITE = 1 << 15;
+    static final int MASK_FLUSH = 1 << 16;
+
+    static final int MASK_ALL_INBOUND = MASK_EXCEPTION_CAUGHT | MASK_CHANNEL_REGISTERED |
+            MASK_CHANNEL_UNREGISTERED | MASK_CHANNEL_ACTIVE | MASK_CHANNEL_INACTIVE | MASK_CHANNEL_READ |
+            MASK_CHANNEL_READ_COMPLETE | MASK_USER_EVENT_TRIGGERED | MASK_CHANNEL_WRITABILITY_CHANGED;
+    static final int MASK_ALL_OUTBOUND = MASK_EXCEPTION_CAUGHT | MASK_BIND | MASK_CONNECT | MASK_DISCONNECT |
+            MASK_CLOSE | MASK_DEREGISTER | MASK_READ | MASK_WRITE | MASK_FLUSH;
+
+    /**
+     * Cache the computed masks per {@link ChannelHandler} class. Just like {@link ChannelHandlerAdapter#isSharable()}
+     * we use a {@link WeakHashMap} per {@link Thread} to eliminate the volatile write/reads and to not prevent the
+     * handler classes from being unloaded.
+     */
+    private static final FastThreadLocal<Map<Class<? extends ChannelHandler>, Integer>> MASKS =
+            new FastThreadLocal<Map<Class<? extends ChannelHandler>, Integer>>() {
+                @Override
+                protected Map<Class<? extends ChannelHandler>, Integer> initialValue() {
+                    return new WeakHashMap<Class<? extends ChannelHandler>, Integer>(32);
+                }
+            };
+
+    /**
+     * Return the {@code executionMask} of the given {@link ChannelHandler} class.
+     */
+    static int mask(Class<? extends ChannelHandler> clazz) {
+        Map<Class<? extends ChannelHandler>, Integer> cache = MASKS.get();
+        Integer mask = cache.get(clazz);
+        if (mask == null) {
+            mask = mask0(clazz);
+            cache.put(clazz, mask);
+        }
+        return mask;
+    }
+
+    private static int mask0(Class<? extends ChannelHandler> handlerType) {
+        int mask = MASK_EXCEPTION_CAUGHT;
+        if (ChannelInboundHandler.class.isAssignableFrom(handlerType)) {
+            mask |= MASK_ALL_INBOUND;
+
+            if (isSkippable(handlerType, "channelRegistered", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_REGISTERED;
+            }
+            if (isSkippable(handlerType, "channelUnregistered", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_UNREGISTERED;
+            }
+            if (isSkippable(handlerType, "channelActive", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_ACTIVE;
+            }
+            if (isSkippable(handlerType, "channelInactive", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_INACTIVE;
+            }
+            if (isSkippable(handlerType, "channelRead", ChannelHandlerContext.class, Object.class)) {
+                mask &= ~MASK_CHANNEL_READ;
+            }
+            if (isSkippable(handlerType, "channelReadComplete", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_READ_COMPLETE;
+            }
+            if (isSkippable(handlerType, "channelWritabilityChanged", ChannelHandlerContext.class)) {
+                mask &= ~MASK_CHANNEL_WRITABILITY_CHANGED;
+            }
+            if (isSkippable(handlerType, "userEventTriggered", ChannelHandlerContext.class, Object.class)) {
+                mask &= ~MASK_USER_EVENT_TRIGGERED;
+            }
+        }
+
+        if (ChannelOutboundHandler.class.isAssignableFrom(handlerType)) {
+            mask |= MASK_ALL_OUTBOUND;
+
+            if (isSkippable(handlerType, "bind", ChannelHandlerContext.class,
+                    SocketAddress.class, ChannelPromise.class)) {
+                mask &= ~MASK_BIND;
+            }
+            if (isSkippable(handlerType, "connect", ChannelHandlerContext.class, SocketAddress.class,
+                    SocketAddress.class, ChannelPromise.class)) {
+                mask &= ~MASK_CONNECT;
+            }
+            if (isSkippable(handlerType, "disconnect", ChannelHandlerContext.class, ChannelPromise.class)) {
+                mask &= ~MASK_DISCONNECT;
+            }
+            if (isSkippable(handlerType, "close", ChannelHandlerContext.class, ChannelPromise.class)) {
+                mask &= ~MASK_CLOSE;
+            }
+            if (isSkippable(handlerType, "deregister", ChannelHandlerContext.class, ChannelPromise.class)) {
+                mask &= ~MASK_DEREGISTER;
+            }
+            if (isSkippable(handlerType, "read", ChannelHandlerContext.class)) {
+                mask &= ~MASK_READ;
+            }
+            if (isSkippable(handlerType, "write", ChannelHandlerContext.class,
+                    Object.class, ChannelPromise.class)) {
+                mask &= ~MASK_WRITE;
+            }
+            if (isSkippable(handlerType, "flush", ChannelHandlerContext.class)) {
+                mask &= ~MASK_FLUSH;
+            }
+        }
+
+        if (isSkippable(handlerType, "exceptionCaught", ChannelHandlerContext.class, Throwable.class)) {
+            mask &= ~MASK_EXCEPTION_CAUGHT;
+        }
+        return mask;
+    }
+
+    private static boolean isSkippable(Class<?> handlerType, String methodName, Class<?>... paramTypes) {
+        try {
+            return handlerType.getMethod(methodName, paramTypes).isAnnotationPresent(Skip.class);
+        } catch (Exception e) {
+            // Either the method does not exist or we are not allowed to look at it, so we need to call it.
+            return false;
+        }
+    }
+
+    private ChannelHandlerMask() { }
+
+    /**
+     * Indicates that the annotated event handler method in {@link ChannelHandler} will not be invoked by
+     * {@link ChannelPipeline} and so <strong>MUST</strong> only be used when the {@link ChannelHandler}
+     * method does nothing except forward to the next {@link ChannelHandler} in the pipeline.
+     * <p>
+     * Note that this annotation is not {@linkplain Inherited inherited}. If a user overrides a method annotated with
+     * {@link Skip}, it will not be skipped anymore.
+     */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Skip {
+        // no value
+    }
+}
@@ -19,8 +19,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.util.Recycler;
-import io.netty.util.Recycler.Handle;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.InternalThreadLocalMap;
@@ -51,28 +49,39 @@ public final class ChannelOutboundBuffer {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
-    private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
+    private static final int INITIAL_CAPACITY = 8;
+    // The capacity up to which the array of entries is kept once all entries were removed.
+    private static final int MAX_RETAINED_CAPACITY = 256;
+
+    private static final FastThreadLocal<NioBuffers> NIO_BUFFERS = new FastThreadLocal<NioBuffers>() {
         @Override
-        protected ByteBuffer[] initialValue() throws Exception {
-            return new ByteBuffer[1024];
+        protected NioBuffers initialValue() throws Exception {
+            return new NioBuffers();
         }
     };
 
     private final Channel channel;
 
-    // Entry(flushedEntry) --> ... Entry(unflushedEntry) --> ... Entry(tailEntry)
+    // Entry(head) --> ... Entry(head + flushed) --> ... Entry(tail - 1)
     //
-    // The Entry that is the first in the linked-list structure that was flushed
-    private Entry flushedEntry;
-    // The Entry which is the first unflushed in the linked-list structure
-    private Entry unflushedEntry;
-    // The Entry which represents the tail of the buffer
-    private Entry tailEntry;
+    // The entries are stored in a circular array whose length is a power of two. The indexes are not wrapped, so the
+    // Entry at index i is stored at entries[i & (entries.length - 1)]. The entries are owned by this buffer and
+    // reused once they were removed.
+    private Entry[] entries;
+    // The index of the first flushed Entry
+    private int head;
+    // The index after the last Entry
+    private int tail;
     // The number of flushed entries that are not written yet
     private int flushed;
 
     private int nioBufferCount;
     private long nioBufferSize;
+    // The number of flushed entries, starting at head, which were already added to the NIO buffers of this thread.
+    // Only valid if this buffer is the owner of the NIO buffers.
+    private int nioEntries;
+    // Whether this buffer may be the owner of the NIO buffers of this thread, so they need to be cleared.
+    private boolean ownsNioBuffers;
 
     private boolean inFail;
 
@@ -113,18 +122,19 @@ public final class ChannelOutboundBuffer {
      * the message was written.
      */
     public void addMessage(Object msg, int size, ChannelPromise promise) {
-        Entry entry = Entry.newInstance(msg, size, total(msg), promise);
-        if (tailEntry == null) {
-            flushedEntry = null;
-            tailEntry = entry;
-        } else {
-            Entry tail = tailEntry;
-            tail.next = entry;
-            tailEntry = entry;
-        }
-        if (unflushedEntry == null) {
-            unflushedEntry = entry;
+        Entry[] entries = this.entries;
+        if (entries == null) {
+            this.entries = entries = new Entry[INITIAL_CAPACITY];
+        } else if (tail - head == entries.length) {
+            entries = expandEntries();
+        }
+        int index = tail & entries.length - 1;
+        Entry entry = entries[index];
+        if (entry == null) {
+            entries[index] = entry = new Entry();
         }
+        entry.init(msg, size, total(msg), promise);
+        tail ++;
 
         // increment pending bytes after adding message to the unflushed arrays.
         // See https://github.com/netty/netty/issues/1619
@@ -140,25 +150,40 @@ public final class ChannelOutboundBuffer {
         // where added in the meantime.
         //
         // See https://github.com/netty/netty/issues/2577
-        Entry entry = unflushedEntry;
-        if (entry != null) {
-            if (flushedEntry == null) {
-                // there is no flushedEntry yet, so start with the entry
-                flushedEntry = entry;
+        //
+        // The fields are read again in each iteration as a handler may add a message when the writability changes.
+        while (head + flushed != tail) {
+            Entry entry = entry(head + flushed);
+            flushed ++;
+            if (!entry.voidPromise && !entry.promise.setUncancellable()) {
+                // Was cancelled so make sure we free up memory and notify about the freed bytes
+                int pending = entry.cancel();
+                decrementPendingOutboundBytes(pending, false, true);
             }
-            do {
-                flushed ++;
-                if (!entry.promise.setUncancellable()) {
-                    // Was cancelled so make sure we free up memory and notify about the freed bytes
-                    int pending = entry.cancel();
-                    decrementPendingOutboundBytes(pending, false, true);
-                }
-                entry = entry.next;
-            } while (entry != null);
+        }
+    }
 
-            // All flushed so reset unflushedEntry
-            unflushedEntry = null;
+    private Entry entry(int index) {
+        Entry[] entries = this.entries;
+        return entries[index & entries.length - 1];
+    }
+
+    private Entry[] expandEntries() {
+        Entry[] oldEntries = entries;
+        int newCapacity = oldEntries.length << 1;
+        if (newCapacity < 0) {
+            throw new IllegalStateException();
         }
+
+        // The array is full, so copy it starting at the head and move the head to the start of the new array.
+        Entry[] newEntries = new Entry[newCapacity];
+        int first = head & oldEntries.length - 1;
+        System.arraycopy(oldEntries, first, newEntries, 0, oldEntries.length - first);
+        System.arraycopy(oldEntries, 0, newEntries, oldEntries.length - first, first);
+        head = 0;
+        tail = oldEntries.length;
+        entries = newEntries;
+        return newEntries;
     }
 
     /**
@@ -217,20 +242,22 @@ public final class ChannelOutboundBuffer {
      * Return the current message to write or {@code null} if nothing was flushed before and so is ready to be written.
      */
     public Object current() {
-        Entry entry = flushedEntry;
-        if (entry == null) {
+        if (flushed == 0) {
             return null;
         }
 
-        return entry.msg;
+        return entry(head).msg;
     }
 
     /**
      * Notify the {@link ChannelPromise} of the current message about writing progress.
      */
     public void progress(long amount) {
-        Entry e = flushedEntry;
-        assert e != null;
+        assert flushed != 0;
+        progress(entry(head), amount);
+    }
+
+    private static void progress(Entry e, long amount) {
         ChannelPromise p = e.promise;
         if (p instanceof ChannelProgressivePromise) {
             long progress = e.progress + amount;
@@ -245,29 +272,56 @@ public final class ChannelOutboundBuffer {
      * messages are ready to be handled.
      */
     public boolean remove() {
-        Entry e = flushedEntry;
-        if (e == null) {
-            clearNioBuffers();
+        // The NIO buffers do not start with the buffers of the head anymore.
+        clearNioBuffers();
+        if (flushed == 0) {
             return false;
         }
+        removeFirst();
+        return true;
+    }
+
+    private void removeFirst() {
+        Entry e = entry(head);
         Object msg = e.msg;
 
         ChannelPromise promise = e.promise;
         int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
 
         removeEntry(e);
 
-        if (!e.cancelled) {
+        if (!cancelled) {
             // only release message, notify and decrement if it was not canceled before.
             ReferenceCountUtil.safeRelease(msg);
             safeSuccess(promise);
             decrementPendingOutboundBytes(size, false, true);
         }
+    }
 
-        // recycle the entry
-        e.recycle();
+    /**
+     * Will remove the current message without releasing it and without notifying its {@link ChannelPromise}, and
+     * return the {@link ChannelPromise}. The caller takes over the ownership of both, which is useful if the memory
+     * of the message is still in use by the OS after it was written. If no flushed message exists at the time this
+     * method is called, or the message was cancelled, it will return {@code null}.
+     */
+    public ChannelPromise removeWithoutNotify() {
+        clearNioBuffers();
+        if (flushed == 0) {
+            return null;
+        }
+        Entry e = entry(head);
+        ChannelPromise promise = e.promise;
+        int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
 
-        return true;
+        removeEntry(e);
+
+        if (!cancelled) {
+            decrementPendingOutboundBytes(size, false, true);
+        }
+
+        return cancelled ? null : promise;
     }
 
     /**
@@ -280,19 +334,20 @@ public final class ChannelOutboundBuffer {
     }
 
     private boolean remove0(Throwable cause, boolean notifyWritability) {
-        Entry e = flushedEntry;
-        if (e == null) {
-            clearNioBuffers();
+        clearNioBuffers();
+        if (flushed == 0) {
             return false;
         }
+        Entry e = entry(head);
         Object msg = e.msg;
 
         ChannelPromise promise = e.promise;
         int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
 
         removeEntry(e);
 
-        if (!e.cancelled) {
+        if (!cancelled) {
             // only release message, fail and decrement if it was not canceled before.
             ReferenceCountUtil.safeRelease(msg);
 
@@ -300,22 +355,66 @@ public final class ChannelOutboundBuffer {
             decrementPendingOutboundBytes(size, false, notifyWritability);
         }
 
-        // recycle the entry
-        e.recycle();
-
         return true;
     }
 
     private void removeEntry(Entry e) {
-        if (-- flushed == 0) {
-            // processed everything
-            flushedEntry = null;
-            if (e == tailEntry) {
-                tailEntry = null;
-                unflushedEntry = null;
-            }
+        e.clear();
+        head ++;
+        flushed --;
+        maybeShrinkEntries();
+    }
+
+    /**
+     * Removes the given number of flushed entries, which were written completely, and notifies their promises
+     * afterwards, so that a listener which writes to or closes the {@link Channel} sees a consistent state. The
+     * pending bytes are decremented last, so the promises are notified before the writability changes.
+     */
+    private void removeWritten(int count, NioBuffers nioBuffers) {
+        ChannelPromise[] promises = nioBuffers.promises;
+        if (promises == null || promises.length < count) {
+            promises = new ChannelPromise[Math.max(count, INITIAL_CAPACITY)];
         } else {
-            flushedEntry = e.next;
+            // Take the array, so it is not used by a listener which writes to another channel.
+            nioBuffers.promises = null;
+        }
+
+        int promiseCount = 0;
+        long pendingSize = 0;
+        for (int i = 0; i < count; i ++) {
+            Entry e = entry(head + i);
+            if (!e.cancelled) {
+                // only release message, notify and decrement if it was not canceled before.
+                ReferenceCountUtil.safeRelease(e.msg);
+                pendingSize += e.pendingSize;
+                if (!e.voidPromise) {
+                    promises[promiseCount ++] = e.promise;
+                }
+            }
+            e.clear();
+        }
+        head += count;
+        flushed -= count;
+        maybeShrinkEntries();
+
+        for (int i = 0; i < promiseCount; i ++) {
+            ChannelPromise promise = promises[i];
+            promises[i] = null;
+            safeSuccess(promise);
+        }
+        ChannelPromise[] cached = nioBuffers.promises;
+        if (cached == null || cached.length < promises.length) {
+            nioBuffers.promises = promises;
+        }
+        // Like remove() the promises are notified before the writability may change.
+        decrementPendingOutboundBytes(pendingSize, false, true);
+    }
+
+    private void maybeShrinkEntries() {
+        // Release the array if a burst of writes made it big, so idle channels do not hold on to it.
+        if (head == tail && entries.length > MAX_RETAINED_CAPACITY) {
+            entries = null;
+            head = tail = 0;
         }
     }
 
@@ -324,8 +423,16 @@ public final class ChannelOutboundBuffer {
      * This operation assumes all messages in this buffer is {@link ByteBuf}.
      */
     public void removeBytes(long writtenBytes) {
-        for (;;) {
-            Object msg = current();
+        final long totalWrittenBytes = writtenBytes;
+        final NioBuffers nioBuffers = NIO_BUFFERS.get();
+        final int nioEntries = nioBuffers.owner == this ? this.nioEntries : 0;
+
+        // The number of entries which were written completely and the number of NIO buffers they were added as.
+        int written = 0;
+        int writtenNioBuffers = 0;
+        while (written < flushed) {
+            Entry e = entry(head + written);
+            Object msg = e.msg;
             if (!(msg instanceof ByteBuf)) {
                 assert writtenBytes == 0;
                 break;
@@ -337,28 +444,59 @@ public final class ChannelOutboundBuffer {
 
             if (readableBytes <= writtenBytes) {
                 if (writtenBytes != 0) {
-                    progress(readableBytes);
+                    progress(e, readableBytes);
                     writtenBytes -= readableBytes;
                 }
-                remove();
+                if (written < nioEntries && readableBytes > 0 && !e.cancelled) {
+                    writtenNioBuffers += e.count;
+                }
+                written ++;
             } else { // readableBytes > writtenBytes
                 if (writtenBytes != 0) {
                     buf.readerIndex(readerIndex + (int) writtenBytes);
-                    progress(writtenBytes);
+                    progress(e, writtenBytes);
                 }
                 break;
             }
         }
-        clearNioBuffers();
+
+        if (nioBuffers.owner == this && written <= nioEntries && totalWrittenBytes <= nioBufferSize) {
+            // Drop the NIO buffers which were written completely, so the next call of nioBuffers() only needs to add
+            // the buffers of the entries which were not added yet.
+            ByteBuffer[] buffers = nioBuffers.buffers;
+            int remaining = nioBufferCount - writtenNioBuffers;
+            System.arraycopy(buffers, writtenNioBuffers, buffers, 0, remaining);
+            Arrays.fill(buffers, remaining, nioBufferCount, null);
+            nioBuffers.count = nioBufferCount = remaining;
+            nioBufferSize -= totalWrittenBytes;
+            this.nioEntries = nioEntries - written;
+        } else {
+            clearNioBuffers();
+        }
+
+        if (written == 1) {
+            removeFirst();
+        } else if (written > 1) {
+            removeWritten(written, nioBuffers);
+        }
     }
 
     // Clear all ByteBuffer from the array so these can be GC'ed.
     // See https://github.com/netty/netty/issues/3837
     private void clearNioBuffers() {
-        int count = nioBufferCount;
-        if (count > 0) {
-            nioBufferCount = 0;
-            Arrays.fill(NIO_BUFFERS.get(), 0, count, null);
+        nioEntries = 0;
+        nioBufferSize = 0;
+        nioBufferCount = 0;
+        if (ownsNioBuffers) {
+            // Also release the ownership if no buffers were added, so the thread does not keep this buffer and its
+            // entries reachable.
+            ownsNioBuffers = false;
+            NioBuffers nioBuffers = NIO_BUFFERS.get();
+            if (nioBuffers.owner == this) {
+                Arrays.fill(nioBuffers.buffers, 0, nioBuffers.count, null);
+                nioBuffers.count = 0;
+                nioBuffers.owner = null;
+            }
         }
     }
 
@@ -373,12 +511,26 @@ public final class ChannelOutboundBuffer {
      * </p>
      */
     public ByteBuffer[] nioBuffers() {
-        long nioBufferSize = 0;
-        int nioBufferCount = 0;
-        final InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
-        ByteBuffer[] nioBuffers = NIO_BUFFERS.get(threadLocalMap);
-        Entry entry = flushedEntry;
-        while (isFlushedEntry(entry) && entry.msg instanceof ByteBuf) {
+        long nioBufferSize;
+        int nioBufferCount;
+        int nioEntries;
+        final NioBuffers holder = NIO_BUFFERS.get(InternalThreadLocalMap.get());
+        if (holder.owner == this) {
+            // Only add the buffers of the entries which were not added by the previous call.
+            nioBufferSize = this.nioBufferSize;
+            nioBufferCount = this.nioBufferCount;
+            nioEntries = this.nioEntries;
+        } else {
+            nioBufferSize = 0;
+            nioBufferCount = 0;
+            nioEntries = 0;
+        }
+        ByteBuffer[] nioBuffers = holder.buffers;
+        while (nioEntries < flushed) {
+            Entry entry = entry(head + nioEntries);
+            if (!(entry.msg instanceof ByteBuf)) {
+                break;
+            }
             if (!entry.cancelled) {
                 ByteBuf buf = (ByteBuf) entry.msg;
                 final int readerIndex = buf.readerIndex();
@@ -407,7 +559,7 @@ public final class ChannelOutboundBuffer {
                     int neededSpace = nioBufferCount + count;
                     if (neededSpace > nioBuffers.length) {
                         nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
-                        NIO_BUFFERS.set(threadLocalMap, nioBuffers);
+                        holder.buffers = nioBuffers;
                     }
                     if (count == 1) {
                         ByteBuffer nioBuf = entry.buf;
@@ -428,10 +580,18 @@ public final class ChannelOutboundBuffer {
                     }
                 }
             }
-            entry = entry.next;
+            nioEntries ++;
+        }
+        if (holder.count > nioBufferCount) {
+            // Clear the buffers which were added for another ChannelOutboundBuffer.
+            Arrays.fill(nioBuffers, nioBufferCount, holder.count, null);
         }
+        holder.owner = this;
+        holder.count = nioBufferCount;
+        ownsNioBuffers = true;
         this.nioBufferCount = nioBufferCount;
         this.nioBufferSize = nioBufferSize;
+        this.nioEntries = nioEntries;
 
         return nioBuffers;
     }
@@ -640,6 +800,8 @@ public final class ChannelOutboundBuffer {
         }
 
         inFail = true;
+        // Never keep this buffer reachable from the thread, even if one of the checks below fails.
+        clearNioBuffers();
 
         if (channel.isOpen()) {
             throw new IllegalStateException("close() must be invoked after the channel is closed.");
@@ -651,8 +813,8 @@ public final class ChannelOutboundBuffer {
 
         // Release all unflushed messages.
         try {
-            Entry e = unflushedEntry;
-            while (e != null) {
+            while (head != tail) {
+                Entry e = entry(head ++);
                 // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
                 int size = e.pendingSize;
                 TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
@@ -661,12 +823,13 @@ public final class ChannelOutboundBuffer {
                     ReferenceCountUtil.safeRelease(e.msg);
                     safeFail(e.promise, cause);
                 }
-                e = e.recycleAndGetNext();
+                e.clear();
             }
+            entries = null;
+            head = tail = 0;
         } finally {
             inFail = false;
         }
-        clearNioBuffers();
     }
 
     private static void safeSuccess(ChannelPromise promise) {
@@ -730,23 +893,14 @@ public final class ChannelOutboundBuffer {
             throw new NullPointerException("processor");
         }
 
-        Entry entry = flushedEntry;
-        if (entry == null) {
-            return;
-        }
-
-        do {
+        for (int i = 0; i < flushed; i ++) {
+            Entry entry = entry(head + i);
             if (!entry.cancelled) {
                 if (!processor.processMessage(entry.msg)) {
                     return;
                 }
             }
-            entry = entry.next;
-        } while (isFlushedEntry(entry));
-    }
-
-    private boolean isFlushedEntry(Entry e) {
-        return e != null && e != unflushedEntry;
+        }
     }
 
     public interface MessageProcessor {
@@ -758,15 +912,6 @@ public final class ChannelOutboundBuffer {
     }
 
     static final class Entry {
-        private static final Recycler<Entry> RECYCLER = new Recycler<Entry>() {
-            @Override
-            protected Entry newObject(Handle handle) {
-                return new Entry(handle);
-            }
-        };
-
-        private final Handle handle;
-        Entry next;
         Object msg;
         ByteBuffer[] bufs;
         ByteBuffer buf;
@@ -776,18 +921,14 @@ public final class ChannelOutboundBuffer {
         int pendingSize;
         int count = -1;
         boolean cancelled;
+        boolean voidPromise;
 
-        private Entry(Handle handle) {
-            this.handle = handle;
-        }
-
-        static Entry newInstance(Object msg, int size, long total, ChannelPromise promise) {
-            Entry entry = RECYCLER.get();
-            entry.msg = msg;
-            entry.pendingSize = size;
-            entry.total = total;
-            entry.promise = promise;
-            return entry;
+        void init(Object msg, int size, long total, ChannelPromise promise) {
+            this.msg = msg;
+            pendingSize = size;
+            this.total = total;
+            this.promise = promise;
+            voidPromise = promise instanceof VoidChannelPromise;
         }
 
         int cancel() {
@@ -809,8 +950,7 @@ public final class ChannelOutboundBuffer {
             return 0;
         }
 
-        void recycle() {
-            next = null;
+        void clear() {
             bufs = null;
             buf = null;
             msg = null;
@@ -820,13 +960,20 @@ public final class ChannelOutboundBuffer {
             pendingSize = 0;
             count = -1;
             cancelled = false;
-            RECYCLER.recycle(this, handle);
+            voidPromise = false;
         }
+    }
 
-        Entry recycleAndGetNext() {
-            Entry next = this.next;
-            recycle();
-            return next;
-        }
+    /**
+     * The NIO buffers of the thread, which hold the buffers of the entries of the {@link ChannelOutboundBuffer} which
+     * called {@link ChannelOutboundBuffer#nioBuffers()} last.
+     */
+    private static final class NioBuffers {
+        ByteBuffer[] buffers = new ByteBuffer[1024];
+        ChannelOutboundBuffer owner;
+        // The number of buffers which were added by the owner
+        int count;
+        // Used to notify the promises of the written entries at once
+        ChannelPromise[] promises;
     }
 }
@@ -16,6 +16,9 @@
 
 package io.netty.channel;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.util.Recycler;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
@@ -153,6 +156,7 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeChannelReadNow(ctx, msg);
         } else {
+            share(msg);
             safeExecuteInbound(new OneTimeTask() {
                 @Override
                 public void run() {
@@ -341,10 +345,23 @@ public class DefaultChannelHandlerInvoker implements ChannelHandlerInvoker {
         if (executor.inEventLoop()) {
             invokeWriteNow(ctx, msg, promise);
         } else {
+            share(msg);
             safeExecuteOutbound(WriteTask.newInstance(ctx, msg, promise), promise, msg);
         }
     }
 
+    /**
+     * The message is handed to another thread, which may retain and release it while the current thread still holds
+     * a reference, so its reference count must be updated atomically from now on.
+     */
+    private static void share(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBufUtil.share((ByteBuf) msg);
+        } else if (msg instanceof ByteBufHolder) {
+            ByteBufUtil.share(((ByteBufHolder) msg).content());
+        }
+    }
+
     @Override
     public void invokeFlush(final ChannelHandlerContext ctx) {
         if (executor.inEventLoop()) {
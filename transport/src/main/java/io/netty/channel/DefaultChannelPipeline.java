@@ -1301,7 +1301,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         private static final String TAIL_NAME = generateName0(TailContext.class);
 
         TailContext(DefaultChannelPipeline pipeline) {
-            super(pipeline, null, TAIL_NAME, true, false);
+            super(pipeline, null, TAIL_NAME, TailContext.class);
         }
 
         @Override
@@ -1371,7 +1371,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         private final Unsafe unsafe;
 
         HeadContext(DefaultChannelPipeline pipeline) {
-            super(pipeline, null, HEAD_NAME, false, true);
+            super(pipeline, null, HEAD_NAME, HeadContext.class);
             unsafe = pipeline.channel().unsafe();
         }
 
@@ -15,6 +15,8 @@
  */
 package io.netty.channel;
 
+import io.netty.util.concurrent.EventExecutorChooserFactory;
+
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 
@@ -49,6 +51,18 @@ public class DefaultEventLoopGroup extends MultithreadEventLoopGroup {
         super(nThreads, threadFactory);
     }
 
+    /**
+     * Create a new instance
+     *
+     * @param nThreads          the number of threads to use
+     * @param executor          the {@link Executor} or {@code null} to use the default
+     * @param chooserFactory    the {@link EventExecutorChooserFactory} which chooses the {@link EventLoop} that
+     *                          {@link #next()} returns and new {@link Channel}s are registered to
+     */
+    public DefaultEventLoopGroup(int nThreads, Executor executor, EventExecutorChooserFactory chooserFactory) {
+        super(nThreads, executor, chooserFactory);
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         return new DefaultEventLoop(this, executor);
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.InternalThreadLocalMap;
+
+/**
+ * The {@link RecvByteBufAllocator} which lets stream channels read into one large scratch buffer per
+ * {@link EventLoop} thread instead of allocating a buffer whose capacity is only guessed for every read. This keeps
+ * the memory held by connections which are mostly idle and only receive small messages proportional to what they
+ * actually received, for example when a decoder waits for the rest of a message.
+ * <p>
+ * By default exactly the bytes which were read are copied into a new buffer of the {@link ByteBufAllocator} of the
+ * {@link Channel}, which is passed through the {@link ChannelPipeline}. If {@code slice} is {@code true}, a retained
+ * slice of the scratch buffer is passed through the {@link ChannelPipeline} instead, which saves the copy if the
+ * pipeline consumes and releases the data before {@link ChannelHandler#channelRead(ChannelHandlerContext, Object)}
+ * returns. If the slice is still referenced afterwards, the scratch buffer is left to the pipeline and a new one is
+ * allocated for the next read.
+ * <p>
+ * The scratch buffer is only used by the NIO and epoll stream channels, see
+ * {@link RecvByteBufAllocator.SharedBufferHandle}. All other channels, like datagram channels or channels which read
+ * asynchronously, allocate a new buffer of the scratch buffer size for each read.
+ */
+public class LoopLocalRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufAllocator {
+
+    static final int DEFAULT_SCRATCH_SIZE = 65536;
+
+    private static final FastThreadLocal<ByteBuf> SCRATCH = new FastThreadLocal<ByteBuf>() {
+        @Override
+        protected void onRemoval(ByteBuf scratch) throws Exception {
+            if (scratch != null) {
+                scratch.release();
+            }
+        }
+    };
+
+    private final int scratchSize;
+    private final boolean slice;
+
+    private final class HandleImpl extends MaxMessageHandle implements SharedBufferHandle {
+
+        @Override
+        public int guess() {
+            return scratchSize;
+        }
+
+        @Override
+        public ByteBuf allocateShared(ByteBufAllocator alloc) {
+            InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
+            ByteBuf scratch = SCRATCH.get(threadLocalMap);
+            if (scratch == null || scratch.capacity() < scratchSize) {
+                if (scratch != null) {
+                    SCRATCH.remove(threadLocalMap);
+                }
+                scratch = alloc.ioBuffer(scratchSize);
+                SCRATCH.set(threadLocalMap, scratch);
+            }
+            return scratch.retain().clear();
+        }
+
+        @Override
+        public void fireChannelRead(ChannelPipeline pipeline, ByteBuf buf) {
+            if (!slice) {
+                ByteBuf copy = pipeline.channel().alloc().ioBuffer(buf.readableBytes());
+                copy.writeBytes(buf);
+                buf.release();
+                pipeline.fireChannelRead(copy);
+                return;
+            }
+
+            ByteBuf slice = buf.retainedSlice();
+            buf.release();
+            pipeline.fireChannelRead(slice);
+            if (buf.refCnt() != 1) {
+                // The slice was not released yet, so the scratch buffer must not be reused. Leave it to the slice
+                // and allocate a new one for the next read.
+                InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
+                if (SCRATCH.get(threadLocalMap) == buf) {
+                    SCRATCH.remove(threadLocalMap);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance with the default scratch buffer size of {@code 65536} which copies the bytes that were
+     * read.
+     */
+    public LoopLocalRecvByteBufAllocator() {
+        this(DEFAULT_SCRATCH_SIZE, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param scratchSize the capacity of the scratch buffer, which is the maximum number of bytes read at once
+     * @param slice {@code true} if a retained slice of the scratch buffer should be passed through the
+     *              {@link ChannelPipeline}, {@code false} if the bytes that were read should be copied
+     */
+    public LoopLocalRecvByteBufAllocator(int scratchSize, boolean slice) {
+        if (scratchSize <= 0) {
+            throw new IllegalArgumentException("scratchSize: " + scratchSize + " (expected: > 0)");
+        }
+        this.scratchSize = scratchSize;
+        this.slice = slice;
+    }
+
+    @Override
+    public Handle newHandle() {
+        return new HandleImpl();
+    }
+}
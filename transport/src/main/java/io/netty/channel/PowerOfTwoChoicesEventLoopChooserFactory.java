@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.DefaultEventExecutorChooserFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorChooserFactory;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.internal.ThreadLocalRandom;
+
+/**
+ * {@link EventExecutorChooserFactory} which picks two {@link EventExecutor}s at random and chooses the one with the
+ * lower load ("power of two choices"). The load of a {@link SingleThreadEventLoop} is the number of its pending tasks
+ * plus the number of its {@link SingleThreadEventLoop#registeredChannels() registered Channels}, which moves new
+ * {@link Channel}s away from event loops that are saturated by long-lived connections. Comparing only two random
+ * {@link EventExecutor}s keeps the cost of {@link EventExecutorChooser#next()} independent of the number of
+ * {@link EventExecutor}s and does not send a burst of new {@link Channel}s all to the same one.
+ * <p>
+ * Be aware that counting the pending tasks is linear in their number for the task queue of most event loops.
+ */
+public final class PowerOfTwoChoicesEventLoopChooserFactory implements EventExecutorChooserFactory {
+
+    public static final PowerOfTwoChoicesEventLoopChooserFactory INSTANCE =
+            new PowerOfTwoChoicesEventLoopChooserFactory();
+
+    private PowerOfTwoChoicesEventLoopChooserFactory() { }
+
+    @Override
+    public EventExecutorChooser newChooser(EventExecutor[] executors) {
+        if (executors.length == 1) {
+            return DefaultEventExecutorChooserFactory.INSTANCE.newChooser(executors);
+        }
+        return new PowerOfTwoChoicesEventLoopChooser(executors);
+    }
+
+    static int load(EventExecutor executor) {
+        if (!(executor instanceof SingleThreadEventExecutor)) {
+            return 0;
+        }
+        int load = ((SingleThreadEventExecutor) executor).pendingTasks();
+        if (executor instanceof SingleThreadEventLoop) {
+            load += Math.max(0, ((SingleThreadEventLoop) executor).registeredChannels());
+        }
+        return load;
+    }
+
+    private static final class PowerOfTwoChoicesEventLoopChooser implements EventExecutorChooser {
+        private final EventExecutor[] executors;
+
+        PowerOfTwoChoicesEventLoopChooser(EventExecutor[] executors) {
+            this.executors = executors;
+        }
+
+        @Override
+        public EventExecutor next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(executors.length);
+            // Pick a different second one by skipping the first.
+            int second = random.nextInt(executors.length - 1);
+            if (second >= first) {
+                second ++;
+            }
+            EventExecutor a = executors[first];
+            EventExecutor b = executors[second];
+            return load(b) < load(a) ? b : a;
+        }
+    }
+}
@@ -101,6 +101,27 @@ public interface RecvByteBufAllocator {
         void readComplete();
     }
 
+    /**
+     * A {@link Handle} which lets stream channels read into a buffer that is shared with other channels, like the
+     * buffer of {@link LoopLocalRecvByteBufAllocator}. Such a buffer must never be passed through the pipeline as it
+     * is, so channels which support this read into the buffer returned by {@link #allocateShared(ByteBufAllocator)}
+     * and pass it to {@link #fireChannelRead(ChannelPipeline, ByteBuf)}. All other channels use
+     * {@link #allocate(ByteBufAllocator)} as usual.
+     */
+    interface SharedBufferHandle extends Handle {
+        /**
+         * Returns the shared buffer to read into, cleared and retained for the caller. The buffer may only be used
+         * until it was passed to {@link #fireChannelRead(ChannelPipeline, ByteBuf)} or released.
+         */
+        ByteBuf allocateShared(ByteBufAllocator alloc);
+
+        /**
+         * Passes the bytes which were read into the buffer returned by {@link #allocateShared(ByteBufAllocator)}
+         * through the {@link ChannelPipeline} and releases the buffer.
+         */
+        void fireChannelRead(ChannelPipeline pipeline, ByteBuf buf);
+    }
+
     /**
      * A {@link Handle} which delegates all call to some other {@link Handle}.
      */
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.IntSupplier;
+
+/**
+ * Select strategy interface.
+ *
+ * Provides the ability to control the behavior of the select loop. For example a blocking select
+ * operation can be delayed or skipped entirely if there are events to process immediately.
+ */
+public interface SelectStrategy {
+
+    /**
+     * Indicates a blocking select should follow.
+     */
+    int SELECT = -1;
+    /**
+     * Indicates nothing is ready for processing, but tasks are pending so the loop should run them without
+     * blocking first.
+     */
+    int CONTINUE = -2;
+
+    /**
+     * The {@link SelectStrategy} can be used to steer the outcome of a potential select
+     * call.
+     *
+     * @param selectSupplier The supplier which performs a non-blocking select. It returns the number of ready
+     *                       channels, or {@link #CONTINUE} if none are ready but tasks are pending.
+     * @param hasTasks true if tasks are waiting to be processed.
+     * @return {@link #SELECT} if the next step should be blocking select, {@link #CONTINUE} if the tasks should be
+     *         processed without selecting, or the number of ready channels returned by the selectSupplier.
+     */
+    int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception;
+}
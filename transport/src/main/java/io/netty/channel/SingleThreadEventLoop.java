@@ -69,6 +69,14 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         return promise;
     }
 
+    /**
+     * Returns the number of {@link Channel}s registered with this event loop, or {@code -1} if it is not known. The
+     * number may be inaccurate if it is read by another thread, and is meant as an estimate of the load only.
+     */
+    public int registeredChannels() {
+        return -1;
+    }
+
     @Override
     protected boolean wakesUpForTask(Runnable task) {
         return !(task instanceof NonWakeupRunnable);
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.IntSupplier;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory for {@link SelectStrategy}s which keep polling with non-blocking selects before they fall back to a
+ * blocking select. This saves the wake-up latency of the blocking select when events arrive while spinning, at the
+ * cost of keeping the CPU of each event loop busy. Spinning stops after a bounded number of iterations or a bounded
+ * amount of time, whatever comes first.
+ */
+public final class SpinSelectStrategyFactory implements SelectStrategyFactory {
+
+    private final SelectStrategy strategy;
+
+    /**
+     * Create a new instance which spins for at most {@code maxSpins} non-blocking selects.
+     */
+    public SpinSelectStrategyFactory(int maxSpins) {
+        this(maxSpins, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create a new instance which spins for at most the given amount of time.
+     */
+    public SpinSelectStrategyFactory(long spinTime, TimeUnit unit) {
+        this(Integer.MAX_VALUE, spinTime, unit);
+    }
+
+    /**
+     * Create a new instance which spins for at most {@code maxSpins} non-blocking selects and at most the given
+     * amount of time.
+     */
+    public SpinSelectStrategyFactory(int maxSpins, long spinTime, TimeUnit unit) {
+        if (maxSpins <= 0) {
+            throw new IllegalArgumentException("maxSpins: " + maxSpins + " (expected: > 0)");
+        }
+        if (spinTime <= 0) {
+            throw new IllegalArgumentException("spinTime: " + spinTime + " (expected: > 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        strategy = new SpinSelectStrategy(maxSpins, unit.toNanos(spinTime));
+    }
+
+    @Override
+    public SelectStrategy newSelectStrategy() {
+        // The strategy is stateless so it can be shared by all event loops.
+        return strategy;
+    }
+
+    private static final class SpinSelectStrategy implements SelectStrategy {
+        private final int maxSpins;
+        private final long spinTimeNanos;
+
+        SpinSelectStrategy(int maxSpins, long spinTimeNanos) {
+            this.maxSpins = maxSpins;
+            this.spinTimeNanos = spinTimeNanos;
+        }
+
+        @Override
+        public int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception {
+            if (hasTasks) {
+                return selectSupplier.get();
+            }
+            final long deadlineNanos = System.nanoTime() + spinTimeNanos;
+            for (int i = 0; i < maxSpins; i++) {
+                int ready = selectSupplier.get();
+                if (ready != 0) {
+                    // Either something is ready or tasks were submitted in the meantime.
+                    return ready;
+                }
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    break;
+                }
+            }
+            return SELECT;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.BlockingOperationException;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The future of {@link DefaultChannelGroup#broadcast(Object, String, ChannelMatcher)}. Unlike
+ * {@link DefaultChannelGroupFuture} it does not keep the future of every {@link Channel}, but only counts the pending
+ * writes and remembers the failed ones. It is added as the listener of every write itself.
+ */
+final class ChannelGroupBroadcastFuture extends DefaultPromise<Void> implements ChannelFutureListener {
+
+    private final AtomicInteger pending;
+    private List<Map.Entry<Channel, Throwable>> failed;
+
+    ChannelGroupBroadcastFuture(EventExecutor executor, int writes) {
+        super(executor);
+        pending = new AtomicInteger(writes);
+
+        // Done on arrival?
+        if (writes == 0) {
+            super.setSuccess(null);
+        }
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) {
+        if (future.isSuccess()) {
+            done();
+        } else {
+            failed(future.channel(), future.cause());
+        }
+    }
+
+    /**
+     * Marks the write to the given {@link Channel} as failed.
+     */
+    void failed(Channel channel, Throwable cause) {
+        synchronized (this) {
+            if (failed == null) {
+                failed = new ArrayList<Map.Entry<Channel, Throwable>>();
+            }
+            failed.add(new SimpleImmutableEntry<Channel, Throwable>(channel, cause));
+        }
+        done();
+    }
+
+    private void done() {
+        if (pending.decrementAndGet() != 0) {
+            return;
+        }
+        List<Map.Entry<Channel, Throwable>> failed;
+        synchronized (this) {
+            failed = this.failed;
+        }
+        if (failed == null) {
+            super.setSuccess(null);
+        } else {
+            super.setFailure(new ChannelGroupException(failed));
+        }
+    }
+
+    @Override
+    public ChannelGroupBroadcastFuture setSuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean trySuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public ChannelGroupBroadcastFuture setFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean tryFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    protected void checkDeadLock() {
+        EventExecutor e = executor();
+        if (e != null && e != ImmediateEventExecutor.INSTANCE && e.inEventLoop()) {
+            throw new BlockingOperationException();
+        }
+    }
+}
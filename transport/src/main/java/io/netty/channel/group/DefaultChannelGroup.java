@@ -17,21 +17,28 @@ package io.netty.channel.group;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -242,16 +249,27 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
 
     // Create a safe duplicate of the message to write it to a channel but not affect other writes.
     // See https://github.com/netty/netty/issues/1461
+    // The duplicates are released by the event loops of the channels concurrently, so the reference count must not
+    // be confined to the calling thread.
     private static Object safeDuplicate(Object message) {
         if (message instanceof ByteBuf) {
-            return ((ByteBuf) message).duplicate().retain();
+            return ByteBufUtil.share((ByteBuf) message).duplicate().retain();
         } else if (message instanceof ByteBufHolder) {
+            ByteBufUtil.share(((ByteBufHolder) message).content());
             return ((ByteBufHolder) message).duplicate().retain();
         } else {
             return ReferenceCountUtil.retain(message);
         }
     }
 
+    private static void share(Object message) {
+        if (message instanceof ByteBuf) {
+            ByteBufUtil.share((ByteBuf) message);
+        } else if (message instanceof ByteBufHolder) {
+            ByteBufUtil.share(((ByteBufHolder) message).content());
+        }
+    }
+
     @Override
     public ChannelGroupFuture write(Object message, ChannelMatcher matcher) {
         if (message == null) {
@@ -400,6 +418,122 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return new DefaultChannelGroupFuture(this, futures, executor);
     }
 
+    /**
+     * Writes and flushes the given message to all {@link Channel}s of this group which are matched by the given
+     * {@link ChannelMatcher}, see {@link #broadcast(Object, String, ChannelMatcher)}.
+     */
+    public Future<Void> broadcast(Object message, ChannelMatcher matcher) {
+        return broadcast(message, null, matcher);
+    }
+
+    /**
+     * Writes and flushes the given message to all {@link Channel}s of this group which are matched by the given
+     * {@link ChannelMatcher}, like {@link #writeAndFlush(Object, ChannelMatcher)} does. Instead of one task per
+     * {@link Channel}, the {@link Channel}s are grouped by their {@link EventLoop} and one task is submitted to each
+     * {@link EventLoop}, which writes to all of its {@link Channel}s.
+     * <p>
+     * If {@code handlerName} is not {@code null}, the message is written via the {@link ChannelHandlerContext} of the
+     * handler with this name, so it only passes the outbound handlers between this handler and the head of the
+     * pipeline. This allows to encode a message once, for example with the encoder all members use, and to write the
+     * encoded bytes to all members without running their encoders again. The message is written through the whole
+     * pipeline of the {@link Channel}s which do not have such a handler.
+     * <p>
+     * The returned {@link Future} is notified once all writes are complete. If any write failed, it is failed with a
+     * {@link ChannelGroupException} which contains the failed {@link Channel}s. Unlike a {@link ChannelGroupFuture}
+     * it does not keep the {@link ChannelFuture} of every {@link Channel}, which makes it cheap for large groups.
+     */
+    public Future<Void> broadcast(Object message, String handlerName, ChannelMatcher matcher) {
+        if (message == null) {
+            throw new NullPointerException("message");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("matcher");
+        }
+
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        int writes = 0;
+        for (Channel c: nonServerChannels.values()) {
+            if (matcher.matches(c)) {
+                EventLoop loop = c.eventLoop();
+                List<Channel> channels = channelsByLoop.get(loop);
+                if (channels == null) {
+                    channels = new ArrayList<Channel>();
+                    channelsByLoop.put(loop, channels);
+                }
+                channels.add(c);
+                writes ++;
+            }
+        }
+
+        ChannelGroupBroadcastFuture future = new ChannelGroupBroadcastFuture(executor, writes);
+        share(message);
+        for (Map.Entry<EventLoop, List<Channel>> e: channelsByLoop.entrySet()) {
+            // Each task holds a reference to the message until it created the duplicates for its Channels.
+            BroadcastTask task = new BroadcastTask(ReferenceCountUtil.retain(message), handlerName, e.getValue(),
+                                                   future);
+            EventLoop loop = e.getKey();
+            if (loop.inEventLoop()) {
+                task.run();
+            } else {
+                try {
+                    loop.execute(task);
+                } catch (Throwable cause) {
+                    task.fail(cause);
+                }
+            }
+        }
+
+        ReferenceCountUtil.release(message);
+        return future;
+    }
+
+    private static final class BroadcastTask implements Runnable {
+        private final Object message;
+        private final String handlerName;
+        private final List<Channel> channels;
+        private final ChannelGroupBroadcastFuture future;
+
+        BroadcastTask(Object message, String handlerName, List<Channel> channels, ChannelGroupBroadcastFuture future) {
+            this.message = message;
+            this.handlerName = handlerName;
+            this.channels = channels;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (Channel c: channels) {
+                    ChannelPromise promise = c.newPromise().addListener(future);
+                    try {
+                        ChannelHandlerContext ctx = handlerName == null ? null : c.pipeline().context(handlerName);
+                        if (ctx != null) {
+                            ctx.writeAndFlush(safeDuplicate(message), promise);
+                        } else {
+                            c.writeAndFlush(safeDuplicate(message), promise);
+                        }
+                    } catch (Throwable cause) {
+                        // Fail the promise so the write is counted down and the remaining Channels are still written
+                        // to. If the promise is done already, the write was counted down before.
+                        promise.tryFailure(cause);
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(message);
+            }
+        }
+
+        void fail(Throwable cause) {
+            try {
+                for (Channel c: channels) {
+                    future.failed(c, cause);
+                }
+            } finally {
+                ReferenceCountUtil.release(message);
+            }
+        }
+    }
+
     @Override
     public ChannelGroupFuture newCloseFuture() {
         return newCloseFuture(ChannelMatchers.all());
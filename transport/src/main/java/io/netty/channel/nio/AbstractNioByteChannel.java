@@ -77,7 +77,11 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
             if (byteBuf != null) {
                 if (byteBuf.isReadable()) {
                     setReadPending(false);
-                    pipeline.fireChannelRead(byteBuf);
+                    if (allocHandle instanceof RecvByteBufAllocator.SharedBufferHandle) {
+                        ((RecvByteBufAllocator.SharedBufferHandle) allocHandle).fireChannelRead(pipeline, byteBuf);
+                    } else {
+                        pipeline.fireChannelRead(byteBuf);
+                    }
                 } else {
                     byteBuf.release();
                 }
@@ -102,6 +106,9 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
             final ChannelPipeline pipeline = pipeline();
             final ByteBufAllocator allocator = config.getAllocator();
             final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            final RecvByteBufAllocator.SharedBufferHandle sharedHandle =
+                    allocHandle instanceof RecvByteBufAllocator.SharedBufferHandle ?
+                            (RecvByteBufAllocator.SharedBufferHandle) allocHandle : null;
             allocHandle.reset(config);
 
             ByteBuf byteBuf = null;
@@ -109,7 +116,8 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
             try {
                 boolean needReadPendingReset = true;
                 do {
-                    byteBuf = allocHandle.allocate(allocator);
+                    byteBuf = sharedHandle != null ? sharedHandle.allocateShared(allocator)
+                                                   : allocHandle.allocate(allocator);
                     allocHandle.lastBytesRead(doReadBytes(byteBuf));
                     if (allocHandle.lastBytesRead() <= 0) {
                         // nothing was read. release the buffer.
@@ -124,8 +132,15 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                         needReadPendingReset = false;
                         setReadPending(false);
                     }
-                    pipeline.fireChannelRead(byteBuf);
-                    byteBuf = null;
+                    if (sharedHandle != null) {
+                        // Reset first as the buffer is released by the handle.
+                        ByteBuf buf = byteBuf;
+                        byteBuf = null;
+                        sharedHandle.fireChannelRead(pipeline, buf);
+                    } else {
+                        pipeline.fireChannelRead(byteBuf);
+                        byteBuf = null;
+                    }
                 } while (allocHandle.continueReading());
 
                 allocHandle.readComplete();
@@ -19,7 +19,9 @@ package io.netty.channel.nio;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.EventLoopException;
+import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.IntSupplier;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
@@ -28,6 +30,7 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -106,16 +109,31 @@ public final class NioEventLoop extends SingleThreadEventLoop {
      */
     private final AtomicBoolean wakenUp = new AtomicBoolean();
 
+    private final SelectStrategy selectStrategy;
+    private final IntSupplier selectNowSupplier = new IntSupplier() {
+        @Override
+        public int get() throws Exception {
+            int ready = selectNow();
+            // Let a spinning SelectStrategy know that there is work to do even if no channel is ready.
+            return ready == 0 && (hasTasks() || hasScheduledTasks()) ? SelectStrategy.CONTINUE : ready;
+        }
+    };
+
     private volatile int ioRatio = 50;
     private int cancelledKeys;
     private boolean needsToSelectAgain;
 
-    NioEventLoop(NioEventLoopGroup parent, Executor executor, SelectorProvider selectorProvider) {
+    NioEventLoop(NioEventLoopGroup parent, Executor executor, SelectorProvider selectorProvider,
+                 SelectStrategy strategy) {
         super(parent, executor, false);
         if (selectorProvider == null) {
             throw new NullPointerException("selectorProvider");
         }
+        if (strategy == null) {
+            throw new NullPointerException("selectStrategy");
+        }
         provider = selectorProvider;
+        selectStrategy = strategy;
         selector = openSelector();
     }
 
@@ -198,6 +216,16 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    @Override
+    public int registeredChannels() {
+        try {
+            return selector.keys().size() - cancelledKeys;
+        } catch (ClosedSelectorException e) {
+            // The event loop was shut down or is rebuilding its Selector.
+            return -1;
+        }
+    }
+
     /**
      * Returns the percentage of the desired amount of time spent for I/O in the event loop.
      */
@@ -303,9 +331,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         for (;;) {
             boolean oldWakenUp = wakenUp.getAndSet(false);
             try {
-                if (hasTasks()) {
-                    selectNow();
-                } else {
+                if (selectStrategy.calculateStrategy(selectNowSupplier, hasTasks()) == SelectStrategy.SELECT) {
                     select(oldWakenUp);
 
                     // 'wakenUp.compareAndSet(false, true)' is always evaluated
@@ -591,9 +617,9 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
     }
 
-    void selectNow() throws IOException {
+    int selectNow() throws IOException {
         try {
-            selector.selectNow();
+            return selector.selectNow();
         } finally {
             // restore wakup state if needed
             if (wakenUp.get()) {
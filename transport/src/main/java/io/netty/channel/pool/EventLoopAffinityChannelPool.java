@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.ThreadLocalRandom;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * {@link ChannelPool} implementation which keeps the idle {@link Channel}s of every {@link EventLoop} of the
+ * {@link Bootstrap} in a separate shard. If {@link #acquire()} is called from one of these {@link EventLoop}s, a
+ * {@link Channel} that is registered to the same {@link EventLoop} is preferred and new {@link Channel}s are
+ * registered to it as well, so the caller does not need to hop threads to use the {@link Channel}. Only if the shard
+ * of the caller is empty, an idle {@link Channel} of another {@link EventLoop} is used.
+ * <p>
+ * Like {@link SimpleChannelPool} the most recently released {@link Channel} is reused first, as its connection is the
+ * most likely one to still be warm. In addition this implementation can
+ * <ul>
+ * <li>open {@code minIdlePerEventLoop} {@link Channel}s for every {@link EventLoop} up front, and replace them when
+ * they were acquired or closed.</li>
+ * <li>close {@link Channel}s which were idle for longer than {@code maxIdleTime}, as long as more than
+ * {@code minIdlePerEventLoop} {@link Channel}s are idle.</li>
+ * </ul>
+ * No limit on the maximal concurrent {@link Channel}s is enforced.
+ */
+public class EventLoopAffinityChannelPool extends SimpleChannelPool {
+
+    private final Shard[] shards;
+    private final Map<EventExecutor, Shard> shardMap = new IdentityHashMap<EventExecutor, Shard>();
+    private final EventLoopGroup group;
+    private final int minIdlePerEventLoop;
+    private final long maxIdleTimeNanos;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}, which neither opens {@link Channel}s up
+     * front nor closes idle {@link Channel}s.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     */
+    public EventLoopAffinityChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, 0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck           the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                              still healthy when obtain from the {@link ChannelPool}
+     * @param minIdlePerEventLoop   the number of idle {@link Channel}s which are kept open for every {@link EventLoop},
+     *                              or {@code 0} if no {@link Channel}s should be opened up front
+     * @param maxIdleTime           the time after which an idle {@link Channel} is closed, or {@code 0} if idle
+     *                              {@link Channel}s should never be closed
+     * @param unit                  the {@link TimeUnit} of {@code maxIdleTime}
+     */
+    public EventLoopAffinityChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler,
+                                       ChannelHealthChecker healthCheck, int minIdlePerEventLoop,
+                                       long maxIdleTime, TimeUnit unit) {
+        super(bootstrap, handler, healthCheck);
+        if (minIdlePerEventLoop < 0) {
+            throw new IllegalArgumentException(
+                    "minIdlePerEventLoop: " + minIdlePerEventLoop + " (expected: >= 0)");
+        }
+        if (maxIdleTime < 0) {
+            throw new IllegalArgumentException("maxIdleTime: " + maxIdleTime + " (expected: >= 0)");
+        }
+        checkNotNull(unit, "unit");
+        this.minIdlePerEventLoop = minIdlePerEventLoop;
+        maxIdleTimeNanos = unit.toNanos(maxIdleTime);
+        group = bootstrap.group();
+
+        List<Shard> shards = new ArrayList<Shard>();
+        for (EventExecutor executor: group.<EventExecutor>children()) {
+            Shard shard = new Shard((EventLoop) executor);
+            shards.add(shard);
+            shardMap.put(executor, shard);
+        }
+        this.shards = shards.toArray(new Shard[shards.size()]);
+
+        for (Shard shard: this.shards) {
+            if (maxIdleTimeNanos > 0) {
+                shard.evictionFuture = shard.loop.scheduleAtFixedRate(
+                        shard, maxIdleTimeNanos, maxIdleTimeNanos, TimeUnit.NANOSECONDS);
+            }
+            if (minIdlePerEventLoop > 0) {
+                shard.scheduleReplenish();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of idle {@link Channel}s in this pool which are registered to the given {@link EventLoop}.
+     */
+    public int idleChannels(EventLoop loop) {
+        Shard shard = shardMap.get(checkNotNull(loop, "loop"));
+        return shard == null ? 0 : shard.idle.size();
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        Shard shard = localShard();
+        EventLoop loop = shard != null ? shard.loop : group.next();
+        return acquire(loop.<Channel>newPromise());
+    }
+
+    @Override
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        // Register the new Channel to the EventLoop of the caller if possible.
+        Shard shard = localShard();
+        return super.connectChannel(shard != null ? bs.clone(shard.loop) : bs);
+    }
+
+    @Override
+    protected Channel pollChannel() {
+        Shard local = localShard();
+        if (local != null) {
+            Channel ch = local.poll();
+            if (ch != null) {
+                return ch;
+            }
+        }
+
+        // Steal from the other shards, starting at a random one so not all callers drain the same shard.
+        final Shard[] shards = this.shards;
+        int start = shards.length > 1 ? ThreadLocalRandom.current().nextInt(shards.length) : 0;
+        for (int i = 0; i < shards.length; i ++) {
+            Shard shard = shards[(start + i) % shards.length];
+            if (shard != local) {
+                Channel ch = shard.poll();
+                if (ch != null) {
+                    return ch;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean offerChannel(Channel channel) {
+        Shard shard = shardMap.get(channel.eventLoop());
+        if (shard == null || closed) {
+            return false;
+        }
+        shard.idle.offerLast(new IdleChannel(channel, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard: shards) {
+            ScheduledFuture<?> evictionFuture = shard.evictionFuture;
+            if (evictionFuture != null) {
+                evictionFuture.cancel(false);
+            }
+        }
+        super.close();
+    }
+
+    private Shard localShard() {
+        for (Shard shard: shards) {
+            if (shard.loop.inEventLoop()) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    private static final class IdleChannel {
+        final Channel channel;
+        final long idleSince;
+
+        IdleChannel(Channel channel, long idleSince) {
+            this.channel = channel;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * The idle {@link Channel}s of one {@link EventLoop}. {@link Channel}s are only added by the {@link EventLoop}
+     * itself, but may be taken by any thread.
+     */
+    private final class Shard implements Runnable {
+        final EventLoop loop;
+        // The most recently released Channel is the last one.
+        final Deque<IdleChannel> idle = PlatformDependent.newConcurrentDeque();
+        ScheduledFuture<?> evictionFuture;
+        // Only accessed by the EventLoop.
+        private int connecting;
+        private volatile boolean replenishScheduled;
+
+        private final Runnable replenishTask = new Runnable() {
+            @Override
+            public void run() {
+                replenishScheduled = false;
+                replenish();
+            }
+        };
+
+        private final ChannelFutureListener connectListener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                assert loop.inEventLoop();
+                connecting --;
+                Channel channel = future.channel();
+                if (!future.isSuccess()) {
+                    channel.close();
+                } else if (!offerChannel(channel)) {
+                    // The pool was closed in the meantime.
+                    channel.close();
+                }
+            }
+        };
+
+        Shard(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        Channel poll() {
+            IdleChannel ch = idle.pollLast();
+            if (ch == null) {
+                return null;
+            }
+            if (minIdlePerEventLoop > 0) {
+                scheduleReplenish();
+            }
+            return ch.channel;
+        }
+
+        void scheduleReplenish() {
+            if (!replenishScheduled && !closed) {
+                replenishScheduled = true;
+                loop.execute(replenishTask);
+            }
+        }
+
+        @Override
+        public void run() {
+            // Close the Channels which were idle for too long, starting with the least recently released one.
+            long now = System.nanoTime();
+            int size = idle.size();
+            for (Iterator<IdleChannel> i = idle.iterator(); i.hasNext() && size > minIdlePerEventLoop;) {
+                IdleChannel ch = i.next();
+                if (now - ch.idleSince < maxIdleTimeNanos) {
+                    break;
+                }
+                if (idle.removeFirstOccurrence(ch)) {
+                    ch.channel.close();
+                    size --;
+                }
+            }
+            replenish();
+        }
+
+        private void replenish() {
+            assert loop.inEventLoop();
+            if (closed) {
+                return;
+            }
+
+            // Drop the Channels which were closed while they were idle, so they can be replaced.
+            for (Iterator<IdleChannel> i = idle.iterator(); i.hasNext();) {
+                IdleChannel ch = i.next();
+                if (!ch.channel.isActive()) {
+                    idle.removeFirstOccurrence(ch);
+                }
+            }
+
+            int missing = minIdlePerEventLoop - idle.size() - connecting;
+            for (int i = 0; i < missing; i ++) {
+                connecting ++;
+                bootstrap().clone(loop).connect().addListener(connectListener);
+            }
+        }
+    }
+}
@@ -103,8 +103,16 @@ public class SimpleChannelPool implements ChannelPool {
         });
     }
 
+    /**
+     * Returns the {@link Bootstrap} this pool uses to open new connections. Its handler notifies the
+     * {@link ChannelPoolHandler} about created {@link Channel}s, so it must not be changed.
+     */
+    protected Bootstrap bootstrap() {
+        return bootstrap;
+    }
+
     @Override
-    public final Future<Channel> acquire() {
+    public Future<Channel> acquire() {
         return acquire(bootstrap.group().next().<Channel>newPromise());
     }
 
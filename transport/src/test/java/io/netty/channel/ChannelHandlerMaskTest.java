@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.channel.ChannelHandlerMask.*;
+import static org.junit.Assert.*;
+
+public class ChannelHandlerMaskTest {
+
+    @Test
+    public void testAdaptersAreSkipped() {
+        assertEquals(0, mask(ChannelInboundHandlerAdapter.class));
+        assertEquals(0, mask(ChannelOutboundHandlerAdapter.class));
+        assertEquals(0, mask(ChannelDuplexHandler.class));
+    }
+
+    @Test
+    public void testOverriddenMethodsAreNotSkipped() {
+        assertEquals(MASK_CHANNEL_READ, mask(ReadHandler.class));
+        assertEquals(MASK_WRITE | MASK_EXCEPTION_CAUGHT, mask(WriteHandler.class));
+        assertEquals(MASK_ALL_INBOUND, mask(RawInboundHandler.class));
+        // Sub-classes inherit the overridden method but the skipped ones stay skipped.
+        assertEquals(MASK_CHANNEL_READ, mask(new ReadHandler() { }.getClass()));
+    }
+
+    @Test
+    public void testHeadAndTail() {
+        assertEquals(MASK_ALL_OUTBOUND, mask(DefaultChannelPipeline.HeadContext.class));
+        assertEquals(MASK_ALL_INBOUND, mask(DefaultChannelPipeline.TailContext.class));
+    }
+
+    @Test
+    public void testEventsReachHandlersBehindSkippedOnes() {
+        final List<String> events = new ArrayList<String>();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new RecordingHandler("first", events),
+                new ChannelDuplexHandler(),
+                new ReadHandler() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        events.add("read:" + msg);
+                        ctx.writeAndFlush(msg);
+                        ctx.fireExceptionCaught(new Exception("boom"));
+                    }
+                },
+                new ChannelInboundHandlerAdapter(),
+                new RecordingHandler("last", events));
+
+        assertFalse(channel.writeInbound("a"));
+        assertEquals("a", channel.readOutbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+
+        // Writes travel towards the head and exceptions towards the tail, each skipping the adapters in between.
+        assertEquals(3, events.size());
+        assertEquals("read:a", events.get(0));
+        assertEquals("first:write:a", events.get(1));
+        assertEquals("last:exceptionCaught:boom", events.get(2));
+    }
+
+    private static class ReadHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private static class WriteHandler extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            ctx.fireExceptionCaught(cause);
+        }
+    }
+
+    private static final class RecordingHandler extends WriteHandler {
+        private final String name;
+        private final List<String> events;
+
+        RecordingHandler(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            events.add(name + ":write:" + msg);
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            events.add(name + ":exceptionCaught:" + cause.getMessage());
+        }
+    }
+
+    private static final class RawInboundHandler implements ChannelInboundHandler {
+        @Override
+        public void channelRegistered(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelUnregistered(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) { }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) { }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) { }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) { }
+    }
+}
@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.Test;
 
 import java.net.SocketAddress;
@@ -118,6 +119,129 @@ public class ChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testWrapAroundAndExpand() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+
+        for (int i = 0; i < 6; i++) {
+            buffer.addMessage(copyInt(i), 4, channel.voidPromise());
+        }
+        buffer.addFlush();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ((ByteBuf) buffer.current()).getInt(0));
+            assertTrue(buffer.remove());
+        }
+        // Wraps around the end of the array first and then expands it.
+        for (int i = 6; i < 40; i++) {
+            buffer.addMessage(copyInt(i), 4, channel.voidPromise());
+            if (i == 20) {
+                buffer.addFlush();
+            }
+        }
+        assertEquals(17, buffer.size());
+        buffer.addFlush();
+        assertEquals(36, buffer.size());
+        assertEquals(36 * 4, buffer.totalPendingWriteBytes());
+        for (int i = 4; i < 40; i++) {
+            assertEquals(i, ((ByteBuf) buffer.current()).getInt(0));
+            assertTrue(buffer.remove());
+        }
+        assertFalse(buffer.remove());
+        assertNull(buffer.current());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+    }
+
+    @Test
+    public void testRemoveBytesNotifiesInOrder() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+
+        final StringBuilder notified = new StringBuilder();
+        ByteBuf[] bufs = new ByteBuf[10];
+        ChannelPromise[] promises = new ChannelPromise[bufs.length];
+        for (int i = 0; i < bufs.length; i++) {
+            final int index = i;
+            bufs[i] = copyInt(i);
+            promises[i] = new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+            promises[i].addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    notified.append(index);
+                }
+            });
+            buffer.addMessage(bufs[i], 4, i % 2 == 0 ? promises[i] : channel.voidPromise());
+        }
+        buffer.addFlush();
+        buffer.nioBuffers();
+        assertEquals(10, buffer.nioBufferCount());
+        assertEquals(40, buffer.nioBufferSize());
+
+        buffer.removeBytes(22);
+        assertEquals("024", notified.toString());
+        for (int i = 0; i < bufs.length; i++) {
+            assertEquals(i < 5 ? 0 : 1, bufs[i].refCnt());
+        }
+        assertEquals(5, buffer.size());
+        assertEquals(2, bufs[5].readerIndex());
+        assertEquals(20, buffer.totalPendingWriteBytes());
+        assertEquals(5, buffer.nioBufferCount());
+        assertEquals(18, buffer.nioBufferSize());
+
+        // Only the new message needs to be added to the NIO buffers.
+        ByteBuf buf = copyInt(10);
+        buffer.addMessage(buf, 4, channel.voidPromise());
+        buffer.addFlush();
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(6, buffer.nioBufferCount());
+        assertEquals(22, buffer.nioBufferSize());
+        assertEquals(buf.internalNioBuffer(0, 4), buffers[5]);
+        assertNull(buffers[6]);
+
+        buffer.removeBytes(22);
+        assertEquals("02468", notified.toString());
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testNioBuffersOfOtherBuffer() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ChannelOutboundBuffer other = new ChannelOutboundBuffer(channel);
+
+        for (int i = 0; i < 4; i++) {
+            buffer.addMessage(copyInt(i), 4, channel.voidPromise());
+        }
+        buffer.addFlush();
+        other.addMessage(copyInt(4), 4, channel.voidPromise());
+        other.addFlush();
+
+        buffer.nioBuffers();
+        assertEquals(4, buffer.nioBufferCount());
+        ByteBuffer[] buffers = other.nioBuffers();
+        assertEquals(1, other.nioBufferCount());
+        for (int i = 1; i < 4; i++) {
+            assertNull(buffers[i]);
+        }
+
+        // The NIO buffers were overwritten by the other buffer, so they must be added again.
+        buffer.removeBytes(4);
+        buffers = buffer.nioBuffers();
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(12, buffer.nioBufferSize());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, buffers[i].getInt(buffers[i].position()));
+        }
+        release(buffer);
+        release(other);
+    }
+
+    private static ByteBuf copyInt(int value) {
+        return directBuffer(4).writeInt(value);
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {
@@ -239,6 +363,40 @@ public class ChannelOutboundBufferTest {
         safeClose(ch);
     }
 
+    @Test
+    public void testRemoveBytesNotifiesBeforeWritabilityChange() {
+        final StringBuilder buf = new StringBuilder();
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+                buf.append(ctx.channel().isWritable());
+                buf.append(' ');
+            }
+        });
+
+        ch.config().setWriteBufferLowWaterMark(128);
+        ch.config().setWriteBufferHighWaterMark(256);
+
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                buf.append("written ");
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            ch.write(directBuffer().writeZero(100)).addListener(listener);
+        }
+        assertThat(buf.toString(), is("false "));
+
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+        buffer.addFlush();
+        buffer.nioBuffers();
+        buffer.removeBytes(300);
+        assertThat(buf.toString(), is("false written written written true "));
+
+        safeClose(ch);
+    }
+
     @Test
     public void testUserDefinedWritability() {
         final StringBuilder buf = new StringBuilder();
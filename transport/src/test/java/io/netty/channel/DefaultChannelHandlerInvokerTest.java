@@ -15,13 +15,22 @@
  */
 package io.netty.channel;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -64,4 +73,48 @@ public class DefaultChannelHandlerInvokerTest {
         }
         fail();
     }
+
+    @Test(timeout = 30000)
+    public void writeToOtherExecutorSharesConfinedBuffer() throws Exception {
+        final int iterations = 1000000;
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0,
+                0, 1, TimeUnit.SECONDS, false, 1, true);
+        EventExecutorGroup group = new DefaultEventExecutorGroup(1);
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final CountDownLatch written = new CountDownLatch(1);
+        try {
+            EmbeddedChannel channel = new EmbeddedChannel();
+            channel.pipeline().addLast(group, new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                    ByteBuf buf = (ByteBuf) msg;
+                    barrier.await();
+                    for (int i = 0; i < iterations; i++) {
+                        buf.retain();
+                        buf.release();
+                    }
+                    buf.release();
+                    promise.setSuccess();
+                    written.countDown();
+                }
+            });
+
+            // Keep a reference while the message is written by another thread, just like a proxy which forwards
+            // a message to a channel of another event loop and releases it afterwards.
+            ByteBuf buf = allocator.directBuffer(16);
+            buf.retain();
+            channel.write(buf);
+            barrier.await();
+            for (int i = 0; i < iterations; i++) {
+                buf.retain();
+                buf.release();
+            }
+            assertTrue(written.await(20, TimeUnit.SECONDS));
+            assertTrue(buf.release());
+            assertEquals(0, buf.refCnt());
+            assertFalse(channel.finish());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
 }
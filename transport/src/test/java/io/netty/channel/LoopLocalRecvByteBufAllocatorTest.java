@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator.SharedBufferHandle;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoopLocalRecvByteBufAllocatorTest {
+
+    private static final UnpooledByteBufAllocator ALLOC = new UnpooledByteBufAllocator(false);
+
+    @Test
+    public void testCopy() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        SharedBufferHandle handle = (SharedBufferHandle) new LoopLocalRecvByteBufAllocator(1024, false).newHandle();
+
+        ByteBuf scratch = handle.allocateShared(ALLOC);
+        assertEquals(1024, scratch.capacity());
+        scratch.writeBytes("hello".getBytes(CharsetUtil.US_ASCII));
+        handle.fireChannelRead(channel.pipeline(), scratch);
+        assertEquals(1, scratch.refCnt());
+
+        ByteBuf received = channel.readInbound();
+        assertNotSame(scratch, received);
+        assertEquals(5, received.capacity());
+        assertEquals("hello", received.toString(CharsetUtil.US_ASCII));
+
+        // The scratch buffer is reused even though the copy was not released yet.
+        assertSame(scratch, handle.allocateShared(ALLOC));
+        assertEquals(0, scratch.writerIndex());
+        scratch.release();
+        assertEquals("hello", received.toString(CharsetUtil.US_ASCII));
+        received.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testSliceConsumed() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
+        SharedBufferHandle handle = (SharedBufferHandle) new LoopLocalRecvByteBufAllocator(1024, true).newHandle();
+
+        ByteBuf scratch = handle.allocateShared(ALLOC);
+        scratch.writeBytes("hello".getBytes(CharsetUtil.US_ASCII));
+        handle.fireChannelRead(channel.pipeline(), scratch);
+        assertEquals(1, scratch.refCnt());
+
+        assertSame(scratch, handle.allocateShared(ALLOC));
+        scratch.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testSliceNotConsumed() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        SharedBufferHandle handle = (SharedBufferHandle) new LoopLocalRecvByteBufAllocator(1024, true).newHandle();
+
+        ByteBuf scratch = handle.allocateShared(ALLOC);
+        scratch.writeBytes("hello".getBytes(CharsetUtil.US_ASCII));
+        handle.fireChannelRead(channel.pipeline(), scratch);
+
+        // The slice is still queued, so a new scratch buffer must be used for the next read.
+        ByteBuf next = handle.allocateShared(ALLOC);
+        assertNotSame(scratch, next);
+        next.writeBytes("world".getBytes(CharsetUtil.US_ASCII));
+        handle.fireChannelRead(channel.pipeline(), next);
+
+        ByteBuf received = channel.readInbound();
+        assertEquals("hello", received.toString(CharsetUtil.US_ASCII));
+        received.release();
+        assertEquals(0, scratch.refCnt());
+        received = channel.readInbound();
+        assertEquals("world", received.toString(CharsetUtil.US_ASCII));
+        received.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test(timeout = 10000)
+    public void testNioStreamChannel() throws Throwable {
+        testNioStreamChannel(false);
+    }
+
+    @Test(timeout = 10000)
+    public void testNioStreamChannelSlice() throws Throwable {
+        testNioStreamChannel(true);
+    }
+
+    private static void testNioStreamChannel(boolean slice) throws Throwable {
+        final int clients = 4;
+        final byte[][] expected = new byte[clients][];
+        for (int i = 0; i < clients; i++) {
+            expected[i] = new byte[8192];
+            Arrays.fill(expected[i], (byte) i);
+        }
+
+        final byte[][] received = new byte[clients][8192];
+        final int[] receivedBytes = new int[clients];
+        final CountDownLatch latch = new CountDownLatch(clients);
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class);
+            sb.childOption(ChannelOption.RCVBUF_ALLOCATOR, new LoopLocalRecvByteBufAllocator(1024, slice));
+            sb.childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                        private int client = -1;
+
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ByteBuf buf = (ByteBuf) msg;
+                            if (client < 0) {
+                                client = buf.getByte(buf.readerIndex());
+                            }
+                            int length = buf.readableBytes();
+                            buf.readBytes(received[client], receivedBytes[client], length);
+                            buf.release();
+                            receivedBytes[client] += length;
+                            if (receivedBytes[client] == received[client].length) {
+                                latch.countDown();
+                            }
+                        }
+                    });
+                }
+            });
+            InetSocketAddress address = (InetSocketAddress) sb.bind(0).sync().channel().localAddress();
+
+            Socket[] sockets = new Socket[clients];
+            for (int i = 0; i < clients; i++) {
+                sockets[i] = new Socket(NetUtil.LOCALHOST, address.getPort());
+            }
+            for (int offset = 0; offset < 8192; offset += 512) {
+                for (int i = 0; i < clients; i++) {
+                    OutputStream out = sockets[i].getOutputStream();
+                    out.write(expected[i], offset, 512);
+                    out.flush();
+                }
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < clients; i++) {
+                assertArrayEquals(expected[i], received[i]);
+                sockets[i].close();
+            }
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+}
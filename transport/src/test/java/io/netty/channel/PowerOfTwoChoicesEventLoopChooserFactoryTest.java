@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PowerOfTwoChoicesEventLoopChooserFactoryTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    @Test(timeout = 10000)
+    public void testChoosesLessLoadedEventLoop() throws Exception {
+        DefaultEventLoopGroup group = new DefaultEventLoopGroup(
+                2, null, PowerOfTwoChoicesEventLoopChooserFactory.INSTANCE);
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            EventExecutor[] loops = group.children().toArray(new EventExecutor[2]);
+            loops[0].execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            for (int i = 0; i < 10; i ++) {
+                loops[0].execute(NOOP);
+            }
+
+            // With two event loops both are compared every time.
+            for (int i = 0; i < 100; i ++) {
+                assertSame(loops[1], group.next());
+            }
+
+            // Bootstrap registers new Channels via the chooser as well.
+            ServerBootstrap sb = new ServerBootstrap()
+                    .group(group)
+                    .channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter());
+            LocalAddress addr = new LocalAddress(PowerOfTwoChoicesEventLoopChooserFactoryTest.class.getName());
+            Channel sc = sb.bind(addr).sync().channel();
+            assertSame(loops[1], sc.eventLoop());
+            Channel cc = new Bootstrap()
+                    .group(group)
+                    .channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(addr).sync().channel();
+            assertSame(loops[1], cc.eventLoop());
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            latch.countDown();
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testLoadOfUnknownExecutor() {
+        assertEquals(0, PowerOfTwoChoicesEventLoopChooserFactory.load(ImmediateEventExecutor.INSTANCE));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.IntSupplier;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SpinSelectStrategyFactoryTest {
+
+    private static final class CountingSupplier implements IntSupplier {
+        private final int readyAfter;
+        private final int ready;
+        int calls;
+
+        CountingSupplier(int readyAfter, int ready) {
+            this.readyAfter = readyAfter;
+            this.ready = ready;
+        }
+
+        @Override
+        public int get() {
+            return ++calls >= readyAfter ? ready : 0;
+        }
+    }
+
+    @Test
+    public void testSpinsUntilMaxSpins() throws Exception {
+        SelectStrategy strategy = new SpinSelectStrategyFactory(10).newSelectStrategy();
+        CountingSupplier supplier = new CountingSupplier(Integer.MAX_VALUE, 1);
+        assertEquals(SelectStrategy.SELECT, strategy.calculateStrategy(supplier, false));
+        assertEquals(10, supplier.calls);
+    }
+
+    @Test(timeout = 5000)
+    public void testSpinsUntilSpinTime() throws Exception {
+        SelectStrategy strategy = new SpinSelectStrategyFactory(10, TimeUnit.MILLISECONDS).newSelectStrategy();
+        CountingSupplier supplier = new CountingSupplier(Integer.MAX_VALUE, 1);
+        long start = System.nanoTime();
+        assertEquals(SelectStrategy.SELECT, strategy.calculateStrategy(supplier, false));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testReturnsReady() throws Exception {
+        SelectStrategy strategy = new SpinSelectStrategyFactory(10).newSelectStrategy();
+        CountingSupplier supplier = new CountingSupplier(3, 2);
+        assertEquals(2, strategy.calculateStrategy(supplier, false));
+        assertEquals(3, supplier.calls);
+    }
+
+    @Test
+    public void testReturnsContinue() throws Exception {
+        SelectStrategy strategy = new SpinSelectStrategyFactory(10).newSelectStrategy();
+        CountingSupplier supplier = new CountingSupplier(5, SelectStrategy.CONTINUE);
+        assertEquals(SelectStrategy.CONTINUE, strategy.calculateStrategy(supplier, false));
+        assertEquals(5, supplier.calls);
+    }
+
+    @Test
+    public void testNoSpinWithTasks() throws Exception {
+        SelectStrategy strategy = new SpinSelectStrategyFactory(10).newSelectStrategy();
+        CountingSupplier supplier = new CountingSupplier(Integer.MAX_VALUE, 1);
+        assertEquals(0, strategy.calculateStrategy(supplier, true));
+        assertEquals(1, supplier.calls);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSpins() {
+        new SpinSelectStrategyFactory(0);
+    }
+}
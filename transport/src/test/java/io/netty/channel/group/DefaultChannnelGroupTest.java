@@ -16,15 +16,34 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.CustomChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.Test;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
 public class DefaultChannnelGroupTest {
 
     // Test for #1183
@@ -57,4 +76,126 @@ public class DefaultChannnelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test
+    public void testBroadcast() {
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        CountingHandler encoder = new CountingHandler();
+        CountingHandler other = new CountingHandler();
+        EmbeddedChannel[] channels = new EmbeddedChannel[3];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new EmbeddedChannel(new CustomChannelId(i));
+            // Only the first two Channels have the handler, so the last one is written through its whole pipeline.
+            if (i < 2) {
+                channels[i].pipeline().addLast("encoder", encoder);
+            } else {
+                channels[i].pipeline().addLast("other", other);
+            }
+            group.add(channels[i]);
+        }
+
+        ByteBuf message = Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII);
+        Future<Void> future = group.broadcast(message, "encoder", ChannelMatchers.all());
+        assertTrue(future.isSuccess());
+        assertEquals(0, encoder.writes.get());
+        assertEquals(1, other.writes.get());
+        for (EmbeddedChannel channel: channels) {
+            ByteBuf buf = channel.readOutbound();
+            assertEquals("hello", buf.toString(CharsetUtil.US_ASCII));
+            buf.release();
+            assertFalse(channel.finish());
+        }
+        assertEquals(0, message.refCnt());
+    }
+
+    @Test
+    public void testBroadcastFailure() {
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        final Exception exception = new Exception();
+        EmbeddedChannel channel = new EmbeddedChannel(new CustomChannelId(0));
+        EmbeddedChannel failingChannel = new EmbeddedChannel(new CustomChannelId(1),
+                                                             new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(exception);
+            }
+        });
+        group.add(channel);
+        group.add(failingChannel);
+
+        ByteBuf message = Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII);
+        Future<Void> future = group.broadcast(message, ChannelMatchers.all());
+        assertTrue(future.isDone());
+        Iterator<Map.Entry<Channel, Throwable>> failed = ((ChannelGroupException) future.cause()).iterator();
+        Map.Entry<Channel, Throwable> entry = failed.next();
+        assertSame(failingChannel, entry.getKey());
+        assertSame(exception, entry.getValue());
+        assertFalse(failed.hasNext());
+
+        ByteBuf buf = channel.readOutbound();
+        assertEquals("hello", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        assertEquals(0, message.refCnt());
+        assertFalse(channel.finish());
+        assertFalse(failingChannel.finish());
+    }
+
+    @Test
+    public void testBroadcastWriteThrows() {
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        final RuntimeException exception = new RuntimeException();
+        final EmbeddedChannel channel = new EmbeddedChannel(new CustomChannelId(1));
+        EmbeddedChannel throwingChannel = new EmbeddedChannel(new CustomChannelId(0)) {
+            @Override
+            public EventLoop eventLoop() {
+                // Share the EventLoop so both Channels are written to by the same task.
+                return channel.eventLoop();
+            }
+
+            @Override
+            public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                throw exception;
+            }
+        };
+        // Add the throwing Channel first so it is written to first.
+        group.add(throwingChannel);
+        group.add(channel);
+
+        ByteBuf message = Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII);
+        Future<Void> future = group.broadcast(message, ChannelMatchers.all());
+        assertTrue(future.isDone());
+        Iterator<Map.Entry<Channel, Throwable>> failed = ((ChannelGroupException) future.cause()).iterator();
+        Map.Entry<Channel, Throwable> entry = failed.next();
+        assertSame(throwingChannel, entry.getKey());
+        assertSame(exception, entry.getValue());
+        assertFalse(failed.hasNext());
+
+        ByteBuf buf = channel.readOutbound();
+        assertEquals("hello", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        assertEquals(0, message.refCnt());
+        assertFalse(channel.finish());
+        assertFalse(throwingChannel.finish());
+    }
+
+    @Test
+    public void testBroadcastToEmptyGroup() {
+        DefaultChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        ByteBuf message = Unpooled.buffer();
+        assertTrue(group.broadcast(message, ChannelMatchers.all()).isSuccess());
+        assertEquals(0, message.refCnt());
+    }
+
+    @Sharable
+    private static final class CountingHandler extends ChannelOutboundHandlerAdapter {
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            writes.incrementAndGet();
+            ctx.write(msg, promise);
+        }
+    }
 }
@@ -16,9 +16,19 @@
 package io.netty.channel.nio;
 
 import io.netty.channel.AbstractEventLoopTest;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SpinSelectStrategyFactory;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.Test;
+
+import java.nio.channels.spi.SelectorProvider;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
 
 public class NioEventLoopTest extends AbstractEventLoopTest {
 
@@ -31,4 +41,26 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
     protected Class<? extends ServerSocketChannel> newChannel() {
         return NioServerSocketChannel.class;
     }
+
+    @Test(timeout = 10000)
+    public void testSpinSelectStrategyRunsTasks() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1, (Executor) null,
+                SelectorProvider.provider(), new SpinSelectStrategyFactory(1000));
+        try {
+            EventLoop loop = group.next();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            };
+            for (int i = 0; i < 100; i++) {
+                assertTrue(loop.submit(task).await(5, TimeUnit.SECONDS));
+            }
+            Future<?> future = loop.schedule(task, 100, TimeUnit.MICROSECONDS);
+            assertTrue(future.await(5, TimeUnit.SECONDS));
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
 }
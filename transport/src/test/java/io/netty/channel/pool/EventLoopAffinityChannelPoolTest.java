@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventLoopAffinityChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private EventLoopGroup group;
+    private EventLoop loop1;
+    private EventLoop loop2;
+    private Bootstrap cb;
+    private Channel sc;
+
+    @Before
+    public void setUp() throws Exception {
+        group = new LocalEventLoopGroup(2);
+        loop1 = group.next();
+        loop2 = group.next();
+        assertNotSame(loop1, loop2);
+
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).sync().channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sc.close().sync();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testPrefersChannelOfCallerEventLoop() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopAffinityChannelPool pool = new EventLoopAffinityChannelPool(cb, handler);
+
+        Channel channel1 = acquire(pool, loop1);
+        Channel channel2 = acquire(pool, loop2);
+        assertSame(loop1, channel1.eventLoop());
+        assertSame(loop2, channel2.eventLoop());
+        pool.release(channel1).sync();
+        pool.release(channel2).sync();
+        assertEquals(1, pool.idleChannels(loop1));
+        assertEquals(1, pool.idleChannels(loop2));
+
+        assertSame(channel2, acquire(pool, loop2));
+        assertSame(channel1, acquire(pool, loop1));
+        assertEquals(2, handler.channelCount());
+        pool.release(channel1).sync();
+        pool.release(channel2).sync();
+        pool.close();
+    }
+
+    @Test
+    public void testStealsIfLocalShardIsEmpty() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopAffinityChannelPool pool = new EventLoopAffinityChannelPool(cb, handler);
+
+        Channel channel = acquire(pool, loop1);
+        pool.release(channel).sync();
+
+        assertSame(channel, acquire(pool, loop2));
+        assertEquals(0, pool.idleChannels(loop1));
+        assertEquals(1, handler.channelCount());
+        pool.release(channel).sync();
+        assertEquals(1, pool.idleChannels(loop1));
+        pool.close();
+    }
+
+    @Test
+    public void testReusesMostRecentlyReleased() throws Exception {
+        EventLoopAffinityChannelPool pool = new EventLoopAffinityChannelPool(cb, new CountingChannelPoolHandler());
+
+        Channel channel1 = acquire(pool, loop1);
+        Channel channel2 = acquire(pool, loop1);
+        assertNotSame(channel1, channel2);
+        pool.release(channel1).sync();
+        pool.release(channel2).sync();
+
+        assertSame(channel2, acquire(pool, loop1));
+        assertSame(channel1, acquire(pool, loop1));
+        pool.release(channel1).sync();
+        pool.release(channel2).sync();
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testMinIdle() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopAffinityChannelPool pool = new EventLoopAffinityChannelPool(
+                cb, handler, ChannelHealthChecker.ACTIVE, 2, 0, TimeUnit.MILLISECONDS);
+
+        awaitIdle(pool, loop1, 2);
+        awaitIdle(pool, loop2, 2);
+        assertEquals(4, handler.channelCount());
+
+        // The acquired Channel is replaced.
+        Channel channel = acquire(pool, loop1);
+        awaitIdle(pool, loop1, 2);
+        assertEquals(5, handler.channelCount());
+        pool.release(channel).sync();
+        assertEquals(3, pool.idleChannels(loop1));
+
+        pool.close();
+        assertEquals(0, pool.idleChannels(loop1));
+        assertEquals(0, pool.idleChannels(loop2));
+        channel.closeFuture().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testMaxIdleTime() throws Exception {
+        EventLoopAffinityChannelPool pool = new EventLoopAffinityChannelPool(
+                cb, new CountingChannelPoolHandler(), ChannelHealthChecker.ACTIVE, 0, 100, TimeUnit.MILLISECONDS);
+
+        Channel channel1 = acquire(pool, loop1);
+        Channel channel2 = acquire(pool, loop1);
+        pool.release(channel1).sync();
+        pool.release(channel2).sync();
+        assertEquals(2, pool.idleChannels(loop1));
+
+        awaitIdle(pool, loop1, 0);
+        channel1.closeFuture().sync();
+        channel2.closeFuture().sync();
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testMaxIdleTimeKeepsMinIdle() throws Exception {
+        EventLoopAffinityChannelPool pool = new EventLoopAffinityChannelPool(
+                cb, new CountingChannelPoolHandler(), ChannelHealthChecker.ACTIVE, 1, 100, TimeUnit.MILLISECONDS);
+        awaitIdle(pool, loop1, 1);
+
+        // Wait until the acquired Channel was replaced.
+        Channel channel = acquire(pool, loop1);
+        awaitIdle(pool, loop1, 1);
+        pool.release(channel).sync();
+
+        // The Channel which was idle for longer is closed and the most recently released one is kept.
+        awaitIdle(pool, loop1, 1);
+        assertTrue(channel.isActive());
+        assertSame(channel, acquire(pool, loop1));
+        pool.release(channel).sync();
+        pool.close();
+    }
+
+    @Test
+    public void testPoolMap() throws Exception {
+        AbstractChannelPoolMap<EventLoopGroup, EventLoopAffinityChannelPool> poolMap =
+                new AbstractChannelPoolMap<EventLoopGroup, EventLoopAffinityChannelPool>() {
+            @Override
+            protected EventLoopAffinityChannelPool newPool(EventLoopGroup key) {
+                return new EventLoopAffinityChannelPool(cb.clone(key), new CountingChannelPoolHandler());
+            }
+        };
+
+        EventLoopAffinityChannelPool pool = poolMap.get(group);
+        Channel channel = acquire(pool, loop2);
+        assertSame(loop2, channel.eventLoop());
+        pool.release(channel).sync();
+        poolMap.close();
+        channel.closeFuture().sync();
+    }
+
+    private static Channel acquire(final ChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(new Callable<Future<Channel>>() {
+            @Override
+            public Future<Channel> call() {
+                return pool.acquire();
+            }
+        }).sync().getNow().sync().getNow();
+    }
+
+    private static void awaitIdle(EventLoopAffinityChannelPool pool, EventLoop loop, int idle) throws Exception {
+        while (pool.idleChannels(loop) != idle) {
+            Thread.sleep(10);
+        }
+    }
+}